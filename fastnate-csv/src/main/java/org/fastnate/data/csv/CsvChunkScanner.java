@@ -0,0 +1,190 @@
+package org.fastnate.data.csv;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.supercsv.comment.CommentMatcher;
+import org.supercsv.prefs.CsvPreference;
+
+import lombok.Getter;
+
+/**
+ * Finds the boundaries of chunks in a CSV file, that contain only complete rows.
+ *
+ * The scanner reads the memory mapped bytes of the file and only looks for line breaks and quotes. A line break ends a
+ * row, if it is not part of a quoted (multi-line) value. Like super-csv, the scanner accepts {@code "\n"},
+ * {@code "\r\n"} and a single {@code '\r'} as line break. Comment lines are skipped, as any quote in them would
+ * otherwise start a quoted value.
+ *
+ * The bytes of line breaks and quotes are only unique in charsets that are compatible to ASCII in that respect and for
+ * a quote character from ASCII, see {@link #isSupported(Charset, CsvPreference)}.
+ *
+ * @author Tobias Liefke
+ */
+final class CsvChunkScanner {
+
+	/** The size of the mapped window of the file, that is scanned at once. */
+	private static final int WINDOW_SIZE = 1 << 26;
+
+	private static final byte LINE_FEED = '\n';
+
+	private static final byte CARRIAGE_RETURN = '\r';
+
+	/** The highest character that is encoded with the same single byte in ASCII and all supported charsets. */
+	private static final char MAX_ASCII_CHAR = 0x7F;
+
+	private static boolean isLineBreak(final byte b) {
+		return b == LINE_FEED || b == CARRIAGE_RETURN;
+	}
+
+	/**
+	 * Indicates that the chunks of a file in the given charset can be found by the scanner.
+	 *
+	 * @param charset
+	 *            the charset of the file
+	 * @param csvSettings
+	 *            the settings for the quote character
+	 * @return {@code true} if the bytes of line breaks and quotes can't be part of another character
+	 */
+	static boolean isSupported(final Charset charset, final CsvPreference csvSettings) {
+		final char quoteChar = csvSettings.getQuoteChar();
+		if (quoteChar > MAX_ASCII_CHAR) {
+			// The quote is not a single byte or the byte can't be distinguished from other characters
+			return false;
+		}
+		final String specialChars = new String(new char[] { quoteChar, '\n', '\r' });
+		return (charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1)
+				&& Arrays.equals(specialChars.getBytes(charset), specialChars.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private final FileChannel channel;
+
+	private final Charset charset;
+
+	private final byte quote;
+
+	private final CommentMatcher commentMatcher;
+
+	/** The size of the scanned file. */
+	@Getter
+	private final long size;
+
+	/** The currently mapped part of the file. */
+	private MappedByteBuffer window;
+
+	/** The position of the {@link #window} in the file. */
+	private long windowStart;
+
+	/** The position of the next byte to scan. */
+	@Getter
+	private long position;
+
+	/**
+	 * Creates a new scanner for a file.
+	 *
+	 * @param channel
+	 *            the channel of the file
+	 * @param start
+	 *            the position of the first row in the file (behind any byte order mark)
+	 * @param charset
+	 *            the charset of the file
+	 * @param csvSettings
+	 *            the settings for the quote character and the comments
+	 * @throws IOException
+	 *             if the channel is not accessible
+	 */
+	CsvChunkScanner(final FileChannel channel, final long start, final Charset charset, final CsvPreference csvSettings)
+			throws IOException {
+		this.channel = channel;
+		this.charset = charset;
+		this.quote = (byte) csvSettings.getQuoteChar();
+		this.commentMatcher = csvSettings.getCommentMatcher();
+		this.size = channel.size();
+		this.position = start;
+	}
+
+	private byte byteAt(final long index) throws IOException {
+		if (this.window == null || index < this.windowStart || index >= this.windowStart + this.window.limit()) {
+			this.windowStart = index;
+			this.window = this.channel.map(MapMode.READ_ONLY, index, Math.min(WINDOW_SIZE, this.size - index));
+		}
+		return this.window.get((int) (index - this.windowStart));
+	}
+
+	/**
+	 * Indicates that all rows of the file were scanned.
+	 *
+	 * @return {@code true} if there is no further chunk
+	 */
+	boolean isFinished() {
+		return this.position >= this.size;
+	}
+
+	private boolean isComment(final long lineStart, final long lineEnd) throws IOException {
+		final byte[] line = new byte[(int) (lineEnd - lineStart)];
+		for (int i = 0; i < line.length; i++) {
+			line[i] = byteAt(lineStart + i);
+		}
+		return this.commentMatcher.isComment(new String(line, this.charset));
+	}
+
+	/**
+	 * Finds the end of the next chunk.
+	 *
+	 * @param minimumSize
+	 *            the minimum count of bytes in the chunk, the chunk ends with the first row that ends afterwards
+	 * @return the position behind the last byte of the chunk
+	 * @throws IOException
+	 *             if the channel is not accessible
+	 */
+	long nextChunk(final long minimumSize) throws IOException {
+		final long minimumEnd = Math.min(this.size, this.position + minimumSize);
+		long index = this.position;
+		while (index < this.size) {
+			// We are at the start of a row - find the end of the first line
+			final long lineStart = index;
+			boolean quoted = false;
+			boolean containsQuote = false;
+			for (byte b; index < this.size && !isLineBreak(b = byteAt(index)); index++) {
+				if (b == this.quote) {
+					quoted = !quoted;
+					containsQuote = true;
+				}
+			}
+			if (containsQuote && this.commentMatcher != null && isComment(lineStart, index)) {
+				// Ignore any quote in a comment
+				quoted = false;
+			}
+
+			// Find the end of a quoted value that spans multiple lines
+			while (quoted && index < this.size) {
+				index = skipLineBreak(index);
+				for (byte b; index < this.size && !isLineBreak(b = byteAt(index)); index++) {
+					if (b == this.quote) {
+						quoted = !quoted;
+					}
+				}
+			}
+
+			index = skipLineBreak(index);
+			if (index >= minimumEnd) {
+				break;
+			}
+		}
+		this.position = Math.min(index, this.size);
+		return this.position;
+	}
+
+	private long skipLineBreak(final long index) throws IOException {
+		if (index + 1 < this.size && byteAt(index) == CARRIAGE_RETURN && byteAt(index + 1) == LINE_FEED) {
+			return index + 2;
+		}
+		return index + 1;
+	}
+
+}
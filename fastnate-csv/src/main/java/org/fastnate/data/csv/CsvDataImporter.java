@@ -1,35 +1,57 @@
 package org.fastnate.data.csv;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
+import org.apache.commons.io.input.CharSequenceReader;
 import org.apache.commons.lang3.StringUtils;
 import org.fastnate.data.DataImportException;
 import org.fastnate.data.EntityRegistration;
 import org.fastnate.data.csv.properties.DataRow;
 import org.fastnate.data.files.DataFile;
+import org.fastnate.data.files.FsDataFile;
+import org.fastnate.data.properties.CharSequenceConverter;
 import org.fastnate.data.properties.PluralPropertyContents;
 import org.fastnate.data.properties.PropertyConverter;
 import org.fastnate.data.properties.PropertyDataImporter;
+import org.fastnate.generator.EntitySqlGenerator;
 import org.fastnate.generator.context.EmbeddedProperty;
 import org.fastnate.generator.context.EntityClass;
 import org.fastnate.generator.context.EntityProperty;
@@ -40,7 +62,6 @@ import org.fastnate.generator.context.MapProperty;
 import org.fastnate.generator.context.PluralProperty;
 import org.fastnate.generator.context.Property;
 import org.fastnate.generator.context.SingularProperty;
-import org.supercsv.comment.CommentMatches;
 import org.supercsv.io.CsvListReader;
 import org.supercsv.prefs.CsvPreference;
 
@@ -65,7 +86,67 @@ import lombok.Setter;
 @Setter
 public class CsvDataImporter<E> extends PropertyDataImporter {
 
-	private static final class CsvDataRow extends DataRow {
+	/**
+	 * The mapping of a column, that converts the characters of a value without creating a string.
+	 *
+	 * Created by {@link CsvDataImporter#buildMapping(Property)} for properties with a {@link CharSequenceConverter}.
+	 *
+	 * @param <T>
+	 *            the type of the entity
+	 */
+	@FunctionalInterface
+	private interface CharSequenceMapping<T> extends BiConsumer<T, String> {
+
+		@Override
+		default void accept(final T entity, final String value) {
+			acceptCharacters(entity, value);
+		}
+
+		/**
+		 * Converts and sets the value of the column.
+		 *
+		 * @param entity
+		 *            the entity of the current row
+		 * @param value
+		 *            the characters of the column, only valid during the call
+		 */
+		void acceptCharacters(T entity, CharSequence value);
+
+	}
+
+	/**
+	 * A row of the current file, that knows the mapping of each of its columns.
+	 */
+	private abstract class MappedDataRow extends DataRow {
+
+		/** The mapping of each column, {@code null} for a column that is ignored. */
+		private final BiConsumer<E, String>[] columnMappings;
+
+		/** The mapping of each column that accepts the characters of a value, {@code null} for any other column. */
+		private final CharSequenceMapping<E>[] characterMappings;
+
+		/**
+		 * Creates a new instance of {@link MappedDataRow}.
+		 *
+		 * @param columnMappings
+		 *            the mapping of each column
+		 * @param header
+		 *            the contents of the header row
+		 */
+		MappedDataRow(final BiConsumer<E, String>[] columnMappings, final String... header) {
+			super(Arrays.asList(header));
+			this.columnMappings = columnMappings;
+			this.characterMappings = new CharSequenceMapping[columnMappings.length];
+			for (int i = 0; i < columnMappings.length; i++) {
+				if (columnMappings[i] instanceof CharSequenceMapping) {
+					this.characterMappings[i] = (CharSequenceMapping<E>) columnMappings[i];
+				}
+			}
+		}
+
+	}
+
+	private final class CsvDataRow extends MappedDataRow {
 
 		@Getter
 		@Setter
@@ -74,11 +155,13 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		/**
 		 * Creates a new instance of {@link CsvDataRow}.
 		 *
+		 * @param columnMappings
+		 *            the mapping of each column
 		 * @param header
 		 *            the contents of the header row
 		 */
-		CsvDataRow(final String... header) {
-			super(Arrays.asList(header));
+		CsvDataRow(final BiConsumer<E, String>[] columnMappings, final String... header) {
+			super(columnMappings, header);
 		}
 
 		@Override
@@ -91,6 +174,432 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 
 	}
 
+	/**
+	 * Provides the values of the current row of a {@link CsvTokenizer}, creating strings only on demand.
+	 */
+	private final class TokenizedDataRow extends MappedDataRow {
+
+		private final CsvTokenizer tokenizer;
+
+		/**
+		 * Creates a new instance of {@link TokenizedDataRow}.
+		 *
+		 * @param tokenizer
+		 *            the tokenizer that contains the current row
+		 * @param columnMappings
+		 *            the mapping of each column
+		 * @param header
+		 *            the contents of the header row
+		 */
+		TokenizedDataRow(final CsvTokenizer tokenizer, final BiConsumer<E, String>[] columnMappings,
+				final String... header) {
+			super(columnMappings, header);
+			this.tokenizer = tokenizer;
+		}
+
+		@Override
+		public CharSequence getCharSequence(final int columnIndex) {
+			if (columnIndex >= this.tokenizer.getColumnCount()) {
+				return "";
+			}
+			return this.tokenizer.getValue(columnIndex);
+		}
+
+		@Override
+		public String getValue(final int columnIndex) {
+			final CharSequence value = getCharSequence(columnIndex);
+			return value == null ? null : value.toString();
+		}
+
+	}
+
+	/**
+	 * The entities of all rows of one chunk of a file, that was parsed in parallel.
+	 *
+	 * @param <E>
+	 *            the type of the entities
+	 */
+	private static final class Chunk<E> {
+
+		/** The values of all non empty rows. */
+		private final List<List<String>> rows = new ArrayList<>();
+
+		/** The entities of all non empty rows. */
+		private final List<List<? extends E>> entities = new ArrayList<>();
+
+		/** The index of each non empty row in this chunk. */
+		private int[] rowIndexes = new int[INITIAL_CHUNK_ROWS];
+
+		/** The count of all rows in this chunk. */
+		private int rowCount;
+
+		/** The error that stopped the parsing of this chunk, after all {@link #rows}. */
+		private Exception error;
+
+		/** The index of the row in this chunk, that caused the {@link #error}. */
+		private int errorRow;
+
+		void addRow(final List<String> values, final List<? extends E> rowEntities) {
+			if (this.rows.size() == this.rowIndexes.length) {
+				this.rowIndexes = Arrays.copyOf(this.rowIndexes, this.rowIndexes.length * 2);
+			}
+			this.rowIndexes[this.rows.size()] = this.rowCount;
+			this.rows.add(values);
+			this.entities.add(rowEntities);
+		}
+
+	}
+
+	/**
+	 * Creates the entities from the rows of an opened CSV file one row after another.
+	 */
+	private abstract class EntityReader extends Spliterators.AbstractSpliterator<E> implements Closeable {
+
+		/** The file that is read. */
+		private final DataFile file;
+
+		/** The mapping of each column of the file, resolved once for all rows. */
+		final BiConsumer<E, String>[] columnMappings;
+
+		/** The entities of the current row that were not consumed up to now, if used as spliterator. */
+		private final Deque<E> pendingEntities = new ArrayDeque<>();
+
+		/**
+		 * Creates a new reader for the rows after the header.
+		 *
+		 * @param file
+		 *            the current file
+		 * @param header
+		 *            the contents of the header row
+		 */
+		EntityReader(final DataFile file, final String... header) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.file = file;
+			this.columnMappings = findColumnMappings(header);
+		}
+
+		/**
+		 * Registers and post processes the entities of one row and hands them to the consumer.
+		 *
+		 * @param row
+		 *            the current row, for the post processors
+		 * @param rowIndex
+		 *            the index of the row in the file, for error messages
+		 * @param entities
+		 *            the entities that were created from the row
+		 * @param consumer
+		 *            receives every entity of the row
+		 */
+		@SuppressWarnings("checkstyle:IllegalCatch")
+		void acceptEntities(final DataRow row, final int rowIndex, final List<? extends E> entities,
+				final Consumer<? super E> consumer) {
+			try {
+				for (final E entity : entities) {
+					if (CsvDataImporter.this.registerEntities) {
+						synchronized (CsvDataImporter.this.entityRegistration) {
+							CsvDataImporter.this.entityRegistration.registerEntity(entity);
+						}
+					}
+					for (final BiConsumer<DataRow, E> postProcessor : CsvDataImporter.this.postProcessors) {
+						postProcessor.accept(row, entity);
+					}
+					consumer.accept(entity);
+				}
+			} catch (final RuntimeException e) {
+				throw wrapException(e, rowIndex);
+			}
+		}
+
+		/**
+		 * Reads the next non empty row and creates its entities.
+		 *
+		 * @param consumer
+		 *            receives every entity of the row, after it was registered and post processed
+		 * @return {@code true} if a row was read, {@code false} if the end of the file was reached
+		 * @throws IOException
+		 *             if the file was not accessible
+		 * @throws DataImportException
+		 *             if the row was invalid
+		 */
+		abstract boolean readRow(Consumer<? super E> consumer) throws IOException, DataImportException;
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super E> action) {
+			try {
+				while (this.pendingEntities.isEmpty()) {
+					if (!readRow(this.pendingEntities::add)) {
+						return false;
+					}
+				}
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			action.accept(this.pendingEntities.poll());
+			return true;
+		}
+
+		DataImportException wrapException(final RuntimeException e, final int rowIndex) {
+			if (e instanceof DataImportException) {
+				return (DataImportException) e;
+			}
+			return new DataImportException(e.getMessage(), this.file.getName(), rowIndex, e);
+		}
+
+	}
+
+	/**
+	 * Parses chunks of a memory mapped CSV file in parallel and hands the entities over in the order of the rows.
+	 */
+	private final class ParallelEntityReader extends EntityReader {
+
+		private final FileChannel channel;
+
+		private final Charset charset;
+
+		private final CsvChunkScanner scanner;
+
+		private final String[] header;
+
+		/** The row that is handed to the post processors. */
+		private final CsvDataRow row;
+
+		/** The chunks that are currently parsed, in the order of the file. */
+		private final Deque<CompletableFuture<Chunk<E>>> pendingChunks = new ArrayDeque<>();
+
+		/** The chunk that is currently handed over. */
+		private Chunk<E> chunk;
+
+		/** The index of the next row in the {@link #chunk}. */
+		private int chunkRow;
+
+		/** The count of all rows of the file before the current {@link #chunk}. */
+		private int previousRows;
+
+		/**
+		 * Creates a new reader for the rows after the header.
+		 *
+		 * @param file
+		 *            the current file
+		 * @param channel
+		 *            the opened channel of the file
+		 * @param charset
+		 *            the charset of the file
+		 * @param scanner
+		 *            finds the chunks in the file, positioned after the header
+		 * @param header
+		 *            the contents of the header row
+		 */
+		ParallelEntityReader(final DataFile file, final FileChannel channel, final Charset charset,
+				final CsvChunkScanner scanner, final String... header) {
+			super(file, header);
+			this.channel = channel;
+			this.charset = charset;
+			this.scanner = scanner;
+			this.header = header;
+			this.row = new CsvDataRow(this.columnMappings, header);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.pendingChunks.forEach(pendingChunk -> pendingChunk.cancel(false));
+			this.channel.close();
+		}
+
+		private Chunk<E> nextChunk() throws IOException {
+			// Keep enough chunks in progress to use all threads of the pool
+			final int maxPendingChunks = CsvDataImporter.this.parallelPool.getParallelism() * 2;
+			while (this.pendingChunks.size() < maxPendingChunks && !this.scanner.isFinished()) {
+				final long start = this.scanner.getPosition();
+				final long end = this.scanner.nextChunk(CsvDataImporter.this.parallelChunkSize);
+				final ByteBuffer bytes = this.channel.map(MapMode.READ_ONLY, start, end - start);
+				this.pendingChunks
+						.add(CompletableFuture.supplyAsync(() -> parseChunk(bytes), CsvDataImporter.this.parallelPool));
+			}
+			final CompletableFuture<Chunk<E>> pendingChunk = this.pendingChunks.poll();
+			return pendingChunk == null ? null : pendingChunk.join();
+		}
+
+		@SuppressWarnings("checkstyle:IllegalCatch")
+		private Chunk<E> parseChunk(final ByteBuffer bytes) {
+			final Chunk<E> result = new Chunk<>();
+			final CsvDataRow chunkRow = new CsvDataRow(this.columnMappings, this.header);
+			boolean reading = true;
+			try {
+				final CharBuffer content = decode(this.charset, bytes);
+				if (CsvDataImporter.this.builtInTokenizer) {
+					try (CsvTokenizer tokenizer = new CsvTokenizer(content, CsvDataImporter.this.csvSettings)) {
+						for (List<String> values; (values = tokenizer.read()) != null; reading = true) {
+							reading = false;
+							parseRow(result, chunkRow, values);
+						}
+					}
+				} else {
+					try (CsvListReader csvList = new CsvListReader(new CharSequenceReader(content),
+							CsvDataImporter.this.csvSettings)) {
+						for (List<String> values; (values = csvList.read()) != null; reading = true) {
+							reading = false;
+							parseRow(result, chunkRow, values);
+						}
+					}
+				}
+			} catch (final IOException | RuntimeException e) {
+				result.error = e;
+				// Either the next row was not readable, or we could not create the entities of the current row
+				result.errorRow = reading ? result.rowCount + 1 : result.rowCount;
+			}
+			return result;
+		}
+
+		private void parseRow(final Chunk<E> result, final CsvDataRow chunkRow, final List<String> values) {
+			result.rowCount++;
+			if (isNotEmpty(values)) {
+				chunkRow.setRow(values);
+				result.addRow(values, createEntities(chunkRow));
+			}
+		}
+
+		@Override
+		boolean readRow(final Consumer<? super E> consumer) throws IOException, DataImportException {
+			while (this.chunk == null || this.chunkRow >= this.chunk.rows.size()) {
+				if (this.chunk != null) {
+					if (this.chunk.error instanceof IOException) {
+						throw (IOException) this.chunk.error;
+					}
+					if (this.chunk.error != null) {
+						throw wrapException((RuntimeException) this.chunk.error,
+								this.previousRows + this.chunk.errorRow);
+					}
+					this.previousRows += this.chunk.rowCount;
+				}
+				this.chunk = nextChunk();
+				this.chunkRow = 0;
+				if (this.chunk == null) {
+					return false;
+				}
+			}
+			final int index = this.chunkRow++;
+			this.row.setRow(this.chunk.rows.get(index));
+			acceptEntities(this.row, this.previousRows + this.chunk.rowIndexes[index],
+					this.chunk.entities.get(index), consumer);
+			// Release the row, as soon as it is consumed
+			this.chunk.rows.set(index, null);
+			this.chunk.entities.set(index, null);
+			return true;
+		}
+
+	}
+
+	/**
+	 * Reads the rows of a CSV file one after another.
+	 */
+	private final class SequentialEntityReader extends EntityReader {
+
+		private final CsvListReader csvList;
+
+		/** The row that is used to create the entities. */
+		private final CsvDataRow row;
+
+		/** The index of the current row in the file, for error messages. */
+		private int rowIndex;
+
+		/**
+		 * Creates a new reader for the rows after the header.
+		 *
+		 * @param file
+		 *            the current file
+		 * @param csvList
+		 *            the reader of the file, positioned after the header
+		 * @param header
+		 *            the contents of the header row
+		 */
+		SequentialEntityReader(final DataFile file, final CsvListReader csvList, final String... header) {
+			super(file, header);
+			this.csvList = csvList;
+			this.row = new CsvDataRow(this.columnMappings, header);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.csvList.close();
+		}
+
+		@Override
+		@SuppressWarnings("checkstyle:IllegalCatch")
+		boolean readRow(final Consumer<? super E> consumer) throws IOException, DataImportException {
+			for (List<String> values; (values = this.csvList.read()) != null;) {
+				this.rowIndex++;
+				if (isNotEmpty(values)) {
+					this.row.setRow(values);
+					final List<? extends E> entities;
+					try {
+						entities = createEntities(this.row);
+					} catch (final RuntimeException e) {
+						throw wrapException(e, this.rowIndex);
+					}
+					acceptEntities(this.row, this.rowIndex, entities, consumer);
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * Reads the rows of a CSV file one after another with the {@link CsvTokenizer}.
+	 */
+	private final class TokenizedEntityReader extends EntityReader {
+
+		private final CsvTokenizer tokenizer;
+
+		/** The row that is used to create the entities. */
+		private final TokenizedDataRow row;
+
+		/** The index of the current row in the file, for error messages. */
+		private int rowIndex;
+
+		/**
+		 * Creates a new reader for the rows after the header.
+		 *
+		 * @param file
+		 *            the current file
+		 * @param tokenizer
+		 *            the tokenizer of the file, positioned after the header
+		 * @param header
+		 *            the contents of the header row
+		 */
+		TokenizedEntityReader(final DataFile file, final CsvTokenizer tokenizer, final String... header) {
+			super(file, header);
+			this.tokenizer = tokenizer;
+			this.row = new TokenizedDataRow(tokenizer, this.columnMappings, header);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.tokenizer.close();
+		}
+
+		@Override
+		@SuppressWarnings("checkstyle:IllegalCatch")
+		boolean readRow(final Consumer<? super E> consumer) throws IOException, DataImportException {
+			while (this.tokenizer.nextRow()) {
+				this.rowIndex++;
+				if (this.tokenizer.isNotEmpty()) {
+					final List<? extends E> entities;
+					try {
+						entities = createEntities(this.row);
+					} catch (final RuntimeException e) {
+						throw wrapException(e, this.rowIndex);
+					}
+					acceptEntities(this.row, this.rowIndex, entities, consumer);
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
 	/**
 	 * The name of the property in the {@link GeneratorContext#getSettings() settings} that contains the column
 	 * delimiter.
@@ -122,6 +631,36 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	 */
 	public static final String MAP_DELIMITER = "fastnate.csv.delimiter.map";
 
+	/**
+	 * The name of the property in the {@link GeneratorContext#getSettings() settings} that indicates to register all
+	 * imported entities in the {@link EntityRegistration}.
+	 *
+	 * The default value for this property is '{@code true}'.
+	 */
+	public static final String REGISTER_ENTITIES = "fastnate.csv.register.entities";
+
+	/**
+	 * The name of the property in the {@link GeneratorContext#getSettings() settings} that contains the minimum size
+	 * (in bytes) of the chunks of a file, that are parsed in parallel.
+	 *
+	 * The default value for this property is '{@code 0}', which disables parallel parsing.
+	 */
+	public static final String PARALLEL_CHUNK_SIZE = "fastnate.csv.parallel.chunk.size";
+
+	/**
+	 * The name of the property in the {@link GeneratorContext#getSettings() settings} that indicates to use the
+	 * built-in {@link CsvTokenizer} instead of the {@link CsvListReader} of super-csv.
+	 *
+	 * The default value for this property is '{@code false}'.
+	 */
+	public static final String BUILT_IN_TOKENIZER = "fastnate.csv.tokenizer.builtin";
+
+	private static final int INITIAL_CHUNK_ROWS = 64;
+
+	private static final int UTF8_BOM_LENGTH = 3;
+
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
 	private static <V, T> BiConsumer<T, V> buildInverseMapping(final Property<V, ?> inverseProperty) {
 		if (inverseProperty instanceof PluralProperty) {
 			return (entity, targetEntity) -> PluralPropertyContents
@@ -135,6 +674,11 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		};
 	}
 
+	private static CharBuffer decode(final Charset charset, final ByteBuffer bytes) throws CharacterCodingException {
+		return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE).decode(bytes);
+	}
+
 	private static boolean isNotEmpty(final List<String> values) {
 		return values.size() > 1 || values.size() == 1 && StringUtils.isNotBlank(values.get(0));
 	}
@@ -152,6 +696,13 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		return value -> inverseMapping.accept(entity, value);
 	}
 
+	private static RuntimeException wrapMappingException(final String column, final RuntimeException e) {
+		if (e instanceof DataImportException) {
+			return e;
+		}
+		return new IllegalArgumentException("Could not map column \"" + column + "\": " + e, e);
+	}
+
 	/** The description of the type of the created entities. */
 	private final EntityClass<E> entityClass;
 
@@ -181,12 +732,55 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	@Getter(AccessLevel.NONE)
 	private final Map<String, BiConsumer<E, String>> columnMapping = new HashMap<>();
 
+	/**
+	 * The entity that is currently created from a row by the current thread, to detect references that are resolved
+	 * after that entity was written.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final ThreadLocal<E> rowEntity = new ThreadLocal<>();
+
 	/** Indicates to ignore any column that is not found in the CSV file. */
 	private boolean ignoreMissingColumns;
 
 	/** Indicates to ignore any column that can't be mapped to a property. */
 	private boolean ignoreUnknownColumns;
 
+	/**
+	 * Indicates to register every imported entity in the {@link EntityRegistration}. Defaults to the
+	 * {@link #REGISTER_ENTITIES} property from the {@link GeneratorContext#getSettings() settings}.
+	 *
+	 * Entities that are not referenced from any other file don't need to be registered - which keeps them from being
+	 * held in memory until the end of the import.
+	 */
+	private boolean registerEntities;
+
+	/**
+	 * The minimum size of the chunks of a file, that are parsed in parallel. Defaults to the
+	 * {@link #PARALLEL_CHUNK_SIZE} property from the {@link GeneratorContext#getSettings() settings}.
+	 *
+	 * Only uncompressed files from the file system that are larger than two chunks are parsed in parallel. The column
+	 * mappings are called in parallel in that case, so they may only modify the entity of their row. The entities are
+	 * still registered, post processed and handed over in the order of the rows.
+	 *
+	 * {@code 0} disables parallel parsing.
+	 */
+	private long parallelChunkSize;
+
+	/**
+	 * Indicates to split the rows with the built-in {@link CsvTokenizer}, instead of the {@link CsvListReader} of
+	 * super-csv. Defaults to the {@link #BUILT_IN_TOKENIZER} property from the {@link GeneratorContext#getSettings()
+	 * settings}.
+	 *
+	 * The tokenizer reuses its buffers and creates a string for a value only if requested. It only takes the column
+	 * delimiter, the quote character and the comment matcher of the {@link #csvSettings} into account. The default
+	 * comments (starting with "#" or "//") are detected without creating a string for the line. And
+	 * {@link #openCsvListReader(DataFile)} is not used, but {@link #openReader(DataFile)}.
+	 */
+	private boolean builtInTokenizer;
+
+	/** The pool that parses the chunks of a file in parallel. */
+	private ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+
 	/** The columns that are known, but ignored. Only interesting if {@link #ignoreUnknownColumns} is {@code false}. */
 	@Getter(AccessLevel.NONE)
 	private final Set<String> ignoredColumns = new HashSet<>();
@@ -256,6 +850,12 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		this.entityRegistration = entityRegistration;
 		this.collectionDelimiter = entityClass.getContext().getSettings().getProperty(COLLECTION_DELIMITER, ",");
 		this.mapDelimiter = entityClass.getContext().getSettings().getProperty(MAP_DELIMITER, ":");
+		this.registerEntities = Boolean
+				.parseBoolean(entityClass.getContext().getSettings().getProperty(REGISTER_ENTITIES, "true"));
+		this.parallelChunkSize = Long
+				.parseLong(entityClass.getContext().getSettings().getProperty(PARALLEL_CHUNK_SIZE, "0"));
+		this.builtInTokenizer = Boolean
+				.parseBoolean(entityClass.getContext().getSettings().getProperty(BUILT_IN_TOKENIZER, "false"));
 	}
 
 	/**
@@ -271,7 +871,7 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 				new CsvPreference.Builder('"',
 						entityClass.getContext().getSettings().getProperty(COLUMN_DELIMITER, ",").charAt(0),
 						entityClass.getContext().getSettings().getProperty(LINE_DELIMITER, "\n"))
-								.skipComments(new CommentMatches("(//|#).*")).build(),
+								.skipComments(CsvTokenizer.DEFAULT_COMMENTS).build(),
 				entityRegistration);
 	}
 
@@ -384,6 +984,9 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	/**
 	 * Sets a property for an entity from a column value.
 	 *
+	 * Only used for rows that don't come from a file of this importer. For the rows of a file, the mapping of each
+	 * column is {@link #findColumnMapping(String) resolved} only once, when its header is read.
+	 *
 	 * @param entity
 	 *            the entity to modify
 	 * @param column
@@ -396,29 +999,13 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	 * @throws IllegalArgumentException
 	 *             if a matching property was not found or it was not convertable
 	 */
-	@SuppressWarnings("checkstyle:IllegalCatch")
 	protected boolean applyColumn(final E entity, final String column, final String value) {
-		if (this.ignoredColumns.contains(column)) {
+		final BiConsumer<E, String> mapping = findColumnMapping(column);
+		if (mapping == null) {
 			return false;
 		}
-
-		final BiConsumer<E, String> mapper = this.columnMapping.get(column);
-		if (mapper != null) {
-			try {
-				mapper.accept(entity, value);
-				return true;
-			} catch (final RuntimeException e) {
-				if (e instanceof DataImportException) {
-					throw e;
-				}
-				throw new IllegalArgumentException("Could not map column \"" + column + "\": " + e, e);
-			}
-		}
-		if (!this.ignoreUnknownColumns) {
-			throw new IllegalArgumentException(
-					"Could not find column property for '" + column + "' in " + entity.getClass());
-		}
-		return false;
+		mapping.accept(entity, value);
+		return true;
 	}
 
 	private <T> BiConsumer<E, String> buildEmbeddedMapping(final EmbeddedProperty<? super E, T> embeddedProperty,
@@ -461,9 +1048,16 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 			return null;
 		}
 
-		return (value, entityConsumer) -> uniquePropertyMapping.accept(value,
-				uniqueValue -> this.entityRegistration.invokeOnEntity(valueEntityClass.getEntityClass(),
-						uniqueProperty.getName(), uniqueValue, entityConsumer));
+		return (value, entityConsumer) -> {
+			final Consumer<V> checkedConsumer = checkWrittenEntity(entityConsumer, valueEntityClass, value);
+			uniquePropertyMapping.accept(value, uniqueValue -> {
+				// Synchronized, as rows may be parsed in parallel
+				synchronized (this.entityRegistration) {
+					this.entityRegistration.invokeOnEntity(valueEntityClass.getEntityClass(), uniqueProperty.getName(),
+							uniqueValue, checkedConsumer);
+				}
+			});
+		};
 	}
 
 	/**
@@ -503,8 +1097,18 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		if (property instanceof GeneratedIdProperty) {
 			// Don't set the property, but remember its value in the registry, that we can reference it later
 			final String[] propertyNames = new String[] { property.getName() };
-			return (entity, value) -> this.entityRegistration.registerEntity(entity, propertyNames,
-					new Object[] { converter.convert(type, value) });
+			return (entity, value) -> {
+				final Object[] propertyValues = new Object[] { converter.convert(type, value) };
+				synchronized (this.entityRegistration) {
+					this.entityRegistration.registerEntity(entity, propertyNames, propertyValues);
+				}
+			};
+		}
+		if (converter instanceof CharSequenceConverter) {
+			// Convert numbers, enums and dates without creating a string for the value
+			final CharSequenceConverter<V> characterConverter = (CharSequenceConverter<V>) converter;
+			return (CharSequenceMapping<T>) (entity, value) -> property.setValue(entity,
+					characterConverter.convert(type, value));
 		}
 		return (entity, value) -> property.setValue(entity, converter.convert(type, value));
 	}
@@ -574,6 +1178,36 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		}
 	}
 
+	/**
+	 * Ensures that a reference from the entity of the current row is not resolved after that entity was written.
+	 *
+	 * That happens when streaming a file, if a row references an entity from a later row or file. The reference would
+	 * be lost silently, as the entity is not written again.
+	 *
+	 * @param entityConsumer
+	 *            sets the referenced entity
+	 * @param valueEntityClass
+	 *            the description of the referenced entity
+	 * @param value
+	 *            the value of the column, for the error message
+	 * @return the consumer that checks the state of the entity of the current row, before it sets the reference
+	 */
+	private <V> Consumer<V> checkWrittenEntity(final Consumer<V> entityConsumer, final EntityClass<V> valueEntityClass,
+			final String value) {
+		final E entity = this.rowEntity.get();
+		if (entity == null) {
+			return entityConsumer;
+		}
+		return referencedEntity -> {
+			if (!this.entityClass.isNew(entity)) {
+				throw new DataImportException("The reference from " + entity + " to " + valueEntityClass.getEntityName()
+						+ " '" + value + "' was resolved after " + entity
+						+ " was written - only entities from previous rows or files may be referenced when streaming");
+			}
+			entityConsumer.accept(referencedEntity);
+		};
+	}
+
 	/**
 	 * Builds one or more entities from the given row.
 	 *
@@ -605,12 +1239,83 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	 */
 	protected E createEntity(final DataRow row) {
 		final E entity = createEntity();
-		for (int i = 0; i < row.getColumnCount(); i++) {
-			applyColumn(entity, row.getName(i), row.getValue(i));
+		this.rowEntity.set(entity);
+		try {
+			if (row instanceof CsvDataImporter.MappedDataRow) {
+				// The mappings were resolved, when the header was read
+				final BiConsumer<E, String>[] columnMappings = ((MappedDataRow) row).columnMappings;
+				final CharSequenceMapping<E>[] characterMappings = ((MappedDataRow) row).characterMappings;
+				for (int i = 0; i < columnMappings.length; i++) {
+					if (characterMappings[i] != null) {
+						characterMappings[i].acceptCharacters(entity, row.getCharSequence(i));
+					} else if (columnMappings[i] != null) {
+						columnMappings[i].accept(entity, row.getValue(i));
+					}
+				}
+			} else {
+				for (int i = 0; i < row.getColumnCount(); i++) {
+					applyColumn(entity, row.getName(i), row.getValue(i));
+				}
+			}
+		} finally {
+			this.rowEntity.remove();
 		}
 		return entity;
 	}
 
+	/**
+	 * Finds the mapping for a column.
+	 *
+	 * Called once for each column of a file, when its header is read.
+	 *
+	 * @param column
+	 *            the name of the column (in lower case, as the mapping is stored in lower case, too)
+	 * @return the mapping that converts and sets the value of the column, {@code null} if the column is ignored
+	 */
+	@SuppressWarnings("checkstyle:IllegalCatch")
+	protected BiConsumer<E, String> findColumnMapping(final String column) {
+		if (this.ignoredColumns.contains(column)) {
+			return null;
+		}
+
+		final BiConsumer<E, String> mapper = this.columnMapping.get(column);
+		if (mapper instanceof CharSequenceMapping) {
+			final CharSequenceMapping<E> characterMapper = (CharSequenceMapping<E>) mapper;
+			return (CharSequenceMapping<E>) (entity, value) -> {
+				try {
+					characterMapper.acceptCharacters(entity, value);
+				} catch (final RuntimeException e) {
+					throw wrapMappingException(column, e);
+				}
+			};
+		}
+		if (mapper != null) {
+			return (entity, value) -> {
+				try {
+					mapper.accept(entity, value);
+				} catch (final RuntimeException e) {
+					throw wrapMappingException(column, e);
+				}
+			};
+		}
+		if (this.ignoreUnknownColumns) {
+			return null;
+		}
+		return (entity, value) -> {
+			throw new IllegalArgumentException(
+					"Could not find column property for '" + column + "' in " + entity.getClass());
+		};
+	}
+
+	private BiConsumer<E, String>[] findColumnMappings(final String... header) {
+		@SuppressWarnings("unchecked")
+		final BiConsumer<E, String>[] mappings = new BiConsumer[header.length];
+		for (int i = 0; i < header.length; i++) {
+			mappings[i] = findColumnMapping(header[i] == null ? "" : header[i]);
+		}
+		return mappings;
+	}
+
 	/**
 	 * Defines the default encoding for CSV files, if it can't be determined from the BOM.
 	 *
@@ -632,46 +1337,69 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	 * @throws DataImportException
 	 *             if the file contents was invalid
 	 */
-	@SuppressWarnings("checkstyle:IllegalCatch")
 	public List<E> importFile(final DataFile file) throws IOException, DataImportException {
-		try (CsvListReader csvList = openCsvListReader(file)) {
-			final String[] header = csvList.getHeader(true);
-			if (header != null && header.length > 0) {
-				lowerCaseHeader(header);
-				if (!this.ignoreMissingColumns) {
-					// Check that all known columns are available
-					checkForMissingColumns(file, header);
-				}
+		final List<E> entities = new ArrayList<>();
+		importFile(file, entities::add);
+		return entities;
+	}
 
-				// Read all rows
-				final List<E> entities = new ArrayList<>();
-				final CsvDataRow row = new CsvDataRow(header);
-				int rowIndex = 1;
-				for (List<String> values; (values = csvList.read()) != null; rowIndex++) {
-					if (isNotEmpty(values)) {
-						row.setRow(values);
-						try {
-							final List<? extends E> newEntities = createEntities(row);
-							for (final E entity : newEntities) {
-								entities.add(entity);
-								this.entityRegistration.registerEntity(entity);
-								for (final BiConsumer<DataRow, E> postProcessor : this.postProcessors) {
-									postProcessor.accept(row, entity);
-								}
-							}
-						} catch (final RuntimeException e) {
-							if (e instanceof DataImportException) {
-								throw e;
-							}
-							throw new DataImportException(e.getMessage(), file.getName(), rowIndex, e);
-						}
-					}
+	/**
+	 * Reads entities from the given file and hands every entity to the given consumer, as soon as its row is read.
+	 *
+	 * The entities are not collected, so the consumer decides how long they are held in memory. Any reference to an
+	 * entity from a later row is resolved when that row is read - after the referencing entity was consumed.
+	 *
+	 * @param file
+	 *            the file to import
+	 * @param consumer
+	 *            receives every entity, after it was registered and post processed
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 * @throws DataImportException
+	 *             if the file contents was invalid
+	 */
+	public void importFile(final DataFile file, final Consumer<? super E> consumer)
+			throws IOException, DataImportException {
+		try (EntityReader reader = openEntityReader(file)) {
+			if (reader != null) {
+				while (reader.readRow(consumer)) {
+					// Read all rows
 				}
-				return entities;
 			}
-			return Collections.emptyList();
 		}
+	}
 
+	/**
+	 * Reads entities from the given file and writes every entity, as soon as its row is read.
+	 *
+	 * As the entities are not collected, the import runs in constant memory - as long as the entities are not
+	 * {@link #setRegisterEntities(boolean) registered}. All references to entities of a later row are lost, as the
+	 * referencing entity is already written when the reference is resolved.
+	 *
+	 * @param file
+	 *            the file to import
+	 * @param generator
+	 *            the generator that writes the entities
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible or the generator throws one
+	 * @throws DataImportException
+	 *             if the file contents was invalid
+	 */
+	public void importFile(final DataFile file, final EntitySqlGenerator generator)
+			throws IOException, DataImportException {
+		try {
+			importFile(file, entity -> {
+				try {
+					generator.write(entity);
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
 	}
 
 	/**
@@ -739,12 +1467,28 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 	 *             if the file was not accessible
 	 */
 	protected CsvListReader openCsvListReader(final DataFile importFile) throws IOException {
+		return new CsvListReader(openReader(importFile), this.csvSettings);
+	}
+
+	/**
+	 * Opens the content of a CSV file.
+	 *
+	 * If the given file ends with "gz", then the file is decompressed using a {@link GZIPInputStream}. The encoding is
+	 * determined from the BOM or the {@link #getDefaultEncoding() default encoding} is used.
+	 *
+	 * @param importFile
+	 *            the CSV file
+	 * @return the reader of the decoded content
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	protected Reader openReader(final DataFile importFile) throws IOException {
 		// Open file
 		InputStream fileStream = importFile.open();
 
 		// Use the reader as marker
 		// to distinguish if we have successfully opened the file or if we need to close the stream due to an error
-		CsvListReader reader = null;
+		Reader reader = null;
 		try {
 			// Check for compressed file
 			if (importFile.getName().toLowerCase().endsWith(".gz")) {
@@ -763,7 +1507,7 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 				charset = getDefaultEncoding().toString();
 			}
 
-			return reader = new CsvListReader(new InputStreamReader(inputStream, charset), this.csvSettings);
+			return reader = new InputStreamReader(inputStream, charset);
 		} finally {
 			if (reader == null) {
 				fileStream.close();
@@ -771,6 +1515,107 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		}
 	}
 
+	private EntityReader openEntityReader(final DataFile file) throws IOException {
+		if (this.parallelChunkSize > 0 && file instanceof FsDataFile
+				&& !file.getName().toLowerCase().endsWith(".gz")
+				&& ((FsDataFile) file).getFile().length() > this.parallelChunkSize * 2) {
+			final FileChannel channel = FileChannel.open(((FsDataFile) file).getFile().toPath(),
+					StandardOpenOption.READ);
+			EntityReader reader = null;
+			try {
+				reader = openParallelEntityReader(file, channel);
+			} finally {
+				if (reader == null) {
+					channel.close();
+				}
+			}
+			if (reader != null) {
+				return reader;
+			}
+		}
+
+		if (this.builtInTokenizer) {
+			final CsvTokenizer tokenizer = new CsvTokenizer(openReader(file), this.csvSettings);
+			EntityReader reader = null;
+			try {
+				final List<String> columns = tokenizer.read();
+				if (columns != null) {
+					final String[] header = readHeader(file, columns.toArray(new String[columns.size()]));
+					if (header != null) {
+						reader = new TokenizedEntityReader(file, tokenizer, header);
+					}
+				}
+				return reader;
+			} finally {
+				if (reader == null) {
+					tokenizer.close();
+				}
+			}
+		}
+
+		final CsvListReader csvList = openCsvListReader(file);
+		EntityReader reader = null;
+		try {
+			final String[] header = readHeader(file, csvList.getHeader(true));
+			if (header != null) {
+				reader = new SequentialEntityReader(file, csvList, header);
+			}
+			return reader;
+		} finally {
+			if (reader == null) {
+				csvList.close();
+			}
+		}
+	}
+
+	private EntityReader openParallelEntityReader(final DataFile file, final FileChannel channel) throws IOException {
+		// Determine the encoding - only for charsets where we can find the line breaks without decoding
+		final ByteBuffer bom = ByteBuffer.allocate(UTF8_BOM_LENGTH);
+		channel.read(bom, 0);
+		final Charset charset;
+		final long start;
+		if (Arrays.equals(bom.array(), UTF8_BOM)) {
+			charset = StandardCharsets.UTF_8;
+			start = UTF8_BOM_LENGTH;
+		} else if (bom.get(0) == (byte) 0xFE || bom.get(0) == (byte) 0xFF || bom.get(0) == 0) {
+			// UTF-16 or UTF-32
+			return null;
+		} else {
+			charset = getDefaultEncoding();
+			start = 0;
+		}
+		if (!CsvChunkScanner.isSupported(charset, this.csvSettings)) {
+			return null;
+		}
+
+		// Find the header row - which may be preceded by comments or empty lines
+		final CsvChunkScanner scanner = new CsvChunkScanner(channel, start, charset, this.csvSettings);
+		while (!scanner.isFinished()) {
+			final long rowStart = scanner.getPosition();
+			final ByteBuffer row = channel.map(MapMode.READ_ONLY, rowStart, scanner.nextChunk(0) - rowStart);
+			try (CsvListReader csvList = new CsvListReader(new CharSequenceReader(decode(charset, row)),
+					this.csvSettings)) {
+				final String[] header = readHeader(file, csvList.getHeader(true));
+				if (header != null) {
+					return new ParallelEntityReader(file, channel, charset, scanner, header);
+				}
+			}
+		}
+		return null;
+	}
+
+	private String[] readHeader(final DataFile file, final String... header) {
+		if (header == null || header.length == 0) {
+			return null;
+		}
+		lowerCaseHeader(header);
+		if (!this.ignoreMissingColumns) {
+			// Check that all known columns are available
+			checkForMissingColumns(file, header);
+		}
+		return header;
+	}
+
 	/**
 	 * Removes the mapping of the given column.
 	 *
@@ -794,4 +1639,35 @@ public class CsvDataImporter<E> extends PropertyDataImporter {
 		this.ignoredColumns.remove(column.toLowerCase());
 	}
 
+	/**
+	 * Reads the entities from the given file while the returned stream is consumed.
+	 *
+	 * The file is closed when the stream is closed. Any {@link IOException} during the consumption is wrapped in an
+	 * {@link UncheckedIOException}. All references to entities of a later row are resolved when that row is read -
+	 * after the referencing entity was consumed. If the referencing entity was written in the meantime, a
+	 * {@link DataImportException} is thrown, as the reference would be lost.
+	 *
+	 * @param file
+	 *            the file to import
+	 * @return the stream of all entities from the file
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 * @throws DataImportException
+	 *             if the header of the file was invalid
+	 */
+	public Stream<E> streamFile(final DataFile file) throws IOException, DataImportException {
+		final EntityReader reader = openEntityReader(file);
+		if (reader == null) {
+			return Stream.empty();
+		}
+		return StreamSupport.stream(reader, false).onClose(() -> {
+			try {
+				reader.close();
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
 }
@@ -0,0 +1,463 @@
+package org.fastnate.data.csv;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.supercsv.comment.CommentMatcher;
+import org.supercsv.comment.CommentMatches;
+import org.supercsv.prefs.CsvPreference;
+
+/**
+ * Splits the content of a CSV file into rows and columns, without allocating objects for each row or column.
+ *
+ * The content is read into a reusable buffer and every column of the current row is available as a view into that
+ * buffer. Quoted values are unescaped in place. So a {@link String} is only created for a column, if someone asks
+ * for it.
+ *
+ * The tokenizer follows the rules of the super-csv {@link org.supercsv.io.CsvListReader} for the default settings of
+ * the {@link CsvDataImporter}:
+ * <ul>
+ * <li>The column delimiter and the quote character are taken from the {@link CsvPreference}</li>
+ * <li>Rows end with any of "\r\n", "\n" or "\r" (outside of quoted values)</li>
+ * <li>Line breaks in quoted values are normalized to "\n"</li>
+ * <li>Empty lines are skipped</li>
+ * <li>Rows whose first line is a comment according to the {@link CsvPreference#getCommentMatcher() comment matcher}
+ * are skipped - the {@link #DEFAULT_COMMENTS} are detected without creating a string</li>
+ * <li>Empty columns are {@code null}</li>
+ * </ul>
+ *
+ * @author Tobias Liefke
+ */
+final class CsvTokenizer implements Closeable {
+
+	/**
+	 * A view of one column of the current row.
+	 */
+	private final class Column implements CharSequence {
+
+		/** The index of the first character in the buffer. */
+		private int start;
+
+		/** The index behind the last character in the buffer. */
+		private int end;
+
+		@Override
+		public char charAt(final int index) {
+			return CsvTokenizer.this.buffer[this.start + index];
+		}
+
+		@Override
+		public int length() {
+			return this.end - this.start;
+		}
+
+		@Override
+		public CharSequence subSequence(final int startIndex, final int endIndex) {
+			return CharBuffer.wrap(CsvTokenizer.this.buffer, this.start + startIndex, endIndex - startIndex);
+		}
+
+		@Override
+		public String toString() {
+			return new String(CsvTokenizer.this.buffer, this.start, this.end - this.start);
+		}
+
+	}
+
+	/** The comments of the default settings of the {@link CsvDataImporter}: lines that start with "//" or "#". */
+	static final CommentMatcher DEFAULT_COMMENTS = new CommentMatches("(//|#).*");
+
+	private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+	private static final int INITIAL_COLUMNS = 16;
+
+	private static final char LINE_FEED = '\n';
+
+	private static final char CARRIAGE_RETURN = '\r';
+
+	/** The source of the content, {@code null} if the whole content is already in the buffer. */
+	private final Reader reader;
+
+	private final char delimiter;
+
+	private final char quote;
+
+	/** Finds the comments, {@code null} if the content has no comments. */
+	private final CommentMatcher commentMatcher;
+
+	/** Contains the current row and any content that was read in advance. */
+	private char[] buffer;
+
+	/** The index of the first character in the buffer that was not tokenized up to now. */
+	private int position;
+
+	/** The index of the first character of the current row in the buffer. */
+	private int rowStart;
+
+	/** The index behind the last character in the buffer. */
+	private int limit;
+
+	/** Indicates that the reader has no more content. */
+	private boolean finished;
+
+	/** The columns of the current row. Only the first {@link #columnCount} are valid. */
+	private Column[] columns = new Column[0];
+
+	/** The count of columns in the current row. */
+	private int columnCount;
+
+	/** Indicates that the row that was found last is a comment. */
+	private boolean comment;
+
+	/**
+	 * Creates a tokenizer for the content of a buffer.
+	 *
+	 * @param content
+	 *            the complete content, will be modified during unescaping
+	 * @param csvSettings
+	 *            contains the column delimiter, the quote character and the comment matcher
+	 */
+	CsvTokenizer(final CharBuffer content, final CsvPreference csvSettings) {
+		this.reader = null;
+		this.delimiter = (char) csvSettings.getDelimiterChar();
+		this.quote = csvSettings.getQuoteChar();
+		this.commentMatcher = csvSettings.getCommentMatcher();
+		if (content.hasArray()) {
+			this.buffer = content.array();
+			this.position = content.arrayOffset() + content.position();
+			this.limit = content.arrayOffset() + content.limit();
+		} else {
+			this.buffer = new char[content.remaining()];
+			content.get(this.buffer);
+			this.limit = this.buffer.length;
+		}
+		this.finished = true;
+	}
+
+	/**
+	 * Creates a tokenizer that reads the content from the given reader.
+	 *
+	 * @param reader
+	 *            the source of the content, is closed when this tokenizer is closed
+	 * @param csvSettings
+	 *            contains the column delimiter, the quote character and the comment matcher
+	 */
+	CsvTokenizer(final Reader reader, final CsvPreference csvSettings) {
+		this.reader = reader;
+		this.delimiter = (char) csvSettings.getDelimiterChar();
+		this.quote = csvSettings.getQuoteChar();
+		this.commentMatcher = csvSettings.getCommentMatcher();
+		this.buffer = new char[INITIAL_BUFFER_SIZE];
+	}
+
+	private void addColumn(final int start, final int end) {
+		if (this.columnCount == this.columns.length) {
+			this.columns = Arrays.copyOf(this.columns, Math.max(INITIAL_COLUMNS, this.columnCount * 2));
+			for (int i = this.columnCount; i < this.columns.length; i++) {
+				this.columns[i] = new Column();
+			}
+		}
+		final Column column = this.columns[this.columnCount++];
+		column.start = start;
+		column.end = end;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.reader != null) {
+			this.reader.close();
+		}
+	}
+
+	/**
+	 * Reads more content into the buffer, while keeping everything from the current position.
+	 *
+	 * Moves the content from the current position to the start of the buffer, so all indexes have to be adjusted
+	 * relative to the {@link #position} afterwards.
+	 *
+	 * @return {@code true} if more content was read, {@code false} if the end of the content was reached
+	 */
+	private boolean fill() throws IOException {
+		if (this.finished) {
+			return false;
+		}
+		final int kept = this.limit - this.position;
+		if (kept >= this.buffer.length / 2) {
+			// More than half of the buffer is filled by the current row
+			this.buffer = Arrays.copyOfRange(this.buffer, this.position, this.position + this.buffer.length * 2);
+		} else {
+			System.arraycopy(this.buffer, this.position, this.buffer, 0, kept);
+		}
+		this.position = 0;
+		this.limit = kept;
+		final int read = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+		if (read < 0) {
+			this.finished = true;
+			return false;
+		}
+		this.limit += read;
+		return true;
+	}
+
+	/**
+	 * Finds the end of the first line of the row that starts at the current position, reading more content if
+	 * necessary.
+	 *
+	 * @param from
+	 *            the index in the buffer to start the search
+	 * @return the index of the first line break or the end of the content - relative to the {@link #position}, as it
+	 *         may change while reading more content
+	 */
+	private int findLineEnd(final int from) throws IOException {
+		int offset = from - this.position;
+		while (true) {
+			for (int index = this.position + offset; index < this.limit; index++) {
+				final char c = this.buffer[index];
+				if (c == LINE_FEED || c == CARRIAGE_RETURN) {
+					return index - this.position;
+				}
+			}
+			offset = this.limit - this.position;
+			if (!fill()) {
+				return offset;
+			}
+		}
+	}
+
+	/**
+	 * Finds the end of the row that starts at the current position, reading more content if necessary.
+	 *
+	 * Afterwards {@link #rowStart} contains the start of the row, {@link #position} the start of the next row and
+	 * {@link #comment} indicates whether the row is a comment.
+	 *
+	 * @return the index behind the last character of the row (excluding the line break), or -1 if no more row is
+	 *         available
+	 */
+	private int findRowEnd() throws IOException {
+		int index = this.position;
+		boolean quoted = false;
+		// Comments are only checked for the first line of a row, before any quote takes effect
+		boolean firstLine = this.commentMatcher != null;
+		this.comment = false;
+		while (true) {
+			if (index >= this.limit) {
+				final int length = index - this.position;
+				if (!fill()) {
+					// End of content
+					if (quoted) {
+						throw new EOFException("Unexpected end of file while reading a quoted value");
+					}
+					if (length == 0) {
+						return -1;
+					}
+					if (firstLine) {
+						this.comment = isComment(this.position, this.limit);
+					}
+					this.rowStart = this.position;
+					this.position = this.limit;
+					return this.limit;
+				}
+				index = this.position + length;
+				continue;
+			}
+			final char c = this.buffer[index];
+			if (c == this.quote) {
+				if (firstLine) {
+					// Quotes in comments are ignored
+					final int length = index - this.position;
+					final int lineEnd = isDefaultComments() ? length : findLineEnd(index);
+					this.comment = isComment(this.position, this.position + lineEnd);
+					firstLine = false;
+					index = this.position + length;
+				}
+				if (!this.comment) {
+					quoted = !quoted;
+				}
+			} else if (!quoted && (c == LINE_FEED || c == CARRIAGE_RETURN)) {
+				if (firstLine) {
+					this.comment = isComment(this.position, index);
+				}
+				if (c == CARRIAGE_RETURN && index + 1 >= this.limit) {
+					// Check if the line feed of "\r\n" follows
+					final int length = index - this.position;
+					fill();
+					index = this.position + length;
+				}
+				this.rowStart = this.position;
+				if (c == CARRIAGE_RETURN && index + 1 < this.limit && this.buffer[index + 1] == LINE_FEED) {
+					this.position = index + 2;
+				} else {
+					this.position = index + 1;
+				}
+				return index;
+			}
+			index++;
+		}
+	}
+
+	/**
+	 * The count of columns in the current row.
+	 *
+	 * @return the count of columns
+	 */
+	int getColumnCount() {
+		return this.columnCount;
+	}
+
+	/**
+	 * The value of a column in the current row.
+	 *
+	 * @param index
+	 *            the index of the column
+	 * @return the view of the value, only valid until the next row is read - {@code null} if the column is empty or
+	 *         does not exist
+	 */
+	CharSequence getValue(final int index) {
+		if (index >= this.columnCount) {
+			return null;
+		}
+		final Column column = this.columns[index];
+		return column.start == column.end ? null : column;
+	}
+
+	/**
+	 * Copies the values of the current row.
+	 *
+	 * @return all values of the current row, with {@code null} for each empty column
+	 */
+	List<String> getValues() {
+		final String[] values = new String[this.columnCount];
+		for (int i = 0; i < this.columnCount; i++) {
+			final Column column = this.columns[i];
+			if (column.start != column.end) {
+				values[i] = column.toString();
+			}
+		}
+		return Arrays.asList(values);
+	}
+
+	/**
+	 * Indicates that the given line is a comment.
+	 *
+	 * @param start
+	 *            the index of the first character of the line
+	 * @param end
+	 *            the index behind the last character of the line - for the {@link #DEFAULT_COMMENTS} any index behind
+	 *            the first two characters is sufficient
+	 * @return {@code true} if the {@link #commentMatcher} accepts the line
+	 */
+	private boolean isComment(final int start, final int end) {
+		if (isDefaultComments()) {
+			final char first = this.buffer[start];
+			return first == '#' || first == '/' && end - start > 1 && this.buffer[start + 1] == '/';
+		}
+		return this.commentMatcher.isComment(new String(this.buffer, start, end - start));
+	}
+
+	private boolean isDefaultComments() {
+		return this.commentMatcher == DEFAULT_COMMENTS;
+	}
+
+	/**
+	 * Indicates that the current row contains at least one non blank value.
+	 *
+	 * @return {@code true} if there is more than one column or the only column is not blank
+	 */
+	boolean isNotEmpty() {
+		if (this.columnCount > 1) {
+			return true;
+		}
+		if (this.columnCount == 1) {
+			final Column column = this.columns[0];
+			for (int i = column.start; i < column.end; i++) {
+				if (!Character.isWhitespace(this.buffer[i])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the next row.
+	 *
+	 * @return {@code true} if a row was found, {@code false} if the end of the content was reached
+	 * @throws IOException
+	 *             if the reader throws one
+	 */
+	boolean nextRow() throws IOException {
+		while (true) {
+			final int end = findRowEnd();
+			if (end < 0) {
+				this.columnCount = 0;
+				return false;
+			}
+			if (tokenize(this.rowStart, end)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next row and copies its values, like {@link org.supercsv.io.CsvListReader#read()}.
+	 *
+	 * @return the values of the next row, {@code null} if the end of the content was reached
+	 * @throws IOException
+	 *             if the reader throws one
+	 */
+	List<String> read() throws IOException {
+		return nextRow() ? getValues() : null;
+	}
+
+	/**
+	 * Splits the given part of the buffer into columns.
+	 *
+	 * @return {@code false} if the row was empty or a comment
+	 */
+	private boolean tokenize(final int start, final int end) {
+		this.columnCount = 0;
+		if (start == end || this.comment) {
+			return false;
+		}
+		int columnStart = start;
+		int write = start;
+		boolean quoted = false;
+		for (int index = start; index < end; index++) {
+			final char c = this.buffer[index];
+			if (quoted) {
+				if (c == this.quote) {
+					if (index + 1 < end && this.buffer[index + 1] == this.quote) {
+						// Escaped quote
+						this.buffer[write++] = c;
+						index++;
+					} else {
+						quoted = false;
+					}
+				} else if (c == CARRIAGE_RETURN) {
+					// Normalize line breaks in quoted values
+					this.buffer[write++] = LINE_FEED;
+					if (index + 1 < end && this.buffer[index + 1] == LINE_FEED) {
+						index++;
+					}
+				} else {
+					this.buffer[write++] = c;
+				}
+			} else if (c == this.delimiter) {
+				addColumn(columnStart, write);
+				columnStart = index + 1;
+				write = columnStart;
+			} else if (c == this.quote) {
+				quoted = true;
+			} else {
+				this.buffer[write++] = c;
+			}
+		}
+		addColumn(columnStart, write);
+		return true;
+	}
+
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.fastnate.data.DataImportException;
 import org.fastnate.data.EntityImporter;
@@ -16,6 +17,10 @@ import org.fastnate.generator.context.EntityClass;
  *
  * The CSV file needs either an entity name or needs to be located inside a directory with an entity name.
  *
+ * If {@link GenericDataProvider#STREAMING_KEY} is set, every entity is written as soon as its row is read. In that case
+ * an entity may only reference entities from previous rows or files, otherwise a {@link DataImportException} is
+ * thrown when the referenced entity is read.
+ *
  * @author Tobias Liefke
  */
 public class GenericCsvDataProvider extends GenericDataProvider {
@@ -36,13 +41,17 @@ public class GenericCsvDataProvider extends GenericDataProvider {
 		return importer;
 	}
 
-	@Override
-	protected Collection<?> importFile(final DataFile importFile) throws DataImportException, IOException {
+	private CsvDataImporter<?> findImporter(final DataFile importFile) {
 		final EntityClass<?> entityClass = findEntityClass(importFile);
 		if (entityClass == null) {
 			throw new DataImportException("Could not determine entity type for " + importFile, importFile.getName());
 		}
-		return this.importers.computeIfAbsent(entityClass, this::createImporter).importFile(importFile);
+		return this.importers.computeIfAbsent(entityClass, this::createImporter);
+	}
+
+	@Override
+	protected Collection<?> importFile(final DataFile importFile) throws DataImportException, IOException {
+		return findImporter(importFile).importFile(importFile);
 	}
 
 	@Override
@@ -50,4 +59,9 @@ public class GenericCsvDataProvider extends GenericDataProvider {
 		return file.getName().endsWith(".csv");
 	}
 
+	@Override
+	protected Stream<?> streamFile(final DataFile importFile) throws DataImportException, IOException {
+		return findImporter(importFile).streamFile(importFile);
+	}
+
 }
@@ -35,6 +35,20 @@ public abstract class DataRow {
 		}
 	}
 
+	/**
+	 * Reads the value of the column at the given index, without creating a {@link String} if possible.
+	 *
+	 * Useful for parsing numbers or looking up constants. The returned sequence is only valid until the next row is
+	 * read.
+	 *
+	 * @param columnIndex
+	 *            the index of the column
+	 * @return the value in that column or the empty string (""), if the column is empty or does not exist
+	 */
+	public CharSequence getCharSequence(final int columnIndex) {
+		return getValue(columnIndex);
+	}
+
 	/**
 	 * The count of columns (according to the header).
 	 *
@@ -0,0 +1,413 @@
+package org.fastnate.data.csv.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.fastnate.data.DataImportException;
+import org.fastnate.data.csv.CsvDataImporter;
+import org.fastnate.data.csv.properties.DataRow;
+import org.fastnate.data.files.FsDataFile;
+import org.fastnate.generator.context.EntityClass;
+import org.fastnate.generator.context.GeneratorContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.supercsv.comment.CommentStartsWith;
+import org.supercsv.prefs.CsvPreference;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tests the {@link CsvDataImporter}.
+ *
+ * @author Tobias Liefke
+ */
+@Slf4j
+public class CsvDataImporterTest {
+
+	private static final int ROWS = 3000;
+
+	private static final int CHUNK_SIZE = 1024;
+
+	/** The size of the file for the tokenizer benchmark, 1 GB for a meaningful comparison. */
+	private static final long BENCHMARK_SIZE = Long.getLong("fastnate.csv.benchmark.size", 1 << 20);
+
+	private static final int WIDE_COLUMNS = 200;
+
+	private static CsvDataImporter<TestEntity> createImporter(final long parallelChunkSize) {
+		return createImporter(parallelChunkSize, false);
+	}
+
+	private static CsvDataImporter<TestEntity> createImporter(final long parallelChunkSize,
+			final boolean builtInTokenizer) {
+		final Properties settings = new Properties();
+		settings.setProperty(CsvDataImporter.COLUMN_DELIMITER, ";");
+		settings.setProperty(CsvDataImporter.PARALLEL_CHUNK_SIZE, String.valueOf(parallelChunkSize));
+		settings.setProperty(CsvDataImporter.BUILT_IN_TOKENIZER, String.valueOf(builtInTokenizer));
+		final CsvDataImporter<TestEntity> importer = new CsvDataImporter<>(
+				new GeneratorContext(settings).getDescription(TestEntity.class));
+		importer.mapProperties();
+		importer.setIgnoreMissingColumns(true);
+		return importer;
+	}
+
+	private static CsvDataImporter<TestEntity> createImporter(final long parallelChunkSize,
+			final boolean builtInTokenizer, final CsvPreference csvSettings) {
+		final CsvDataImporter<TestEntity> importer = new CsvDataImporter<>(
+				new GeneratorContext().getDescription(TestEntity.class), csvSettings);
+		importer.setParallelChunkSize(parallelChunkSize);
+		importer.setBuiltInTokenizer(builtInTokenizer);
+		importer.mapProperties();
+		importer.setIgnoreMissingColumns(true);
+		return importer;
+	}
+
+	private static String describe(final TestEntity entity) {
+		return entity.getName() + '|' + entity.getNum() + '|'
+				+ (entity.getParent() == null ? "" : entity.getParent().getName());
+	}
+
+	private static List<String> importFile(final CsvDataImporter<TestEntity> importer, final FsDataFile file)
+			throws IOException {
+		return importer.importFile(file).stream().map(CsvDataImporterTest::describe).collect(Collectors.toList());
+	}
+
+	private static long measureImport(final FsDataFile file, final long parallelChunkSize,
+			final boolean builtInTokenizer) throws IOException {
+		final CsvDataImporter<TestEntity> importer = createImporter(parallelChunkSize, builtInTokenizer);
+		importer.setRegisterEntities(false);
+		final AtomicLong count = new AtomicLong();
+		final StopWatch watch = StopWatch.createStarted();
+		importer.importFile(file, (final TestEntity entity) -> count.incrementAndGet());
+		log.info("Imported {} rows with {} (parallel chunk size: {}) in {}", count,
+				builtInTokenizer ? "built-in tokenizer" : "super-csv", parallelChunkSize, watch);
+		return count.get();
+	}
+
+	private static File writeBenchmarkFile(final Path folder, final long size) throws IOException {
+		final File file = folder.resolve("Benchmark.csv").toFile();
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			writer.write("name;num;bool;date\n");
+			long written = 0;
+			for (int row = 1; written < size; row++) {
+				final String line = (row % 10 == 0 ? "\"Quoted;\"\"" + row + "\"\"\"" : "Row " + row) + ';' + row + ';'
+						+ (row % 2 == 0) + ";\n";
+				writer.write(line);
+				written += line.length();
+			}
+		}
+		return file;
+	}
+
+	private static long measureWideImport(final FsDataFile file, final boolean resolvedColumns) throws IOException {
+		// Use the built-in tokenizer, as it creates only the values of mapped columns
+		final Properties settings = new Properties();
+		settings.setProperty(CsvDataImporter.BUILT_IN_TOKENIZER, "true");
+		final EntityClass<TestEntity> entityClass = new GeneratorContext(settings).getDescription(TestEntity.class);
+		final CsvDataImporter<TestEntity> importer = resolvedColumns ? new CsvDataImporter<>(entityClass)
+				: new CsvDataImporter<>(entityClass) {
+
+					@Override
+					protected TestEntity createEntity(final DataRow row) {
+						// Look up the mapping of each column in each row
+						final TestEntity entity = createEntity();
+						for (int i = 0; i < row.getColumnCount(); i++) {
+							applyColumn(entity, row.getName(i), row.getValue(i));
+						}
+						return entity;
+					}
+				};
+		for (int column = 0; column < WIDE_COLUMNS; column++) {
+			if (column % 2 == 0) {
+				importer.addColumnMapping("col" + column, (entity, value) -> entity.setName(value));
+			} else if (column % 10 == 1) {
+				importer.addIgnoredColumn("col" + column);
+			}
+		}
+		importer.setIgnoreUnknownColumns(true);
+		importer.setRegisterEntities(false);
+		final AtomicLong count = new AtomicLong();
+		final StopWatch watch = StopWatch.createStarted();
+		importer.importFile(file, (final TestEntity entity) -> count.incrementAndGet());
+		watch.stop();
+		log.info("Imported {} rows with {} columns {} in {} ({} ns per row)", count, WIDE_COLUMNS,
+				resolvedColumns ? "with resolved columns" : "with lookups per column", watch,
+				watch.getNanoTime() / Math.max(1, count.get()));
+		return count.get();
+	}
+
+	private static File writeWideFile(final Path folder, final long size) throws IOException {
+		final File file = folder.resolve("Wide.csv").toFile();
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			final StringBuilder line = new StringBuilder();
+			for (int column = 0; column < WIDE_COLUMNS; column++) {
+				line.append(column == 0 ? "" : ",").append("col").append(column);
+			}
+			writer.write(line.append('\n').toString());
+			long written = 0;
+			for (int row = 1; written < size; row++) {
+				line.setLength(0);
+				for (int column = 0; column < WIDE_COLUMNS; column++) {
+					line.append(column == 0 ? "" : ",").append(row + column);
+				}
+				writer.write(line.append('\n').toString());
+				written += line.length();
+			}
+		}
+		return file;
+	}
+
+	private static File writeCommentsFile(final Path folder) throws IOException {
+		final StringBuilder content = new StringBuilder("-- A \"comment before the header\nname;num\n");
+		for (int row = 1; row <= ROWS; row++) {
+			if (row % 100 == 0) {
+				content.append("-- A \"comment\n");
+			}
+			if (row % 7 == 0) {
+				// No comment for the custom settings
+				content.append("# Row ").append(row);
+			} else if (row % 11 == 0) {
+				content.append("\"Multi\n-- line ").append(row).append('"');
+			} else {
+				content.append("Row ").append(row);
+			}
+			content.append(';').append(row).append('\n');
+		}
+		final File file = folder.resolve("Comments.csv").toFile();
+		Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static File writeFile(final Path folder, final int invalidRow) throws IOException {
+		final StringBuilder content = new StringBuilder("name;parent;num\n");
+		String previousName = "";
+		for (int row = 1; row <= ROWS; row++) {
+			if (row % 100 == 0) {
+				// Comments and empty lines are no rows
+				content.append("# A \"comment\n\n");
+			}
+			final String name;
+			if (row % 7 == 0) {
+				// A value that spans multiple lines
+				name = "Multi;\nline " + row;
+			} else if (row % 11 == 0) {
+				name = "Quoted \"" + row + '"';
+			} else {
+				name = "Row " + row;
+			}
+			content.append('"').append(name.replace("\"", "\"\"")).append("\";\"")
+					.append(previousName.replace("\"", "\"\"")).append("\";").append(row == invalidRow ? "x" : row)
+					.append('\n');
+			previousName = name;
+		}
+		final File file = folder.resolve("TestEntity" + invalidRow + ".csv").toFile();
+		Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	/** The folder for the generated CSV files. */
+	@TempDir
+	private Path tempFolder;
+
+	/**
+	 * Tests that the row of an error is the same, if a file is parsed in parallel.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testParallelError() throws IOException {
+		final int invalidRow = ROWS - 100;
+		final FsDataFile file = new FsDataFile(writeFile(this.tempFolder, invalidRow));
+
+		assertThatThrownBy(() -> createImporter(0).importFile(file)).isInstanceOf(DataImportException.class)
+				.extracting(e -> ((DataImportException) e).getLine()).isEqualTo(invalidRow);
+		assertThatThrownBy(() -> createImporter(CHUNK_SIZE).importFile(file)).isInstanceOf(DataImportException.class)
+				.extracting(e -> ((DataImportException) e).getLine()).isEqualTo(invalidRow);
+	}
+
+	/**
+	 * Tests that parsing a file in parallel creates the same entities in the same order, even with multi-line values
+	 * and comments.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testParallelImport() throws IOException {
+		final FsDataFile file = new FsDataFile(writeFile(this.tempFolder, 0));
+
+		final List<String> expected = createImporter(0).importFile(file).stream().map(CsvDataImporterTest::describe)
+				.collect(Collectors.toList());
+		assertThat(expected).hasSize(ROWS);
+		assertThat(expected.get(6)).isEqualTo("Multi;\nline 7|7|Row 6");
+
+		final CsvDataImporter<TestEntity> parallelImporter = createImporter(CHUNK_SIZE);
+		final Set<Thread> mappingThreads = ConcurrentHashMap.newKeySet();
+		parallelImporter.addColumnMapping("num", Integer::valueOf, (entity, num) -> {
+			mappingThreads.add(Thread.currentThread());
+			entity.setNum(num);
+		});
+		final List<String> actual = parallelImporter.importFile(file).stream().map(CsvDataImporterTest::describe)
+				.collect(Collectors.toList());
+		assertThat(actual).isEqualTo(expected);
+		assertThat(mappingThreads).doesNotContain(Thread.currentThread());
+	}
+
+	/**
+	 * Tests that parsing a file in parallel finds the rows with {@code "\r\n"} and with single {@code '\r'} line breaks.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testParallelImportWithCarriageReturns() throws IOException {
+		final File file = writeFile(this.tempFolder, 0);
+		final List<String> expected = importFile(createImporter(0), new FsDataFile(file));
+		assertThat(expected).hasSize(ROWS);
+
+		final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		Files.write(file.toPath(), content.replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+		assertThat(importFile(createImporter(CHUNK_SIZE), new FsDataFile(file))).isEqualTo(expected);
+		assertThat(importFile(createImporter(CHUNK_SIZE, true), new FsDataFile(file))).isEqualTo(expected);
+		Files.write(file.toPath(), content.replace('\n', '\r').getBytes(StandardCharsets.UTF_8));
+		assertThat(importFile(createImporter(CHUNK_SIZE), new FsDataFile(file))).isEqualTo(expected);
+		assertThat(importFile(createImporter(CHUNK_SIZE, true), new FsDataFile(file))).isEqualTo(expected);
+	}
+
+	/**
+	 * Tests that a file with a quote character outside of ASCII is not split into chunks within a quoted value.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testParallelImportWithUnicodeQuote() throws IOException {
+		final char quote = '\u201E';
+		final String content = new String(Files.readAllBytes(writeFile(this.tempFolder, 0).toPath()),
+				StandardCharsets.UTF_8).replace("\"\"", "'").replace('"', quote);
+		final File file = this.tempFolder.resolve("UnicodeQuote.csv").toFile();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		final CsvPreference csvSettings = new CsvPreference.Builder(quote, ';', "\n")
+				.skipComments(new CommentStartsWith("#")).build();
+
+		final List<String> expected = importFile(createImporter(0, false, csvSettings), new FsDataFile(file));
+		assertThat(expected).hasSize(ROWS);
+		assertThat(expected.get(6)).isEqualTo("Multi;\nline 7|7|Row 6");
+		assertThat(importFile(createImporter(CHUNK_SIZE, false, csvSettings), new FsDataFile(file)))
+				.isEqualTo(expected);
+	}
+
+	/**
+	 * Tests that the built-in tokenizer creates the same entities as super-csv, with any kind of line breaks.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testTokenizer() throws IOException {
+		final File file = writeFile(this.tempFolder, 0);
+		final List<String> expected = importFile(createImporter(0), new FsDataFile(file));
+		assertThat(importFile(createImporter(0, true), new FsDataFile(file))).isEqualTo(expected);
+		assertThat(importFile(createImporter(CHUNK_SIZE, true), new FsDataFile(file))).isEqualTo(expected);
+
+		final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		Files.write(file.toPath(), content.replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+		assertThat(importFile(createImporter(0, true), new FsDataFile(file))).isEqualTo(expected);
+		Files.write(file.toPath(), content.replace('\n', '\r').getBytes(StandardCharsets.UTF_8));
+		assertThat(importFile(createImporter(0, true), new FsDataFile(file))).isEqualTo(expected);
+	}
+
+	/**
+	 * Tests that the built-in tokenizer uses the comment matcher of custom settings.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testTokenizerComments() throws IOException {
+		final FsDataFile file = new FsDataFile(writeCommentsFile(this.tempFolder));
+		final CsvPreference csvSettings = new CsvPreference.Builder('"', ';', "\n")
+				.skipComments(new CommentStartsWith("--")).build();
+
+		final List<String> expected = importFile(createImporter(0, false, csvSettings), file);
+		assertThat(expected).hasSize(ROWS);
+		assertThat(expected.get(6)).isEqualTo("# Row 7|7|");
+		assertThat(expected.get(10)).isEqualTo("Multi\n-- line 11|11|");
+		assertThat(importFile(createImporter(0, true, csvSettings), file)).isEqualTo(expected);
+		assertThat(importFile(createImporter(CHUNK_SIZE, false, csvSettings), file)).isEqualTo(expected);
+		assertThat(importFile(createImporter(CHUNK_SIZE, true, csvSettings), file)).isEqualTo(expected);
+	}
+
+	/**
+	 * Tests that the row of an error is the same for the built-in tokenizer.
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testTokenizerError() throws IOException {
+		final int invalidRow = ROWS - 100;
+		final FsDataFile file = new FsDataFile(writeFile(this.tempFolder, invalidRow));
+
+		assertThatThrownBy(() -> createImporter(0, true).importFile(file)).isInstanceOf(DataImportException.class)
+				.extracting(e -> ((DataImportException) e).getLine()).isEqualTo(invalidRow);
+		assertThatThrownBy(() -> createImporter(CHUNK_SIZE, true).importFile(file))
+				.isInstanceOf(DataImportException.class).extracting(e -> ((DataImportException) e).getLine())
+				.isEqualTo(invalidRow);
+	}
+
+	/**
+	 * Compares the duration of an import with super-csv and the built-in tokenizer.
+	 *
+	 * The size of the file is defined by the system property "fastnate.csv.benchmark.size".
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testTokenizerPerformance() throws IOException {
+		final FsDataFile file = new FsDataFile(writeBenchmarkFile(this.tempFolder, BENCHMARK_SIZE));
+
+		final long rows = measureImport(file, 0, false);
+		assertThat(measureImport(file, 0, true)).isEqualTo(rows);
+		final long chunkSize = Math.min(1 << 22, BENCHMARK_SIZE / 8);
+		assertThat(measureImport(file, chunkSize, false)).isEqualTo(rows);
+		assertThat(measureImport(file, chunkSize, true)).isEqualTo(rows);
+	}
+
+	/**
+	 * Compares the duration of an import of a file with many columns, with and without resolving the columns once.
+	 *
+	 * The size of the file is defined by the system property "fastnate.csv.benchmark.size".
+	 *
+	 * @throws IOException
+	 *             if the file was not accessible
+	 */
+	@Test
+	public void testWideRowPerformance() throws IOException {
+		final FsDataFile file = new FsDataFile(writeWideFile(this.tempFolder, BENCHMARK_SIZE));
+
+		final long rows = measureWideImport(file, false);
+		assertThat(measureWideImport(file, true)).isEqualTo(rows);
+	}
+
+}
@@ -1,15 +1,18 @@
 package org.fastnate.data.csv.test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Properties;
 
 import org.apache.commons.lang3.StringUtils;
+import org.fastnate.data.DataImportException;
 import org.fastnate.data.EntityImporter;
 import org.fastnate.data.csv.CsvDataImporter;
 import org.fastnate.data.csv.GenericCsvDataProvider;
+import org.fastnate.data.files.GenericDataProvider;
 import org.fastnate.generator.context.GeneratorContext;
 import org.junit.jupiter.api.Test;
 
@@ -46,17 +49,59 @@ public class CsvDataProviderTest {
 		// Check CSVData
 		assertThat(sql).isEqualTo("INSERT INTO TestEntity (name, integ) VALUES ('CSV Root 2', 1);"
 				+ " INSERT INTO TestEntity (name, integ, parent_id)"
-				+ " VALUES ('Second child', 12, (SELECT max(id) FROM TestEntity));"
+				+ " VALUES ('First child', 11, (SELECT max(id) FROM TestEntity));"
 				+ " INSERT INTO TestEntity (name, integ, parent_id)"
-				+ " VALUES ('First child', 11, (SELECT max(id) - 1 FROM TestEntity));"
+				+ " VALUES ('First sub child', 111, (SELECT max(id) FROM TestEntity));"
 				+ " INSERT INTO TestEntity (name, integ, parent_id)"
-				+ " VALUES ('Second sub child', 112, (SELECT max(id) FROM TestEntity));"
+				+ " VALUES ('Second sub child', 112, (SELECT max(id) - 1 FROM TestEntity));"
 				+ " INSERT INTO TestEntity (name, integ, parent_id)"
-				+ " VALUES ('First sub child', 111, (SELECT max(id) - 1 FROM TestEntity));"
+				+ " VALUES ('Second child', 12, (SELECT max(id) - 3 FROM TestEntity));"
 				+ " INSERT INTO TestEntity (bool, date, name, integ)"
 				+ " VALUES (1, '2000-01-01 00:00:00.0', 'CSV Root', 0);"
 				+ " INSERT INTO TestEntity (bool, date, name, integ, parent_id)"
 				+ " VALUES (0, '2010-12-31 23:23:59.0', 'CSV Child;Example', 1, (SELECT max(id) FROM TestEntity));");
 	}
 
+	/**
+	 * Tests the SQL generation from a CSV file, when every entity is written as soon as its row is read.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testStreamingImport() throws IOException {
+		final Properties settings = createDefaultSettings();
+		settings.setProperty(EntityImporter.DATA_FOLDER_KEY, "streaming");
+		settings.setProperty(GenericDataProvider.STREAMING_KEY, "true");
+
+		final EntityImporter entityImporter = new EntityImporter(settings);
+		final StringWriter sqlWriter = new StringWriter();
+		entityImporter.importData(sqlWriter);
+		final String sql = StringUtils.normalizeSpace(sqlWriter.toString().replaceAll("(?m)^/\\*.*", "").trim());
+
+		// Check that the entities are written in the order of the rows
+		assertThat(sql).isEqualTo("INSERT INTO TestEntity (name, integ) VALUES ('Stream Root', 1);"
+				+ " INSERT INTO TestEntity (name, integ, parent_id)"
+				+ " VALUES ('Stream Child', 11, (SELECT max(id) FROM TestEntity));"
+				+ " INSERT INTO TestEntity (name, integ, parent_id)"
+				+ " VALUES ('Stream Sub Child', 111, (SELECT max(id) FROM TestEntity));"
+				+ " INSERT INTO TestEntity (name, integ) VALUES ('Stream Root 2', 2);");
+	}
+
+	/**
+	 * Tests that a reference to an entity of a later row is rejected, when every entity is written as soon as its row
+	 * is read.
+	 */
+	@Test
+	public void testStreamingForwardReference() {
+		final Properties settings = createDefaultSettings();
+		settings.setProperty(EntityImporter.DATA_FOLDER_KEY, "forward");
+		settings.setProperty(GenericDataProvider.STREAMING_KEY, "true");
+
+		final EntityImporter entityImporter = new EntityImporter(settings);
+		assertThatThrownBy(() -> entityImporter.importData(new StringWriter()))
+				.isInstanceOf(DataImportException.class).hasMessageContaining("Forward Child")
+				.hasMessageContaining("'Forward Root'");
+	}
+
 }
@@ -62,6 +62,9 @@ public class DefaultDataProviderFactory extends AbstractDataProviderFactory {
 
 		private int value = Integer.MIN_VALUE;
 
+		/** All added providers. */
+		private final List<DataProvider> providers = new ArrayList<>();
+
 		/**
 		 * Adds the order of the given provider to this order agglomeration.
 		 *
@@ -69,6 +72,7 @@ public class DefaultDataProviderFactory extends AbstractDataProviderFactory {
 		 *            the dependency
 		 */
 		public void add(final DataProvider provider) {
+			this.providers.add(provider);
 			if (provider.getOrder() > this.value) {
 				this.value = provider.getOrder();
 			}
@@ -144,7 +148,7 @@ public class DefaultDataProviderFactory extends AbstractDataProviderFactory {
 			invokePostConstruct(constructor.getDeclaringClass(), new HashSet<>(), provider);
 
 			// And add it after the first provider with the same or a smaller order criteria
-			importer.addDataProvider(provider, maxOrder.getValue());
+			importer.addDataProvider(provider, maxOrder.getValue(), maxOrder.getProviders());
 			return provider;
 		} catch (final ReflectiveOperationException e) {
 			throw new IllegalArgumentException(e);
@@ -15,9 +15,17 @@ import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.Entity;
@@ -38,7 +46,9 @@ import org.reflections.util.ClasspathHelper;
 import org.reflections.vfs.Vfs;
 import org.reflections.vfs.Vfs.DefaultUrlTypes;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -106,6 +116,10 @@ public class EntityImporter {
 	 * <ul>
 	 * <li>FileStatementsWriter (default)</li>
 	 * <li>PostgreSqlBulkWriter</li>
+	 * <li>MySqlBulkWriter</li>
+	 * <li>MsSqlBulkWriter</li>
+	 * <li>H2BulkWriter</li>
+	 * <li>PostgreSqlCopyWriter</li>
 	 * <li>ConnectedStatementsWriter</li>
 	 * <li>LiquibaseStatementsWriter</li>
 	 * <li>any fully qualified class which has a constructor that accepts a {@link GeneratorContext}</li>
@@ -113,6 +127,15 @@ public class EntityImporter {
 	 */
 	public static final String STATEMENTS_WRITER_KEY = "fastnate.data.statements.writer";
 
+	/**
+	 * Settings key that indicates to {@link DataProvider#buildEntities() build the entities} of independent providers in
+	 * parallel (on virtual threads), if no {@link #setBuildExecutor(Executor) executor} was set explicitly.
+	 *
+	 * Providers are independent, if none of them was injected into the other and both have the same
+	 * {@link DataProvider#getOrder() order}. The SQL is still written by one thread in the order of the providers.
+	 */
+	public static final String PARALLEL_BUILD_KEY = "fastnate.data.provider.parallel";
+
 	private static DataFolder findDataFolder(final GeneratorContext context) {
 		final String dataFolderPath = context.getSettings().getProperty(DATA_FOLDER_KEY, ".");
 		final File dataFolderDir = new File(dataFolderPath);
@@ -183,6 +206,19 @@ public class EntityImporter {
 
 	private final List<DataProvider> dataProviders = new ArrayList<>();
 
+	/** The known dependencies of the data providers, for all providers registered by a {@link DataProviderFactory}. */
+	@Getter(AccessLevel.NONE)
+	private final Map<DataProvider, Collection<DataProvider>> dataProviderDependencies = new IdentityHashMap<>();
+
+	/**
+	 * The executor used to build the entities of independent providers in parallel.
+	 *
+	 * If {@code null}, all providers are built one after another in the current thread - unless
+	 * {@link #PARALLEL_BUILD_KEY} is set.
+	 */
+	@Setter
+	private Executor buildExecutor;
+
 	/**
 	 * Creates a new default instance of an EntityImporter.
 	 */
@@ -265,6 +301,27 @@ public class EntityImporter {
 	 *
 	 */
 	public void addDataProvider(final DataProvider provider, final int maximumOrderOfDepenendencies) {
+		addDataProvider(provider, maximumOrderOfDepenendencies, null);
+	}
+
+	/**
+	 * Adds a provider with known dependencies to the list of available providers.
+	 *
+	 * The provider will be added after the last provider with the same or a smaller order criteria.
+	 *
+	 * @param provider
+	 *            the provider
+	 * @param maximumOrderOfDepenendencies
+	 *            the maximum {@link DataProvider#getOrder() ordering} of dependencies of the provider
+	 * @param dependencies
+	 *            all providers that have to build their entities before the given provider, {@code null} if unknown -
+	 *            in that case the provider will wait for all providers that were added before
+	 */
+	public void addDataProvider(final DataProvider provider, final int maximumOrderOfDepenendencies,
+			final Collection<? extends DataProvider> dependencies) {
+		if (dependencies != null) {
+			this.dataProviderDependencies.put(provider, new ArrayList<>(dependencies));
+		}
 		final int order = Math.max(maximumOrderOfDepenendencies, provider.getOrder());
 		int index = this.dataProviders.size();
 		while (index > 0 && this.dataProviders.get(index - 1).getOrder() > order) {
@@ -285,6 +342,88 @@ public class EntityImporter {
 				.cast(this.dataProviders.stream().filter(providerClass::isInstance).findFirst().orElse(null));
 	}
 
+	/**
+	 * Asks all data providers to build their entities.
+	 *
+	 * If a {@link #getBuildExecutor() build executor} is available, each provider is built as soon as all of its
+	 * dependencies are built.
+	 *
+	 * @throws IOException
+	 *             if one of the providers throws one
+	 */
+	private void buildEntities() throws IOException {
+		if (this.buildExecutor != null) {
+			buildEntities(this.buildExecutor);
+		} else if (Boolean.parseBoolean(getSettings().getProperty(PARALLEL_BUILD_KEY, "false"))) {
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				buildEntities(executor);
+			}
+		} else {
+			for (final DataProvider provider : this.dataProviders) {
+				provider.buildEntities();
+			}
+		}
+	}
+
+	private void buildEntities(final Executor executor) throws IOException {
+		final Map<DataProvider, CompletableFuture<Void>> builds = new IdentityHashMap<>();
+		for (int i = 0; i < this.dataProviders.size(); i++) {
+			final DataProvider provider = this.dataProviders.get(i);
+			final CompletableFuture<?>[] dependencies = findBuildDependencies(i).stream().map(builds::get)
+					.toArray(CompletableFuture[]::new);
+			builds.put(provider, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+				try {
+					provider.buildEntities();
+				} catch (final IOException e) {
+					throw new CompletionException(e);
+				}
+			}, executor));
+		}
+
+		try {
+			CompletableFuture.allOf(builds.values().toArray(new CompletableFuture[builds.size()])).join();
+		} catch (final CompletionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Finds all providers that have to be built before the provider at the given index.
+	 *
+	 * These are the providers that were injected into that provider and all providers with a smaller order criteria.
+	 * If the dependencies of the provider are unknown, all previous providers are returned.
+	 *
+	 * @param index
+	 *            the index of the provider in the list of providers
+	 * @return all providers that have to be built before
+	 */
+	private List<DataProvider> findBuildDependencies(final int index) {
+		final List<DataProvider> previousProviders = this.dataProviders.subList(0, index);
+		final DataProvider provider = this.dataProviders.get(index);
+		final Collection<DataProvider> dependencies = this.dataProviderDependencies.get(provider);
+		if (dependencies == null) {
+			return previousProviders;
+		}
+		final List<DataProvider> result = new ArrayList<>(dependencies);
+		for (final DataProvider previousProvider : previousProviders) {
+			if (previousProvider.getOrder() < provider.getOrder()) {
+				result.add(previousProvider);
+			}
+		}
+		result.retainAll(previousProviders);
+		return result;
+	}
+
 	private Charset getEncoding() {
 		return Charset.forName(getSettings().getProperty(OUTPUT_ENCODING_KEY, "UTF-8"));
 	}
@@ -364,6 +503,9 @@ public class EntityImporter {
 	/**
 	 * Asks the data providers to generate their entities and writes the SQL afterwards.
 	 *
+	 * The entities of a {@link StreamingDataProvider} are created while they are written, so these entities are parsed
+	 * and written one after another.
+	 *
 	 * @param generator
 	 *            the current entity SQL generator
 	 *
@@ -374,9 +516,7 @@ public class EntityImporter {
 		try {
 			final String dialect = this.context.getDialect().getClass().getSimpleName();
 			log.info("Using {} for SQL generation.", dialect);
-			for (final DataProvider provider : this.dataProviders) {
-				provider.buildEntities();
-			}
+			buildEntities();
 
 			generator.writeComment("Generated by Fastnate EntityImporter for " + dialect);
 
@@ -2,28 +2,53 @@ package org.fastnate.data;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
 
 import jakarta.annotation.Resource;
 
 import org.fastnate.generator.EntitySqlGenerator;
+import org.fastnate.generator.context.EmbeddedProperty;
 import org.fastnate.generator.context.EntityClass;
+import org.fastnate.generator.context.EntityProperty;
 import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.Property;
 import org.fastnate.generator.context.SingularProperty;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Registers entities by their unique properties to offer them to other data providers.
  *
+ * The registration is thread safe, to register and resolve entities from providers that are
+ * {@link EntityImporter#PARALLEL_BUILD_KEY built in parallel}. The entities of each class are guarded by their own
+ * lock, and actions registered with one of the {@code invokeOnEntity} methods are called exactly once - outside of
+ * that lock, in the thread that registers the entity (or in the calling thread, if the entity is already registered).
+ *
+ * When {@link #writeEntities(EntitySqlGenerator) written}, every entity is written only once, even if it is registered
+ * for more than one set of unique properties. And the entity classes are written in the order of their references:
+ * Entities of referenced classes are written before the entities that reference them, to reduce nested writes and
+ * pending updates for references to entities that are not written up to then.
+ *
  * @author Tobias Liefke
  */
+@Slf4j
 @RequiredArgsConstructor
 public class EntityRegistration implements DataProvider {
 
@@ -108,24 +133,227 @@ public class EntityRegistration implements DataProvider {
 
 	}
 
+	/**
+	 * All registered entities of one class.
+	 *
+	 * Entities that are unique by a single property are indexed by the value of that property, to find them without
+	 * allocating a key. Only entities that are unique by a combination of properties are indexed by a
+	 * {@link UniqueKey}. Every index contains {@link InvokeLaterHandle}s for entities that are not registered up to
+	 * now.
+	 *
+	 * The entities are written in the order of their registration. The indexes are only accessed while holding the
+	 * monitor of this object.
+	 */
+	@RequiredArgsConstructor
+	private static final class UniqueEntities {
+
+		@Getter
+		private final Class<?> entityClass;
+
+		/** Mapping from the name of a single unique property to its values and their entities. */
+		private final Map<String, Map<Object, Object>> singleProperties = new HashMap<>();
+
+		/** Mapping from the values of a combination of unique properties to their entities. */
+		private final Map<UniqueKey, Object> combinedProperties = new HashMap<>();
+
+		/** The entity of each registration, in the order of registration. */
+		private final List<Object> registrations = new ArrayList<>();
+
+		synchronized <E> E addInvoker(final String propertyName, final Object propertyValue,
+				final Consumer<E> invoker) {
+			return EntityRegistration.addInvoker(getSingleProperty(propertyName), propertyValue, invoker);
+		}
+
+		synchronized <E> E addInvoker(final UniqueKey uniqueKey, final Consumer<E> invoker) {
+			return EntityRegistration.addInvoker(this.combinedProperties, uniqueKey, invoker);
+		}
+
+		/**
+		 * Adds all registered entities to the given list, if they are not contained in the set of known entities.
+		 *
+		 * @param entities
+		 *            the list of entities of this class, in the order of registration
+		 * @param knownEntities
+		 *            all entities that were collected up to now
+		 * @return the count of registrations of this class
+		 * @throws IllegalStateException
+		 *             if an entity was referenced, but never registered
+		 */
+		synchronized int collectEntities(final List<Object> entities, final Set<Object> knownEntities) {
+			for (final Entry<String, Map<Object, Object>> property : this.singleProperties.entrySet()) {
+				for (final Entry<Object, Object> entry : property.getValue().entrySet()) {
+					if (entry.getValue() instanceof InvokeLaterHandle) {
+						throw new IllegalStateException("Could not find " + this.entityClass.getSimpleName() + " with "
+								+ property.getKey() + " = \"" + entry.getKey() + '"');
+					}
+				}
+			}
+			for (final Entry<UniqueKey, Object> entry : this.combinedProperties.entrySet()) {
+				if (entry.getValue() instanceof InvokeLaterHandle) {
+					throw new IllegalStateException(
+							"Could not find " + this.entityClass.getSimpleName() + " with " + entry.getKey());
+				}
+			}
+
+			for (final Object entity : this.registrations) {
+				if (knownEntities.add(entity)) {
+					entities.add(entity);
+				}
+			}
+			return this.registrations.size();
+		}
+
+		synchronized Object findEntity(final Object propertyValue) {
+			for (final Map<Object, Object> values : this.singleProperties.values()) {
+				final Object value = values.get(propertyValue);
+				if (value != null && !(value instanceof InvokeLaterHandle)) {
+					return value;
+				}
+			}
+			return null;
+		}
+
+		synchronized Object findEntity(final String propertyName, final Object propertyValue) {
+			final Map<Object, Object> values = this.singleProperties.get(propertyName);
+			return values == null ? null : values.get(propertyValue);
+		}
+
+		synchronized Object findEntity(final UniqueKey uniqueKey) {
+			return this.combinedProperties.get(uniqueKey);
+		}
+
+		private Map<Object, Object> getSingleProperty(final String propertyName) {
+			return this.singleProperties.computeIfAbsent(propertyName, name -> new HashMap<>());
+		}
+
+		synchronized Object putEntity(final String propertyName, final Object propertyValue, final Object entity) {
+			return registered(EntityRegistration.putEntity(getSingleProperty(propertyName), propertyValue, entity),
+					entity);
+		}
+
+		synchronized Object putEntity(final UniqueKey uniqueKey, final Object entity) {
+			return registered(EntityRegistration.putEntity(this.combinedProperties, uniqueKey, entity), entity);
+		}
+
+		private Object registered(final Object oldValue, final Object entity) {
+			if (oldValue == null || oldValue instanceof InvokeLaterHandle) {
+				this.registrations.add(entity);
+			}
+			return oldValue;
+		}
+
+	}
+
+	/**
+	 * Adds an action to the handle of an entity that is not registered up to now.
+	 *
+	 * @return the entity, if it is already registered - in that case the caller has to invoke the action
+	 */
+	private static <K, E> E addInvoker(final Map<K, Object> index, final K key, final Consumer<E> invoker) {
+		final Object entity = index.computeIfAbsent(key, k -> new InvokeLaterHandle<>());
+		if (entity instanceof InvokeLaterHandle) {
+			((InvokeLaterHandle<E>) entity).getConsumer().add(invoker);
+			return null;
+		}
+		return (E) entity;
+	}
+
+	/**
+	 * Puts an entity into an index, if no other entity is registered for the same key.
+	 *
+	 * @return the previous value - an {@link InvokeLaterHandle} is replaced by the entity and its actions have to be
+	 *         called by the caller
+	 */
+	private static <K> Object putEntity(final Map<K, Object> index, final K key, final Object entity) {
+		final Object oldValue = index.putIfAbsent(key, entity);
+		if (oldValue instanceof InvokeLaterHandle) {
+			index.put(key, entity);
+		}
+		return oldValue;
+	}
+
+	private static <E> boolean replaceEntity(final Object oldValue, final E entity) {
+		if (oldValue instanceof InvokeLaterHandle) {
+			for (final Consumer<E> invoker : ((InvokeLaterHandle<E>) oldValue).getConsumer()) {
+				invoker.accept(entity);
+			}
+			return true;
+		}
+		return oldValue == null || oldValue.equals(entity);
+	}
+
 	/** The generation context contains the description of the entity classes, especially unique properties. */
 	@Resource
 	private final GeneratorContext context;
 
 	/** Mapping from the type of the entity to the name of the uniqe properties with their values and entities. */
-	private final Map<Class<?>, Map<UniqueKey, Object>> entities = new HashMap<>();
+	private final Map<Class<?>, UniqueEntities> entities = new ConcurrentHashMap<>();
 
-	private <E> void addEntity(final Map<UniqueKey, Object> uniqueEntities, final E entity,
-			final String[] propertyNames, final Object[] propertyValues) {
-		final UniqueKey uniqueKey = new UniqueKey(propertyNames, propertyValues);
-		final Object oldValue = uniqueEntities.put(uniqueKey, entity);
-		if (oldValue instanceof InvokeLaterHandle) {
-			for (final Consumer<E> invoker : ((InvokeLaterHandle<E>) oldValue).getConsumer()) {
-				invoker.accept(entity);
+	/** The entries of {@link #entities} in the order of their creation. */
+	private final Queue<UniqueEntities> entityClasses = new ConcurrentLinkedQueue<>();
+
+	/** The count of distinct entities of the last {@link #writeEntities(EntitySqlGenerator) write}. */
+	@Getter
+	private int writtenEntities;
+
+	/**
+	 * The count of registrations that were skipped in the last {@link #writeEntities(EntitySqlGenerator) write}, as
+	 * their entity was registered for more than one set of unique properties.
+	 */
+	@Getter
+	private int skippedRegistrations;
+
+	/**
+	 * The count of references to registered entities that are written before the referencing entity in the last
+	 * {@link #writeEntities(EntitySqlGenerator) write}, but would have been written afterwards in the order of the
+	 * registration.
+	 *
+	 * Each of these references had needed a nested write of the referenced entity - or a pending update, if the
+	 * referenced entity was part of a reference cycle.
+	 *
+	 * Only counted if debug logging is enabled, as all properties of all entities are inspected for that. Otherwise
+	 * {@code -1}.
+	 */
+	@Getter
+	private int avoidedForwardReferences;
+
+	private <E> void addEntity(final UniqueEntities uniqueEntities, final E entity, final String propertyName,
+			final Object propertyValue) {
+		if (!replaceEntity(uniqueEntities.putEntity(propertyName, propertyValue, entity), entity)) {
+			throw duplicateEntity(entity, new UniqueKey(new String[] { propertyName }, new Object[] { propertyValue }));
+		}
+	}
+
+	private <E> void addEntity(final UniqueEntities uniqueEntities, final E entity, final String[] propertyNames,
+			final Object[] propertyValues) {
+		if (propertyNames.length == 1) {
+			addEntity(uniqueEntities, entity, propertyNames[0], propertyValues[0]);
+		} else {
+			final UniqueKey uniqueKey = new UniqueKey(propertyNames, propertyValues);
+			if (!replaceEntity(uniqueEntities.putEntity(uniqueKey, entity), entity)) {
+				throw duplicateEntity(entity, uniqueKey);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given entity class to the result, after all registered classes that are referenced by that class.
+	 *
+	 * Reference cycles are broken at the class that was visited first.
+	 */
+	private void addReferencedClassesFirst(final Class<?> entityClass, final Collection<Class<?>> registeredClasses,
+			final Set<Class<?>> visitedClasses, final List<Class<?>> result) {
+		if (visitedClasses.add(entityClass)) {
+			final Set<Class<?>> referencedClasses = new LinkedHashSet<>();
+			collectReferencedClasses(this.context.getDescription(entityClass).getAllProperties(), referencedClasses);
+			for (final Class<?> referencedClass : referencedClasses) {
+				for (final Class<?> registeredClass : registeredClasses) {
+					if (registeredClass != entityClass && referencedClass.isAssignableFrom(registeredClass)) {
+						addReferencedClassesFirst(registeredClass, registeredClasses, visitedClasses, result);
+					}
+				}
 			}
-		} else if (oldValue != null && !oldValue.equals(entity)) {
-			throw new IllegalArgumentException("More than one entity of type \"" + this.context.getDescription(entity)
-					+ "\" registered for " + uniqueKey);
+			result.add(entityClass);
 		}
 	}
 
@@ -134,6 +362,51 @@ public class EntityRegistration implements DataProvider {
 		// Nothing to do, the entities are imported by all data providers that make use of this registration
 	}
 
+	private void collectReferencedClasses(final Collection<? extends Property<?, ?>> properties,
+			final Set<Class<?>> referencedClasses) {
+		for (final Property<?, ?> property : properties) {
+			if (property instanceof EntityProperty && property.isTableColumn()) {
+				final EntityClass<?> targetClass = ((EntityProperty<?, ?>) property).getTargetClass();
+				if (targetClass != null) {
+					referencedClasses.add(targetClass.getEntityClass());
+				}
+			} else if (property instanceof EmbeddedProperty) {
+				collectReferencedClasses(((EmbeddedProperty<?, ?>) property).getEmbeddedProperties().values(),
+						referencedClasses);
+			}
+		}
+	}
+
+	/**
+	 * Counts the references to registered entities, that are visited after the referencing entity.
+	 */
+	private int countForwardReferences(final Collection<List<Object>> entities,
+			final Set<Object> registeredEntities) {
+		final Set<Object> visitedEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+		int count = 0;
+		for (final List<Object> classEntities : entities) {
+			for (final Object entity : classEntities) {
+				visitedEntities.add(entity);
+				for (final Property<? super Object, ?> property : this.context.getDescription(entity)
+						.getAllProperties()) {
+					if (property.isTableColumn()) {
+						for (final Object reference : property.findReferencedEntities(entity)) {
+							if (registeredEntities.contains(reference) && !visitedEntities.contains(reference)) {
+								count++;
+							}
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private IllegalArgumentException duplicateEntity(final Object entity, final UniqueKey uniqueKey) {
+		return new IllegalArgumentException("More than one entity of type \"" + this.context.getDescription(entity)
+				+ "\" registered for " + uniqueKey);
+	}
+
 	/**
 	 * Find an entity, that was registered with {@link #registerEntity(Object)} before.
 	 *
@@ -146,18 +419,8 @@ public class EntityRegistration implements DataProvider {
 	 *             if more than one unique property exists
 	 */
 	public <E> E findEntity(final Class<E> entityClass, final Object uniqueValue) {
-		final Map<UniqueKey, Object> uniqueValues = this.entities.get(entityClass);
-		if (uniqueValues != null) {
-			for (final Entry<UniqueKey, Object> entry : uniqueValues.entrySet()) {
-				if (entry.getKey().getProperties().length == 1 && uniqueValue.equals(entry.getKey().getValues()[0])) {
-					final Object value = entry.getValue();
-					if (!(value instanceof InvokeLaterHandle)) {
-						return (E) value;
-					}
-				}
-			}
-		}
-		return null;
+		final UniqueEntities uniqueEntities = this.entities.get(entityClass);
+		return uniqueEntities == null ? null : (E) uniqueEntities.findEntity(uniqueValue);
 	}
 
 	/**
@@ -172,7 +435,14 @@ public class EntityRegistration implements DataProvider {
 	 * @return the found entity or {@code null} if not found
 	 */
 	public <E> E findEntity(final Class<E> entityClass, final String uniqueProperty, final Object uniqueValue) {
-		return findEntity(entityClass, new String[] { uniqueProperty }, new Object[] { uniqueValue });
+		final UniqueEntities uniqueEntities = this.entities.get(entityClass);
+		if (uniqueEntities != null) {
+			final Object value = uniqueEntities.findEntity(uniqueProperty, uniqueValue);
+			if (!(value instanceof InvokeLaterHandle)) {
+				return (E) value;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -187,9 +457,12 @@ public class EntityRegistration implements DataProvider {
 	 * @return the found entity or {@code null} if not found
 	 */
 	public <E> E findEntity(final Class<E> entityClass, final String[] uniqueProperties, final Object[] uniqueValues) {
-		final Map<UniqueKey, Object> uniqueEntites = this.entities.get(entityClass);
-		if (uniqueEntites != null) {
-			final Object value = uniqueEntites.get(new UniqueKey(uniqueProperties, uniqueValues));
+		if (uniqueProperties.length == 1) {
+			return findEntity(entityClass, uniqueProperties[0], uniqueValues[0]);
+		}
+		final UniqueEntities uniqueEntities = this.entities.get(entityClass);
+		if (uniqueEntities != null) {
+			final Object value = uniqueEntities.findEntity(new UniqueKey(uniqueProperties, uniqueValues));
 			if (!(value instanceof InvokeLaterHandle)) {
 				return (E) value;
 			}
@@ -197,6 +470,14 @@ public class EntityRegistration implements DataProvider {
 		return null;
 	}
 
+	private UniqueEntities getUniqueEntities(final Class<?> entityClass) {
+		return this.entities.computeIfAbsent(entityClass, c -> {
+			final UniqueEntities uniqueEntities = new UniqueEntities(c);
+			this.entityClasses.add(uniqueEntities);
+			return uniqueEntities;
+		});
+	}
+
 	/**
 	 * Invokes an action on a specific entity as soon as this entity was {@link #registerEntity(Object) registered}.
 	 *
@@ -230,7 +511,10 @@ public class EntityRegistration implements DataProvider {
 	 */
 	public <E> void invokeOnEntity(final Class<E> entityClass, final String uniqueProperty, final Object uniqueValue,
 			final Consumer<E> invoker) {
-		invokeOnEntity(entityClass, new String[] { uniqueProperty }, new Object[] { uniqueValue }, invoker);
+		final E entity = getUniqueEntities(entityClass).addInvoker(uniqueProperty, uniqueValue, invoker);
+		if (entity != null) {
+			invoker.accept(entity);
+		}
 	}
 
 	/**
@@ -247,13 +531,14 @@ public class EntityRegistration implements DataProvider {
 	 */
 	public <E> void invokeOnEntity(final Class<E> entityClass, final String[] uniqueProperties,
 			final Object[] uniqueValues, final Consumer<E> invoker) {
-		final Map<UniqueKey, Object> uniqueEntites = this.entities.computeIfAbsent(entityClass, c -> new HashMap<>());
-		final Object entity = uniqueEntites.computeIfAbsent(new UniqueKey(uniqueProperties, uniqueValues),
-				v -> new InvokeLaterHandle<>());
-		if (entity instanceof InvokeLaterHandle) {
-			((InvokeLaterHandle<E>) entity).getConsumer().add(invoker);
+		if (uniqueProperties.length == 1) {
+			invokeOnEntity(entityClass, uniqueProperties[0], uniqueValues[0], invoker);
 		} else {
-			invoker.accept((E) entity);
+			final E entity = getUniqueEntities(entityClass)
+					.addInvoker(new UniqueKey(uniqueProperties, uniqueValues), invoker);
+			if (entity != null) {
+				invoker.accept(entity);
+			}
 		}
 	}
 
@@ -270,6 +555,15 @@ public class EntityRegistration implements DataProvider {
 		final EntityClass<E> description = this.context.getDescription(templateEntity);
 		OUTER: for (final List<SingularProperty<E, ?>> uniqueProperties : description.getAllUniqueProperties()) {
 			final int size = uniqueProperties.size();
+			if (size == 1) {
+				final SingularProperty<E, ?> property = uniqueProperties.get(0);
+				final Object value = property.getValue(templateEntity);
+				if (value != null) {
+					invokeOnEntity(description.getEntityClass(), property.getName(), value, invoker);
+					return;
+				}
+				continue;
+			}
 			final String[] propertyNames = new String[size];
 			final Object[] propertyValues = new Object[size];
 			for (int i = 0; i < size; i++) {
@@ -325,10 +619,14 @@ public class EntityRegistration implements DataProvider {
 		final EntityClass<E> description = this.context.getDescription(entity);
 		final List<List<SingularProperty<E, ?>>> uniquePropertySets = description.getAllUniqueProperties();
 		if (!uniquePropertySets.isEmpty()) {
-			final Map<UniqueKey, Object> uniqueEntities = this.entities.computeIfAbsent(description.getEntityClass(),
-					c -> new HashMap<>());
+			final UniqueEntities uniqueEntities = getUniqueEntities(description.getEntityClass());
 			for (final List<SingularProperty<E, ?>> uniqueProperties : uniquePropertySets) {
 				final int size = uniqueProperties.size();
+				if (size == 1) {
+					final SingularProperty<E, ?> property = uniqueProperties.get(0);
+					addEntity(uniqueEntities, entity, property.getName(), property.getValue(entity));
+					continue;
+				}
 				final String[] propertyNames = new String[size];
 				final Object[] propertyValues = new Object[size];
 				for (int i = 0; i < size; i++) {
@@ -353,21 +651,49 @@ public class EntityRegistration implements DataProvider {
 	 */
 	public <E> void registerEntity(final E entity, final String[] propertyNames, final Object[] propertyValues) {
 		final EntityClass<E> description = this.context.getDescription(entity);
-		final Map<UniqueKey, Object> uniqueEntities = this.entities.computeIfAbsent(description.getEntityClass(),
-				c -> new HashMap<>());
+		final UniqueEntities uniqueEntities = getUniqueEntities(description.getEntityClass());
 		addEntity(uniqueEntities, entity, propertyNames, propertyValues);
 	}
 
 	@Override
 	public void writeEntities(final EntitySqlGenerator sqlGenerator) throws IOException {
-		// Ensure that all required entities are written
-		for (final Entry<Class<?>, Map<UniqueKey, Object>> classEntry : this.entities.entrySet()) {
-			for (final Entry<UniqueKey, Object> entry : classEntry.getValue().entrySet()) {
-				final Object entity = entry.getValue();
-				if (entity instanceof InvokeLaterHandle) {
-					throw new IllegalStateException(
-							"Could not find " + classEntry.getKey().getSimpleName() + " with " + entry.getKey());
-				}
+		// Collect every entity only once, even if it is registered for more than one set of unique properties
+		final Map<Class<?>, List<Object>> registeredEntities = new LinkedHashMap<>();
+		final Set<Object> knownEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+		int registrations = 0;
+		for (final UniqueEntities uniqueEntities : this.entityClasses) {
+			final List<Object> classEntities = new ArrayList<>();
+			registrations += uniqueEntities.collectEntities(classEntities, knownEntities);
+			registeredEntities.put(uniqueEntities.getEntityClass(), classEntities);
+		}
+
+		// Write referenced classes first
+		final Set<Class<?>> visitedClasses = new HashSet<>();
+		final List<Class<?>> sortedClasses = new ArrayList<>(registeredEntities.size());
+		for (final Class<?> entityClass : registeredEntities.keySet()) {
+			addReferencedClassesFirst(entityClass, registeredEntities.keySet(), visitedClasses, sortedClasses);
+		}
+		final Map<Class<?>, List<Object>> sortedEntities = new LinkedHashMap<>();
+		for (final Class<?> entityClass : sortedClasses) {
+			sortedEntities.put(entityClass, registeredEntities.get(entityClass));
+		}
+
+		this.writtenEntities = knownEntities.size();
+		this.skippedRegistrations = registrations - this.writtenEntities;
+		if (this.writtenEntities > 0) {
+			log.info("Writing {} registered entities ({} duplicate registrations skipped)", this.writtenEntities,
+					this.skippedRegistrations);
+		}
+		if (log.isDebugEnabled()) {
+			this.avoidedForwardReferences = countForwardReferences(registeredEntities.values(), knownEntities)
+					- countForwardReferences(sortedEntities.values(), knownEntities);
+			log.debug("Avoided {} forward references between registered entities", this.avoidedForwardReferences);
+		} else {
+			this.avoidedForwardReferences = -1;
+		}
+
+		for (final List<Object> classEntities : sortedEntities.values()) {
+			for (final Object entity : classEntities) {
 				sqlGenerator.write(entity);
 			}
 		}
@@ -11,8 +11,10 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -66,6 +68,9 @@ public class InjectDataProviderFactory extends AbstractDataProviderFactory {
 
 		private Object instance;
 
+		/** All providers that this instance depends on, directly or indirectly. */
+		private final Set<DataProvider> providers = Collections.newSetFromMap(new IdentityHashMap<>());
+
 		@Override
 		public String toString() {
 			return this.instance == null ? "" : this.instance.toString();
@@ -160,7 +165,7 @@ public class InjectDataProviderFactory extends AbstractDataProviderFactory {
 				if (provider.getOrder() > injection.getOrder()) {
 					injection.setOrder(provider.getOrder());
 				}
-				this.importer.addDataProvider(provider, injection.getOrder());
+				this.importer.addDataProvider(provider, injection.getOrder(), injection.getProviders());
 			}
 			return injection;
 		} catch (final ReflectiveOperationException e) {
@@ -220,6 +225,10 @@ public class InjectDataProviderFactory extends AbstractDataProviderFactory {
 		if (parentInjection.getOrder() < order) {
 			parentInjection.setOrder(order);
 		}
+		parentInjection.getProviders().addAll(injection.getProviders());
+		if (injection.getInstance() instanceof DataProvider) {
+			parentInjection.getProviders().add((DataProvider) injection.getInstance());
+		}
 		return injection.getInstance();
 	}
 
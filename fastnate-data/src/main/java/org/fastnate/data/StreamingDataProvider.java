@@ -0,0 +1,66 @@
+package org.fastnate.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.fastnate.generator.EntitySqlGenerator;
+
+/**
+ * A {@link DataProvider} that creates its entities while they are written.
+ *
+ * Instead of building all entities in {@link #buildEntities()} and holding them until they are written, the entities
+ * are created lazily by the {@link #streamEntities() stream} and every entity is written as soon as it is created. As
+ * the provider doesn't keep a reference to the written entities, they are released as soon as no other entity and no
+ * pending update refers to them. Thus the memory that is needed depends on the working set and not on the size of the
+ * imported data - as long as the entities are not registered in the {@link EntityRegistration}.
+ *
+ * As the entities are created after all other providers have built their entities, no other provider may access the
+ * entities of a streaming provider during {@link DataProvider#buildEntities()}.
+ *
+ * @author Tobias Liefke
+ */
+public interface StreamingDataProvider extends DataProvider {
+
+	/**
+	 * Does nothing by default, as the entities are created in {@link #streamEntities()}.
+	 *
+	 * @throws IOException
+	 *             if something happens during any possible preparation
+	 */
+	@Override
+	default void buildEntities() throws IOException {
+		// Nothing to build in advance
+	}
+
+	/**
+	 * Creates the stream of all entities that are written by this provider.
+	 *
+	 * The stream should create the entities lazily, while it is consumed. Any {@link IOException} that is thrown
+	 * during the consumption is expected to be wrapped in an {@link UncheckedIOException}.
+	 *
+	 * @return the stream of entities, is closed after all entities were written
+	 * @throws IOException
+	 *             if the stream could not be opened
+	 */
+	Stream<?> streamEntities() throws IOException;
+
+	/**
+	 * Writes all {@link #streamEntities() entities} one after another, as soon as they are created.
+	 *
+	 * @throws IOException
+	 *             if the generator or the stream throws one
+	 */
+	@Override
+	default void writeEntities(final EntitySqlGenerator sqlGenerator) throws IOException {
+		try (Stream<?> entities = streamEntities()) {
+			for (final Iterator<?> iterator = entities.iterator(); iterator.hasNext();) {
+				sqlGenerator.write(iterator.next());
+			}
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+}
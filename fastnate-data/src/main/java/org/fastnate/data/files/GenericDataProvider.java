@@ -3,14 +3,20 @@ package org.fastnate.data.files;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import jakarta.annotation.Resource;
 
 import org.fastnate.data.DataImportException;
-import org.fastnate.data.DataProvider;
 import org.fastnate.data.EntityImporter;
 import org.fastnate.data.EntityRegistration;
+import org.fastnate.data.StreamingDataProvider;
 import org.fastnate.generator.EntitySqlGenerator;
 import org.fastnate.generator.context.EntityClass;
 import org.fastnate.generator.context.GeneratorContext;
@@ -25,10 +31,71 @@ import lombok.extern.slf4j.Slf4j;
  *
  * The subclasses define the pattern (and type) of the imported files.
  *
+ * If {@link #STREAMING_KEY} is set, the files are not read during {@link #buildEntities()}, but one after another
+ * while the entities are written. In that case the entities of a file are not available to any other provider during
+ * {@link #buildEntities()}.
+ *
  * @author Tobias Liefke
  */
 @Slf4j
-public abstract class GenericDataProvider implements DataProvider {
+public abstract class GenericDataProvider implements StreamingDataProvider {
+
+	/**
+	 * Reads the entities of the files one after another, while they are consumed.
+	 *
+	 * In difference to {@link Stream#flatMap}, the entities of a file are not read at once when the stream is consumed
+	 * with an iterator.
+	 */
+	private final class FileEntities extends Spliterators.AbstractSpliterator<Object> {
+
+		/** The remaining files. */
+		private final Iterator<DataFile> files;
+
+		/** The entities of the current file, {@code null} before the first file. */
+		private Stream<?> currentStream;
+
+		/** Provides the entities of the current file. */
+		private Spliterator<?> currentEntities;
+
+		FileEntities(final Iterator<DataFile> files) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.files = files;
+		}
+
+		/**
+		 * Closes the stream of the current file.
+		 */
+		void close() {
+			if (this.currentStream != null) {
+				final Stream<?> stream = this.currentStream;
+				this.currentStream = null;
+				this.currentEntities = null;
+				stream.close();
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Object> action) {
+			while (this.currentEntities == null || !this.currentEntities.tryAdvance(action)) {
+				close();
+				if (!this.files.hasNext()) {
+					return false;
+				}
+				this.currentStream = streamImportFile(this.files.next());
+				if (this.currentStream != null) {
+					this.currentEntities = this.currentStream.spliterator();
+				}
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * Settings key that indicates to read the files while the entities are written, instead of reading all files in
+	 * {@link #buildEntities()}.
+	 */
+	public static final String STREAMING_KEY = "fastnate.data.generic.streaming";
 
 	/** The folder in the {@link #dataFolder} that contains the entity files. */
 	private static final String ENTITIES_FOLDER = "entities";
@@ -56,8 +123,10 @@ public abstract class GenericDataProvider implements DataProvider {
 
 	@Override
 	public void buildEntities() throws IOException {
-		// Find all files and try to read them
-		this.dataFolder.getFolder(ENTITIES_FOLDER).forAllFiles(this::readImportFile);
+		if (!isStreaming()) {
+			// Find all files and try to read them
+			this.dataFolder.getFolder(ENTITIES_FOLDER).forAllFiles(this::readImportFile);
+		}
 	}
 
 	/**
@@ -117,6 +186,15 @@ public abstract class GenericDataProvider implements DataProvider {
 	 */
 	protected abstract boolean isImportFile(DataFile file);
 
+	/**
+	 * Indicates that the files are read while the entities are written.
+	 *
+	 * @return {@code true} if {@link #STREAMING_KEY} is set
+	 */
+	protected boolean isStreaming() {
+		return Boolean.parseBoolean(this.context.getSettings().getProperty(STREAMING_KEY, "false"));
+	}
+
 	private void readImportFile(final DataFile file) {
 		if (isImportFile(file)) {
 			try {
@@ -131,10 +209,56 @@ public abstract class GenericDataProvider implements DataProvider {
 		}
 	}
 
+	@Override
+	public Stream<?> streamEntities() throws IOException {
+		if (!isStreaming()) {
+			return this.entities.stream().flatMap(Collection::stream);
+		}
+
+		// Find all files, but read them only when the previous file was written
+		final List<DataFile> files = new ArrayList<>();
+		this.dataFolder.getFolder(ENTITIES_FOLDER).forAllFiles((final DataFile file) -> files.add(file));
+		final FileEntities entities = new FileEntities(files.stream().filter(this::isImportFile).iterator());
+		return StreamSupport.stream(entities, false).onClose(entities::close);
+	}
+
+	/**
+	 * Creates the entities of the given file while they are consumed.
+	 *
+	 * The default implementation uses {@link #importFile(DataFile)}, which reads the file at once. Subclasses may
+	 * override this method to read the file entity by entity.
+	 *
+	 * @param importFile
+	 *            the file that contains the entities
+	 *
+	 * @return the imported entities or {@code null} if the file was not imported
+	 * @throws IOException
+	 *             if the file was not accessible
+	 * @throws DataImportException
+	 *             if the file content was invalid
+	 */
+	protected Stream<?> streamFile(final DataFile importFile) throws DataImportException, IOException {
+		final Collection<?> importedEntities = importFile(importFile);
+		return importedEntities == null ? null : importedEntities.stream();
+	}
+
+	private Stream<?> streamImportFile(final DataFile file) {
+		try {
+			log.info("Reading entities from {}...", file.getName());
+			return streamFile(file);
+		} catch (final IOException e) {
+			throw new DataImportException(e.getMessage(), file.getName(), e);
+		}
+	}
+
 	@Override
 	public void writeEntities(final EntitySqlGenerator sqlGenerator) throws IOException {
-		for (final Collection<?> subset : this.entities) {
-			sqlGenerator.write(subset);
+		if (isStreaming()) {
+			StreamingDataProvider.super.writeEntities(sqlGenerator);
+		} else {
+			for (final Collection<?> subset : this.entities) {
+				sqlGenerator.write(subset);
+			}
 		}
 	}
 
@@ -0,0 +1,27 @@
+package org.fastnate.data.properties;
+
+/**
+ * A {@link PropertyConverter} that converts the characters of a value without creating a {@link String}.
+ *
+ * Used by importers that read their values into reusable buffers.
+ *
+ * @param <T>
+ *            the (minimum) type of the target value
+ * @author Tobias Liefke
+ */
+public interface CharSequenceConverter<T> extends PropertyConverter<T> {
+
+	/**
+	 * Converts the characters of a value from an import file to Java.
+	 *
+	 * The characters are only valid during the call, they must not be kept by the converter.
+	 *
+	 * @param targetType
+	 *            the type of the target property
+	 * @param value
+	 *            the value in the import file
+	 * @return the value in Java
+	 */
+	T convert(Class<? extends T> targetType, CharSequence value);
+
+}
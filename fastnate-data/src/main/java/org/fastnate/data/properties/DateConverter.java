@@ -1,7 +1,10 @@
 package org.fastnate.data.properties;
 
+import java.text.Format;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.apache.commons.lang3.StringUtils;
@@ -11,13 +14,42 @@ import org.apache.commons.lang3.StringUtils;
  *
  * Contains the most typical date formats from ISO 8601 and some other worldwide used formats.
  *
+ * Values in the formats {@code yyyy-MM-dd} and {@code yyyy-MM-dd HH:mm:ss} are parsed from the characters of the
+ * value, without creating a string - as long as the default formats are not modified.
+ *
  * To use a custom date format, see {@link FormatConverter}.
  *
  * @author Tobias Liefke
  * @param <D>
  *            the actual date type
  */
-public class DateConverter<D extends Date> extends FormatConverter<D> {
+public class DateConverter<D extends Date> extends FormatConverter<D> implements CharSequenceConverter<D> {
+
+	private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+
+	private static final int DATE_TIME_LENGTH = "yyyy-MM-dd HH:mm:ss".length();
+
+	private static final int RADIX = 10;
+
+	/**
+	 * Parses a number with a fixed count of digits.
+	 *
+	 * @return the number or {@code -1} if any character is not a digit
+	 */
+	private static int parseDigits(final CharSequence value, final int start, final int count) {
+		int result = 0;
+		for (int i = start; i < start + count; i++) {
+			final int digit = Character.digit(value.charAt(i), RADIX);
+			if (digit < 0) {
+				return -1;
+			}
+			result = result * RADIX + digit;
+		}
+		return result;
+	}
+
+	/** The default formats up to the formats that are parsed from the characters of a value. */
+	private final Format[] isoFormats;
 
 	/**
 	 * Creates a new converter with the default formats for the default timezone.
@@ -29,6 +61,7 @@ public class DateConverter<D extends Date> extends FormatConverter<D> {
 				new SimpleDateFormat("dd.MM.yy HH:mm:ss"), new SimpleDateFormat("dd.MM.yy"), //
 				new SimpleDateFormat("HH:mm:ss"), new SimpleDateFormat("MM/dd/yy HH:mm:ss"), //
 				new SimpleDateFormat("MM/dd/yy"), new SimpleDateFormat("dd-MMM-yy"));
+		this.isoFormats = getFormats().subList(0, 4).toArray(new Format[4]);
 	}
 
 	/**
@@ -42,12 +75,88 @@ public class DateConverter<D extends Date> extends FormatConverter<D> {
 		getFormats().forEach(format -> ((SimpleDateFormat) format).setTimeZone(timeZone));
 	}
 
+	@Override
+	public D convert(final Class<? extends D> targetType, final CharSequence value) {
+		if (StringUtils.isBlank(value)) {
+			return null;
+		}
+		final Date date = parseIsoFormat(value);
+		if (date == null) {
+			return convert(targetType, value.toString());
+		}
+		return toTargetType(targetType, date);
+	}
+
 	@Override
 	public D convert(final Class<? extends D> targetType, final String value) {
 		if (StringUtils.isBlank(value)) {
 			return null;
 		}
-		final Date date = super.convert(targetType, value);
+		return toTargetType(targetType, super.convert(targetType, value));
+	}
+
+	/**
+	 * Parses a value in one of the formats {@code yyyy-MM-dd} and {@code yyyy-MM-dd HH:mm:ss}.
+	 *
+	 * Takes the same calendar as the matching format, so the result is the same as the one of that format.
+	 *
+	 * @param value
+	 *            the value from the import file
+	 * @return the parsed date or {@code null} if the value has another format or the default formats were modified
+	 */
+	private Date parseIsoFormat(final CharSequence value) {
+		final List<Format> formats = getFormats();
+		if (formats.size() < this.isoFormats.length) {
+			return null;
+		}
+		for (int i = 0; i < this.isoFormats.length; i++) {
+			if (formats.get(i) != this.isoFormats[i]) {
+				return null;
+			}
+		}
+
+		int start = 0;
+		int end = value.length();
+		// Same as String.trim()
+		while (start < end && value.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		final SimpleDateFormat format;
+		if (end - start == DATE_LENGTH) {
+			format = (SimpleDateFormat) this.isoFormats[3];
+		} else if (end - start == DATE_TIME_LENGTH && value.charAt(start + DATE_LENGTH) == ' '
+				&& value.charAt(start + 13) == ':' && value.charAt(start + 16) == ':') {
+			format = (SimpleDateFormat) this.isoFormats[2];
+		} else {
+			return null;
+		}
+		if (value.charAt(start + 4) != '-' || value.charAt(start + 7) != '-') {
+			return null;
+		}
+		final int year = parseDigits(value, start, 4);
+		final int month = parseDigits(value, start + 5, 2);
+		final int day = parseDigits(value, start + 8, 2);
+		final boolean withTime = format == this.isoFormats[2];
+		final int hour = withTime ? parseDigits(value, start + 11, 2) : 0;
+		final int minute = withTime ? parseDigits(value, start + 14, 2) : 0;
+		final int second = withTime ? parseDigits(value, start + 17, 2) : 0;
+		if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+			return null;
+		}
+
+		// Formats are not thread safe, but the converter is shared between all importers
+		synchronized (format) {
+			final Calendar calendar = format.getCalendar();
+			calendar.clear();
+			calendar.set(year, month - 1, day, hour, minute, second);
+			return calendar.getTime();
+		}
+	}
+
+	private D toTargetType(final Class<? extends D> targetType, final Date date) {
 		if (targetType.isInstance(date)) {
 			return (D) date;
 		}
@@ -57,4 +166,4 @@ public class DateConverter<D extends Date> extends FormatConverter<D> {
 			throw new IllegalArgumentException(e);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -7,11 +7,44 @@ import org.apache.commons.lang3.StringUtils;
  *
  * @author Tobias Liefke
  */
-public class EnumConverter implements PropertyConverter<Enum<?>> {
+public class EnumConverter implements CharSequenceConverter<Enum<?>> {
+
+	/** The constants of each enum class, to look up a name without creating a string. */
+	private static final ClassValue<Enum<?>[]> CONSTANTS = new ClassValue<>() {
+
+		@Override
+		protected Enum<?>[] computeValue(final Class<?> type) {
+			return (Enum<?>[]) type.getEnumConstants();
+		}
+
+	};
+
+	@Override
+	public Enum<?> convert(final Class<? extends Enum<?>> targetType, final CharSequence value) {
+		if (StringUtils.isBlank(value)) {
+			return null;
+		}
+		int start = 0;
+		int end = value.length();
+		// Same as String.trim()
+		while (start < end && value.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		final CharSequence name = start == 0 && end == value.length() ? value : value.subSequence(start, end);
+		for (final Enum<?> constant : CONSTANTS.get(targetType)) {
+			if (constant.name().contentEquals(name)) {
+				return constant;
+			}
+		}
+		throw new IllegalArgumentException("No enum constant " + targetType.getCanonicalName() + '.' + name);
+	}
 
 	@Override
 	@SuppressWarnings("rawtypes")
 	public Enum<?> convert(final Class<? extends Enum<?>> targetType, final String value) {
 		return StringUtils.isBlank(value) ? null : Enum.valueOf((Class) targetType, value.trim());
 	}
-}
\ No newline at end of file
+}
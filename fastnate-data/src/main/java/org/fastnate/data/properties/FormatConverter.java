@@ -57,7 +57,11 @@ public class FormatConverter<T> implements PropertyConverter<T> {
 		ParseException firstError = null;
 		for (final Format format : this.formats) {
 			try {
-				final Object result = format.parseObject(trimmedValue);
+				final Object result;
+				// Formats are not thread safe, but the converter is shared between all importers
+				synchronized (format) {
+					result = format.parseObject(trimmedValue);
+				}
 				if (result instanceof Number) {
 					// NumberFormat returns a Long or Double, even if we need an Int or Float
 					return (T) ClassUtil.convertNumber((Number) result, (Class<? extends Number>) targetType);
@@ -6,9 +6,32 @@ import org.apache.commons.lang3.StringUtils;
 /**
  * Converts a string from an import file to a number.
  *
+ * Integers and longs are parsed from the characters of the value, without creating a string.
+ *
  * @author Tobias Liefke
  */
-public class NumberConverter implements PropertyConverter<Number> {
+public class NumberConverter implements CharSequenceConverter<Number> {
+
+	private static final int RADIX = 10;
+
+	private static Class<? extends Number> getWrapperType(final Class<? extends Number> targetType) {
+		return targetType.isPrimitive() ? (Class<? extends Number>) ClassUtils.primitiveToWrapper(targetType)
+				: targetType;
+	}
+
+	@Override
+	public Number convert(final Class<? extends Number> targetType, final CharSequence value) {
+		if (!StringUtils.isBlank(value)) {
+			final Class<? extends Number> wrapperType = getWrapperType(targetType);
+			if (wrapperType == Integer.class) {
+				return Integer.parseInt(value, 0, value.length(), RADIX);
+			}
+			if (wrapperType == Long.class) {
+				return Long.parseLong(value, 0, value.length(), RADIX);
+			}
+		}
+		return convert(targetType, value == null ? null : value.toString());
+	}
 
 	@Override
 	public Number convert(final Class<? extends Number> targetType, final String value) {
@@ -21,13 +44,10 @@ public class NumberConverter implements PropertyConverter<Number> {
 		if (targetType == Number.class) {
 			return Float.valueOf(value);
 		}
-		final Class<? extends Number> wrapperType = targetType.isPrimitive()
-				? (Class<? extends Number>) ClassUtils.primitiveToWrapper(targetType)
-				: targetType;
 		try {
-			return wrapperType.getConstructor(String.class).newInstance(value);
+			return getWrapperType(targetType).getConstructor(String.class).newInstance(value);
 		} catch (final ReflectiveOperationException e) {
 			throw new IllegalArgumentException(e);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 
+import org.fastnate.data.files.GenericDataProvider;
 import org.fastnate.data.test.InjectTestData;
 import org.fastnate.data.test.TestData;
 import org.fastnate.data.test.TestEntity;
@@ -48,11 +49,7 @@ public class EntityImporterTest {
 		return settings;
 	}
 
-	private static void testFile(final Class<? extends DataProviderFactory> factoryClass, final String sqlSuffix)
-			throws IOException {
-		final Properties settings = createDefaultSettings();
-		settings.setProperty(EntityImporter.FACTORY_KEY, factoryClass.getName());
-
+	private static String importFile(final Properties settings) throws IOException {
 		final String prefix = "// This is the prefix";
 		settings.setProperty(EntityImporter.PREFIX_KEY, prefix);
 		final String postfix = "// This is the postfix";
@@ -70,26 +67,40 @@ public class EntityImporterTest {
 		assertThat(sql).startsWith(prefix);
 		assertThat(sql).endsWith(postfix);
 
-		final String content = sql.substring(prefix.length(), sql.length() - postfix.length()).trim();
+		return sql.substring(prefix.length(), sql.length() - postfix.length()).trim();
+	}
+
+	private static void testFile(final Class<? extends DataProviderFactory> factoryClass, final String sqlSuffix)
+			throws IOException {
+		testFile(factoryClass, sqlSuffix, false);
+	}
+
+	private static void testFile(final Class<? extends DataProviderFactory> factoryClass, final String sqlSuffix,
+			final boolean parallel) throws IOException {
+		final Properties settings = createDefaultSettings();
+		settings.setProperty(EntityImporter.FACTORY_KEY, factoryClass.getName());
+		settings.setProperty(EntityImporter.PARALLEL_BUILD_KEY, Boolean.toString(parallel));
+
+		final String content = importFile(settings);
 
 		assertThat(content).isEqualTo(""
-				// XML Generic import
+				// XML Generic import, in the order of the registration
 				+ "INSERT INTO TestEntity (bool, name, integ) VALUES (1, 'XML Root 1', 1);"
 				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
 				+ " VALUES (0, 'XML Child 2', 12, (SELECT max(id) FROM TestEntity));"
 				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
 				+ " VALUES (0, 'XML Child 1', 11, (SELECT max(id) - 1 FROM TestEntity));"
 				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
-				+ " VALUES (0, 'XML Sub Child 1', 111, (SELECT max(id) FROM TestEntity));"
+				+ " VALUES (0, 'XML Sub Child 2', 112, (SELECT max(id) FROM TestEntity));"
 				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
-				+ " VALUES (0, 'XML Sub Child 2', 112, (SELECT max(id) - 1 FROM TestEntity));"
+				+ " VALUES (1, 'XML Sub Child 3', 113, (SELECT max(id) - 1 FROM TestEntity));"
 				+ " INSERT INTO TestEntity (name, integ, parent_id)"
 				+ " VALUES ('XML Sub Child 4', 114, (SELECT max(id) - 2 FROM TestEntity));"
 				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
-				+ " VALUES (1, 'XML Sub Child 3', 113, (SELECT max(id) - 3 FROM TestEntity));"
-				+ " INSERT INTO TestEntity (name, integ, parent_id)"
-				+ " VALUES ('XML Sub Child 5', 115, (SELECT max(id) - 4 FROM TestEntity));"
+				+ " VALUES (0, 'XML Sub Child 1', 111, (SELECT max(id) - 3 FROM TestEntity));"
 				+ " INSERT INTO TestEntity (bool, name, integ) VALUES (1, 'XML Root 2', 2);"
+				+ " INSERT INTO TestEntity (name, integ, parent_id)"
+				+ " VALUES ('XML Sub Child 5', 115, (SELECT max(id) - 5 FROM TestEntity));"
 
 				// TestData
 				+ " INSERT INTO TestEntity (name) VALUES ('Root');"
@@ -154,6 +165,70 @@ public class EntityImporterTest {
 		testFile(TestDefaultDataProviderFactory.class, "");
 	}
 
+	/**
+	 * Tests the SQL generation to a file with {@link DefaultDataProviderFactory}, when the entities are built in
+	 * parallel.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testFileDefaultParallel() throws IOException {
+		testFile(TestDefaultDataProviderFactory.class, "", true);
+	}
+
+	/**
+	 * Tests the SQL generation to a file with {@link DefaultDataProviderFactory}, when the generic entities are
+	 * streamed.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testFileDefaultStreaming() throws IOException {
+		final Properties settings = createDefaultSettings();
+		settings.setProperty(EntityImporter.FACTORY_KEY, TestDefaultDataProviderFactory.class.getName());
+		settings.setProperty(GenericDataProvider.STREAMING_KEY, "true");
+
+		final String content = importFile(settings);
+
+		// The generic entities are not registered before the registration writes its entities
+		assertThat(content).isEqualTo(""
+				// TestData
+				+ "INSERT INTO TestEntity (name) VALUES ('Root');"
+				+ " INSERT INTO TestEntity (name, parent_id) VALUES ('Child1', (SELECT max(id) FROM TestEntity));"
+				+ " INSERT INTO TestEntity (name, parent_id) VALUES ('Child2', (SELECT max(id) - 1 FROM TestEntity));"
+
+				// XML Generic import, in the order of the file
+				+ " INSERT INTO TestEntity (bool, name, integ) VALUES (1, 'XML Root 1', 1);"
+				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
+				+ " VALUES (0, 'XML Child 2', 12, (SELECT max(id) FROM TestEntity));"
+				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
+				+ " VALUES (0, 'XML Child 1', 11, (SELECT max(id) - 1 FROM TestEntity));"
+				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
+				+ " VALUES (0, 'XML Sub Child 2', 112, (SELECT max(id) FROM TestEntity));"
+				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
+				+ " VALUES (1, 'XML Sub Child 3', 113, (SELECT max(id) - 1 FROM TestEntity));"
+				+ " INSERT INTO TestEntity (name, integ, parent_id)"
+				+ " VALUES ('XML Sub Child 4', 114, (SELECT max(id) - 2 FROM TestEntity));"
+				+ " INSERT INTO TestEntity (bool, name, integ, parent_id)"
+				+ " VALUES (0, 'XML Sub Child 1', 111, (SELECT max(id) - 3 FROM TestEntity));"
+				+ " INSERT INTO TestEntity (bool, name, integ) VALUES (1, 'XML Root 2', 2);"
+				+ " INSERT INTO TestEntity (name, integ, parent_id)"
+				+ " VALUES ('XML Sub Child 5', 115, (SELECT max(id) - 5 FROM TestEntity));"
+
+				// JaxbTestEntity
+				+ " INSERT INTO JaxbTestEntity (content, name) VALUES ('The example content', 'JAXB Test');"
+
+				// DependentConstructorData
+				+ " INSERT INTO TestEntity (name, parent_id)"
+				+ " VALUES ('DependentConstructorChild', (SELECT max(id) - 10 FROM TestEntity));"
+
+				// DependentResourceData
+				+ " INSERT INTO TestEntity (name, parent_id)"
+				+ " VALUES ('DependentResourceChild', (SELECT max(id) - 10 FROM TestEntity));");
+	}
+
 	/**
 	 * Tests the SQL generation to a file with {@link InjectDataProviderFactory}.
 	 *
@@ -170,4 +245,22 @@ public class EntityImporterTest {
 						+ " VALUES ('Injected Child 2', (SELECT max(id) - 1 FROM TestEntity));");
 	}
 
+	/**
+	 * Tests the SQL generation to a file with {@link InjectDataProviderFactory}, when the entities are built in
+	 * parallel.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testFileWithInjectParallel() throws IOException {
+		testFile(InjectDataProviderFactory.class,
+				// InjectTestData
+				" INSERT INTO TestEntity (name, parent_id)"
+						+ " VALUES ('Injected Child', (SELECT max(id) - 2 FROM TestEntity));"
+						+ " INSERT INTO TestEntity (name, parent_id)"
+						+ " VALUES ('Injected Child 2', (SELECT max(id) - 1 FROM TestEntity));",
+				true);
+	}
+
 }
@@ -0,0 +1,160 @@
+package org.fastnate.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.fastnate.data.test.TestEntity;
+import org.fastnate.data.test.TestReferenceEntity;
+import org.fastnate.generator.EntitySqlGenerator;
+import org.fastnate.generator.context.GeneratorContext;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link EntityRegistration}.
+ *
+ * @author Tobias Liefke
+ */
+public class EntityRegistrationTest {
+
+	private final GeneratorContext context = new GeneratorContext();
+
+	private final EntityRegistration registration = new EntityRegistration(this.context);
+
+	/**
+	 * Tests that every action is called exactly once, even if entities are registered and resolved concurrently.
+	 *
+	 * @throws Exception
+	 *             if one of the tasks failed
+	 */
+	@Test
+	public void testConcurrentRegistration() throws Exception {
+		final int count = 2000;
+		final AtomicIntegerArray invocations = new AtomicIntegerArray(count);
+		final List<Future<?>> tasks = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+			for (int i = 0; i < count; i++) {
+				final int index = i;
+				final String name = "Entity " + i;
+				tasks.add(executor.submit(() -> this.registration.invokeOnEntity(TestEntity.class, "name", name,
+						(final TestEntity entity) -> invocations.incrementAndGet(index))));
+				tasks.add(executor.submit(() -> this.registration.registerEntity(new TestEntity(null, name))));
+				tasks.add(executor.submit(() -> this.registration.invokeOnEntity(TestEntity.class, name,
+						(final TestEntity entity) -> invocations.incrementAndGet(index))));
+			}
+			for (final Future<?> task : tasks) {
+				task.get();
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			assertThat(invocations.get(i)).as("Invocations for entity %d", i).isEqualTo(2);
+			assertThat(this.registration.findEntity(TestEntity.class, "Entity " + i)).isNotNull();
+		}
+	}
+
+	/**
+	 * Tests to find entities by their single unique property.
+	 */
+	@Test
+	public void testFindEntity() {
+		final TestEntity root = new TestEntity(null, "Root");
+		final TestEntity child = new TestEntity(root, "Child");
+		this.registration.registerEntity(root);
+		this.registration.registerEntity(child);
+
+		assertThat(this.registration.findEntity(TestEntity.class, "Child")).isSameAs(child);
+		assertThat(this.registration.findEntity(TestEntity.class, "name", "Root")).isSameAs(root);
+		assertThat(this.registration.findEntity(TestEntity.class, new String[] { "name" }, new Object[] { "Root" }))
+				.isSameAs(root);
+		assertThat(this.registration.findEntity(TestEntity.class, "Unknown")).isNull();
+		assertThat(this.registration.findEntity(TestEntity.class, "number", "Root")).isNull();
+
+		assertThatThrownBy(() -> this.registration.registerEntity(new TestEntity(null, "Root")))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("name = \"Root\"");
+	}
+
+	/**
+	 * Tests to find entities by a combination of properties.
+	 */
+	@Test
+	public void testFindEntityByCombinedProperties() {
+		final String[] properties = { "name", "number" };
+		final TestEntity entity = new TestEntity(null, "Combined");
+		this.registration.registerEntity(entity, properties, new Object[] { "Combined", 1 });
+
+		assertThat(this.registration.findEntity(TestEntity.class, properties, new Object[] { "Combined", 1 }))
+				.isSameAs(entity);
+		assertThat(this.registration.findEntity(TestEntity.class, properties, new Object[] { "Combined", 2 }))
+				.isNull();
+		assertThat(this.registration.findEntity(TestEntity.class, "Combined")).isNull();
+
+		final List<TestEntity> found = new ArrayList<>();
+		this.registration.invokeOnEntity(TestEntity.class, properties, new Object[] { "Combined", 1 }, found::add);
+		assertThat(found).containsExactly(entity);
+	}
+
+	/**
+	 * Tests that references to entities are resolved, as soon as the entities are registered.
+	 */
+	@Test
+	public void testInvokeOnEntity() {
+		final List<TestEntity> found = new ArrayList<>();
+		this.registration.invokeOnEntity(TestEntity.class, "Later", found::add);
+		this.registration.invokeOnEntity(new TestEntity(null, "Later"), found::add);
+		assertThat(found).isEmpty();
+		assertThat(this.registration.findEntity(TestEntity.class, "Later")).isNull();
+
+		final TestEntity entity = new TestEntity(null, "Later");
+		this.registration.registerEntity(entity);
+		assertThat(found).containsExactly(entity, entity);
+		assertThat(this.registration.findEntity(TestEntity.class, "Later")).isSameAs(entity);
+
+		this.registration.invokeOnEntity(TestEntity.class, "name", "Later", found::add);
+		assertThat(found).hasSize(3);
+	}
+
+	/**
+	 * Tests that every entity is written once and that referenced classes are written first.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testWriteEntities() throws IOException {
+		final TestEntity target = new TestEntity(null, "Target");
+		target.setNumber(1);
+		this.registration.registerEntity(new TestReferenceEntity("Reference", target));
+		this.registration.registerEntity(target);
+		this.registration.registerEntity(target, new String[] { "name", "number" }, new Object[] { "Target", 1 });
+
+		// The forward references are only counted for debug logging
+		final Logger logger = Logger.getLogger(EntityRegistration.class.getName());
+		final Level level = logger.getLevel();
+		logger.setLevel(Level.FINE);
+		final StringWriter sqlWriter = new StringWriter();
+		try (EntitySqlGenerator generator = new EntitySqlGenerator(this.context, sqlWriter)) {
+			this.registration.writeEntities(generator);
+		} finally {
+			logger.setLevel(level);
+		}
+
+		final String sql = sqlWriter.toString();
+		assertThat(sql.indexOf("INSERT INTO TestEntity")).isNotNegative()
+				.isLessThan(sql.indexOf("INSERT INTO TestReferenceEntity"));
+		assertThat(this.registration.getWrittenEntities()).isEqualTo(2);
+		assertThat(this.registration.getSkippedRegistrations()).isEqualTo(1);
+		assertThat(this.registration.getAvoidedForwardReferences()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.fastnate.data.properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.CharBuffer;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the {@link CharSequenceConverter}s convert the characters of a value to the same result as the string.
+ *
+ * @author Tobias Liefke
+ */
+public class CharSequenceConverterTest {
+
+	private static <T> void assertSameResult(final CharSequenceConverter<T> converter,
+			final Class<? extends T> targetType, final String... values) {
+		for (final String value : values) {
+			// Wrap the value into a larger buffer, to ensure that the converter respects the bounds of the sequence
+			final CharSequence characters = CharBuffer.wrap("#" + value + "#", 1, value.length() + 1);
+			assertThat(converter.convert(targetType, characters)).as(value)
+					.isEqualTo(converter.convert(targetType, value));
+		}
+	}
+
+	/**
+	 * Tests the conversion of dates, with and without the formats that are parsed from the characters.
+	 */
+	@Test
+	public void testDates() {
+		final DateConverter<Date> converter = new DateConverter<>();
+		assertSameResult(converter, Date.class, "2000-01-01", " 2010-12-31 23:23:59 ", "2000-02-30", "1969-07-20",
+				"2010-12-31T23:23:59", "31.12.10", "12:30:00", "", " ");
+		assertSameResult(converter, Timestamp.class, "2000-01-01 12:00:00");
+		assertSameResult(new DateConverter<>(TimeZone.getTimeZone("UTC")), Date.class, "2000-01-01",
+				"2010-12-31 23:23:59");
+
+		// Prefer a modified format
+		converter.getFormats().add(0, converter.getFormats().remove(3));
+		assertSameResult(converter, Date.class, "2000-01-01 12:00:00");
+	}
+
+	/**
+	 * Tests the conversion of enum constants.
+	 */
+	@Test
+	public void testEnums() {
+		final EnumConverter converter = new EnumConverter();
+		assertSameResult(converter, TimeUnit.class, "SECONDS", " DAYS\t", "", " ");
+		assertThatThrownBy(() -> converter.convert(TimeUnit.class, CharBuffer.wrap("WEEKS")))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("WEEKS");
+	}
+
+	/**
+	 * Tests the conversion of numbers.
+	 */
+	@Test
+	public void testNumbers() {
+		final NumberConverter converter = new NumberConverter();
+		assertSameResult(converter, Integer.class, "42", "-7", "+3", "", " ");
+		assertSameResult(converter, int.class, "2147483647", "");
+		assertSameResult(converter, Long.class, "-9223372036854775808");
+		assertSameResult(converter, long.class, "");
+		assertSameResult(converter, Double.class, "1.5");
+		assertSameResult(converter, Short.class, "12");
+		assertThatThrownBy(() -> converter.convert(Integer.class, CharBuffer.wrap("1x")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,48 @@
+package org.fastnate.data.test;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Test entity that references another entity class.
+ *
+ * @author Tobias Liefke
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class TestReferenceEntity {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(unique = true)
+	private String name;
+
+	@ManyToOne
+	private TestEntity target;
+
+	/**
+	 * Creates a new instance of {@link TestReferenceEntity}.
+	 *
+	 * @param name
+	 *            the name of this entity
+	 * @param target
+	 *            the referenced entity
+	 */
+	public TestReferenceEntity(final String name, final TestEntity target) {
+		this.name = name;
+		this.target = target;
+	}
+
+}
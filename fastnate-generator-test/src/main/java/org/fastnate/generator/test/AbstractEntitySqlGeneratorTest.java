@@ -35,6 +35,7 @@ import org.fastnate.generator.EntitySqlGenerator;
 import org.fastnate.generator.context.GeneratorContext;
 import org.fastnate.generator.statements.ConnectedStatementsWriter;
 import org.fastnate.generator.statements.LiquibaseStatementsWriter;
+import org.fastnate.generator.statements.PostgreSqlCopyWriter;
 import org.fastnate.generator.statements.StatementsWriter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -332,6 +333,13 @@ public class AbstractEntitySqlGeneratorTest {
 			} catch (final SQLException e) {
 				throw new IllegalStateException(e);
 			}
+		} else if (PostgreSqlCopyWriter.class.getSimpleName().equals(writerKey)) {
+			try {
+				this.generator = new EntitySqlGenerator(context, new PostgreSqlCopyWriter(getConnection(), context));
+				getConnection().setAutoCommit(true);
+			} catch (final SQLException e) {
+				throw new IllegalStateException(e);
+			}
 		} else if (LiquibaseStatementsWriter.class.getSimpleName().equals(writerKey)) {
 			try {
 				final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
@@ -3,10 +3,24 @@ package org.fastnate.generator.test.inheritance;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import jakarta.persistence.InheritanceType;
 
+import org.fastnate.generator.context.ContextModelListener;
+import org.fastnate.generator.context.EntityClass;
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.context.IdGenerator;
 import org.fastnate.generator.test.AbstractEntitySqlGeneratorTest;
 import org.junit.jupiter.api.Test;
 
@@ -44,6 +58,76 @@ public class InheritanceTest extends AbstractEntitySqlGeneratorTest {
 		return foundSuperEntity;
 	}
 
+	/**
+	 * Tests that the descriptions of entity hierarchies are built only once, if they are requested by many threads at
+	 * the same time.
+	 *
+	 * @throws Exception
+	 *             if one of the threads throws one
+	 */
+	@Test
+	public void testConcurrentDescriptions() throws Exception {
+		final GeneratorContext context = new GeneratorContext(getGenerator().getContext().getSettings());
+		final Map<Object, Integer> foundElements = Collections.synchronizedMap(new IdentityHashMap<>());
+		context.addContextModelListener(new ContextModelListener() {
+
+			@Override
+			public void foundColumn(final GeneratorColumn column) {
+				foundElements.merge(column, 1, Integer::sum);
+			}
+
+			@Override
+			public void foundEntityClass(final EntityClass<?> entityClass) {
+				foundElements.merge(entityClass, 1, Integer::sum);
+			}
+
+			@Override
+			public void foundGenerator(final IdGenerator generator) {
+				foundElements.merge(generator, 1, Integer::sum);
+			}
+
+			@Override
+			public void foundTable(final GeneratorTable table) {
+				foundElements.merge(table, 1, Integer::sum);
+			}
+
+		});
+
+		final List<Class<?>> entityClasses = List.of(JoinedSubclassTestEntity.class, JoinedSuperclassTestEntity.class,
+				MappedSubclassTestEntity.class, SecondSingleTableSubclassTestEntity.class,
+				SingleTableSubclassTestEntity.class, TablePerClassSubclassTestEntity.class,
+				TablePerClassSuperclassTestEntity.class);
+		final int threadCount = 8;
+		final CyclicBarrier start = new CyclicBarrier(threadCount);
+		final List<Future<EntityClass<?>[]>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(threadCount)) {
+			for (int i = 0; i < threadCount; i++) {
+				final int offset = i;
+				results.add(executor.submit(() -> {
+					start.await();
+					// Every thread starts with another class
+					final EntityClass<?>[] descriptions = new EntityClass<?>[entityClasses.size()];
+					for (int j = 0; j < descriptions.length; j++) {
+						final int index = (offset + j) % descriptions.length;
+						descriptions[index] = context.getDescription(entityClasses.get(index));
+					}
+					return descriptions;
+				}));
+			}
+		}
+
+		final EntityClass<?>[] descriptions = results.get(0).get();
+		assertThat(descriptions).doesNotContainNull();
+		for (final Future<EntityClass<?>[]> result : results) {
+			final EntityClass<?>[] threadDescriptions = result.get();
+			for (int i = 0; i < descriptions.length; i++) {
+				assertThat(threadDescriptions[i]).isSameAs(descriptions[i]);
+			}
+		}
+		assertThat(foundElements).isNotEmpty();
+		assertThat(foundElements.values()).containsOnly(1);
+	}
+
 	/**
 	 * Tests to write an entity hierarchy with {@link InheritanceType#JOINED}.
 	 *
@@ -1,26 +1,57 @@
 package org.fastnate.generator.test.performance;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jakarta.persistence.TemporalType;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.fastnate.generator.EntitySqlGenerator;
+import org.fastnate.generator.context.AccessStyle;
+import org.fastnate.generator.context.AttributeAccessor;
+import org.fastnate.generator.context.EntityClass;
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.fastnate.generator.dialect.H2Dialect;
+import org.fastnate.generator.dialect.MsSqlDialect;
+import org.fastnate.generator.dialect.MySqlDialect;
 import org.fastnate.generator.dialect.PostgresDialect;
+import org.fastnate.generator.statements.AbstractBulkWriter;
 import org.fastnate.generator.statements.ConnectedStatementsWriter;
+import org.fastnate.generator.statements.H2BulkWriter;
 import org.fastnate.generator.statements.ListStatementsWriter;
+import org.fastnate.generator.statements.MsSqlBulkWriter;
+import org.fastnate.generator.statements.MySqlBulkWriter;
 import org.fastnate.generator.statements.PostgreSqlBulkWriter;
+import org.fastnate.generator.statements.PostgreSqlCopyWriter;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.StatementsWriter;
+import org.fastnate.generator.statements.TableStatement;
 import org.fastnate.generator.test.AbstractEntitySqlGeneratorTest;
 import org.fastnate.util.ClassUtil;
 import org.junit.jupiter.api.Test;
@@ -35,6 +66,27 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 
+	private List<TableStatement> createBulkEncodingRows(final StatementsWriter writer, final GeneratorDialect dialect,
+			final GeneratorTable table, final GeneratorColumn[] columns, final int rowCount) {
+		final Random random = new Random(0);
+		final List<TableStatement> rows = new ArrayList<>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			final TableStatement row = writer.createInsertStatement(dialect, table);
+			row.setColumnValue(columns[0], PrimitiveColumnExpression.create((long) i, dialect));
+			final String name = Long.toString(random.nextLong(), Character.MAX_RADIX);
+			row.setColumnValue(columns[1], PrimitiveColumnExpression.create(name, dialect));
+			final String description = "Line " + i + "\tTabbed\nNext line\\" + random.nextInt();
+			row.setColumnValue(columns[2], PrimitiveColumnExpression.create(description, dialect));
+			row.setColumnValue(columns[3],
+					new PrimitiveColumnExpression<>(random.nextBoolean(), dialect::convertBooleanValue));
+			row.setColumnValue(columns[4], PrimitiveColumnExpression.create(random.nextInt(1000000), dialect));
+			row.setColumnValue(columns[5], new PrimitiveColumnExpression<>(new Timestamp(random.nextInt() * 1000L),
+					t -> dialect.convertTemporalValue(t, TemporalType.TIMESTAMP)));
+			rows.add(row);
+		}
+		return rows;
+	}
+
 	private List<PerformanceTestEntity> createRootEntities(final long seed, final int maxElementsPerEntity,
 			final int countOfRootEntities) {
 		final Random random = new Random(seed);
@@ -58,6 +110,23 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 		}
 	}
 
+	private List<String> generateStatements(final GeneratorContext context, final Executor executor,
+			final StopWatch stopwatch) throws IOException {
+		final int maxElementsPerEntity = Integer
+				.parseInt(System.getProperty("fastnate.test.performance.max.depth", "4"));
+		final int rootElements = Integer.parseInt(System.getProperty("fastnate.test.performance.size", "100"));
+		final List<PerformanceTestEntity> entities = createRootEntities(0, maxElementsPerEntity, rootElements * 10);
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(context, writer)) {
+			generator.setGenerationExecutor(executor);
+			stopwatch.start();
+			generator.write(entities);
+			generator.flush();
+			stopwatch.stop();
+			return new ArrayList<>(writer.getStatements());
+		}
+	}
+
 	@Override
 	protected Properties getGeneratorProperties() {
 		final Properties properties = super.getGeneratorProperties();
@@ -65,6 +134,75 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 		return properties;
 	}
 
+	/**
+	 * Compares the throughput of {@link AttributeAccessor#getValue(Object)} and
+	 * {@link AttributeAccessor#setValue(Object, Object)} with plain reflection.
+	 *
+	 * @throws ReflectiveOperationException
+	 *             if the reflective access fails
+	 */
+	@Test
+	public void testAttributeAccess() throws ReflectiveOperationException {
+		final int entityCount = Integer.parseInt(System.getProperty("fastnate.test.performance.rows", "100000"));
+		final int rounds = Integer.parseInt(System.getProperty("fastnate.test.performance.rounds", "5"));
+		final EntityClass<PerformanceTestEntity> entityClass = getGenerator().getContext()
+				.getDescription(PerformanceTestEntity.class);
+		final List<PerformanceTestEntity> entities = new ArrayList<>(entityCount);
+		for (int i = 0; i < entityCount; i++) {
+			entities.add(entityClass.newInstance());
+		}
+		final Map<String, AttributeAccessor> accessors = new HashMap<>();
+		AccessStyle.FIELD.getDeclaredAttributes(PerformanceTestEntity.class, PerformanceTestEntity.class)
+				.forEach(accessor -> accessors.put(accessor.getName(), accessor));
+		final AttributeAccessor name = accessors.get("name");
+		final AttributeAccessor ordering = accessors.get("ordering");
+		final Field nameField = PerformanceTestEntity.class.getDeclaredField("name");
+		nameField.setAccessible(true);
+		final Field orderingField = PerformanceTestEntity.class.getDeclaredField("ordering");
+		orderingField.setAccessible(true);
+
+		final StopWatch accessorWatch = new StopWatch();
+		final StopWatch reflectionWatch = new StopWatch();
+		accessorWatch.start();
+		accessorWatch.suspend();
+		reflectionWatch.start();
+		reflectionWatch.suspend();
+		long checksum = 0;
+		// The first round is for warm up
+		for (int round = -1; round < rounds; round++) {
+			if (round >= 0) {
+				accessorWatch.resume();
+			}
+			for (int i = 0; i < entityCount; i++) {
+				final PerformanceTestEntity entity = entities.get(i);
+				name.setValue(entity, "Entity " + i);
+				ordering.setValue(entity, i + round);
+				checksum += name.<PerformanceTestEntity, String> getValue(entity).length()
+						+ ordering.<PerformanceTestEntity, Integer> getValue(entity);
+			}
+			if (round >= 0) {
+				accessorWatch.suspend();
+				reflectionWatch.resume();
+			}
+			for (int i = 0; i < entityCount; i++) {
+				final PerformanceTestEntity entity = entities.get(i);
+				nameField.set(entity, "Entity " + i);
+				orderingField.set(entity, i + round);
+				checksum -= ((String) nameField.get(entity)).length() + (Integer) orderingField.get(entity);
+			}
+			if (round >= 0) {
+				reflectionWatch.suspend();
+			}
+		}
+		assertThat(checksum).isZero();
+		assertThat(entities.get(entityCount - 1).getOrdering()).isEqualTo(entityCount - 1 + rounds - 1);
+
+		final long operations = 4L * entityCount * rounds;
+		log.info("{} attribute accesses took: {} ({} ops/ms) with accessors, {} ({} ops/ms) with reflection",
+				operations, accessorWatch, operations / Math.max(1, accessorWatch.getTime()), reflectionWatch,
+				operations / Math.max(1, reflectionWatch.getTime()));
+	}
+
 	/**
 	 * Tests the performance of fastnate with the {@link PostgreSqlBulkWriter}.
 	 *
@@ -73,49 +211,117 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 	 */
 	@Test
 	public void testFastnateBulk() throws SQLException {
-		if (getGenerator().getContext().getDialect() instanceof PostgresDialect) {
-			executeSql(connection -> {
-				try {
-					final StringWriter sql = new StringWriter();
-
-					final File directory = new File("target", "test-sql");
-					directory.mkdirs();
-					final PostgreSqlBulkWriter writer = new PostgreSqlBulkWriter(getGenerator().getContext(), directory,
-							sql, StandardCharsets.UTF_8);
-					try (EntitySqlGenerator generator = new EntitySqlGenerator(getGenerator().getContext(), writer);
-							Statement statement = connection.createStatement()) {
-						writer.truncateTables(getGenerator().getContext());
-						this.<List<String>> testHugeAmount(entity -> {
-							try {
-								generator.write(entity);
-								// Add a plain statement to ensure that all files are closed
-								generator.getWriter().writePlainStatement(getGenerator().getContext().getDialect(),
-										"UPDATE PerformanceTestEntity SET id = 1 WHERE id = 1");
-								generator.flush();
-								final List<String> result = Arrays.asList(sql.toString().split(";\n"));
-								sql.getBuffer().setLength(0);
-								return result;
-							} catch (final IOException e) {
-								throw new IllegalStateException(e);
-							}
-						}, statements -> {
-							try {
-								for (final String stmt : statements) {
-									statement.executeUpdate(stmt);
-								}
-							} catch (final SQLException e) {
-								throw new IllegalArgumentException(e);
+		testFastnatePostgreSqlBulk(false);
+	}
+
+	private void testFastnateBulk(final BiFunction<File, StringWriter, AbstractBulkWriter<?>> writerFactory)
+			throws SQLException {
+		executeSql(connection -> {
+			try {
+				final StringWriter sql = new StringWriter();
+
+				final File directory = new File("target", "test-sql");
+				directory.mkdirs();
+				final AbstractBulkWriter<?> writer = writerFactory.apply(directory, sql);
+				try (EntitySqlGenerator generator = new EntitySqlGenerator(getGenerator().getContext(), writer);
+						Statement statement = connection.createStatement()) {
+					this.<List<String>> testHugeAmount(entity -> {
+						try {
+							generator.write(entity);
+							// Add a plain statement to ensure that all files are closed
+							generator.getWriter().writePlainStatement(getGenerator().getContext().getDialect(),
+									"UPDATE PerformanceTestEntity SET id = 1 WHERE id = 1");
+							generator.flush();
+							final List<String> result = Arrays.asList(sql.toString().split(";\n"));
+							sql.getBuffer().setLength(0);
+							return result;
+						} catch (final IOException e) {
+							throw new IllegalStateException(e);
+						}
+					}, statements -> {
+						try {
+							for (final String stmt : statements) {
+								statement.executeUpdate(stmt);
 							}
-						});
-					}
-					for (final File file : writer.getGeneratedFiles()) {
-						file.delete();
+						} catch (final SQLException e) {
+							throw new IllegalArgumentException(e);
+						}
+					});
+				}
+				for (final File file : writer.getGeneratedFiles()) {
+					file.delete();
+				}
+			} catch (final IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	/**
+	 * Tests the performance of fastnate with the {@link PostgreSqlBulkWriter} in binary format.
+	 *
+	 * @throws SQLException
+	 *             if there is a problem with the SQL
+	 */
+	@Test
+	public void testFastnateBulkBinary() throws SQLException {
+		testFastnatePostgreSqlBulk(true);
+	}
+
+	/**
+	 * Measures the throughput of the row encoding of the {@link PostgreSqlBulkWriter}.
+	 *
+	 * Writes rows with typical column types into bulk files, without any database access.
+	 *
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	@Test
+	public void testBulkEncoding() throws IOException {
+		final int rowCount = Integer.parseInt(System.getProperty("fastnate.test.performance.rows", "100000"));
+		final int rounds = Integer.parseInt(System.getProperty("fastnate.test.performance.rounds", "5"));
+		final GeneratorContext context = getGenerator().getContext();
+		final GeneratorDialect dialect = context.getDialect();
+		final GeneratorTable table = context.resolveTable(null, null, "BulkEncodingTest");
+		final GeneratorColumn[] columns = Stream.of("id", "name", "description", "active", "amount", "created")
+				.map(table::resolveColumn).toArray(GeneratorColumn[]::new);
+
+		final File directory = new File("target", "test-sql");
+		directory.mkdirs();
+		final StopWatch stopwatch = new StopWatch();
+		stopwatch.start();
+		stopwatch.suspend();
+		long bytes = 0;
+		for (int round = -1; round < rounds; round++) {
+			final PostgreSqlBulkWriter writer = new PostgreSqlBulkWriter(context, directory, new StringWriter(),
+					StandardCharsets.UTF_8);
+			try {
+				// Written statements must not be reused, so we need new rows for every round
+				final List<TableStatement> rows = createBulkEncodingRows(writer, dialect, table, columns, rowCount);
+
+				// The first round is for warm up
+				if (round >= 0) {
+					stopwatch.resume();
+				}
+				for (final TableStatement row : rows) {
+					writer.writeStatement(row);
+				}
+				writer.flush();
+				if (round >= 0) {
+					stopwatch.suspend();
+				}
+			} finally {
+				writer.close();
+				for (final File file : writer.getGeneratedFiles()) {
+					if (round >= 0) {
+						bytes += file.length();
 					}
-				} catch (final IOException e) {
-					throw new IllegalStateException(e);
+					file.delete();
 				}
-			});
+			}
 		}
+		log.info("Bulk encoding of {} rows took: {} ({} MB/s)", rowCount * rounds, stopwatch,
+				bytes * 1000 / Math.max(1, stopwatch.getTime()) / (1 << 20));
 	}
 
 	/**
@@ -144,6 +350,87 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 		});
 	}
 
+	/**
+	 * Tests the performance of fastnate with the {@link PostgreSqlCopyWriter}.
+	 *
+	 * @throws SQLException
+	 *             if there is a problem with the SQL
+	 */
+	@Test
+	public void testFastnateCopy() throws SQLException {
+		if (getGenerator().getContext().getDialect() instanceof PostgresDialect) {
+			executeSql(connection -> {
+				try (EntitySqlGenerator generator = new EntitySqlGenerator(getGenerator().getContext(),
+						new PostgreSqlCopyWriter(connection, getGenerator().getContext()))) {
+					testHugeAmount(Function.identity(), entity -> {
+						try {
+							generator.write(entity);
+							generator.flush();
+						} catch (final IOException e) {
+							throw new IllegalStateException(e);
+						}
+					});
+				} catch (final IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Tests the performance of fastnate with the {@link H2BulkWriter}.
+	 *
+	 * @throws SQLException
+	 *             if there is a problem with the SQL
+	 */
+	@Test
+	public void testFastnateH2Bulk() throws SQLException {
+		if (getGenerator().getContext().getDialect() instanceof H2Dialect) {
+			testFastnateBulk((directory, sql) -> new H2BulkWriter(getGenerator().getContext(), directory, sql,
+					StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Tests the performance of fastnate with the {@link MsSqlBulkWriter}.
+	 *
+	 * @throws SQLException
+	 *             if there is a problem with the SQL
+	 */
+	@Test
+	public void testFastnateMsSqlBulk() throws SQLException {
+		if (getGenerator().getContext().getDialect() instanceof MsSqlDialect) {
+			testFastnateBulk((directory, sql) -> new MsSqlBulkWriter(getGenerator().getContext(), directory, sql,
+					StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Tests the performance of fastnate with the {@link MySqlBulkWriter}.
+	 *
+	 * @throws SQLException
+	 *             if there is a problem with the SQL
+	 */
+	@Test
+	public void testFastnateMySqlBulk() throws SQLException {
+		if (getGenerator().getContext().getDialect() instanceof MySqlDialect) {
+			testFastnateBulk((directory, sql) -> new MySqlBulkWriter(getGenerator().getContext(), directory, sql,
+					StandardCharsets.UTF_8));
+		}
+	}
+
+	private void testFastnatePostgreSqlBulk(final boolean binaryFormat) throws SQLException {
+		if (getGenerator().getContext().getDialect() instanceof PostgresDialect) {
+			testFastnateBulk((directory, sql) -> {
+				final PostgreSqlBulkWriter writer = new PostgreSqlBulkWriter(getGenerator().getContext(), directory,
+						sql, StandardCharsets.UTF_8);
+				writer.setBinaryFormat(binaryFormat);
+				writer.truncateTables(getGenerator().getContext());
+				return writer;
+			});
+		}
+	}
+
 	/**
 	 * Tests the performance of fastnate with predefined SQL.
 	 *
@@ -152,12 +439,17 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 	 */
 	@Test
 	public void testFastnatePrebuild() throws SQLException {
+		testFastnatePrebuild(1);
+	}
+
+	private void testFastnatePrebuild(final int maxRowsPerInsert) throws SQLException {
 		executeSql(connection -> {
 			final boolean fastInTransaction = getGenerator().getContext().getDialect().isFastInTransaction();
 			connection.setAutoCommit(!fastInTransaction);
 			try (ListStatementsWriter writer = new ListStatementsWriter();
 					EntitySqlGenerator generator = new EntitySqlGenerator(getGenerator().getContext(), writer);
 					Statement statement = connection.createStatement()) {
+				writer.getMultiRowInserts().setMaxRows(maxRowsPerInsert);
 				testHugeAmount(entity -> {
 					try {
 						generator.write(entity);
@@ -187,6 +479,45 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 
 	}
 
+	/**
+	 * Tests the performance of fastnate with predefined SQL, where consecutive inserts are combined to multi-row
+	 * inserts.
+	 *
+	 * @throws SQLException
+	 *             if there is a problem with the SQL
+	 */
+	@Test
+	public void testFastnatePrebuildMultiRow() throws SQLException {
+		testFastnatePrebuild(100);
+	}
+
+	/**
+	 * Writes a graph of new entities, starting at the leaf of the last path.
+	 *
+	 * @param generator
+	 *            the generator for the entities
+	 * @param writer
+	 *            collects the generated statements, is cleared afterwards
+	 * @param depth
+	 *            the count of entities in each path from the root entity to a leaf
+	 * @param width
+	 *            the count of paths
+	 */
+	private void writeGraph(final EntitySqlGenerator generator, final ListStatementsWriter writer, final int depth,
+			final int width) throws IOException {
+		final PerformanceTestEntity root = new PerformanceTestEntity("root");
+		PerformanceTestEntity leaf = root;
+		for (int path = 0; path < width; path++) {
+			leaf = root;
+			for (int i = 1; i < depth; i++) {
+				leaf = new PerformanceTestEntity(leaf, Integer.toString(i));
+			}
+		}
+		generator.write(leaf);
+		generator.flush();
+		writer.getStatements().clear();
+	}
+
 	/**
 	 * Tests to write many {@link PerformanceTestEntity} to measure the time it takes with different implementations and
 	 * databases.
@@ -221,6 +552,67 @@ public class PerformanceTest extends AbstractEntitySqlGeneratorTest {
 		log.info("{} - writing took: {}", ClassUtil.getCallerMethod(PerformanceTest.class), stopwatch);
 	}
 
+	/**
+	 * Tests that the parallel generation of independent entities creates the same statements as the sequential
+	 * generation, and measures the time of both.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testParallelGeneration() throws IOException {
+		final Properties settings = getGenerator().getContext().getSettings();
+		final StopWatch sequentialStopwatch = new StopWatch();
+		final List<String> sequentialStatements = generateStatements(new GeneratorContext(settings), null,
+				sequentialStopwatch);
+
+		final StopWatch parallelStopwatch = new StopWatch();
+		final List<String> parallelStatements;
+		try (ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+			parallelStatements = generateStatements(new GeneratorContext(settings), executor, parallelStopwatch);
+		}
+
+		assertThat(parallelStatements).isEqualTo(sequentialStatements);
+		log.info("Generation of {} statements took: {} sequential, {} parallel", sequentialStatements.size(),
+				sequentialStopwatch, parallelStopwatch);
+	}
+
+	/**
+	 * Measures the time to generate the SQL for graphs of {@link PerformanceTestEntity} of increasing size, starting
+	 * the generation at the deepest entity.
+	 *
+	 * The duration per entity should stay roughly the same, if the generation cost grows linear with the depth and
+	 * width of the graph.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testGraphScaling() throws IOException {
+		final int maxSize = Integer.parseInt(System.getProperty("fastnate.test.performance.graph.size", "2000"));
+		final int rounds = Integer.parseInt(System.getProperty("fastnate.test.performance.rounds", "5"));
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(getGenerator().getContext(), writer)) {
+			// Warm up
+			writeGraph(generator, writer, maxSize / 4, 1);
+
+			for (int size = maxSize / 4; size <= maxSize; size *= 2) {
+				for (final int width : new int[] { 1, size / 10 }) {
+					final StopWatch stopwatch = new StopWatch();
+					stopwatch.start();
+					stopwatch.suspend();
+					for (int round = 0; round < rounds; round++) {
+						stopwatch.resume();
+						writeGraph(generator, writer, size / width, width);
+						stopwatch.suspend();
+					}
+					log.info("Graph with depth {} and width {} - writing took: {} ({} ns per entity)", size / width,
+							width, stopwatch, stopwatch.getNanoTime() / ((long) size * rounds));
+				}
+			}
+		}
+	}
+
 	/**
 	 * Tests the performance of the JPA library.
 	 */
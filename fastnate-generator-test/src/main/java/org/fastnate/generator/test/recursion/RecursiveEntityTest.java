@@ -3,7 +3,17 @@ package org.fastnate.generator.test.recursion;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
+import org.fastnate.generator.EntitySqlGenerator;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.dialect.PostgresDialect;
+import org.fastnate.generator.statements.ListStatementsWriter;
 import org.fastnate.generator.test.AbstractEntitySqlGeneratorTest;
 import org.junit.jupiter.api.Test;
 
@@ -14,6 +24,110 @@ import org.junit.jupiter.api.Test;
  */
 public class RecursiveEntityTest extends AbstractEntitySqlGeneratorTest {
 
+	private static List<TestRecursiveEntity> createIndependentTrees() {
+		// Create enough independent trees for more than one task
+		final List<TestRecursiveEntity> roots = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			final TestRecursiveEntity root = new TestRecursiveEntity(null, "Parallel Root " + i);
+			final TestRecursiveEntity child = new TestRecursiveEntity(root, "Parallel Child " + i);
+			new TestRecursiveEntity(child, "Parallel Grandchild " + i);
+			roots.add(i % 2 == 0 ? root : child);
+		}
+		return roots;
+	}
+
+	private static List<TestRecursiveEntity> createInterleavedSiblings() {
+		// The second children of each group follow the first children, so the connected roots span a task boundary
+		final List<TestRecursiveEntity> roots = new ArrayList<>();
+		for (int group = 0; group < 5; group++) {
+			final List<TestRecursiveEntity> secondChildren = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				final TestRecursiveEntity parent = new TestRecursiveEntity(null, "Interleaved Parent " + group + '.' + i);
+				roots.add(new TestRecursiveEntity(parent, "Interleaved First " + group + '.' + i));
+				final TestRecursiveEntity secondChild = new TestRecursiveEntity(parent,
+						"Interleaved Second " + group + '.' + i);
+				// Remove it from the inverse side, otherwise it is written together with the parent
+				parent.getChildren().remove(secondChild);
+				secondChildren.add(secondChild);
+			}
+			roots.addAll(secondChildren);
+		}
+		return roots;
+	}
+
+	private static List<String> generateStatements(final List<TestRecursiveEntity> roots, final Executor executor)
+			throws IOException {
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(new GeneratorContext(), writer)) {
+			generator.setGenerationExecutor(executor);
+			generator.write(roots);
+			generator.flush();
+			return new ArrayList<>(writer.getStatements());
+		}
+	}
+
+	private static void testParallelGeneration(final Supplier<List<TestRecursiveEntity>> roots,
+			final int minStatements) throws IOException {
+		final List<String> sequentialStatements = generateStatements(roots.get(), null);
+		assertThat(sequentialStatements).hasSizeGreaterThan(minStatements);
+		for (final int threads : new int[] { 1, 4 }) {
+			try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+				assertThat(generateStatements(roots.get(), executor)).as("Statements with %d threads", threads)
+						.isEqualTo(sequentialStatements);
+			}
+		}
+	}
+
+	/**
+	 * Tests to write a child before its parent, if the constraints are deferred.
+	 *
+	 * Only checks the text of the statements, as H2 can't defer constraints.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testDeferredConstraints() throws IOException {
+		final GeneratorContext context = new GeneratorContext();
+		context.setDialect(new PostgresDialect());
+		context.setDeferConstraints(true);
+		final TestRecursiveEntity root = new TestRecursiveEntity(null, "Deferred Root");
+		final TestRecursiveEntity child = new TestRecursiveEntity(root, "Deferred Child");
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(context, writer)) {
+			generator.write(child);
+			final List<String> statements = writer.getStatements();
+			assertThat(statements).hasSize(3).first().isEqualTo("SET CONSTRAINTS ALL DEFERRED");
+			assertThat(statements.get(1)).startsWith("INSERT INTO TestRecursiveEntity").contains(child.getName(),
+					root.getId().toString());
+			assertThat(statements.get(2)).startsWith("INSERT INTO TestRecursiveEntity").contains(root.getName());
+		}
+	}
+
+	/**
+	 * Tests that the parallel generation creates the same statements as the sequential generation, independent of the
+	 * count of threads.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testParallelGeneration() throws IOException {
+		testParallelGeneration(RecursiveEntityTest::createIndependentTrees, 1500);
+	}
+
+	/**
+	 * Tests that the parallel generation creates the same statements as the sequential generation, if the connected
+	 * root entities are interleaved with other root entities.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testParallelGenerationOfInterleavedRoots() throws IOException {
+		testParallelGeneration(RecursiveEntityTest::createInterleavedSiblings, 1000);
+	}
+
 	/**
 	 * Tests to write recursion.
 	 *
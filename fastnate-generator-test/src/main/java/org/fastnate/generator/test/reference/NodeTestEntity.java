@@ -0,0 +1,41 @@
+package org.fastnate.generator.test.reference;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity to test pending references of several nodes to their owner.
+ *
+ * @author Tobias Liefke
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class NodeTestEntity {
+
+	@Id
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "ownerId")
+	private OwnerTestEntity owner;
+
+	@ManyToOne
+	@JoinColumn(name = "creatorId")
+	private OwnerTestEntity creator;
+
+	@ManyToOne
+	@JoinColumn(name = "nextId")
+	private NodeTestEntity next;
+
+}
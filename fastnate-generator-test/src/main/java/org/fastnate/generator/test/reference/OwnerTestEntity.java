@@ -0,0 +1,33 @@
+package org.fastnate.generator.test.reference;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity to test pending references of several nodes to their owner.
+ *
+ * @author Tobias Liefke
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class OwnerTestEntity {
+
+	@Id
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "firstNodeId")
+	private NodeTestEntity firstNode;
+
+}
@@ -3,8 +3,15 @@ package org.fastnate.generator.test.reference;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import org.fastnate.generator.EntitySqlGenerator;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.dialect.PostgresDialect;
+import org.fastnate.generator.statements.ListStatementsWriter;
 import org.fastnate.generator.test.AbstractEntitySqlGeneratorTest;
+import org.fastnate.generator.test.SimpleTestEntity;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -14,6 +21,91 @@ import org.junit.jupiter.api.Test;
  */
 public class ReferenceEntityTest extends AbstractEntitySqlGeneratorTest {
 
+	private static OwnerTestEntity createOwner() {
+		final OwnerTestEntity owner = new OwnerTestEntity(1L, null);
+		final NodeTestEntity lastNode = new NodeTestEntity(3L, owner, owner, null);
+		owner.setFirstNode(new NodeTestEntity(2L, owner, owner, lastNode));
+		return owner;
+	}
+
+	/**
+	 * Test that every entity is written exactly once with literal references, if the constraints are deferred.
+	 *
+	 * Only checks the text of the statements, as H2 can't defer constraints.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testDeferredConstraints() throws IOException {
+		final GeneratorContext context = new GeneratorContext();
+		context.setDialect(new PostgresDialect());
+		context.setDeferConstraints(true);
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(context, writer)) {
+			generator.write(createOwner());
+			assertThat(writer.getStatements()).containsExactly("SET CONSTRAINTS ALL DEFERRED",
+					"INSERT INTO OwnerTestEntity (id, firstNodeId) VALUES (1, 2)",
+					"INSERT INTO NodeTestEntity (id, creatorId, nextId, ownerId) VALUES (2, 1, 3, 1)",
+					"INSERT INTO NodeTestEntity (id, creatorId, ownerId) VALUES (3, 1, 1)");
+		}
+	}
+
+	/**
+	 * Test that deferred constraints are ignored for relative IDs, so required references are written first.
+	 *
+	 * Only checks the text of the statements, as H2 can't defer constraints.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testDeferredConstraintsWithRelativeIds() throws IOException {
+		final GeneratorContext context = new GeneratorContext();
+		context.setDialect(new PostgresDialect());
+		context.setDeferConstraints(true);
+		context.setWriteRelativeIds(true);
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(context, writer)) {
+			generator.write(new RequiredReferenceTestEntity(new SimpleTestEntity("Required target")));
+			final List<String> statements = writer.getStatements();
+			assertThat(statements).hasSize(2).noneMatch(sql -> sql.startsWith("SET CONSTRAINTS"))
+					.noneMatch(sql -> sql.startsWith("UPDATE"));
+			assertThat(statements.get(0)).startsWith("INSERT INTO SimpleTest ");
+			assertThat(statements.get(1)).startsWith("INSERT INTO RequiredReferenceTestEntity ");
+		}
+	}
+
+	/**
+	 * Test that the pending references of several rows to the same entity are written with one update.
+	 *
+	 * @throws IOException
+	 *             if the generator throws one
+	 */
+	@Test
+	public void testPendingReferences() throws IOException {
+		write(createOwner());
+
+		final OwnerTestEntity resultOwner = findSingleResult(OwnerTestEntity.class);
+		final NodeTestEntity firstNode = resultOwner.getFirstNode();
+		assertThat(firstNode.getId()).isEqualTo(2L);
+		assertThat(firstNode.getNext().getId()).isEqualTo(3L);
+		for (final NodeTestEntity node : findResults(NodeTestEntity.class)) {
+			assertThat(node.getOwner()).isEqualTo(resultOwner);
+			assertThat(node.getCreator()).isEqualTo(resultOwner);
+		}
+
+		// Check that both references of both nodes are updated together
+		try (ListStatementsWriter writer = new ListStatementsWriter();
+				EntitySqlGenerator generator = new EntitySqlGenerator(new GeneratorContext(), writer)) {
+			generator.write(createOwner());
+			final List<String> updates = writer.getStatements().stream().filter(sql -> sql.startsWith("UPDATE"))
+					.collect(Collectors.toList());
+			assertThat(updates).hasSize(1);
+			assertThat(updates.get(0)).contains("ownerId = 1", "creatorId = 1").endsWith("WHERE id IN (3, 2)");
+		}
+	}
+
 	/**
 	 * Test that the references between parent and child are written in the correct order.
 	 *
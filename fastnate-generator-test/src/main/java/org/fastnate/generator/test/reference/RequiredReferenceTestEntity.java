@@ -0,0 +1,40 @@
+package org.fastnate.generator.test.reference;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.validation.constraints.NotNull;
+
+import org.fastnate.generator.test.BaseTestEntity;
+import org.fastnate.generator.test.SimpleTestEntity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity with a generated ID to test required references to other entities with generated IDs.
+ *
+ * @author Tobias Liefke
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class RequiredReferenceTestEntity extends BaseTestEntity {
+
+	@NotNull
+	@ManyToOne
+	@JoinColumn(name = "targetId")
+	private SimpleTestEntity target;
+
+	/**
+	 * Creates a new instance of {@link RequiredReferenceTestEntity}.
+	 *
+	 * @param target
+	 *            the required target
+	 */
+	public RequiredReferenceTestEntity(final SimpleTestEntity target) {
+		this.target = target;
+	}
+
+}
@@ -0,0 +1,165 @@
+package org.fastnate.generator.test.statements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.context.ModelException;
+import org.fastnate.generator.dialect.PostgresDialect;
+import org.fastnate.generator.statements.CopyBinaryRowEncoder;
+import org.fastnate.generator.statements.ListStatementsWriter;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.TableStatement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the bytes written by the {@link CopyBinaryRowEncoder}.
+ *
+ * @author Tobias Liefke
+ */
+public class CopyBinaryRowEncoderTest {
+
+	private final GeneratorTable table = new GeneratorContext(new PostgresDialect()).resolveTable(null, null,
+			"BinaryTable");
+
+	private final ListStatementsWriter writer = new ListStatementsWriter();
+
+	private CopyBinaryRowEncoder createEncoder() {
+		this.table.resolveColumn("value");
+		return new CopyBinaryRowEncoder(this.table);
+	}
+
+	/**
+	 * Encodes a row with one column.
+	 *
+	 * @param value
+	 *            the value of the column
+	 * @return the hex representation of the value, without the count of columns of the row
+	 */
+	private String encode(final Object value) throws IOException {
+		final CopyBinaryRowEncoder encoder = createEncoder();
+		encodeRow(encoder, value);
+		final byte[] bytes = encoder.createInputStream().readAllBytes();
+		assertThat(HexFormat.of().formatHex(bytes, 0, Short.BYTES)).isEqualTo("0001");
+		return HexFormat.of().formatHex(bytes, Short.BYTES, bytes.length);
+	}
+
+	private void encodeRow(final CopyBinaryRowEncoder encoder, final Object value) {
+		final TableStatement statement = this.writer.createInsertStatement(this.table.getContext().getDialect(),
+				this.table);
+		if (value != null) {
+			statement.setColumnValue(this.table.resolveColumn("value"),
+					new PrimitiveColumnExpression<>(value, String::valueOf));
+		}
+		encoder.encode(statement);
+	}
+
+	/**
+	 * Tests the encoding of dates and timestamps around the PostgreSQL epoch.
+	 *
+	 * @throws IOException
+	 *             if the stream of the encoder throws one
+	 */
+	@Test
+	public void testDates() throws IOException {
+		assertThat(encode(LocalDate.of(2000, 1, 2))).isEqualTo("00000004" + "00000001");
+		assertThat(encode(java.sql.Date.valueOf("1999-12-31"))).isEqualTo("00000004" + "ffffffff");
+		assertThat(encode(LocalDateTime.of(2000, 1, 1, 0, 0, 0, 1000))).isEqualTo("00000008" + "0000000000000001");
+		assertThat(encode(Timestamp.valueOf("1999-12-31 23:59:59"))).isEqualTo("00000008" + "fffffffffff0bdc0");
+		assertThat(encode(Instant.parse("2000-01-01T00:00:01.5Z"))).isEqualTo("00000008" + "000000000016e360");
+	}
+
+	/**
+	 * Tests the encoding of integral numbers, including the {@link Short} ordinals of enums.
+	 *
+	 * @throws IOException
+	 *             if the stream of the encoder throws one
+	 */
+	@Test
+	public void testIntegers() throws IOException {
+		assertThat(encode(-2L)).isEqualTo("00000008" + "fffffffffffffffe");
+		assertThat(encode(258)).isEqualTo("00000004" + "00000102");
+		assertThat(encode((short) 3)).isEqualTo("00000002" + "0003");
+		assertThat(encode((byte) -1)).isEqualTo("00000002" + "ffff");
+	}
+
+	/**
+	 * Tests that values with different binary representations in the same column are rejected.
+	 */
+	@Test
+	public void testMismatchingTypes() {
+		final CopyBinaryRowEncoder encoder = createEncoder();
+		encodeRow(encoder, 1);
+		encodeRow(encoder, null);
+		encodeRow(encoder, 2);
+		assertThatThrownBy(() -> encodeRow(encoder, (short) 3)).isInstanceOf(ModelException.class)
+				.hasMessageContaining("BinaryTable.value").hasMessageContaining("integer");
+	}
+
+	/**
+	 * Tests the encoding of {@code null}.
+	 *
+	 * @throws IOException
+	 *             if the stream of the encoder throws one
+	 */
+	@Test
+	public void testNull() throws IOException {
+		assertThat(encode(null)).isEqualTo("ffffffff");
+	}
+
+	/**
+	 * Tests the encoding of numeric values with groups of four decimal digits on both sides of the decimal point.
+	 *
+	 * @throws IOException
+	 *             if the stream of the encoder throws one
+	 */
+	@Test
+	public void testNumeric() throws IOException {
+		// Count of digits, weight, sign, scale, digits
+		assertThat(encode(new BigDecimal("12345.678")))
+				.isEqualTo("0000000e" + "0003" + "0001" + "0000" + "0003" + "0001" + "0929" + "1a7c");
+		assertThat(encode(new BigDecimal("-1.5")))
+				.isEqualTo("0000000c" + "0002" + "0000" + "4000" + "0001" + "0001" + "1388");
+		assertThat(encode(new BigDecimal("0.00012")))
+				.isEqualTo("0000000c" + "0002" + "ffff" + "0000" + "0005" + "0001" + "07d0");
+		assertThat(encode(new BigInteger("100000000")))
+				.isEqualTo("0000000a" + "0001" + "0002" + "0000" + "0000" + "0001");
+		assertThat(encode(BigDecimal.ZERO)).isEqualTo("00000008" + "0000" + "0000" + "0000" + "0000");
+	}
+
+	/**
+	 * Tests that a value without a binary representation is rejected.
+	 */
+	@Test
+	public void testUnknownType() {
+		final CopyBinaryRowEncoder encoder = createEncoder();
+		assertThatThrownBy(() -> encodeRow(encoder, new StringBuilder("text"))).isInstanceOf(ModelException.class)
+				.hasMessageContaining(StringBuilder.class.getName());
+	}
+
+	/**
+	 * Tests the encoding of UUIDs and strings.
+	 *
+	 * @throws IOException
+	 *             if the stream of the encoder throws one
+	 */
+	@Test
+	public void testUuidAndText() throws IOException {
+		assertThat(encode(UUID.fromString("00112233-4455-6677-8899-aabbccddeeff")))
+				.isEqualTo("00000010" + "00112233445566778899aabbccddeeff");
+		assertThat(encode("aä€")).isEqualTo("00000006" + "61" + "c3a4" + "e282ac");
+		assertThat(encode('x')).isEqualTo("00000001" + "78");
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.fastnate.generator.test.statements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.PostgresDialect;
+import org.fastnate.generator.statements.CopyRowEncoder;
+import org.fastnate.generator.statements.ListStatementsWriter;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.TableStatement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the text written by the {@link CopyRowEncoder}.
+ *
+ * @author Tobias Liefke
+ */
+public class CopyRowEncoderTest {
+
+	private final GeneratorTable table = new GeneratorContext(new PostgresDialect()).resolveTable(null, null,
+			"TextTable");
+
+	private final ListStatementsWriter writer = new ListStatementsWriter();
+
+	/**
+	 * Encodes one row for each value, with the value in the second of three columns.
+	 *
+	 * @param values
+	 *            the values of the second column
+	 * @return the text of all rows
+	 */
+	private String encode(final Object... values) throws IOException {
+		this.table.resolveColumn("first");
+		this.table.resolveColumn("second");
+		this.table.resolveColumn("third");
+		final CopyRowEncoder encoder = new CopyRowEncoder(this.table);
+		for (final Object value : values) {
+			final TableStatement statement = this.writer.createInsertStatement(this.table.getContext().getDialect(),
+					this.table);
+			statement.setColumnValue(this.table.resolveColumn("first"),
+					PrimitiveColumnExpression.create(1, this.table.getContext().getDialect()));
+			if (value != null) {
+				statement.setColumnValue(this.table.resolveColumn("second"),
+						new PrimitiveColumnExpression<>(value, String::valueOf));
+			}
+			statement.setColumnValue(this.table.resolveColumn("third"),
+					PrimitiveColumnExpression.create("end", this.table.getContext().getDialect()));
+			encoder.encode(statement);
+		}
+		assertThat(encoder.getRows()).isEqualTo(values.length);
+
+		final StringWriter result = new StringWriter();
+		encoder.writeTo(result);
+		assertThat(encoder.getLength()).isZero();
+		return result.toString();
+	}
+
+	/**
+	 * Tests the encoding of dates and times, including dates before 1970 and fractional seconds.
+	 *
+	 * @throws IOException
+	 *             if the encoder throws one
+	 */
+	@Test
+	public void testDates() throws IOException {
+		assertThat(encode(java.sql.Date.valueOf("1969-07-20"), LocalDate.of(12, 3, 4)))
+				.isEqualTo("1\t1969-07-20\tend\n1\t0012-03-04\tend\n");
+		assertThat(encode(Timestamp.valueOf("1901-12-13 20:45:52.5"), LocalDateTime.of(2024, 2, 29, 0, 0, 0, 1000)))
+				.isEqualTo("1\t1901-12-13 20:45:52.5\tend\n1\t2024-02-29 00:00:00.000001\tend\n");
+		assertThat(encode(Timestamp.valueOf("1960-01-01 00:00:00.123456789"), Time.valueOf("23:59:58"),
+				LocalTime.of(7, 8, 9, 10_000_000))).isEqualTo("1\t1960-01-01 00:00:00.123456789\tend\n"
+						+ "1\t23:59:58\tend\n" + "1\t07:08:09.01\tend\n");
+	}
+
+	/**
+	 * Tests the encoding of {@code null} and of strings that look like {@code null}.
+	 *
+	 * @throws IOException
+	 *             if the encoder throws one
+	 */
+	@Test
+	public void testNull() throws IOException {
+		assertThat(encode(null, "\\N", "")).isEqualTo("1\t\\N\tend\n1\t\\\\N\tend\n1\t\tend\n");
+	}
+
+	/**
+	 * Tests the encoding of numbers, booleans and binary values.
+	 *
+	 * @throws IOException
+	 *             if the encoder throws one
+	 */
+	@Test
+	public void testPrimitives() throws IOException {
+		assertThat(encode(-42L, Long.MIN_VALUE, (short) 7, new BigDecimal("-0.50"), 1.25d, true, false,
+				new byte[] { 0, (byte) 0xAB, 0x7F })).isEqualTo(
+						"1\t-42\tend\n" + "1\t-9223372036854775808\tend\n" + "1\t7\tend\n" + "1\t-0.50\tend\n"
+								+ "1\t1.25\tend\n" + "1\tt\tend\n" + "1\tf\tend\n" + "1\t\\\\x00ab7f\tend\n");
+	}
+
+	/**
+	 * Tests the escaping of tabs, line breaks and backslashes in strings.
+	 *
+	 * @throws IOException
+	 *             if the encoder throws one
+	 */
+	@Test
+	public void testStrings() throws IOException {
+		assertThat(encode("a\tb", "line\nbreak", "carriage\rreturn", "back\\slash", "\r\n\\\t", "äöü €"))
+				.isEqualTo("1\ta\\tb\tend\n" + "1\tline\\nbreak\tend\n" + "1\tcarriage\\rreturn\tend\n"
+						+ "1\tback\\\\slash\tend\n" + "1\t\\r\\n\\\\\\t\tend\n" + "1\täöü €\tend\n");
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.fastnate.generator.test.statements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.fastnate.generator.dialect.MsSqlDialect;
+import org.fastnate.generator.statements.MsSqlBulkWriter;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.TableStatement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the files and statements written by the {@link MsSqlBulkWriter}, without any database.
+ *
+ * @author Tobias Liefke
+ */
+public class MsSqlBulkWriterTest {
+
+	@TempDir
+	private File directory;
+
+	private static void writeRow(final MsSqlBulkWriter writer, final GeneratorTable table, final long id,
+			final String name, final Boolean active) throws IOException {
+		final GeneratorDialect dialect = table.getContext().getDialect();
+		final TableStatement insert = writer.createInsertStatement(dialect, table);
+		insert.setColumnValue(table.resolveColumn("id"), PrimitiveColumnExpression.create(id, dialect));
+		insert.setColumnValue(table.resolveColumn("name"), PrimitiveColumnExpression.create(name, dialect));
+		if (active != null) {
+			insert.setColumnValue(table.resolveColumn("active"),
+					new PrimitiveColumnExpression<>(active, dialect::convertBooleanValue));
+		}
+		writer.writeStatement(insert);
+	}
+
+	/**
+	 * Tests the format file, the data file and the import statement for one table.
+	 *
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	@Test
+	public void testBulkFiles() throws IOException {
+		final GeneratorContext context = new GeneratorContext(new MsSqlDialect());
+		final GeneratorTable table = context.resolveTable(null, null, "BulkTable");
+		table.resolveColumn("id");
+		table.resolveColumn("name");
+		table.resolveColumn("active");
+
+		final StringWriter sql = new StringWriter();
+		try (MsSqlBulkWriter writer = new MsSqlBulkWriter(context, this.directory, sql, StandardCharsets.UTF_8)) {
+			writeRow(writer, table, 1, "First", true);
+			writeRow(writer, table, 2, "Quoted \"Second\"", null);
+			writeRow(writer, table, 3, "", false);
+		}
+
+		final File dataFile = new File(this.directory, "BulkTable.csv");
+		final File formatFile = new File(this.directory, "BulkTable.fmt");
+		assertThat(Files.readString(formatFile.toPath(), StandardCharsets.US_ASCII)).isEqualTo("14.0\r\n" //
+				+ "3\r\n" //
+				+ "1\tSQLCHAR\t0\t0\t\",\"\t1\tf1\t\"\"\r\n" //
+				+ "2\tSQLCHAR\t0\t0\t\",\"\t2\tf2\t\"\"\r\n" //
+				+ "3\tSQLCHAR\t0\t0\t\"\\r\\n\"\t3\tf3\t\"\"\r\n");
+		assertThat(Files.readString(dataFile.toPath(), StandardCharsets.UTF_8)).isEqualTo("1,\"First\",1\r\n" //
+				+ "2,\"Quoted \"\"Second\"\"\",\r\n" //
+				+ "3,\"\",0\r\n");
+		assertThat(sql.toString().trim()).isEqualTo("INSERT INTO BulkTable (id, name, active) SELECT f1, f2, f3"
+				+ " FROM OPENROWSET(BULK '" + dataFile.getAbsolutePath() + "', FORMATFILE = '"
+				+ formatFile.getAbsolutePath() + "', FORMAT = 'CSV', CODEPAGE = '65001') AS bulk_rows;");
+	}
+
+}
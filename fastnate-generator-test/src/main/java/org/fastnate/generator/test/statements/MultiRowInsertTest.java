@@ -0,0 +1,133 @@
+package org.fastnate.generator.test.statements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.fastnate.generator.dialect.H2Dialect;
+import org.fastnate.generator.dialect.MsSqlDialect;
+import org.fastnate.generator.statements.ListStatementsWriter;
+import org.fastnate.generator.statements.PlainColumnExpression;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.TableStatement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that consecutive insert statements are combined by the {@link ListStatementsWriter} and the
+ * {@link org.fastnate.generator.statements.MultiRowInsertBuilder}.
+ *
+ * @author Tobias Liefke
+ */
+public class MultiRowInsertTest {
+
+	private static ListStatementsWriter createWriter(final int maxRows) {
+		final ListStatementsWriter writer = new ListStatementsWriter();
+		writer.getMultiRowInserts().setMaxRows(maxRows);
+		return writer;
+	}
+
+	private static void writeInsert(final ListStatementsWriter writer, final GeneratorDialect dialect,
+			final GeneratorTable table, final long id, final String name) {
+		final TableStatement insert = writer.createInsertStatement(dialect, table);
+		insert.setColumnValue(table.resolveColumn("id"), PrimitiveColumnExpression.create(id, dialect));
+		insert.setColumnValue(table.resolveColumn("name"), PrimitiveColumnExpression.create(name, dialect));
+		writer.writeStatement(insert);
+	}
+
+	/**
+	 * Tests that the maximum rows of the dialect limit the configured maximum rows.
+	 */
+	@Test
+	public void testDialectMaxRows() {
+		final GeneratorDialect dialect = new MsSqlDialect();
+		final GeneratorTable table = new GeneratorContext(dialect).resolveTable(null, null, "TestTable");
+		final ListStatementsWriter writer = createWriter(5000);
+		final int rows = dialect.getMaxRowsPerInsert() * 2 + 1;
+		for (int i = 0; i < rows; i++) {
+			writeInsert(writer, dialect, table, i, "Name");
+		}
+		writer.flush();
+
+		final List<Integer> rowCounts = new ArrayList<>();
+		for (final String statement : writer.getStatements()) {
+			rowCounts.add(statement.split("\\), \\(").length);
+		}
+		assertThat(rowCounts).containsExactly(1000, 1000, 1);
+	}
+
+	/**
+	 * Tests that a combined statement is finished before it would exceed the maximum length.
+	 */
+	@Test
+	public void testMaxLength() {
+		final GeneratorDialect dialect = new H2Dialect();
+		final GeneratorTable table = new GeneratorContext(dialect).resolveTable(null, null, "TestTable");
+		final ListStatementsWriter writer = createWriter(100);
+		final String prefix = "INSERT INTO TestTable (id, name) VALUES ";
+		writer.getMultiRowInserts().setMaxLength(prefix.length() + "(1, 'A'), (2, 'B')".length());
+		writeInsert(writer, dialect, table, 1, "A");
+		writeInsert(writer, dialect, table, 2, "B");
+		writeInsert(writer, dialect, table, 3, "C");
+		writeInsert(writer, dialect, table, 4, "Longer than the maximum length");
+		writer.flush();
+
+		assertThat(writer.getStatements()).containsExactly(prefix + "(1, 'A'), (2, 'B')", prefix + "(3, 'C')",
+				prefix + "(4, 'Longer than the maximum length')");
+	}
+
+	/**
+	 * Tests that statements with plain SQL expressions are written on their own and finish the current statement.
+	 */
+	@Test
+	public void testPlainExpression() {
+		final GeneratorDialect dialect = new H2Dialect();
+		final GeneratorTable table = new GeneratorContext(dialect).resolveTable(null, null, "TestTable");
+		final ListStatementsWriter writer = createWriter(100);
+		writeInsert(writer, dialect, table, 1, "A");
+		writeInsert(writer, dialect, table, 2, "B");
+
+		final TableStatement plain = writer.createInsertStatement(dialect, table);
+		plain.setColumnValue(table.resolveColumn("id"), PrimitiveColumnExpression.create(3L, dialect));
+		plain.setColumnValue(table.resolveColumn("name"), new PlainColumnExpression("UPPER('c')"));
+		writer.writeStatement(plain);
+
+		writeInsert(writer, dialect, table, 4, "D");
+		writer.flush();
+
+		assertThat(writer.getStatements()).containsExactly(
+				"INSERT INTO TestTable (id, name) VALUES (1, 'A'), (2, 'B')",
+				"INSERT INTO TestTable (id, name) VALUES (3, UPPER('c'))",
+				"INSERT INTO TestTable (id, name) VALUES (4, 'D')");
+	}
+
+	/**
+	 * Tests that a new statement is started for every change of the table or the columns.
+	 */
+	@Test
+	public void testTableSwitch() {
+		final GeneratorDialect dialect = new H2Dialect();
+		final GeneratorContext context = new GeneratorContext(dialect);
+		final GeneratorTable first = context.resolveTable(null, null, "FirstTable");
+		final GeneratorTable second = context.resolveTable(null, null, "SecondTable");
+		final ListStatementsWriter writer = createWriter(100);
+		writeInsert(writer, dialect, first, 1, "A");
+		writeInsert(writer, dialect, first, 2, "B");
+		writeInsert(writer, dialect, second, 1, "C");
+		writeInsert(writer, dialect, first, 3, "D");
+
+		final TableStatement idOnly = writer.createInsertStatement(dialect, first);
+		idOnly.setColumnValue(first.resolveColumn("id"), PrimitiveColumnExpression.create(4L, dialect));
+		writer.writeStatement(idOnly);
+		writer.flush();
+
+		assertThat(writer.getStatements()).containsExactly(
+				"INSERT INTO FirstTable (id, name) VALUES (1, 'A'), (2, 'B')",
+				"INSERT INTO SecondTable (id, name) VALUES (1, 'C')",
+				"INSERT INTO FirstTable (id, name) VALUES (3, 'D')", "INSERT INTO FirstTable (id) VALUES (4)");
+	}
+
+}
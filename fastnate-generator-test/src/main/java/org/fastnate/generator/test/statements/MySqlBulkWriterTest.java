@@ -0,0 +1,126 @@
+package org.fastnate.generator.test.statements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.fastnate.generator.dialect.MySqlDialect;
+import org.fastnate.generator.statements.MySqlBulkWriter;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.TableStatement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the files and statements written by the {@link MySqlBulkWriter}, without any database.
+ *
+ * @author Tobias Liefke
+ */
+public class MySqlBulkWriterTest {
+
+	@TempDir
+	private File directory;
+
+	private static GeneratorTable createTable(final GeneratorContext context) {
+		final GeneratorTable table = context.resolveTable(null, null, "BulkTable");
+		table.resolveColumn("id");
+		table.resolveColumn("name");
+		table.resolveColumn("active");
+		table.resolveColumn("data");
+		return table;
+	}
+
+	private static void writeRow(final MySqlBulkWriter writer, final GeneratorTable table, final long id,
+			final String name, final Boolean active, final byte[] data) throws IOException {
+		final GeneratorDialect dialect = table.getContext().getDialect();
+		final TableStatement insert = writer.createInsertStatement(dialect, table);
+		insert.setColumnValue(table.resolveColumn("id"), PrimitiveColumnExpression.create(id, dialect));
+		insert.setColumnValue(table.resolveColumn("name"), PrimitiveColumnExpression.create(name, dialect));
+		if (active != null) {
+			insert.setColumnValue(table.resolveColumn("active"),
+					new PrimitiveColumnExpression<>(active, dialect::convertBooleanValue));
+		}
+		if (data != null) {
+			insert.setColumnValue(table.resolveColumn("data"),
+					new PrimitiveColumnExpression<>(data, dialect::createBlobExpression));
+		}
+		writer.writeStatement(insert);
+	}
+
+	private String readFile(final String name, final Charset encoding) throws IOException {
+		return Files.readString(new File(this.directory, name).toPath(), encoding);
+	}
+
+	private String toPath(final String name) {
+		return new File(this.directory, name).getAbsolutePath();
+	}
+
+	/**
+	 * Tests that a new file is started, when a boolean or binary value needs a conversion that is not part of the
+	 * import statement of the current file.
+	 *
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	@Test
+	public void testConversions() throws IOException {
+		final GeneratorContext context = new GeneratorContext(new MySqlDialect());
+		final GeneratorTable table = createTable(context);
+
+		final StringWriter sql = new StringWriter();
+		try (MySqlBulkWriter writer = new MySqlBulkWriter(context, this.directory, sql, StandardCharsets.UTF_8)) {
+			writeRow(writer, table, 1, "First", null, null);
+			writeRow(writer, table, 2, "Second", true, null);
+			writeRow(writer, table, 3, "Third", false, new byte[] { 0x0A, (byte) 0xFF });
+			writeRow(writer, table, 4, "Fourth", null, null);
+			writeRow(writer, table, 5, "Fifth", true, null);
+		}
+
+		assertThat(readFile("BulkTable.blk", StandardCharsets.UTF_8)).isEqualTo("1\tFirst\t\\N\t\\N\n");
+		assertThat(readFile("BulkTable.2.blk", StandardCharsets.UTF_8)).isEqualTo("2\tSecond\t1\t\\N\n");
+		assertThat(readFile("BulkTable.3.blk", StandardCharsets.UTF_8))
+				.isEqualTo("3\tThird\t0\t0aff\n" + "4\tFourth\t\\N\t\\N\n" + "5\tFifth\t1\t\\N\n");
+		assertThat(new File(this.directory, "BulkTable.4.blk")).doesNotExist();
+		assertThat(sql.toString()).isEqualTo("LOAD DATA INFILE '" + toPath("BulkTable.blk")
+				+ "' INTO TABLE BulkTable CHARACTER SET utf8mb4 (id, name, active, data);\n" //
+				+ "LOAD DATA INFILE '" + toPath("BulkTable.2.blk")
+				+ "' INTO TABLE BulkTable CHARACTER SET utf8mb4 (id, name, @v2, data)"
+				+ " SET active = CAST(@v2 AS UNSIGNED);\n" //
+				+ "LOAD DATA INFILE '" + toPath("BulkTable.3.blk")
+				+ "' INTO TABLE BulkTable CHARACTER SET utf8mb4 (id, name, @v2, @v3)"
+				+ " SET active = CAST(@v2 AS UNSIGNED), data = UNHEX(@v3);\n");
+	}
+
+	/**
+	 * Tests the import statement for files that are read from the client, and the character set of the files.
+	 *
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	@Test
+	public void testLocalInfile() throws IOException {
+		final GeneratorContext context = new GeneratorContext(new MySqlDialect());
+		context.getSettings().setProperty(MySqlBulkWriter.LOCAL_INFILE_KEY, "true");
+		final GeneratorTable table = createTable(context);
+
+		final StringWriter sql = new StringWriter();
+		try (MySqlBulkWriter writer = new MySqlBulkWriter(context, this.directory, sql,
+				StandardCharsets.ISO_8859_1)) {
+			assertThat(writer.isLocalInfile()).isTrue();
+			writeRow(writer, table, 1, "Tab\tand ä", null, null);
+		}
+
+		assertThat(readFile("BulkTable.blk", StandardCharsets.ISO_8859_1)).isEqualTo("1\tTab\\tand ä\t\\N\t\\N\n");
+		assertThat(sql.toString()).isEqualTo("LOAD DATA LOCAL INFILE '" + toPath("BulkTable.blk")
+				+ "' INTO TABLE BulkTable CHARACTER SET latin1 (id, name, active, data);\n");
+	}
+
+}
@@ -0,0 +1,269 @@
+package org.fastnate.generator.test.statements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.fastnate.generator.dialect.PostgresDialect;
+import org.fastnate.generator.statements.PlainColumnExpression;
+import org.fastnate.generator.statements.PostgreSqlCopyWriter;
+import org.fastnate.generator.statements.PrimitiveColumnExpression;
+import org.fastnate.generator.statements.TableStatement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+/**
+ * Tests the order and the contents of the "COPY" commands of the {@link PostgreSqlCopyWriter}.
+ *
+ * The "COPY" API of the connection is replaced by a stub, all other statements are executed in an H2 database, which
+ * provides the foreign keys of the tables.
+ *
+ * @author Tobias Liefke
+ */
+public class PostgreSqlCopyWriterTest {
+
+	/**
+	 * Records all "COPY" commands, instead of sending them to a database.
+	 */
+	private final class RecordingCopyManager extends CopyManager {
+
+		RecordingCopyManager() throws SQLException {
+			super((BaseConnection) Proxy.newProxyInstance(BaseConnection.class.getClassLoader(),
+					new Class<?>[] { BaseConnection.class }, (proxy, method, args) -> null));
+		}
+
+		@Override
+		public long copyIn(final String sql, final Reader from) throws IOException {
+			final StringWriter rows = new StringWriter();
+			from.transferTo(rows);
+			PostgreSqlCopyWriterTest.this.executed.add(sql + ": " + rows);
+			return StringUtils.countMatches(rows.toString(), '\n');
+		}
+
+	}
+
+	/** The statements and "COPY" commands, in the order of their execution. */
+	private final List<String> executed = new ArrayList<>();
+
+	/** The connection to the H2 database. */
+	private Connection database;
+
+	private final GeneratorContext context = new GeneratorContext(new PostgresDialect());
+
+	private final GeneratorTable parentTable = this.context.resolveTable(null, null, "Parent");
+
+	private final GeneratorTable childTable = this.context.resolveTable(null, null, "Child");
+
+	/**
+	 * Creates a connection, that records the executed statements and provides a stub for the "COPY" API.
+	 */
+	private Connection createConnection() throws SQLException {
+		final PGConnection pgConnection = (PGConnection) Proxy.newProxyInstance(PGConnection.class.getClassLoader(),
+				new Class<?>[] { PGConnection.class }, new InvocationHandler() {
+
+					private final CopyManager copyManager = new RecordingCopyManager();
+
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] args) {
+						return "getCopyAPI".equals(method.getName()) ? this.copyManager : null;
+					}
+
+				});
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					if ("unwrap".equals(method.getName()) && args[0] == PGConnection.class) {
+						return pgConnection;
+					}
+					final Object result = invoke(this.database, method, args);
+					if (result instanceof Statement) {
+						return createStatement((Statement) result);
+					}
+					return result;
+				});
+	}
+
+	/**
+	 * Creates a statement, that records the executed SQL.
+	 */
+	private Statement createStatement(final Statement statement) {
+		final List<String> batch = new ArrayList<>();
+		return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+				new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "addBatch":
+							batch.add((String) args[0]);
+							break;
+						case "executeBatch":
+							this.executed.addAll(batch);
+							batch.clear();
+							break;
+						case "executeUpdate":
+							this.executed.add((String) args[0]);
+							break;
+						default:
+							break;
+					}
+					return invoke(statement, method, args);
+				});
+	}
+
+	/**
+	 * Creates the tables in the database.
+	 *
+	 * @throws SQLException
+	 *             if the database throws one
+	 */
+	@BeforeEach
+	public void createTables() throws SQLException {
+		this.database = DriverManager.getConnection("jdbc:h2:mem:copyWriterTest");
+		try (Statement statement = this.database.createStatement()) {
+			statement.executeUpdate("CREATE TABLE Parent (id BIGINT PRIMARY KEY, name VARCHAR, extra VARCHAR)");
+			statement.executeUpdate(
+					"CREATE TABLE Child (id BIGINT PRIMARY KEY, parent_id BIGINT REFERENCES Parent, name VARCHAR)");
+		}
+		this.parentTable.resolveColumn("id");
+		this.parentTable.resolveColumn("name");
+		this.childTable.resolveColumn("id");
+		this.childTable.resolveColumn("parent_id");
+		this.childTable.resolveColumn("name");
+	}
+
+	/**
+	 * Drops the database.
+	 *
+	 * @throws SQLException
+	 *             if the database throws one
+	 */
+	@AfterEach
+	public void dropDatabase() throws SQLException {
+		this.database.close();
+	}
+
+	private Object invoke(final Object target, final Method method, final Object[] args)
+			throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (final InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Tests that the pending rows are copied, when they exceed the maximum count of characters.
+	 *
+	 * @throws Exception
+	 *             if the writer or the database throws one
+	 */
+	@Test
+	public void testMaxPendingCharacters() throws Exception {
+		final String name = StringUtils.repeat('x', 1 << 20);
+		try (PostgreSqlCopyWriter writer = new PostgreSqlCopyWriter(createConnection(), this.context)) {
+			for (int id = 1; id <= 5; id++) {
+				writeParent(writer, id, name);
+			}
+			assertThat(this.executed).hasSize(1);
+			assertThat(StringUtils.countMatches(this.executed.get(0), '\n')).isEqualTo(4);
+		}
+		assertThat(this.executed).hasSize(2);
+		assertThat(this.executed.get(1)).isEqualTo("COPY Parent (id, name) FROM STDIN: 5\t" + name + '\n');
+	}
+
+	/**
+	 * Tests the order of the "COPY" commands across table switches and other statements.
+	 *
+	 * @throws Exception
+	 *             if the writer or the database throws one
+	 */
+	@Test
+	public void testOrder() throws Exception {
+		final GeneratorDialect dialect = this.context.getDialect();
+		final PostgreSqlCopyWriter writer = new PostgreSqlCopyWriter(createConnection(), this.context);
+		try {
+			// A parent doesn't reference a child, so both tables are copied en bloc
+			writeParent(writer, 1, "A");
+			writeChild(writer, 10, 1, "C");
+			writeParent(writer, 2, "B");
+			writeChild(writer, 11, 2, "D");
+			assertThat(this.executed).isEmpty();
+
+			// A plain statement needs all previous rows
+			writer.writePlainStatement(dialect, "UPDATE Parent SET name = 'X' WHERE id = 1");
+			assertThat(this.executed).containsExactly("COPY Parent (id, name) FROM STDIN: 1\tA\n2\tB\n",
+					"COPY Child (id, parent_id, name) FROM STDIN: 10\t1\tC\n11\t2\tD\n",
+					"UPDATE Parent SET name = 'X' WHERE id = 1");
+			this.executed.clear();
+
+			// A child would reference a parent that is copied later
+			writeChild(writer, 12, 3, "E");
+			writeParent(writer, 3, "F");
+			writeChild(writer, 13, 3, "G");
+			assertThat(this.executed).containsExactly("COPY Child (id, parent_id, name) FROM STDIN: 12\t3\tE\n",
+					"COPY Parent (id, name) FROM STDIN: 3\tF\n");
+			this.executed.clear();
+
+			// The rows of a table with a new column need a new "COPY"
+			writeParent(writer, 4, "H");
+			this.parentTable.resolveColumn("extra");
+			writeParent(writer, 5, "I");
+			assertThat(this.executed).containsExactly("COPY Child (id, parent_id, name) FROM STDIN: 13\t3\tG\n",
+					"COPY Parent (id, name) FROM STDIN: 4\tH\n");
+			this.executed.clear();
+
+			// An insert with a plain expression is executed after the pending rows and before the next row
+			final TableStatement plainInsert = writer.createInsertStatement(dialect, this.childTable);
+			plainInsert.setColumnValue(this.childTable.resolveColumn("id"),
+					PrimitiveColumnExpression.create(14L, dialect));
+			plainInsert.setColumnValue(this.childTable.resolveColumn("name"),
+					new PlainColumnExpression("UPPER('j')"));
+			writer.writeStatement(plainInsert);
+			writeParent(writer, 6, "K");
+			assertThat(this.executed).containsExactly("COPY Parent (id, name, extra) FROM STDIN: 5\tI\t\\N\n",
+					"INSERT INTO Child (id, name) VALUES (14, UPPER('j'))");
+			this.executed.clear();
+		} finally {
+			writer.close();
+		}
+		assertThat(this.executed).containsExactly("COPY Parent (id, name, extra) FROM STDIN: 6\tK\t\\N\n");
+		assertThat(writer.getCopiedRows()).isEqualTo(10);
+	}
+
+	private void writeChild(final PostgreSqlCopyWriter writer, final long id, final long parentId, final String name)
+			throws IOException {
+		final GeneratorDialect dialect = this.context.getDialect();
+		final TableStatement insert = writer.createInsertStatement(dialect, this.childTable);
+		insert.setColumnValue(this.childTable.resolveColumn("id"), PrimitiveColumnExpression.create(id, dialect));
+		insert.setColumnValue(this.childTable.resolveColumn("parent_id"),
+				PrimitiveColumnExpression.create(parentId, dialect));
+		insert.setColumnValue(this.childTable.resolveColumn("name"), PrimitiveColumnExpression.create(name, dialect));
+		writer.writeStatement(insert);
+	}
+
+	private void writeParent(final PostgreSqlCopyWriter writer, final long id, final String name) throws IOException {
+		final GeneratorDialect dialect = this.context.getDialect();
+		final TableStatement insert = writer.createInsertStatement(dialect, this.parentTable);
+		insert.setColumnValue(this.parentTable.resolveColumn("id"), PrimitiveColumnExpression.create(id, dialect));
+		insert.setColumnValue(this.parentTable.resolveColumn("name"), PrimitiveColumnExpression.create(name, dialect));
+		writer.writeStatement(insert);
+	}
+
+}
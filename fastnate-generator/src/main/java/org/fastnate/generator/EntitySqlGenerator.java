@@ -5,24 +5,43 @@ import java.io.IOException;
 import java.io.Writer;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.fastnate.generator.context.EmbeddedProperty;
 import org.fastnate.generator.context.EntityClass;
 import org.fastnate.generator.context.GeneratedIdProperty;
 import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.IdGenerator;
+import org.fastnate.generator.context.IdGenerator.LeasedValues;
 import org.fastnate.generator.context.Property;
 import org.fastnate.generator.dialect.GeneratorDialect;
 import org.fastnate.generator.statements.ColumnExpression;
 import org.fastnate.generator.statements.ConnectedStatementsWriter;
 import org.fastnate.generator.statements.FileStatementsWriter;
+import org.fastnate.generator.statements.StatementsBuffer;
 import org.fastnate.generator.statements.StatementsWriter;
 import org.fastnate.generator.statements.TableStatement;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /**
  * Creates SQL statements for a set of entities using their JPA annotations.
@@ -33,30 +52,251 @@ import lombok.RequiredArgsConstructor;
  * <li>Only tested with Hibernate.</li>
  * </ul>
  *
+ * The SQL for independent entities may be generated in parallel, see {@link #PARALLEL_GENERATION_KEY}.
+ *
+ * If {@link GeneratorContext#isDeferConstraints() constraints are deferred}, all new entities that are reachable
+ * from an entity are written one after another with literal IDs, instead of writing the referenced entities first.
+ *
  * @author Tobias Liefke
  */
 @Getter
 @RequiredArgsConstructor
 public class EntitySqlGenerator implements Closeable {
 
-	private static <E> boolean isPostponedInsert(final List<Object> postInsertEntities, final E entity) {
-		final int index = postInsertEntities.indexOf(entity);
+	/**
+	 * Contains the entities that will be written later, in the order of their registration.
+	 *
+	 * Entities are compared by identity, as they may have no id up to now and their equals method may depend on it.
+	 * All operations are done in constant time, even for deep object graphs.
+	 */
+	private static final class PostponedEntities {
+
+		/** A registered entity, linked to its neighbours in the order of registration. */
+		@RequiredArgsConstructor
+		private static final class Node {
+
+			private final Object entity;
+
+			private Node previous;
+
+			private Node next;
+
+		}
+
+		/** The node of every registered entity. */
+		private final Map<Object, Node> nodes = new IdentityHashMap<>();
+
+		/** The node of the latest registered entity that was not removed up to now. */
+		private Node last;
+
+		/**
+		 * Registers an entity that is written later.
+		 *
+		 * @param entity
+		 *            the new entity, must not be registered already
+		 */
+		void add(final Object entity) {
+			final Node node = new Node(entity);
+			node.previous = this.last;
+			if (this.last != null) {
+				this.last.next = node;
+			}
+			this.last = node;
+			this.nodes.put(entity, node);
+		}
+
+		boolean contains(final Object entity) {
+			return this.nodes.containsKey(entity);
+		}
+
+		/**
+		 * Indicates that the given entity was the latest registered entity.
+		 *
+		 * @param entity
+		 *            the entity to check
+		 * @return {@code true} if the entity is registered and no other entity was registered afterwards
+		 */
+		boolean isLast(final Object entity) {
+			return this.last != null && this.last.entity == entity;
+		}
+
+		/**
+		 * Removes the given entity.
+		 *
+		 * @param entity
+		 *            the entity to remove
+		 * @return {@code true} if the entity was registered
+		 */
+		boolean remove(final Object entity) {
+			final Node node = this.nodes.remove(entity);
+			if (node == null) {
+				return false;
+			}
+			if (node.previous != null) {
+				node.previous.next = node.next;
+			}
+			if (node.next != null) {
+				node.next.previous = node.previous;
+			} else {
+				this.last = node.previous;
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * A set of root entities, which are connected by their graphs of new entities - and independent from the entities
+	 * of all other components.
+	 *
+	 * Components are merged, as soon as they share a new entity. Only the component that was not merged into another
+	 * one contains the position of its last root entity and the count of generated IDs.
+	 */
+	private static final class Component {
+
+		/** The component that this component was merged into, {@code null} if it is still independent. */
+		private Component mergedComponent;
+
+		/** The position of the last root entity of this component, in the order of the caller. */
+		private int lastRoot = -1;
+
+		/** The count of the generated IDs for each generator of the new entities. */
+		private final Map<IdGenerator, long[]> idCounts = new HashMap<>();
+
+		/** The count of the new entities of this component. */
+		private int size;
+
+		/**
+		 * Registers a new entity of this component.
+		 *
+		 * @param generator
+		 *            the generator of the ID of the entity, {@code null} if the entity has no generated ID
+		 */
+		void addEntity(final IdGenerator generator) {
+			this.size++;
+			if (generator != null) {
+				this.idCounts.computeIfAbsent(generator, g -> new long[1])[0]++;
+			}
+		}
+
+		/**
+		 * Finds the independent component that contains all entities of this component.
+		 *
+		 * @return the component that this component was merged into, or this component itself
+		 */
+		Component find() {
+			Component component = this;
+			while (component.mergedComponent != null) {
+				component = component.mergedComponent;
+			}
+			if (this.mergedComponent != null && this.mergedComponent != component) {
+				// Shorten the path for the next call
+				this.mergedComponent = component;
+			}
+			return component;
+		}
+
+		/**
+		 * Merges this component with another component.
+		 *
+		 * @param other
+		 *            the other component
+		 * @return the merged component
+		 */
+		Component merge(final Component other) {
+			final Component component = find();
+			final Component otherComponent = other.find();
+			if (component == otherComponent) {
+				return component;
+			}
+			final Component target = component.size >= otherComponent.size ? component : otherComponent;
+			final Component source = target == component ? otherComponent : component;
+			target.size += source.size;
+			source.idCounts.forEach((generator, count) -> target.idCounts.merge(generator, count, (c1, c2) -> {
+				c1[0] += c2[0];
+				return c1;
+			}));
+			source.mergedComponent = target;
+			return target;
+		}
 
+	}
+
+	/**
+	 * Settings key that indicates to generate the SQL for independent entities in parallel (on virtual threads), if no
+	 * {@link #setGenerationExecutor(Executor) executor} was set explicitly.
+	 *
+	 * Only the entities given to {@link #write(Iterable)} are written in parallel. They are partitioned into components
+	 * of connected new entities. The entities are split into consecutive tasks only at positions that no component
+	 * spans. Each task is written by one thread into a buffer, with IDs from a range that was leased from the
+	 * generators before. The buffers are written to the {@link #getWriter() target writer} in the order of the tasks.
+	 * The result is the same as if all entities were written one after another.
+	 *
+	 * Entities are always written sequentially, if {@link GeneratorContext#isWriteRelativeIds() relative IDs} are
+	 * written or if an ID is created by the database. Subclasses that override {@link #findEntity(Object)} have to
+	 * ensure that it is thread safe.
+	 */
+	public static final String PARALLEL_GENERATION_KEY = "fastnate.generator.parallel";
+
+	/** The minimum count of new entities that are written by one task in parallel mode. */
+	private static final int MIN_ENTITIES_PER_TASK = 256;
+
+	private static GeneratedIdProperty<?, ?> findGeneratedIdProperty(final EntityClass<?> entityClass) {
+		EntityClass<?> idClass = entityClass;
+		while (idClass.getJoinedParentClass() != null) {
+			idClass = idClass.getJoinedParentClass();
+		}
+		final Property<?, ?> idProperty = idClass.getIdProperty();
+		return idProperty instanceof GeneratedIdProperty ? (GeneratedIdProperty<?, ?>) idProperty : null;
+	}
+
+	private static <E> boolean isPostponedInsert(final PostponedEntities postInsertEntities, final E entity) {
 		// Were we already here, but are required by another entity ?
-		final boolean isPostInsert = index >= 0;
-		if (isPostInsert && index == postInsertEntities.size() - 1) {
+		final boolean isPostInsert = postInsertEntities.contains(entity);
+		if (isPostInsert && postInsertEntities.isLast(entity)) {
 			// We have a required dependency in an endless loop
 			throw new IllegalArgumentException("An entity requires another entity that itself requires the first one.");
 		}
 		return isPostInsert;
 	}
 
+	private static <T> T join(final CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
 	/** Used to keep the state of indices and to store any configuration. */
 	private final GeneratorContext context;
 
 	/** The target of any generated SQL statement, e.g. a file or database. */
 	private final StatementsWriter writer;
 
+	/**
+	 * The executor used to write independent entities in parallel.
+	 *
+	 * If {@code null}, all entities are written in the current thread - unless {@link #PARALLEL_GENERATION_KEY} is
+	 * set.
+	 */
+	@Setter
+	private Executor generationExecutor;
+
+	/** Indicates that the constraints are deferred in the current transaction. */
+	@Getter(AccessLevel.NONE)
+	private boolean constraintsDeferred;
+
 	/**
 	 * Creates a new instance for a database connection.
 	 *
@@ -95,6 +335,74 @@ public class EntitySqlGenerator implements Closeable {
 		this.writer.close();
 	}
 
+	/**
+	 * Partitions the given root entities into components of connected new entities.
+	 *
+	 * @param rootEntities
+	 *            the entities to write
+	 * @return the independent component of each root entity ({@code null} for a root entity that is not new), or
+	 *         {@code null} if the entities have to be written one after another
+	 */
+	private List<Component> findComponents(final List<Object> rootEntities) {
+		if (this.context.isWriteRelativeIds()) {
+			// The references depend on the current state of the generators
+			return null;
+		}
+		final Map<Object, Component> entityComponents = new IdentityHashMap<>();
+		final Map<List<Object>, Component> idComponents = new HashMap<>();
+		final List<Component> rootComponents = new ArrayList<>(rootEntities.size());
+		final Deque<Object> entitiesToVisit = new ArrayDeque<>();
+		for (final Object rootEntity : rootEntities) {
+			if (!this.context.getDescription(rootEntity).isNew(rootEntity)) {
+				// Nothing to write
+				rootComponents.add(null);
+				continue;
+			}
+			Component component = new Component();
+			entitiesToVisit.push(rootEntity);
+			while (!entitiesToVisit.isEmpty()) {
+				final Object entity = entitiesToVisit.pop();
+				final EntityClass<Object> entityClass = this.context.getDescription(entity);
+				if (entityClass.isNew(entity)) {
+					final GeneratedIdProperty<?, ?> idProperty = findGeneratedIdProperty(entityClass);
+					final Component existingComponent;
+					if (idProperty == null) {
+						final Object id = entityClass.getIdProperty().getValue(entity);
+						existingComponent = idComponents.putIfAbsent(Arrays.asList(entityClass.getEntityName(), id),
+								component);
+					} else if (!idProperty.isAbsoluteIds()) {
+						// The ID is created by the database, so the references depend on the order of the entities
+						return null;
+					} else {
+						existingComponent = entityComponents.putIfAbsent(entity, component);
+					}
+					if (existingComponent != null) {
+						component = component.merge(existingComponent);
+					} else {
+						component.addEntity(idProperty == null ? null : idProperty.getGenerator());
+						for (final Property<? super Object, ?> property : entityClass.getAllProperties()) {
+							for (final Object referencedEntity : property.findReferencedEntities(entity)) {
+								if (referencedEntity != null) {
+									entitiesToVisit.push(referencedEntity);
+								}
+							}
+						}
+					}
+				}
+			}
+			rootComponents.add(component);
+		}
+
+		for (int i = 0; i < rootEntities.size(); i++) {
+			if (rootComponents.get(i) != null) {
+				final Component component = rootComponents.get(i).find();
+				component.lastRoot = i;
+				rootComponents.set(i, component);
+			}
+		}
+		return rootComponents;
+	}
+
 	/**
 	 * Tries to find an entity in an online store. Usefull for writing online updates.
 	 *
@@ -117,6 +425,54 @@ public class EntitySqlGenerator implements Closeable {
 	public void flush() throws IOException {
 		writeAlignmentStatements();
 		this.writer.flush();
+		// The transaction may be committed now
+		this.constraintsDeferred = false;
+	}
+
+	/**
+	 * Indicates to write the entities with deferred constraints and writes the statement that defers them, if not done
+	 * before in the current transaction.
+	 *
+	 * @return {@code true} if the constraints are deferred
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	private boolean isDeferringConstraints() throws IOException {
+		final GeneratorDialect dialect = this.context.getDialect();
+		if (!this.context.isDeferConstraints() || !dialect.isDeferrableConstraintsSupported()
+				|| this.context.isWriteRelativeIds()) {
+			// Relative IDs can't be reserved
+			return false;
+		}
+		if (!this.constraintsDeferred) {
+			dialect.deferConstraints(this.writer);
+			this.constraintsDeferred = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Reserves the IDs for the new entities of the given components.
+	 *
+	 * @param components
+	 *            the components that are written by one task
+	 * @return the reserved IDs for each generator
+	 */
+	private List<LeasedValues> leaseIds(final Collection<Component> components) {
+		final Map<IdGenerator, long[]> idCounts = new HashMap<>();
+		for (final Component component : components) {
+			for (final Map.Entry<IdGenerator, long[]> idCount : component.idCounts.entrySet()) {
+				idCounts.computeIfAbsent(idCount.getKey(), generator -> new long[1])[0] += idCount.getValue()[0];
+			}
+		}
+		final List<LeasedValues> leasedIds = new ArrayList<>(idCounts.size());
+		for (final Map.Entry<IdGenerator, long[]> idCount : idCounts.entrySet()) {
+			final IdGenerator generator = idCount.getKey();
+			synchronized (generator) {
+				leasedIds.add(generator.leaseValues(idCount.getValue()[0]));
+			}
+		}
+		return leasedIds;
 	}
 
 	/**
@@ -162,7 +518,11 @@ public class EntitySqlGenerator implements Closeable {
 	 *             if the entity is invalid
 	 */
 	public <E> void write(final E entity) throws IOException {
-		write(entity, new ArrayList<>());
+		if (isDeferringConstraints()) {
+			writeDeferred(entity, this.writer);
+		} else {
+			write(entity, new PostponedEntities(), this.writer);
+		}
 	}
 
 	/**
@@ -172,10 +532,13 @@ public class EntitySqlGenerator implements Closeable {
 	 *            the entity to create the SQL for
 	 * @param postponedEntities
 	 *            contains entities that will be written later and can be ignored
+	 * @param writer
+	 *            the target of the statements
 	 * @throws IOException
 	 *             if the writer throws one
 	 */
-	private <E> void write(final E entity, final List<Object> postponedEntities) throws IOException {
+	private <E> void write(final E entity, final PostponedEntities postponedEntities, final StatementsWriter writer)
+			throws IOException {
 		final EntityClass<E> classDescription = this.context.getDescription(entity);
 		if (classDescription.isNew(entity)) {
 			if (!findEntity(entity) && !isPostponedInsert(postponedEntities, entity)) {
@@ -184,11 +547,12 @@ public class EntitySqlGenerator implements Closeable {
 			}
 
 			// Write all contained entities that are mapped in our table(s), as far as possible
-			writeTableEntities(entity, postponedEntities, classDescription.getAllProperties());
+			writeTableEntities(entity, postponedEntities, classDescription.getAllProperties(), writer);
 
 			// Check if we still need to be created
 			if (postponedEntities.remove(entity)) {
-				writeInserts(entity, postponedEntities, classDescription, classDescription.getDiscriminator());
+				writeInserts(entity, postponedEntities, classDescription, classDescription.getDiscriminator(), false,
+						writer);
 			}
 		}
 
@@ -197,14 +561,78 @@ public class EntitySqlGenerator implements Closeable {
 	/**
 	 * Creates the SQL for the given entities.
 	 *
+	 * If a {@link #setGenerationExecutor(Executor) generation executor} is set or {@link #PARALLEL_GENERATION_KEY} is
+	 * set in the settings, independent entities are written in parallel.
+	 *
 	 * @param entities
 	 *            the entities for SQL creation
 	 * @throws IOException
 	 *             if the writer throws one
 	 */
 	public <E> void write(final Iterable<? extends E> entities) throws IOException {
-		for (final E entity : entities) {
-			write(entity);
+		if (this.generationExecutor != null) {
+			write(entities, this.generationExecutor);
+		} else if (Boolean.parseBoolean(this.context.getSettings().getProperty(PARALLEL_GENERATION_KEY, "false"))) {
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				write(entities, executor);
+			}
+		} else {
+			for (final E entity : entities) {
+				write(entity);
+			}
+		}
+	}
+
+	/**
+	 * Creates the SQL for the given entities in parallel, as far as they are independent.
+	 *
+	 * @param entities
+	 *            the entities for SQL creation
+	 * @param executor
+	 *            executes the generation of independent components
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	private <E> void write(final Iterable<? extends E> entities, final Executor executor) throws IOException {
+		final List<Object> rootEntities = new ArrayList<>();
+		entities.forEach(rootEntities::add);
+		final List<Component> rootComponents = findComponents(rootEntities);
+		if (rootComponents == null || rootComponents.stream().filter(c -> c != null).distinct().count() < 2) {
+			for (final Object entity : rootEntities) {
+				write(entity);
+			}
+			return;
+		}
+		final boolean deferred = isDeferringConstraints();
+
+		// Limit the count of buffers that wait to be written
+		final int maxPendingTasks = Runtime.getRuntime().availableProcessors() * 2;
+		final Deque<CompletableFuture<StatementsBuffer>> pendingTasks = new ArrayDeque<>();
+		int start = 0;
+		while (start < rootEntities.size()) {
+			// Combine small components into one task, but never split the root entities of a component
+			final Set<Component> taskComponents = new LinkedHashSet<>();
+			int end = start;
+			int componentsEnd = start;
+			int size = 0;
+			while (end < rootEntities.size() && (end < componentsEnd || size < MIN_ENTITIES_PER_TASK)) {
+				final Component component = rootComponents.get(end++);
+				if (component != null && taskComponents.add(component)) {
+					size += component.size;
+					componentsEnd = Math.max(componentsEnd, component.lastRoot + 1);
+				}
+			}
+			final List<Object> taskEntities = rootEntities.subList(start, end);
+			final List<LeasedValues> leasedIds = leaseIds(taskComponents);
+			if (pendingTasks.size() >= maxPendingTasks) {
+				join(pendingTasks.poll()).writeTo(this.writer);
+			}
+			pendingTasks
+					.add(CompletableFuture.supplyAsync(() -> writeRoots(taskEntities, leasedIds, deferred), executor));
+			start = end;
+		}
+		while (!pendingTasks.isEmpty()) {
+			join(pendingTasks.poll()).writeTo(this.writer);
 		}
 	}
 
@@ -232,25 +660,88 @@ public class EntitySqlGenerator implements Closeable {
 		this.writer.writeComment(comment);
 	}
 
-	private <E> void writeInserts(final E entity, final List<Object> postponedEntities,
-			final EntityClass<E> classDescription, final ColumnExpression discriminator) throws IOException {
+	/**
+	 * Creates the SQL for an entity and all new entities reachable from it, while the constraints are deferred.
+	 *
+	 * Reserves the IDs of all these entities first, so every entity is written exactly once with the literal IDs of its
+	 * references - without any recursion or pending update. Only entities with IDs created by the database are written
+	 * as usual, before all entities that reference them.
+	 *
+	 * @param rootEntity
+	 *            the entity to create the SQL for
+	 * @param writer
+	 *            the target of the statements
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	private void writeDeferred(final Object rootEntity, final StatementsWriter writer) throws IOException {
+		// Find all new entities and reserve their IDs
+		final PostponedEntities postponedEntities = new PostponedEntities();
+		final List<Object> reservedEntities = new ArrayList<>();
+		final List<Object> unreservedEntities = new ArrayList<>();
+		final Set<Object> visitedEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Deque<Object> entitiesToVisit = new ArrayDeque<>();
+		entitiesToVisit.push(rootEntity);
+		while (!entitiesToVisit.isEmpty()) {
+			final Object entity = entitiesToVisit.pop();
+			final EntityClass<Object> entityClass = this.context.getDescription(entity);
+			if (visitedEntities.add(entity) && entityClass.isNew(entity) && !findEntity(entity)) {
+				if (entityClass.reserveId(entity, writer)) {
+					postponedEntities.add(entity);
+					reservedEntities.add(entity);
+				} else {
+					unreservedEntities.add(entity);
+				}
+				for (final Property<? super Object, ?> property : entityClass.getAllProperties()) {
+					for (final Object referencedEntity : property.findReferencedEntities(entity)) {
+						if (referencedEntity != null) {
+							entitiesToVisit.push(referencedEntity);
+						}
+					}
+				}
+			}
+		}
+
+		// Write the entities with IDs from the database first, as their referrers need these IDs
+		for (final Object entity : unreservedEntities) {
+			write(entity, new PostponedEntities(), writer);
+		}
+
+		// Write each entity with a reserved ID once, in the order of discovery
+		for (final Object entity : reservedEntities) {
+			final EntityClass<Object> entityClass = this.context.getDescription(entity);
+			postponedEntities.remove(entity);
+			writeInserts(entity, postponedEntities, entityClass, entityClass.getDiscriminator(), true, writer);
+		}
+	}
+
+	private <E> void writeInserts(final E entity, final PostponedEntities postponedEntities,
+			final EntityClass<E> classDescription, final ColumnExpression discriminator, final boolean reservedId,
+			final StatementsWriter writer) throws IOException {
 		// Create the insert statement
-		final TableStatement stmt = this.writer.createInsertStatement(this.context.getDialect(),
+		final TableStatement stmt = writer.createInsertStatement(this.context.getDialect(),
 				classDescription.getTable());
 
 		if (classDescription.getJoinedParentClass() != null) {
 			// Write the parent tables
-			writeInserts(entity, postponedEntities, classDescription.getJoinedParentClass(), discriminator);
+			writeInserts(entity, postponedEntities, classDescription.getJoinedParentClass(), discriminator, reservedId,
+					writer);
 
 			// And add the id as foreign key column
 			stmt.setColumnValue(classDescription.getPrimaryKeyJoinColumn(),
 					classDescription.getEntityReference(entity, null, false));
 		} else {
-			// Write Pre-Inserts for the ID
-			classDescription.getIdProperty().createPreInsertStatements(this.writer, entity);
-
-			// Add the id
-			classDescription.getIdProperty().addInsertExpression(stmt, entity);
+			final Property<? super E, ?> idProperty = classDescription.getIdProperty();
+			if (reservedId && idProperty instanceof GeneratedIdProperty) {
+				// Add the reserved id
+				((GeneratedIdProperty<E, ?>) idProperty).addReservedInsertExpression(stmt, entity);
+			} else {
+				// Write Pre-Inserts for the ID
+				idProperty.createPreInsertStatements(writer, entity);
+
+				// Add the id
+				idProperty.addInsertExpression(stmt, entity);
+			}
 
 			// And the discriminator
 			if (discriminator != null) {
@@ -260,28 +751,28 @@ public class EntitySqlGenerator implements Closeable {
 
 		// Now add all other properties
 		for (final Property<? super E, ?> property : classDescription.getAdditionalProperties()) {
-			property.createPreInsertStatements(this.writer, entity);
+			property.createPreInsertStatements(writer, entity);
 
 			property.addInsertExpression(stmt, entity);
 		}
 
 		// Write the statement
-		this.writer.writeStatement(stmt);
+		writer.writeStatement(stmt);
 
 		// And all postponed statements
-		classDescription.createPostInsertStatements(entity, this.writer);
+		classDescription.createPostInsertStatements(entity, writer);
 
 		for (final Property<? super E, ?> property : classDescription.getAllProperties()) {
 			// Write all missing entities, even those that have no column (because they are referencing us and
 			// we are created now)
 			for (final Object referencedEntity : property.findReferencedEntities(entity)) {
 				if (referencedEntity != null && !postponedEntities.contains(referencedEntity)) {
-					write(referencedEntity, postponedEntities);
+					write(referencedEntity, postponedEntities, writer);
 				}
 			}
 
 			// Generate additional statements
-			property.createPostInsertStatements(this.writer, entity);
+			property.createPostInsertStatements(writer, entity);
 		}
 	}
 
@@ -299,6 +790,43 @@ public class EntitySqlGenerator implements Closeable {
 		this.writer.writePlainStatement(this.context.getDialect(), statement);
 	}
 
+	/**
+	 * Writes the given root entities into a new buffer.
+	 *
+	 * Called in the thread of the generation executor.
+	 *
+	 * @param rootEntities
+	 *            the root entities to write, in the order of the caller
+	 * @param leasedIds
+	 *            the IDs reserved for the new entities of the root entities
+	 * @param deferred
+	 *            indicates that the constraints are deferred
+	 * @return the buffer that contains all statements of the root entities
+	 */
+	private StatementsBuffer writeRoots(final List<Object> rootEntities, final List<LeasedValues> leasedIds,
+			final boolean deferred) {
+		final StatementsBuffer buffer = new StatementsBuffer();
+		for (final LeasedValues ids : leasedIds) {
+			ids.getGenerator().useLeasedValues(ids);
+		}
+		try {
+			for (final Object entity : rootEntities) {
+				if (deferred) {
+					writeDeferred(entity, buffer);
+				} else {
+					write(entity, new PostponedEntities(), buffer);
+				}
+			}
+		} catch (final IOException e) {
+			throw new CompletionException(e);
+		} finally {
+			for (final LeasedValues ids : leasedIds) {
+				ids.getGenerator().useLeasedValues(null);
+			}
+		}
+		return buffer;
+	}
+
 	/**
 	 * Writes a new line to the target to separate different sections in the SQL file.
 	 *
@@ -311,17 +839,17 @@ public class EntitySqlGenerator implements Closeable {
 		this.writer.writeSectionSeparator();
 	}
 
-	private <E, T> void writeTableEntities(final E entity, final List<Object> postponedEntities,
-			final Collection<Property<? super E, ?>> properties) throws IOException {
+	private <E, T> void writeTableEntities(final E entity, final PostponedEntities postponedEntities,
+			final Collection<Property<? super E, ?>> properties, final StatementsWriter writer) throws IOException {
 		for (final Property<? super E, ?> property : properties) {
 			if (property instanceof EmbeddedProperty) {
 				final EmbeddedProperty<? super E, T> embeddedProperty = (EmbeddedProperty<? super E, T>) property;
 				this.<T, Object> writeTableEntities(embeddedProperty.getValue(entity), postponedEntities,
-						embeddedProperty.getEmbeddedProperties().values());
+						embeddedProperty.getEmbeddedProperties().values(), writer);
 			} else if (property.isTableColumn()) {
 				for (final Object value : property.findReferencedEntities(entity)) {
 					if (!postponedEntities.contains(value) || property.isRequired()) {
-						write(value, postponedEntities);
+						write(value, postponedEntities, writer);
 					}
 				}
 			}
@@ -2,6 +2,7 @@ package org.fastnate.generator.context;
 
 import java.beans.Introspector;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -38,6 +39,12 @@ public enum AccessStyle {
 			@Getter
 			private final Field field;
 
+			/** Reads the field, {@code null} if we have to use reflection. */
+			private final MethodHandle getter;
+
+			/** Writes the field, {@code null} if we have to use reflection. */
+			private final MethodHandle setter;
+
 			/** The name of the attribute, inherited from {@link #field}. */
 			@Getter
 			private final String name;
@@ -60,6 +67,8 @@ public enum AccessStyle {
 			Accessor(final Class<?> implementationClass, final Field field) {
 				this.implementationClass = implementationClass;
 				this.field = field;
+				this.getter = ClassUtil.unreflectGetter(field);
+				this.setter = ClassUtil.unreflectSetter(field);
 				this.name = field.getName();
 				this.type = ClassUtil.getActualTypeBinding(implementationClass,
 						(Class<Object>) field.getDeclaringClass(), field.getGenericType());
@@ -110,6 +119,15 @@ public enum AccessStyle {
 				if (entity == null) {
 					return null;
 				}
+				if (this.getter != null) {
+					try {
+						return (T) (Object) this.getter.invokeExact((Object) entity);
+					} catch (final Error e) {
+						throw e;
+					} catch (final Throwable e) {
+						throw new IllegalStateException("Could not read " + this.field + " from " + entity + ": " + e, e);
+					}
+				}
 				try {
 					if (!this.field.canAccess(entity)) {
 						this.field.setAccessible(true);
@@ -122,6 +140,16 @@ public enum AccessStyle {
 
 			@Override
 			public <E, T> void setValue(final E entity, final T value) {
+				if (this.setter != null) {
+					try {
+						this.setter.invokeExact((Object) entity, (Object) value);
+						return;
+					} catch (final Error e) {
+						throw e;
+					} catch (final Throwable e) {
+						throw new IllegalStateException("Could not write " + this.field + " of " + entity + ": " + e, e);
+					}
+				}
 				try {
 					if (!this.field.canAccess(entity)) {
 						this.field.setAccessible(true);
@@ -164,9 +192,15 @@ public enum AccessStyle {
 			/** The getter of the property. */
 			private final Method method;
 
+			/** Calls the getter, {@code null} if we have to use reflection. */
+			private final MethodHandle getter;
+
 			/** The setter of the property. */
 			private Method setter;
 
+			/** Calls the setter, {@code null} if we have to use reflection or the setter was not resolved yet. */
+			private MethodHandle setterHandle;
+
 			/** The name of the attribute, inherited from {@link #method}. */
 			@Getter
 			private final String name;
@@ -189,6 +223,7 @@ public enum AccessStyle {
 			Accessor(final Class<?> implementationClass, final Method getter) {
 				this.implementationClass = implementationClass;
 				this.method = getter;
+				this.getter = ClassUtil.unreflect(getter);
 				this.name = Introspector.decapitalize(getter.getName().replaceFirst("^(get|is)", ""));
 				this.type = ClassUtil.getActualTypeBinding(implementationClass,
 						(Class<Object>) getter.getDeclaringClass(), getter.getGenericReturnType());
@@ -240,11 +275,16 @@ public enum AccessStyle {
 					return null;
 				}
 				try {
+					if (this.getter != null) {
+						return (T) (Object) this.getter.invokeExact((Object) entity);
+					}
 					if (!this.method.canAccess(entity)) {
 						this.method.setAccessible(true);
 					}
 					return (T) this.method.invoke(entity);
-				} catch (final ReflectiveOperationException | IllegalArgumentException e) {
+				} catch (final Error e) {
+					throw e;
+				} catch (final Throwable e) {
 					throw new IllegalStateException("Could not execute " + this.method + " on " + entity + ": " + e, e);
 				}
 			}
@@ -255,26 +295,35 @@ public enum AccessStyle {
 					if (this.setter == null) {
 						final String setterName = "set" + StringUtils.capitalize(this.name);
 						final Class<?> paramType = this.method.getReturnType();
+						Method foundSetter = null;
 						for (final Method m : this.method.getDeclaringClass().getDeclaredMethods()) {
 							if (m.getName().equals(setterName)) {
 								final Class<?>[] parameterTypes = m.getParameterTypes();
 								if (parameterTypes.length == 1 && parameterTypes[0] == paramType) {
-									this.setter = m;
+									foundSetter = m;
 									break;
 								}
 							}
 						}
-						if (this.setter == null) {
+						if (foundSetter == null) {
 							throw new ModelException("Can't find setter: " + this.method.getDeclaringClass() + '.'
 									+ setterName + '(' + paramType + ')');
 						}
 
-						if (!this.setter.canAccess(entity)) {
-							this.setter.setAccessible(true);
+						this.setterHandle = ClassUtil.unreflect(foundSetter);
+						if (this.setterHandle == null && !foundSetter.canAccess(entity)) {
+							foundSetter.setAccessible(true);
 						}
+						this.setter = foundSetter;
 					}
-					this.setter.invoke(entity, value);
-				} catch (final ReflectiveOperationException e) {
+					if (this.setterHandle != null) {
+						this.setterHandle.invokeExact((Object) entity, (Object) value);
+					} else {
+						this.setter.invoke(entity, value);
+					}
+				} catch (final ModelException | Error e) {
+					throw e;
+				} catch (final Throwable e) {
 					throw new IllegalStateException(e);
 				}
 			}
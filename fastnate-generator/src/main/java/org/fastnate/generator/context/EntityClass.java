@@ -1,6 +1,7 @@
 package org.fastnate.generator.context;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
@@ -44,10 +45,10 @@ import org.fastnate.generator.statements.ColumnExpression;
 import org.fastnate.generator.statements.PlainColumnExpression;
 import org.fastnate.generator.statements.PrimitiveColumnExpression;
 import org.fastnate.generator.statements.StatementsWriter;
+import org.fastnate.util.ClassUtil;
 
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Describes the DB relevant metadata of an {@link Entity entity class}.
@@ -59,31 +60,6 @@ import lombok.RequiredArgsConstructor;
 @Getter
 public class EntityClass<E> {
 
-	/**
-	 * Helper object to use as key in the state map, if we have a {@link GeneratedIdProperty}.
-	 *
-	 * As the hashcode of entities in some implementations changes if the id changes, we can't use the entity as key
-	 * itself.
-	 *
-	 * As result, the hash map is used as linked list.
-	 */
-	@RequiredArgsConstructor
-	private static final class EntityId {
-
-		private final Object entity;
-
-		@Override
-		public boolean equals(final Object obj) {
-			return obj instanceof EntityId && ((EntityId) obj).entity == this.entity;
-		}
-
-		@Override
-		public int hashCode() {
-			return 0;
-		}
-
-	}
-
 	/**
 	 * Finds all association overrides that are attached to the given field, method or class, by taking the already
 	 * defined overrides into account.
@@ -196,6 +172,10 @@ public class EntityClass<E> {
 	@Getter(AccessLevel.NONE)
 	private final Constructor<E> entityConstructor;
 
+	/** Calls the {@link #entityConstructor}, {@code null} if we have to use reflection. */
+	@Getter(AccessLevel.NONE)
+	private final MethodHandle entityFactory;
+
 	/** The entity name. */
 	private final String entityName;
 
@@ -278,7 +258,7 @@ public class EntityClass<E> {
 	private final List<Property<? super E, ?>> additionalProperties = new ArrayList<>();
 
 	/** The states of written entities. Only interesting for pending updates and if the ID is not generated. */
-	private final Map<Object, GenerationState> entityStates;
+	private final EntityStates entityStates;
 
 	/** All attribute overriddes of this class and the parent classes. */
 	private final Map<String, AttributeOverride> attributeOverrides = new HashMap<>();
@@ -314,6 +294,8 @@ public class EntityClass<E> {
 		} catch (final NoSuchMethodException e) {
 			throw new ModelException("Could not find constructor without arguments for " + entityClass);
 		}
+		this.entityFactory = Modifier.isAbstract(entityClass.getModifiers()) ? null
+				: ClassUtil.unreflectConstructor(this.entityConstructor);
 	}
 
 	/**
@@ -603,12 +585,12 @@ public class EntityClass<E> {
 				if (generatedIdProperty.isPrimitive() && generatedIdProperty.getValue(entity).longValue() == 0) {
 					// Mark the first entity of the generation as persisted,
 					// as we can't distinguish it from new instances otherwise
-					oldState = this.entityStates.put(new EntityId(entity), GenerationState.PERSISTED);
+					oldState = this.entityStates.putByEntity(entity, GenerationState.PERSISTED);
 				} else {
-					oldState = this.entityStates.remove(new EntityId(entity));
+					oldState = this.entityStates.removeByEntity(entity);
 				}
 			} else {
-				oldState = this.entityStates.put(getStateId(entity), GenerationState.PERSISTED);
+				oldState = this.entityStates.put(getId(entity), GenerationState.PERSISTED);
 			}
 			if (oldState instanceof PendingState) {
 				((PendingState) oldState).writePendingStatements(writer, entity);
@@ -794,16 +776,13 @@ public class EntityClass<E> {
 	}
 
 	/**
-	 * Finds the id for the given entity, for look up in the {@link #entityStates}.
+	 * Finds the natural ID of the given entity, for look up in the {@link #entityStates}.
 	 *
 	 * @param entity
 	 *            the entity
 	 * @return the ID to use as key
 	 */
-	private Object getStateId(final E entity) {
-		if (this.idProperty instanceof GeneratedIdProperty) {
-			return new EntityId(entity);
-		}
+	private Object getId(final E entity) {
 		final Object id = this.idProperty.getValue(entity);
 		if (id == null) {
 			throw new IllegalArgumentException("Missing id for entity of type " + this.entityClass + ": " + entity);
@@ -811,6 +790,13 @@ public class EntityClass<E> {
 		return id;
 	}
 
+	private GenerationState getState(final E entity) {
+		if (this.idProperty instanceof GeneratedIdProperty) {
+			return this.entityStates.getByEntity(entity);
+		}
+		return this.entityStates.get(getId(entity));
+	}
+
 	private void inspectUniqueConstraint(final UniqueConstraint constraint) {
 		UniquePropertyQuality currentQuality = UniquePropertyQuality.onlyRequiredPrimitives;
 		final String[] columnNames = constraint.columnNames();
@@ -845,7 +831,8 @@ public class EntityClass<E> {
 	 *
 	 * @param entity
 	 *            the entity to check
-	 * @return {@code true} if the entity was neither written, nor exists in the database
+	 * @return {@code true} if the entity was neither written, nor exists in the database, nor has a
+	 *         {@link #reserveId(Object, StatementsWriter) reserved ID}
 	 */
 	public boolean isNew(final E entity) {
 		if (this.idProperty instanceof GeneratedIdProperty) {
@@ -858,7 +845,8 @@ public class EntityClass<E> {
 				return true;
 			}
 		}
-		return this.entityStates.get(getStateId(entity)) != GenerationState.PERSISTED;
+		final GenerationState state = getState(entity);
+		return state != GenerationState.PERSISTED && state != GenerationState.RESERVED;
 	}
 
 	/**
@@ -870,9 +858,9 @@ public class EntityClass<E> {
 	public void markExistingEntity(final E entity) {
 		if (this.idProperty instanceof GeneratedIdProperty) {
 			((GeneratedIdProperty<E, ?>) this.idProperty).markReference(entity);
-			this.entityStates.remove(new EntityId(entity));
+			this.entityStates.removeByEntity(entity);
 		} else {
-			this.entityStates.put(getStateId(entity), GenerationState.PERSISTED);
+			this.entityStates.put(getId(entity), GenerationState.PERSISTED);
 		}
 	}
 
@@ -890,14 +878,17 @@ public class EntityClass<E> {
 	 */
 	public <V> void markPendingUpdates(final E pendingEntity, final V entityToUpdate,
 			final Property<V, ?> propertyToUpdate, final Object... arguments) {
-		final Object id = getStateId(pendingEntity);
-		final GenerationState state = this.entityStates.get(id);
+		final GenerationState state = getState(pendingEntity);
 		final PendingState pendingState;
 		if (state instanceof PendingState) {
 			pendingState = (PendingState) state;
 		} else {
 			pendingState = new PendingState();
-			this.entityStates.put(id, pendingState);
+			if (this.idProperty instanceof GeneratedIdProperty) {
+				this.entityStates.putByEntity(pendingEntity, pendingState);
+			} else {
+				this.entityStates.put(getId(pendingEntity), pendingState);
+			}
 		}
 		pendingState.addPendingUpdate(entityToUpdate, propertyToUpdate, arguments);
 	}
@@ -908,6 +899,15 @@ public class EntityClass<E> {
 	 * @return the new entity
 	 */
 	public E newInstance() {
+		if (this.entityFactory != null) {
+			try {
+				return (E) (Object) this.entityFactory.invokeExact();
+			} catch (final Error e) {
+				throw e;
+			} catch (final Throwable e) {
+				throw new UnsupportedOperationException(e);
+			}
+		}
 		try {
 			return this.entityConstructor.newInstance();
 		} catch (final ReflectiveOperationException e) {
@@ -931,6 +931,41 @@ public class EntityClass<E> {
 		}
 	}
 
+	/**
+	 * Reserves the ID of a new entity, to reference it before it is written.
+	 *
+	 * Only useful if the constraints are deferred until the entity is written. Any pending updates for the entity are
+	 * written immediately, as its ID is known now.
+	 *
+	 * @param entity
+	 *            the new entity
+	 * @param writer
+	 *            the target of the pending updates
+	 * @return {@code true} if the ID was reserved, {@code false} if the ID is created by the database
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	public boolean reserveId(final E entity, final StatementsWriter writer) throws IOException {
+		if (this.joinedParentClass != null) {
+			return this.joinedParentClass.reserveId(entity, writer);
+		}
+		final GenerationState oldState;
+		if (this.idProperty instanceof GeneratedIdProperty) {
+			final GeneratedIdProperty<E, ?> generatedIdProperty = (GeneratedIdProperty<E, ?>) this.idProperty;
+			if (!generatedIdProperty.isAbsoluteIds()) {
+				return false;
+			}
+			generatedIdProperty.reserveId(entity);
+			oldState = this.entityStates.putByEntity(entity, GenerationState.RESERVED);
+		} else {
+			oldState = this.entityStates.put(getId(entity), GenerationState.RESERVED);
+		}
+		if (oldState instanceof PendingState) {
+			((PendingState) oldState).writePendingStatements(writer, entity);
+		}
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return this.entityClass.getName();
@@ -1,8 +1,12 @@
 package org.fastnate.generator.context;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import jakarta.persistence.AssociationOverride;
 import jakarta.persistence.CascadeType;
@@ -14,6 +18,7 @@ import jakarta.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.StringUtils;
 import org.fastnate.generator.converter.EntityConverter;
+import org.fastnate.generator.statements.AbstractStatementsWriter;
 import org.fastnate.generator.statements.ColumnExpression;
 import org.fastnate.generator.statements.PrimitiveColumnExpression;
 import org.fastnate.generator.statements.StatementsWriter;
@@ -95,6 +100,63 @@ public class EntityProperty<E, T> extends SingularProperty<E, T> {
 				+ (targetClass == null ? "id" : targetClass.getIdColumn(attribute).getUnquotedName()));
 	}
 
+	/**
+	 * Generates the update statements for the pending references of some rows to an entity that was written now.
+	 *
+	 * Each row is updated only once for all properties with the same ID column, and all rows are updated with one
+	 * statement - as far as the {@link org.fastnate.generator.dialect.GeneratorDialect#getMaxInListSize() dialect} and
+	 * the writer allow it.
+	 *
+	 * @param writer
+	 *            the target of the generated statements
+	 * @param entities
+	 *            the entities to update, all of the same class
+	 * @param properties
+	 *            the properties of the entities that reference the written entity
+	 * @param writtenEntity
+	 *            the entity that exists now in the database
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	static <E> void writePendingReferences(final StatementsWriter writer, final List<E> entities,
+			final List<EntityProperty<E, ?>> properties, final Object writtenEntity) throws IOException {
+		final GeneratorContext context = properties.get(0).context;
+		final ColumnExpression expression = context.getDescription(writtenEntity).getEntityReference(writtenEntity,
+				null, false);
+		ModelException.mustExist(expression, "Entity can't be referenced: {}", writtenEntity);
+
+		final EntityClass<E> entityClass = context.getDescription(entities.get(0));
+		final Map<GeneratorColumn, List<EntityProperty<E, ?>>> propertiesByIdColumn = new LinkedHashMap<>();
+		for (final EntityProperty<E, ?> property : properties) {
+			propertiesByIdColumn.computeIfAbsent(entityClass.getIdColumn(property.getAttribute()),
+					column -> new ArrayList<>()).add(property);
+		}
+		final int maxRows = writer instanceof AbstractStatementsWriter ? context.getDialect().getMaxInListSize() : 1;
+		for (final Map.Entry<GeneratorColumn, List<EntityProperty<E, ?>>> idColumnProperties : propertiesByIdColumn
+				.entrySet()) {
+			final GeneratorColumn idColumn = idColumnProperties.getKey();
+			for (int start = 0; start < entities.size(); start += maxRows) {
+				final List<E> rows = entities.subList(start, Math.min(entities.size(), start + maxRows));
+				final TableStatement stmt;
+				if (rows.size() == 1) {
+					stmt = writer.createUpdateStatement(context.getDialect(), entityClass.getTable(), idColumn,
+							entityClass.getEntityReference(rows.get(0), null, true));
+				} else {
+					final List<ColumnExpression> ids = new ArrayList<>(rows.size());
+					for (final E row : rows) {
+						ids.add(entityClass.getEntityReference(row, null, true));
+					}
+					stmt = ((AbstractStatementsWriter) writer).createUpdateStatement(context.getDialect(),
+							entityClass.getTable(), idColumn, ids);
+				}
+				for (final EntityProperty<E, ?> property : idColumnProperties.getValue()) {
+					((EntityProperty<E, Object>) property).writeColumnExpression(stmt, writtenEntity, expression);
+				}
+				writer.writeStatement(stmt);
+			}
+		}
+	}
+
 	/** The current context. */
 	private final GeneratorContext context;
 
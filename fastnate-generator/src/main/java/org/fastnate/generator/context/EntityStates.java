@@ -0,0 +1,168 @@
+package org.fastnate.generator.context;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Stores the {@link GenerationState states} of the entities of one entity class.
+ *
+ * Entities with a generated ID are identified by their identity, as their hash code may change when the ID is set. They
+ * are stored without any wrapper around the entity, and their state is usually removed as soon as they are written.
+ *
+ * Entities with a natural ID are identified by that ID. Integral IDs are stored as primitive {@code long} keys, all other
+ * IDs in a hash map.
+ *
+ * All methods are synchronized, as the states are changed concurrently if independent entities are written in parallel.
+ *
+ * @author Tobias Liefke
+ */
+final class EntityStates {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static int hash(final long id) {
+		final long hash = id * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ hash >>> Integer.SIZE);
+	}
+
+	private static boolean isIntegral(final Object id) {
+		return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+	}
+
+	/** The states of the entities with generated IDs. */
+	private Map<Object, GenerationState> entityStates;
+
+	/** The keys of the states of entities with an integral ID, in an open addressing hash table. */
+	private long[] idKeys;
+
+	/** The states of entities with an integral ID, {@code null} for an empty slot in {@link #idKeys}. */
+	private GenerationState[] idStates;
+
+	/** The count of states in {@link #idStates}. */
+	private int idCount;
+
+	/** The states of entities with any other ID. */
+	private Map<Object, GenerationState> otherIdStates;
+
+	/**
+	 * Finds the state of an entity with a natural ID.
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @return the state of the entity or {@code null} if none is stored
+	 */
+	synchronized GenerationState get(final Object id) {
+		if (isIntegral(id)) {
+			if (this.idStates == null) {
+				return null;
+			}
+			final long key = ((Number) id).longValue();
+			final int mask = this.idStates.length - 1;
+			for (int i = hash(key) & mask; this.idStates[i] != null; i = i + 1 & mask) {
+				if (this.idKeys[i] == key) {
+					return this.idStates[i];
+				}
+			}
+			return null;
+		}
+		return this.otherIdStates == null ? null : this.otherIdStates.get(id);
+	}
+
+	/**
+	 * Finds the state of an entity with a generated ID.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the state of the entity or {@code null} if none is stored
+	 */
+	synchronized GenerationState getByEntity(final Object entity) {
+		return this.entityStates == null ? null : this.entityStates.get(entity);
+	}
+
+	/**
+	 * Sets the state of an entity with a natural ID.
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @param state
+	 *            the new state of the entity
+	 * @return the previous state of the entity or {@code null} if none was stored
+	 */
+	synchronized GenerationState put(final Object id, final GenerationState state) {
+		if (!isIntegral(id)) {
+			if (this.otherIdStates == null) {
+				this.otherIdStates = new HashMap<>();
+			}
+			return this.otherIdStates.put(id, state);
+		}
+
+		if (this.idStates == null) {
+			this.idKeys = new long[INITIAL_CAPACITY];
+			this.idStates = new GenerationState[INITIAL_CAPACITY];
+		} else if (this.idCount >= this.idStates.length * 3 / 4) {
+			resizeIdStates();
+		}
+		final long key = ((Number) id).longValue();
+		final int mask = this.idStates.length - 1;
+		int i = hash(key) & mask;
+		while (this.idStates[i] != null) {
+			if (this.idKeys[i] == key) {
+				final GenerationState oldState = this.idStates[i];
+				this.idStates[i] = state;
+				return oldState;
+			}
+			i = i + 1 & mask;
+		}
+		this.idKeys[i] = key;
+		this.idStates[i] = state;
+		this.idCount++;
+		return null;
+	}
+
+	/**
+	 * Sets the state of an entity with a generated ID.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param state
+	 *            the new state of the entity
+	 * @return the previous state of the entity or {@code null} if none was stored
+	 */
+	synchronized GenerationState putByEntity(final Object entity, final GenerationState state) {
+		if (this.entityStates == null) {
+			this.entityStates = new IdentityHashMap<>();
+		}
+		return this.entityStates.put(entity, state);
+	}
+
+	/**
+	 * Removes the state of an entity with a generated ID.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the previous state of the entity or {@code null} if none was stored
+	 */
+	synchronized GenerationState removeByEntity(final Object entity) {
+		return this.entityStates == null ? null : this.entityStates.remove(entity);
+	}
+
+	private void resizeIdStates() {
+		final long[] oldKeys = this.idKeys;
+		final GenerationState[] oldStates = this.idStates;
+		this.idKeys = new long[oldKeys.length * 2];
+		this.idStates = new GenerationState[oldStates.length * 2];
+		final int mask = this.idStates.length - 1;
+		for (int j = 0; j < oldStates.length; j++) {
+			if (oldStates[j] != null) {
+				int i = hash(oldKeys[j]) & mask;
+				while (this.idStates[i] != null) {
+					i = i + 1 & mask;
+				}
+				this.idKeys[i] = oldKeys[j];
+				this.idStates[i] = oldStates[j];
+			}
+		}
+	}
+
+}
@@ -83,6 +83,18 @@ public class GeneratedIdProperty<E, T extends Number> extends PrimitiveProperty<
 		}
 	}
 
+	/**
+	 * Adds the ID of an entity to an insert statement, that was {@link #reserveId(Object) reserved} before.
+	 *
+	 * @param statement
+	 *            the insert statement of the entity
+	 * @param entity
+	 *            the entity with the reserved ID
+	 */
+	public void addReservedInsertExpression(final TableStatement statement, final E entity) {
+		statement.setColumnValue(getColumn(), PrimitiveColumnExpression.create(getValue(entity), getDialect()));
+	}
+
 	@Override
 	public void createPreInsertStatements(final StatementsWriter writer, final E entity) throws IOException {
 		if (!this.absoluteIds) {
@@ -183,6 +195,19 @@ public class GeneratedIdProperty<E, T extends Number> extends PrimitiveProperty<
 		}
 	}
 
+	/**
+	 * Assigns the next ID to a new entity, before it is written.
+	 *
+	 * Only possible for {@link #isAbsoluteIds() absolute IDs}.
+	 *
+	 * @param entity
+	 *            the new entity
+	 */
+	public void reserveId(final E entity) {
+		ensureIsNew(entity);
+		setValue(entity, this.generator.createNextValue(this.type));
+	}
+
 	/**
 	 * Called after the insert statement was written, to update any nessecary state in the context.
 	 *
@@ -2,7 +2,10 @@ package org.fastnate.generator.context;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.fastnate.generator.statements.StatementsWriter;
 
@@ -53,6 +56,9 @@ public class GenerationState {
 		/**
 		 * Generates the update statements for all entities that are required after the given entity was generated.
 		 *
+		 * The pending references of one row to the written entity are coalesced into one update statement. And rows of
+		 * the same class with the same pending references are updated together.
+		 *
 		 * @param writer
 		 *            the target of the generated statements
 		 * @param entity
@@ -61,10 +67,38 @@ public class GenerationState {
 		 *             if the writer throws one
 		 */
 		public <E> void writePendingStatements(final StatementsWriter writer, final Object entity) throws IOException {
+			// Collect the references of every row to the written entity
+			final Map<Object, List<EntityProperty<Object, ?>>> rowReferences = new IdentityHashMap<>();
+			final List<Object> rows = new ArrayList<>();
 			for (final Update<?> update : this.updates) {
 				final Update<E> singleUpdate = (Update<E>) update;
-				singleUpdate.getProperty().generatePendingStatements(writer, singleUpdate.getEntity(), entity,
-						singleUpdate.getArguments());
+				final Property<E, ?> property = singleUpdate.getProperty();
+				if (property instanceof EntityProperty && ((EntityProperty<E, ?>) property).getIdField() == null) {
+					final List<EntityProperty<Object, ?>> references = rowReferences
+							.computeIfAbsent(singleUpdate.getEntity(), row -> {
+								rows.add(row);
+								return new ArrayList<>();
+							});
+					if (!references.contains(property)) {
+						references.add((EntityProperty<Object, ?>) property);
+					}
+				} else {
+					property.generatePendingStatements(writer, singleUpdate.getEntity(), entity,
+							singleUpdate.getArguments());
+				}
+			}
+
+			// Update the rows of the same class with the same references together
+			final Map<List<Object>, List<Object>> rowsByReferences = new LinkedHashMap<>();
+			for (final Object row : rows) {
+				final List<EntityProperty<Object, ?>> references = rowReferences.get(row);
+				final List<Object> key = new ArrayList<>(references.size() + 1);
+				key.add(row.getClass());
+				key.addAll(references);
+				rowsByReferences.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+			}
+			for (final List<Object> sameRows : rowsByReferences.values()) {
+				EntityProperty.writePendingReferences(writer, sameRows, rowReferences.get(sameRows.get(0)), entity);
 			}
 		}
 
@@ -73,8 +107,15 @@ public class GenerationState {
 	/** Marker for an entity, that was written already. */
 	public static final GenerationState PERSISTED = new GenerationState();
 
+	/**
+	 * Marker for an entity, that was not written up to now, but has a reserved ID already.
+	 *
+	 * Such an entity may be referenced, as long as the constraints are deferred until it is written.
+	 */
+	public static final GenerationState RESERVED = new GenerationState();
+
 	private GenerationState() {
-		// Empty constructor to prevent states other than the three defined
+		// Empty constructor to prevent states other than the four defined
 	}
 
 }
@@ -6,13 +6,14 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.net.URL;
 import java.util.AbstractMap.SimpleEntry;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -54,6 +55,10 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Represents the configuration and state for one or more {@link EntitySqlGenerator}s.
  *
+ * The context may be used by more than one thread. Lookups of the model are lock free, but any new model element
+ * (entity class, table, column or generator) is registered while holding the lock of the context. That ensures that
+ * every {@link ContextModelListener} is notified exactly once for every element.
+ *
  * @author Tobias Liefke
  */
 @Getter
@@ -61,6 +66,17 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GeneratorContext {
 
+	/**
+	 * The description of a class, as soon as it is built completely.
+	 */
+	@RequiredArgsConstructor
+	private static final class PublishedDescription {
+
+		/** The description of the class, or of its entity super class, {@code null} if the class is no entity. */
+		private final EntityClass<?> description;
+
+	}
+
 	@RequiredArgsConstructor
 	private static final class GeneratorId {
 
@@ -138,6 +154,9 @@ public class GeneratorContext {
 	/** The settings key for {@link #writeRelativeIds}. */
 	public static final String RELATIVE_IDS_KEY = "fastnate.generator.relative.ids";
 
+	/** The settings key for {@link #deferConstraints}. */
+	public static final String DEFER_CONSTRAINTS_KEY = "fastnate.generator.defer.constraints";
+
 	/** The settings key for {@link #quoteAllIdentifiers}. */
 	public static final String QUOTE_ALL_IDENTIFIERS_KEY = "fastnate.generator.quote.all.identifiers";
 
@@ -242,6 +261,18 @@ public class GeneratorContext {
 	 */
 	private boolean writeRelativeIds;
 
+	/**
+	 * Indicates to defer the check of all constraints to the end of the transaction, if the
+	 * {@link GeneratorDialect#isDeferrableConstraintsSupported() dialect supports} it.
+	 *
+	 * In that case the IDs of all new entities are reserved before the first entity is written. Every entity is written
+	 * exactly once with the literal IDs of its references, without any pending update. This requires that the foreign
+	 * key constraints were created as {@code DEFERRABLE} and that the generated statements are executed in one
+	 * transaction. Entities with IDs that are created by the database are written as usual, before the entities that
+	 * reference them. This setting is ignored if {@link #writeRelativeIds relative IDs} are written.
+	 */
+	private boolean deferConstraints;
+
 	/** Indicates to include null values in statements. */
 	private boolean writeNullValues;
 
@@ -255,30 +286,54 @@ public class GeneratorContext {
 	/** Contains the settings that were given during creation, resp. as read from the persistence configuration. */
 	private final Properties settings;
 
-	/** Contains the extracted metadata to every known class of an {@link Entity}. */
-	private final Map<Class<?>, EntityClass<?>> descriptions = new HashMap<>();
+	/**
+	 * Contains the extracted metadata to every known class of an {@link Entity}.
+	 *
+	 * Contains the descriptions as soon as they are created, even if they are not built completely.
+	 */
+	private final Map<Class<?>, EntityClass<?>> descriptions = new ConcurrentHashMap<>();
 
 	/** The mapping from the {@link Entity#name() name of an entity} to the {@link #descriptions extracted metadata}. */
-	private final Map<String, EntityClass<?>> descriptionsByName = new HashMap<>();
+	private final Map<String, EntityClass<?>> descriptionsByName = new ConcurrentHashMap<>();
+
+	/**
+	 * The completely built descriptions for the lock free lookup of {@link #getDescription(Class)}.
+	 *
+	 * Owned by this context, so the descriptions and their states are released together with the context.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final Map<Class<?>, PublishedDescription> publishedDescriptions = new ConcurrentHashMap<>();
+
+	/**
+	 * The descriptions that were resolved in the current call of {@link #getDescription(Class)} and are published as
+	 * soon as the outermost call has finished.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final Map<Class<?>, EntityClass<?>> unpublishedDescriptions = new LinkedHashMap<>();
+
+	/** The count of nested calls of {@link #resolveDescription(Class)}. */
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private int resolveDepth;
 
 	/** Mapping from the names of all known database table to their description (including column information). */
-	private final Map<String, GeneratorTable> tables = new HashMap<>();
+	private final Map<String, GeneratorTable> tables = new ConcurrentHashMap<>();
 
 	/** Contains the state of single entities, maps from an entity name to the mapping of an id to its state. */
-	private final Map<String, Map<Object, GenerationState>> states = new HashMap<>();
+	private final Map<String, EntityStates> states = new ConcurrentHashMap<>();
 
 	/** Mapping from the name of a generator to the generator itself. */
 	@Getter(AccessLevel.NONE)
-	private final Map<GeneratorId, IdGenerator> generators = new HashMap<>();
+	private final Map<GeneratorId, IdGenerator> generators = new ConcurrentHashMap<>();
 
 	/** The default sequence generator, if none is explicitly specified in a {@link GeneratedValue}. */
-	private Map<String, SequenceIdGenerator> defaultSequenceGenerators = new HashMap<>();
+	private Map<String, SequenceIdGenerator> defaultSequenceGenerators = new ConcurrentHashMap<>();
 
 	/** The default table generator, if none is explicitly specified in a {@link GeneratedValue}. */
-	private Map<String, TableIdGenerator> defaultTableGenerators = new HashMap<>();
+	private Map<String, TableIdGenerator> defaultTableGenerators = new ConcurrentHashMap<>();
 
 	/** All listeners of this context. */
-	private List<ContextModelListener> contextModelListeners = new ArrayList<>();
+	private List<ContextModelListener> contextModelListeners = new CopyOnWriteArrayList<>();
 
 	/**
 	 * Creates a default generator context.
@@ -334,6 +389,8 @@ public class GeneratorContext {
 
 		this.writeRelativeIds = Boolean
 				.parseBoolean(settings.getProperty(RELATIVE_IDS_KEY, String.valueOf(this.writeRelativeIds)));
+		this.deferConstraints = Boolean
+				.parseBoolean(settings.getProperty(DEFER_CONSTRAINTS_KEY, String.valueOf(this.deferConstraints)));
 		this.writeNullValues = Boolean
 				.parseBoolean(settings.getProperty(NULL_VALUES_KEY, String.valueOf(this.writeNullValues)));
 		this.quoteAllIdentifiers = Boolean.parseBoolean(
@@ -497,33 +554,11 @@ public class GeneratorContext {
 	 * @return the description for the class or {@code null} if the class is not an {@link Entity}
 	 */
 	public <E> EntityClass<E> getDescription(final Class<E> entityClass) {
-		// Lookup description
-		EntityClass<E> description = (EntityClass<E>) this.descriptions.get(entityClass);
-		if (description == null) {
-			if (!entityClass.isAnnotationPresent(Entity.class)) {
-				// Step up to find the parent description
-				final Class<?> superClass = entityClass.getSuperclass();
-				if (superClass == null) {
-					return null;
-				}
-
-				return (EntityClass<E>) getDescription(superClass);
-			}
-
-			// Create the description
-			description = new EntityClass<>(this, entityClass);
-
-			// First remember the description (to prevent endless loops)
-			this.descriptions.put(entityClass, description);
-			this.descriptionsByName.put(description.getEntityName(), description);
-
-			// And now build the properties
-			description.build();
-
-			// And notify listeners
-			fireContextObjectAdded(ContextModelListener::foundEntityClass, description);
+		final PublishedDescription publishedDescription = this.publishedDescriptions.get(entityClass);
+		if (publishedDescription != null) {
+			return (EntityClass<E>) publishedDescription.description;
 		}
-		return description;
+		return resolveDescription(entityClass);
 	}
 
 	/**
@@ -558,7 +593,7 @@ public class GeneratorContext {
 	 * @return the generator that is responsible for managing the values
 	 */
 	@SuppressWarnings("null")
-	public IdGenerator getGenerator(final GeneratedValue generatedValue, final GeneratorTable table,
+	public synchronized IdGenerator getGenerator(final GeneratedValue generatedValue, final GeneratorTable table,
 			final GeneratorColumn column) {
 		GenerationType strategy = generatedValue.strategy();
 		final String name = generatedValue.generator();
@@ -601,15 +636,10 @@ public class GeneratorContext {
 	 *
 	 * @param entityClass
 	 *            the current entity class
-	 * @return the states of the entities of that class (with their IDs as keys)
+	 * @return the states of the entities of that class
 	 */
-	Map<Object, GenerationState> getStates(final EntityClass<?> entityClass) {
-		Map<Object, GenerationState> entityStates = this.states.get(entityClass.getEntityName());
-		if (entityStates == null) {
-			entityStates = new HashMap<>();
-			this.states.put(entityClass.getEntityName(), entityStates);
-		}
-		return entityStates;
+	EntityStates getStates(final EntityClass<?> entityClass) {
+		return this.states.computeIfAbsent(entityClass.getEntityName(), name -> new EntityStates());
 	}
 
 	/**
@@ -622,7 +652,7 @@ public class GeneratorContext {
 	 * @param table
 	 *            the table of the current entity
 	 */
-	public void registerGenerators(final AnnotatedElement element, final GeneratorTable table) {
+	public synchronized void registerGenerators(final AnnotatedElement element, final GeneratorTable table) {
 		final SequenceGenerator sequenceGenerator = element.getAnnotation(SequenceGenerator.class);
 		if (sequenceGenerator != null) {
 			GeneratorId key = new GeneratorId(sequenceGenerator.name(), null);
@@ -657,6 +687,61 @@ public class GeneratorContext {
 		this.contextModelListeners.remove(listener);
 	}
 
+	/**
+	 * Finds resp. builds the description for a class, which was not published up to now.
+	 *
+	 * The descriptions are published, as soon as the outermost call has finished - to ensure that all referenced
+	 * descriptions are built completely as well.
+	 *
+	 * @param entityClass
+	 *            the class to lookup
+	 * @return the description for the class or {@code null} if the class is not an {@link Entity}
+	 */
+	private synchronized <E> EntityClass<E> resolveDescription(final Class<E> entityClass) {
+		this.resolveDepth++;
+		boolean resolved = false;
+		try {
+			// Lookup description
+			EntityClass<E> description = (EntityClass<E>) this.descriptions.get(entityClass);
+			if (description == null) {
+				if (!entityClass.isAnnotationPresent(Entity.class)) {
+					// Step up to find the parent description
+					final Class<?> superClass = entityClass.getSuperclass();
+					if (superClass != null) {
+						description = (EntityClass<E>) getDescription(superClass);
+					}
+				} else {
+					// Create the description
+					description = new EntityClass<>(this, entityClass);
+
+					// First remember the description (to prevent endless loops)
+					this.descriptions.put(entityClass, description);
+					this.descriptionsByName.put(description.getEntityName(), description);
+
+					// And now build the properties
+					description.build();
+
+					// And notify listeners
+					fireContextObjectAdded(ContextModelListener::foundEntityClass, description);
+				}
+			}
+			this.unpublishedDescriptions.putIfAbsent(entityClass, description);
+			resolved = true;
+			return description;
+		} finally {
+			if (--this.resolveDepth == 0) {
+				if (resolved) {
+					for (final Map.Entry<Class<?>, EntityClass<?>> unpublished : this.unpublishedDescriptions
+							.entrySet()) {
+						this.publishedDescriptions.put(unpublished.getKey(),
+								new PublishedDescription(unpublished.getValue()));
+					}
+				}
+				this.unpublishedDescriptions.clear();
+			}
+		}
+	}
+
 	/**
 	 * Finds resp. builds the metadata to the given table from the given (optional) annotation.
 	 *
@@ -721,8 +806,14 @@ public class GeneratorContext {
 		if (table != null) {
 			return table;
 		}
-		return addContextObject(this.tables, ContextModelListener::foundTable, qualified,
-				new GeneratorTable(this.tables.size(), catalog, schema, tableName, qualified, this));
+		synchronized (this) {
+			final GeneratorTable addedTable = this.tables.get(qualified);
+			if (addedTable != null) {
+				return addedTable;
+			}
+			return addContextObject(this.tables, ContextModelListener::foundTable, qualified,
+					new GeneratorTable(this.tables.size(), catalog, schema, tableName, qualified, this));
+		}
 	}
 
 	/**
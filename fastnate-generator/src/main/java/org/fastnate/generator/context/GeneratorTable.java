@@ -1,5 +1,6 @@
 package org.fastnate.generator.context;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -33,8 +34,12 @@ public class GeneratorTable extends NamedObject {
 	/** The current generator context. */
 	private final GeneratorContext context;
 
-	/** The known columns for this table. */
-	private final Map<String, GeneratorColumn> columns = new LinkedHashMap<>();
+	/**
+	 * The known columns for this table.
+	 *
+	 * The map is never changed, but replaced for every new column - to allow lock free lookups.
+	 */
+	private volatile Map<String, GeneratorColumn> columns = Collections.emptyMap();
 
 	/**
 	 * Removes any quotes from the catalog name.
@@ -76,14 +81,22 @@ public class GeneratorTable extends NamedObject {
 	 * @return the found resp. created column
 	 */
 	public GeneratorColumn resolveColumn(final String columnName, final boolean autoGenerated) {
-		GeneratorColumn column = this.columns.get(columnName);
-		if (column == null) {
-			column = new GeneratorColumn(this, this.columns.size(), columnName,
-					this.context.adjustIdentifier(columnName), autoGenerated);
-			this.columns.put(columnName, column);
-			this.context.fireContextObjectAdded(ContextModelListener::foundColumn, column);
+		final GeneratorColumn column = this.columns.get(columnName);
+		if (column != null) {
+			return column;
+		}
+		synchronized (this.context) {
+			GeneratorColumn addedColumn = this.columns.get(columnName);
+			if (addedColumn == null) {
+				addedColumn = new GeneratorColumn(this, this.columns.size(), columnName,
+						this.context.adjustIdentifier(columnName), autoGenerated);
+				final Map<String, GeneratorColumn> newColumns = new LinkedHashMap<>(this.columns);
+				newColumns.put(columnName, addedColumn);
+				this.columns = Collections.unmodifiableMap(newColumns);
+				this.context.fireContextObjectAdded(ContextModelListener::foundColumn, addedColumn);
+			}
+			return addedColumn;
 		}
-		return column;
 	}
 
 }
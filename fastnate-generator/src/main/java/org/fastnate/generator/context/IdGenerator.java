@@ -6,6 +6,8 @@ import org.fastnate.generator.statements.ColumnExpression;
 import org.fastnate.generator.statements.StatementsWriter;
 import org.fastnate.generator.statements.TableStatement;
 
+import lombok.Getter;
+
 /**
  * Saves the current value and increments the value for a {@link GeneratedIdProperty}.
  *
@@ -13,6 +15,59 @@ import org.fastnate.generator.statements.TableStatement;
  */
 public abstract class IdGenerator {
 
+	/**
+	 * A range of values that was reserved from a generator, to create the IDs for the entities of another thread.
+	 *
+	 * @see IdGenerator#leaseValues(long)
+	 */
+	@Getter
+	public static final class LeasedValues {
+
+		/** The generator that reserved the values. */
+		private final IdGenerator generator;
+
+		/** The next value of the range. */
+		private long nextValue;
+
+		/** The first value after the range. */
+		private final long endValue;
+
+		/**
+		 * Creates a new range of values.
+		 *
+		 * @param generator
+		 *            the generator that reserved the values
+		 * @param firstValue
+		 *            the first value of the range
+		 * @param endValue
+		 *            the first value after the range
+		 */
+		public LeasedValues(final IdGenerator generator, final long firstValue, final long endValue) {
+			this.generator = generator;
+			this.nextValue = firstValue;
+			this.endValue = endValue;
+		}
+
+		/**
+		 * Resolves the next value of this range.
+		 *
+		 * @return the next value
+		 * @throws IllegalStateException
+		 *             if the range is exhausted, as the count of values was computed before - and any value of the
+		 *             generator itself would depend on the timing of the threads
+		 */
+		long createNextValue() {
+			if (this.nextValue >= this.endValue) {
+				throw new IllegalStateException("All leased values of " + this.generator + " are used");
+			}
+			return this.nextValue++;
+		}
+
+	}
+
+	/** The values leased to the current thread, if any. */
+	private final ThreadLocal<LeasedValues> leasedValues = new ThreadLocal<>();
+
 	/**
 	 * Adds the generated value to the given statement.
 	 *
@@ -54,7 +109,8 @@ public abstract class IdGenerator {
 	 * @return the generated value
 	 */
 	public <N extends Number> N createNextValue(final Class<N> propertyClass) {
-		final long nextValue = createNextValue();
+		final LeasedValues leased = this.leasedValues.get();
+		final long nextValue = leased == null ? createNextValue() : leased.createNextValue();
 		if (propertyClass == Long.class || propertyClass == long.class) {
 			return (N) Long.valueOf(nextValue);
 		}
@@ -128,6 +184,24 @@ public abstract class IdGenerator {
 	 */
 	public abstract boolean isPostIncrement();
 
+	/**
+	 * Reserves a range of values, for example to generate the IDs of independent entities in another thread.
+	 *
+	 * The values are not returned by {@link #createNextValue(Class)}, until the range is
+	 * {@link #useLeasedValues(LeasedValues) used} by a thread.
+	 *
+	 * @param count
+	 *            the count of values to reserve, at least 1
+	 * @return the reserved values
+	 */
+	public LeasedValues leaseValues(final long count) {
+		final long firstValue = createNextValue();
+		for (long i = 1; i < count; i++) {
+			createNextValue();
+		}
+		return new LeasedValues(this, firstValue, firstValue + count);
+	}
+
 	/**
 	 * Sets a new start value.
 	 *
@@ -136,4 +210,22 @@ public abstract class IdGenerator {
 	 */
 	public abstract void setCurrentValue(long currentValue);
 
+	/**
+	 * Uses the given values for all IDs {@link #createNextValue(Class) created} by the current thread.
+	 *
+	 * The leased values must contain all values that are created by the current thread, until the leased values are
+	 * removed again.
+	 *
+	 * @param values
+	 *            the values {@link #leaseValues(long) leased} from this generator, {@code null} to create the values by
+	 *            this generator again
+	 */
+	public void useLeasedValues(final LeasedValues values) {
+		if (values == null) {
+			this.leasedValues.remove();
+		} else {
+			this.leasedValues.set(values);
+		}
+	}
+
 }
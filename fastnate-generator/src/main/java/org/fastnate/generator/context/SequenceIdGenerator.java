@@ -143,6 +143,13 @@ public class SequenceIdGenerator extends IdGenerator {
 		return false;
 	}
 
+	@Override
+	public LeasedValues leaseValues(final long count) {
+		final long firstValue = this.nextValue;
+		this.nextValue += count;
+		return new LeasedValues(this, firstValue, this.nextValue);
+	}
+
 	@Override
 	public void setCurrentValue(final long currentValue) {
 		this.nextValue = this.initialValue = currentValue + 1;
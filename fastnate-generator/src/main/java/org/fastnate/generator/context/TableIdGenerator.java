@@ -186,6 +186,13 @@ public class TableIdGenerator extends IdGenerator {
 		return false;
 	}
 
+	@Override
+	public LeasedValues leaseValues(final long count) {
+		final long firstValue = this.nextValue;
+		this.nextValue += count;
+		return new LeasedValues(this, firstValue, this.nextValue);
+	}
+
 	@Override
 	public void setCurrentValue(final long currentValue) {
 		if (currentValue == 0) {
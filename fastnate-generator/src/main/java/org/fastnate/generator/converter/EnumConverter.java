@@ -23,6 +23,9 @@ public class EnumConverter<E extends Enum<E>> implements ValueConverter<E> {
 
 	private final EnumType exportType;
 
+	/** The type of the database value of an ordinal, either {@link Integer} or {@link Short}. */
+	private final Class<? extends Number> ordinalType;
+
 	/**
 	 * Creates a new instance of this {@link EnumConverter}.
 	 *
@@ -34,7 +37,25 @@ public class EnumConverter<E extends Enum<E>> implements ValueConverter<E> {
 	 *            indicates that the converter is for the key of a map
 	 */
 	public EnumConverter(final AttributeAccessor attribute, final Class<E> targetType, final boolean mapKey) {
+		this(attribute, targetType, mapKey, Integer.class);
+	}
+
+	/**
+	 * Creates a new instance of this {@link EnumConverter}.
+	 *
+	 * @param attribute
+	 *            the inspected attribute
+	 * @param targetType
+	 *            the type of the enum
+	 * @param mapKey
+	 *            indicates that the converter is for the key of a map
+	 * @param ordinalType
+	 *            the type of the database value of an ordinal, either {@link Integer} or {@link Short}
+	 */
+	public EnumConverter(final AttributeAccessor attribute, final Class<E> targetType, final boolean mapKey,
+			final Class<? extends Number> ordinalType) {
 		this.targetType = targetType;
+		this.ordinalType = ordinalType;
 		EnumType enumType = EnumType.ORDINAL;
 		if (mapKey) {
 			final MapKeyEnumerated enumerated = attribute.getAnnotation(MapKeyEnumerated.class);
@@ -57,6 +78,9 @@ public class EnumConverter<E extends Enum<E>> implements ValueConverter<E> {
 				return PrimitiveColumnExpression.create(value.name(), context.getDialect());
 			case ORDINAL:
 			default:
+				if (this.ordinalType == Short.class) {
+					return PrimitiveColumnExpression.create((short) value.ordinal(), context.getDialect());
+				}
 				return PrimitiveColumnExpression.create(value.ordinal(), context.getDialect());
 		}
 	}
@@ -36,6 +36,8 @@ public abstract class GeneratorDialect {
 	@Deprecated
 	public static final Date NOW = RelativeDate.NOW;
 
+	private static final int MAX_IN_LIST_SIZE = 1000;
+
 	private static void finishPart(final StringBuilder result, final String value, final int start, final int end,
 			final boolean isOpen, final boolean close, final String concatOperator) {
 		if (start < end) {
@@ -261,6 +263,20 @@ public abstract class GeneratorDialect {
 		return "DATEADD(" + unit + ", " + value + ", " + referenceDate + ')';
 	}
 
+	/**
+	 * Writes the statement that defers the check of all deferrable constraints to the end of the current transaction.
+	 *
+	 * Only called if {@link #isDeferrableConstraintsSupported()} is {@code true}.
+	 *
+	 * @param writer
+	 *            the target of the statement
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	public void deferConstraints(final StatementsWriter writer) throws IOException {
+		writer.writePlainStatement(this, "SET CONSTRAINTS ALL DEFERRED");
+	}
+
 	/**
 	 * Converts the given byte array to an SQL expression for the current database.
 	 *
@@ -320,6 +336,29 @@ public abstract class GeneratorDialect {
 		return "DEFAULT VALUES";
 	}
 
+	/**
+	 * The maximum count of expressions in an "IN" list.
+	 *
+	 * Used to update the pending references of many rows with one statement. The default is the limit of Oracle, which
+	 * keeps the statements at a moderate size for all other databases as well.
+	 *
+	 * @return the maximum count of expressions in "WHERE a IN (1, 2, 3)"
+	 */
+	public int getMaxInListSize() {
+		return MAX_IN_LIST_SIZE;
+	}
+
+	/**
+	 * The maximum count of rows in the "VALUES" list of one insert statement.
+	 *
+	 * Only used if {@link #isMultiRowInsertSupported() multi-row inserts} are supported. The default has no limit.
+	 *
+	 * @return the maximum count of rows in "INSERT INTO t (a, b) VALUES (1, 2), (3, 4)"
+	 */
+	public int getMaxRowsPerInsert() {
+		return Integer.MAX_VALUE;
+	}
+
 	/**
 	 * Returns the string to use when no table is required, e.g. for "SELECT 1, 2 FROM DUAL" this would return "FROM
 	 * DUAL".
@@ -330,6 +369,17 @@ public abstract class GeneratorDialect {
 		return "";
 	}
 
+	/**
+	 * Indicates that the check of constraints may be deferred to the end of the transaction.
+	 *
+	 * Only constraints that were created as {@code DEFERRABLE} are affected.
+	 *
+	 * @return {@code true} if this database supports {@link #deferConstraints(StatementsWriter)}
+	 */
+	public boolean isDeferrableConstraintsSupported() {
+		return false;
+	}
+
 	/**
 	 * Indicates that the empty string is equal to {@code null} in this database.
 	 *
@@ -373,6 +423,15 @@ public abstract class GeneratorDialect {
 		return true;
 	}
 
+	/**
+	 * Indicates that an insert statement may contain more than one row.
+	 *
+	 * @return {@code true} if "INSERT INTO MY_TABLE (a, b) VALUES (1, 2), (3, 4)" is supported
+	 */
+	public boolean isMultiRowInsertSupported() {
+		return true;
+	}
+
 	/**
 	 * Indicates that a sequence may be updated in the insert statement.
 	 *
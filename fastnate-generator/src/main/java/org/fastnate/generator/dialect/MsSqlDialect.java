@@ -14,6 +14,9 @@ import org.fastnate.util.RelativeDate;
  */
 public class MsSqlDialect extends GeneratorDialect {
 
+	/** The maximum count of rows in the "VALUES" list of an insert statement, as accepted by SQL Server. */
+	private static final int MAX_ROWS_PER_INSERT = 1000;
+
 	@Override
 	protected void addQuotedCharacter(final StringBuilder result, final char c) {
 		result.append("CHAR(").append((byte) c).append(')');
@@ -58,6 +61,11 @@ public class MsSqlDialect extends GeneratorDialect {
 		return " + ";
 	}
 
+	@Override
+	public int getMaxRowsPerInsert() {
+		return MAX_ROWS_PER_INSERT;
+	}
+
 	@Override
 	public boolean isEmulatingSequences() {
 		return true;
@@ -86,6 +86,11 @@ public class OracleDialect extends GeneratorDialect {
 		return "FROM DUAL";
 	}
 
+	@Override
+	public boolean isDeferrableConstraintsSupported() {
+		return true;
+	}
+
 	@Override
 	public boolean isEmptyStringEqualToNull() {
 		return true;
@@ -101,6 +106,12 @@ public class OracleDialect extends GeneratorDialect {
 		return false;
 	}
 
+	@Override
+	public boolean isMultiRowInsertSupported() {
+		// Only "INSERT ALL INTO ... INTO ... SELECT * FROM DUAL" is supported up to Oracle 23
+		return false;
+	}
+
 	@Override
 	public boolean isSequenceInWhereSupported() {
 		return false;
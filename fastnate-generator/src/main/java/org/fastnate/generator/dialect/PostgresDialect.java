@@ -51,6 +51,11 @@ public class PostgresDialect extends GeneratorDialect {
 		return createHexBlobExpression("decode('", blob, "', 'hex')");
 	}
 
+	@Override
+	public boolean isDeferrableConstraintsSupported() {
+		return true;
+	}
+
 	@Override
 	public void truncateTable(final StatementsWriter writer, final GeneratorTable table) throws IOException {
 		writer.writePlainStatement(this, "TRUNCATE TABLE " + table.getQualifiedName() + " CASCADE");
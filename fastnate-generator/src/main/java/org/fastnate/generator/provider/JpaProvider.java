@@ -207,7 +207,7 @@ public interface JpaProvider {
 		if (Enum.class.isAssignableFrom(targetType)) {
 			@SuppressWarnings("rawtypes")
 			final Class<Enum> enumClass = (Class<Enum>) targetType;
-			return (ValueConverter<T>) new EnumConverter<>(attribute, enumClass, mapKey);
+			return (ValueConverter<T>) new EnumConverter<>(attribute, enumClass, mapKey, getOrdinalType(enumClass));
 		}
 		return createBasicConverter(attribute.getName(), targetType);
 	}
@@ -288,6 +288,21 @@ public interface JpaProvider {
 	 */
 	String getDefaultSequence(String tableName);
 
+	/**
+	 * The type of the database value for the ordinal of an enum, as the type of the column is chosen by the JPA
+	 * provider.
+	 *
+	 * Only relevant if the type of the value has to match the type of the column exactly, like in the
+	 * {@link org.fastnate.generator.statements.CopyBinaryRowEncoder binary format} of PostgreSQL.
+	 *
+	 * @param enumClass
+	 *            the type of the enum
+	 * @return either {@link Integer} or {@link Short}
+	 */
+	default Class<? extends Number> getOrdinalType(final Class<?> enumClass) {
+		return Integer.class;
+	}
+
 	/**
 	 * Initializes this provider from the given settings.
 	 *
@@ -0,0 +1,366 @@
+package org.fastnate.generator.statements;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fastnate.generator.context.ContextModelListener;
+import org.fastnate.generator.context.DefaultContextModelListener;
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.context.ModelException;
+import org.fastnate.generator.dialect.GeneratorDialect;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Base class for writers that write the rows of all inserts into bulk files, one for each table, and reference these
+ * files in the SQL file with the database specific import statement.
+ *
+ * A bulk file is closed as soon as any other statement is written or its table gets a new column. The next row of that
+ * table starts a new bulk file with its own import statement. Inserts that contain any expression which is not a
+ * {@link PrimitiveColumnExpression primitive value} (like the subselects for relative IDs) are written as plain
+ * statements.
+ *
+ * @param <F>
+ *            the type of the bulk files
+ * @author Tobias Liefke
+ */
+@Slf4j
+public abstract class AbstractBulkWriter<F extends AbstractBulkWriter.BulkFile> extends FileStatementsWriter {
+
+	/**
+	 * An open bulk file of a table.
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	protected abstract static class BulkFile {
+
+		/** The file on the disk. */
+		private final File file;
+
+		/** The table of the rows in the file. */
+		private final GeneratorTable table;
+
+		/**
+		 * Closes the file.
+		 *
+		 * @throws IOException
+		 *             if the file system throws one
+		 */
+		protected abstract void close() throws IOException;
+
+		/**
+		 * Flushes all written rows to the file.
+		 *
+		 * @throws IOException
+		 *             if the file system throws one
+		 */
+		protected abstract void flush() throws IOException;
+
+		/**
+		 * Indicates that the given row may be written into this file.
+		 *
+		 * @param insert
+		 *            the next row for the table of this file
+		 * @return {@code true} if the row may be {@link #write(InsertStatement) written}, {@code false} if a new file
+		 *         is necessary
+		 */
+		protected boolean isAccepting(final InsertStatement insert) {
+			return true;
+		}
+
+		/**
+		 * Writes the row of the given insert statement.
+		 *
+		 * @param insert
+		 *            the insert statement that contains only {@link PrimitiveColumnExpression primitive values}
+		 * @throws IOException
+		 *             if the file system throws one
+		 */
+		protected abstract void write(InsertStatement insert) throws IOException;
+
+	}
+
+	/**
+	 * A bulk file that contains the rows in a text format.
+	 */
+	@Getter
+	protected static class TextBulkFile extends BulkFile {
+
+		/** Writes the rows into the file. */
+		private final Writer writer;
+
+		/** Encodes the rows. */
+		private final CopyRowEncoder rows;
+
+		/**
+		 * Opens a new bulk file.
+		 *
+		 * @param file
+		 *            the file to write
+		 * @param rows
+		 *            encodes the rows of the file
+		 * @param encoding
+		 *            the encoding of the file
+		 * @throws IOException
+		 *             if the file system throws one
+		 */
+		public TextBulkFile(final File file, final CopyRowEncoder rows, final Charset encoding) throws IOException {
+			super(file, rows.getTable());
+			this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), encoding));
+			this.rows = rows;
+		}
+
+		@Override
+		protected void close() throws IOException {
+			this.writer.close();
+		}
+
+		@Override
+		protected void flush() throws IOException {
+			this.writer.flush();
+		}
+
+		@Override
+		protected void write(final InsertStatement insert) throws IOException {
+			this.rows.encode(insert);
+			this.rows.writeTo(this.writer);
+		}
+
+	}
+
+	@RequiredArgsConstructor
+	private final class ContextListener extends DefaultContextModelListener {
+
+		@Override
+		public void foundColumn(final GeneratorColumn column) {
+			try {
+				// Close the writer of the new column, as this will change the file structure
+				closeBulkWriter(column.getTable());
+			} catch (final IOException e) {
+				throw new ModelException("Could not close the writer for " + column.getTable(), e);
+			}
+		}
+
+	}
+
+	/** The current generation context. */
+	@Getter
+	private final GeneratorContext context;
+
+	/** The current generation context. */
+	private final ContextModelListener contextListener = new ContextListener();
+
+	/** The directory for the bulk files. */
+	@Getter
+	private final File directory;
+
+	/** The encoding of the bulk files. */
+	@Getter
+	private final Charset encoding;
+
+	/** Remembers for each table which files we've already generated. */
+	private final Map<GeneratorTable, Integer> fileNumbers = new HashMap<>();
+
+	/** The open bulk files for each table. */
+	private final Map<GeneratorTable, F> bulkFiles = new HashMap<>();
+
+	/** All files generated by this writer. */
+	@Getter
+	private final List<File> generatedFiles = new ArrayList<>();
+
+	/** The count of written statements. */
+	@Getter
+	private int statementsCount;
+
+	/**
+	 * Creates a new instance of a bulk writer.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param directory
+	 *            the directory for the bulk files
+	 * @param writer
+	 *            the SQL file which contains the plain and the import statements
+	 * @param encoding
+	 *            The encoding of the bulk files.
+	 */
+	protected AbstractBulkWriter(final GeneratorContext context, final File directory, final Writer writer,
+			final Charset encoding) {
+		super(writer);
+		this.context = context;
+		this.context.addContextModelListener(this.contextListener);
+		this.directory = directory;
+		this.encoding = encoding;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.context.removeContextModelListener(this.contextListener);
+		closeBulkWriters();
+		getWriter().close();
+		log.info("{} statements and {} files written", this.statementsCount, this.generatedFiles.size());
+	}
+
+	/**
+	 * Closes the current writer of the given table (for example when the table structure has changed).
+	 *
+	 * @param table
+	 *            the table of the writer
+	 * @throws IOException
+	 *             if there was a problem when closing the writer
+	 */
+	public void closeBulkWriter(final GeneratorTable table) throws IOException {
+		final F bulkFile = this.bulkFiles.remove(table);
+		if (bulkFile != null) {
+			bulkFile.close();
+		}
+	}
+
+	private void closeBulkWriters() throws IOException {
+		for (final F bulkFile : this.bulkFiles.values()) {
+			bulkFile.close();
+		}
+		this.bulkFiles.clear();
+	}
+
+	/**
+	 * Opens a new bulk file.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @param insert
+	 *            the first row of the file
+	 * @return the opened file
+	 * @throws IOException
+	 *             if the file system throws one
+	 */
+	protected abstract F createBulkFile(File file, InsertStatement insert) throws IOException;
+
+	/**
+	 * Builds the statement that imports the given bulk file into the database.
+	 *
+	 * @param bulkFile
+	 *            the newly opened bulk file
+	 * @param dialect
+	 *            the current database dialect
+	 * @return the import statement, without statement separator
+	 */
+	protected abstract String createImportStatement(F bulkFile, GeneratorDialect dialect);
+
+	private F findBulkFile(final InsertStatement insert) throws IOException {
+		final GeneratorTable generatorTable = insert.getTable();
+		F bulkFile = this.bulkFiles.get(generatorTable);
+		if (bulkFile != null && !bulkFile.isAccepting(insert)) {
+			closeBulkWriter(generatorTable);
+			bulkFile = null;
+		}
+		if (bulkFile == null) {
+			final Integer number = this.fileNumbers.get(generatorTable);
+			String fileName = generatorTable.getQualifiedName();
+			if (number == null) {
+				this.fileNumbers.put(generatorTable, 2);
+			} else {
+				fileName += '.' + number.toString();
+				this.fileNumbers.put(generatorTable, number + 1);
+			}
+			bulkFile = createBulkFile(new File(this.directory, fileName + getFileExtension()), insert);
+			write(createImportStatement(bulkFile, insert.getDialect()) + getStatementSeparator());
+			this.statementsCount++;
+			this.bulkFiles.put(generatorTable, bulkFile);
+			this.generatedFiles.add(bulkFile.getFile());
+		}
+		return bulkFile;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		for (final F bulkFile : this.bulkFiles.values()) {
+			bulkFile.flush();
+		}
+		super.flush();
+	}
+
+	/**
+	 * The extension of the bulk files.
+	 *
+	 * @return the extension, including the leading dot
+	 */
+	protected String getFileExtension() {
+		return ".blk";
+	}
+
+	/**
+	 * Indicates that the given insert statement contains a binary value.
+	 *
+	 * @param insert
+	 *            the insert statement
+	 * @return {@code true} if at least one of the values is a byte array
+	 */
+	protected boolean hasBinaryValue(final InsertStatement insert) {
+		for (int i = 0; i < insert.getValueCount(); i++) {
+			final ColumnExpression value = insert.getValue(insert.getColumnIndex(i));
+			if (value instanceof PrimitiveColumnExpression
+					&& ((PrimitiveColumnExpression<?>) value).getDatabaseValue() instanceof byte[]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Indicates that the given insert statement is written into a bulk file.
+	 *
+	 * @param insert
+	 *            the insert statement
+	 * @return {@code true} if the row of the statement is written into a bulk file, {@code false} if it is written as
+	 *         plain statement
+	 */
+	protected boolean isBulkRow(final InsertStatement insert) {
+		return !insert.isPlainExpressionAvailable() && insert.getValueCount() > 0;
+	}
+
+	@Override
+	public void writePlainStatement(final GeneratorDialect dialect, final String sql) throws IOException {
+		writePlainStatement(sql);
+	}
+
+	private void writePlainStatement(final String sql) throws IOException {
+		if (!sql.startsWith("TRUNCATE ")) {
+			closeBulkWriters();
+		}
+		write(sql);
+		if (!sql.endsWith(getStatementSeparator())) {
+			write(getStatementSeparator());
+		}
+		this.statementsCount++;
+	}
+
+	@Override
+	public void writeStatement(final EntityStatement stmt) throws IOException {
+		if (stmt instanceof InsertStatement) {
+			final InsertStatement insert = (InsertStatement) stmt;
+			if (isBulkRow(insert)) {
+				// Let's use a bulk file
+				findBulkFile(insert).write(insert);
+				this.statementsCount++;
+				releaseStatement(insert);
+				return;
+			}
+		}
+		writePlainStatement(stmt.toSql());
+	}
+
+}
@@ -0,0 +1,134 @@
+package org.fastnate.generator.statements;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.statements.AbstractStatementsWriter.AbstractTableStatement;
+
+import lombok.Getter;
+
+/**
+ * Base class for encoders of rows for the "COPY" statement of PostgreSQL.
+ *
+ * The columns of the rows are fixed when the encoder is created, so an encoder is only valid until the next column is
+ * added to its table.
+ *
+ * @author Tobias Liefke
+ */
+public abstract class AbstractCopyRowEncoder {
+
+	/** The table of the rows. */
+	@Getter
+	private final GeneratorTable table;
+
+	/** The count of columns of the table, when this encoder was created. */
+	private final int tableColumnCount;
+
+	/** All columns that are part of a row (the columns of the table, without the auto generated ones). */
+	@Getter
+	private final List<GeneratorColumn> columns;
+
+	/** The {@link GeneratorColumn#getIndex() indices} of the {@link #columns}. */
+	private final int[] columnIndices;
+
+	/** The count of rows that were encoded since the last {@link #clear()}. */
+	@Getter
+	private int rows;
+
+	/**
+	 * Creates a new encoder for the rows of the given table.
+	 *
+	 * @param table
+	 *            the table of the rows
+	 */
+	protected AbstractCopyRowEncoder(final GeneratorTable table) {
+		this.table = table;
+		this.tableColumnCount = table.getColumns().size();
+		this.columns = Collections.unmodifiableList(table.getColumns().values().stream()
+				.filter(column -> !column.isAutoGenerated()).collect(Collectors.toList()));
+		this.columnIndices = this.columns.stream().mapToInt(GeneratorColumn::getIndex).toArray();
+	}
+
+	/**
+	 * Appends the qualified names of all {@link #getColumns() columns} of a row, separated by comma.
+	 *
+	 * @param sql
+	 *            the target of the column names, usually a "COPY" statement
+	 * @return {@code sql} for chaining
+	 */
+	public StringBuilder appendColumnNames(final StringBuilder sql) {
+		boolean comma = false;
+		for (final GeneratorColumn column : this.columns) {
+			if (comma) {
+				sql.append(", ");
+			} else {
+				comma = true;
+			}
+			sql.append(column.getQualifiedName());
+		}
+		return sql;
+	}
+
+	/**
+	 * Appends the value of one column to the current row.
+	 *
+	 * @param column
+	 *            the index of the column in the list of {@link #getColumns() columns}
+	 * @param value
+	 *            the {@link PrimitiveColumnExpression#getDatabaseValue() database value}, {@code null} if the column has
+	 *            no value
+	 */
+	protected abstract void appendValue(int column, Object value);
+
+	/**
+	 * Removes all encoded rows.
+	 */
+	public void clear() {
+		this.rows = 0;
+	}
+
+	/**
+	 * Appends the values of the given insert statement as one row.
+	 *
+	 * @param statement
+	 *            the insert statement for the table of this encoder, which contains only {@link PrimitiveColumnExpression
+	 *            primitive values}
+	 */
+	public void encode(final TableStatement statement) {
+		final AbstractTableStatement row = (AbstractTableStatement) statement;
+		startRow(this.columnIndices.length);
+		for (int i = 0; i < this.columnIndices.length; i++) {
+			final ColumnExpression value = row.getValue(this.columnIndices[i]);
+			appendValue(i, value == null ? null : ((PrimitiveColumnExpression<?>) value).getDatabaseValue());
+		}
+		endRow();
+		this.rows++;
+	}
+
+	/**
+	 * Finishes the current row.
+	 */
+	protected abstract void endRow();
+
+	/**
+	 * Indicates that the table has got new columns since this encoder was created, so the encoder can't encode the
+	 * rows of the table anymore.
+	 *
+	 * @return {@code true} if a new encoder is necessary for the table
+	 */
+	public boolean isOutdated() {
+		return this.table.getColumns().size() != this.tableColumnCount;
+	}
+
+	/**
+	 * Starts a new row.
+	 *
+	 * @param columnCount
+	 *            the count of values in the row
+	 */
+	protected abstract void startRow(int columnCount);
+
+}
@@ -1,11 +1,16 @@
 package org.fastnate.generator.statements;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -14,6 +19,7 @@ import org.fastnate.generator.context.GeneratorColumn;
 import org.fastnate.generator.context.GeneratorTable;
 import org.fastnate.generator.dialect.GeneratorDialect;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -28,10 +34,12 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 	/**
 	 * Base class for insert and update statements.
 	 *
+	 * The values are stored by the {@link GeneratorColumn#getIndex() index} of their column, but are written in the order
+	 * of their assignment.
+	 *
 	 * @author Tobias Liefke
 	 */
 	@Getter
-	@RequiredArgsConstructor
 	protected abstract static class AbstractTableStatement implements TableStatement {
 
 		/** The current database dialect */
@@ -40,8 +48,24 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 		/** The main table of this update / insert statement. */
 		private final GeneratorTable table;
 
-		/** The columns and their values. */
-		private final Map<GeneratorColumn, ColumnExpression> values = new LinkedHashMap<>();
+		/** The columns with a value, by their index. */
+		@Getter(AccessLevel.NONE)
+		private GeneratorColumn[] columns;
+
+		/** The values, by the index of their column. */
+		@Getter(AccessLevel.NONE)
+		private ColumnExpression[] values;
+
+		/** The indices of all columns with a value. */
+		@Getter(AccessLevel.NONE)
+		private final BitSet assignedColumns = new BitSet();
+
+		/** The indices of all columns with a value, in the order of their assignment. */
+		@Getter(AccessLevel.NONE)
+		private int[] columnOrder;
+
+		/** The count of columns with a value. */
+		private int valueCount;
 
 		/**
 		 * Indicates that at least one of the {@link #values column expressions} is not a
@@ -49,12 +73,127 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 		 */
 		private boolean plainExpressionAvailable;
 
+		/**
+		 * Creates a new statement.
+		 *
+		 * @param dialect
+		 *            the current database dialect
+		 * @param table
+		 *            the affected table
+		 */
+		protected AbstractTableStatement(final GeneratorDialect dialect, final GeneratorTable table) {
+			this.dialect = dialect;
+			this.table = table;
+			this.columns = new GeneratorColumn[table.getColumns().size()];
+			this.values = new ColumnExpression[this.columns.length];
+			this.columnOrder = new int[this.columns.length];
+		}
+
+		/**
+		 * Appends the qualified names of all columns with a value, separated by comma.
+		 *
+		 * @param result
+		 *            the target of the names
+		 * @return {@code result} for chaining
+		 */
+		public StringBuilder appendColumnNames(final StringBuilder result) {
+			for (int i = 0; i < this.valueCount; i++) {
+				if (i > 0) {
+					result.append(", ");
+				}
+				result.append(this.columns[this.columnOrder[i]].getQualifiedName());
+			}
+			return result;
+		}
+
+		/**
+		 * Appends the SQL of all values, separated by comma.
+		 *
+		 * @param result
+		 *            the target of the values
+		 * @return {@code result} for chaining
+		 */
+		public StringBuilder appendValues(final StringBuilder result) {
+			for (int i = 0; i < this.valueCount; i++) {
+				if (i > 0) {
+					result.append(", ");
+				}
+				this.values[this.columnOrder[i]].appendSql(result);
+			}
+			return result;
+		}
+
+		/**
+		 * The column with the given index.
+		 *
+		 * @param index
+		 *            the {@link GeneratorColumn#getIndex() index} of the column
+		 * @return the column or {@code null} if the column has no value
+		 */
+		public GeneratorColumn getColumn(final int index) {
+			return index < this.columns.length ? this.columns[index] : null;
+		}
+
+		/**
+		 * The index of the column that was assigned at the given position.
+		 *
+		 * @param position
+		 *            the position of the assignment, between 0 (inclusive) and {@link #getValueCount()} (exclusive)
+		 * @return the {@link GeneratorColumn#getIndex() index} of the column
+		 */
+		public int getColumnIndex(final int position) {
+			return this.columnOrder[position];
+		}
+
+		/**
+		 * The value of the given column.
+		 *
+		 * @param column
+		 *            the column
+		 * @return the value or {@code null} if the column has no value
+		 */
+		public ColumnExpression getValue(final GeneratorColumn column) {
+			return getValue(column.getIndex());
+		}
+
+		/**
+		 * The value of the column with the given index.
+		 *
+		 * @param index
+		 *            the {@link GeneratorColumn#getIndex() index} of the column
+		 * @return the value or {@code null} if the column has no value
+		 */
+		public ColumnExpression getValue(final int index) {
+			return index < this.values.length ? this.values[index] : null;
+		}
+
+		/**
+		 * The columns and their values, in the order of their assignment.
+		 *
+		 * @return an unmodifiable copy of all columns with a value
+		 * @deprecated Use {@link #getValueCount()}, {@link #getColumnIndex(int)}, {@link #getColumn(int)} and
+		 *             {@link #getValue(int)} instead, which don't create a map for every call
+		 */
+		@Deprecated
+		public Map<GeneratorColumn, ColumnExpression> getValues() {
+			final Map<GeneratorColumn, ColumnExpression> result = new LinkedHashMap<>();
+			for (int i = 0; i < this.valueCount; i++) {
+				result.put(this.columns[this.columnOrder[i]], this.values[this.columnOrder[i]]);
+			}
+			return Collections.unmodifiableMap(result);
+		}
+
 		/**
 		 * Resets the content of this statement to reuse it.
 		 */
 		public void reset() {
 			this.plainExpressionAvailable = false;
-			this.values.clear();
+			for (int i = 0; i < this.valueCount; i++) {
+				this.columns[this.columnOrder[i]] = null;
+				this.values[this.columnOrder[i]] = null;
+			}
+			this.assignedColumns.clear();
+			this.valueCount = 0;
 		}
 
 		/**
@@ -70,9 +209,21 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 			if (value == null) {
 				throw new NullPointerException("value should be not null");
 			}
-			if (this.values.put(column, value) != null) {
+			final int index = column.getIndex();
+			if (this.assignedColumns.get(index)) {
 				throw new IllegalArgumentException("A value for " + column.getName() + " was assigned twice");
 			}
+			if (index >= this.values.length) {
+				// The column was added to the table after this statement was created
+				final int length = Math.max(index + 1, this.table.getColumns().size());
+				this.columns = Arrays.copyOf(this.columns, length);
+				this.values = Arrays.copyOf(this.values, length);
+				this.columnOrder = Arrays.copyOf(this.columnOrder, length);
+			}
+			this.columns[index] = column;
+			this.values[index] = value;
+			this.assignedColumns.set(index);
+			this.columnOrder[this.valueCount++] = index;
 			if (!this.plainExpressionAvailable && !(value instanceof PrimitiveColumnExpression)) {
 				this.plainExpressionAvailable = true;
 			}
@@ -115,7 +266,9 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 		 * @param mapper
 		 *            add the column to the expression
 		 * @return {@code result} for chaining
+		 * @deprecated Use {@link #appendColumnNames(StringBuilder)} and {@link #appendValues(StringBuilder)} instead
 		 */
+		@Deprecated
 		protected <T> StringBuilder addColumns(final StringBuilder result, final Collection<T> columns,
 				final BiConsumer<StringBuilder, T> mapper) {
 			final Iterator<T> it = columns.iterator();
@@ -132,7 +285,7 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 		@Override
 		public String toSql() {
 			final StringBuilder result = new StringBuilder("INSERT INTO ").append(getTable().getQualifiedName());
-			if (getValues().isEmpty()) {
+			if (getValueCount() == 0) {
 				// Can happen if we have a generated identity column and only null values
 				result.append(' ').append(getDialect().getEmptyValuesExpression());
 			} else {
@@ -142,28 +295,35 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 					final Pattern subselectPattern = Pattern.compile(
 							"\\(SELECT\\s+(.*)\\s+FROM\\s+" + getTable().getQualifiedName() + "\\s*\\)",
 							Pattern.CASE_INSENSITIVE);
-					if (getValues().values().stream().anyMatch(value -> !(value instanceof PrimitiveColumnExpression)
-							&& subselectPattern.matcher(value.toSql()).matches())) {
-						addColumns(result, getValues().keySet(), (sb, column) -> sb.append(column.getQualifiedName()))
-								.append(") SELECT ");
-						addColumns(result, getValues().values(), (sb, value) -> {
+					boolean subselect = false;
+					for (int i = 0; i < getValueCount() && !subselect; i++) {
+						final ColumnExpression value = getValue(getColumnIndex(i));
+						subselect = !(value instanceof PrimitiveColumnExpression)
+								&& subselectPattern.matcher(value.toSql()).matches();
+					}
+					if (subselect) {
+						appendColumnNames(result).append(") SELECT ");
+						for (int i = 0; i < getValueCount(); i++) {
+							if (i > 0) {
+								result.append(", ");
+							}
+							final ColumnExpression value = getValue(getColumnIndex(i));
 							final String sql = value.toSql();
 							final Matcher matcher;
 							if (!(value instanceof PrimitiveColumnExpression)
 									&& (matcher = subselectPattern.matcher(sql)).matches()) {
-								sb.append(matcher.group(1));
+								result.append(matcher.group(1));
 							} else {
-								sb.append(sql);
+								result.append(sql);
 							}
-						}).append(" FROM ").append(getTable().getQualifiedName());
+						}
+						result.append(" FROM ").append(getTable().getQualifiedName());
 						return result.toString();
 					}
 				}
 
-				addColumns(result, getValues().keySet(), (sb, column) -> sb.append(column.getQualifiedName()))
-						.append(") VALUES (");
-				addColumns(result, getValues().values(), (sb, column) -> column.appendSql(result));
-				result.append(')');
+				appendColumnNames(result).append(") VALUES (");
+				appendValues(result).append(')');
 			}
 			return result.toString();
 		}
@@ -194,6 +354,8 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 	/**
 	 * Holds the information for an SQL update statement.
 	 *
+	 * The statement changes either one row ({@code WHERE id = ...}) or several rows ({@code WHERE id IN (...)}).
+	 *
 	 * @author Tobias Liefke
 	 */
 	@Getter
@@ -202,7 +364,8 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 
 		private final GeneratorColumn idColumn;
 
-		private final ColumnExpression idValue;
+		/** The expressions for the ids of all changed entities. */
+		private final List<? extends ColumnExpression> idValues;
 
 		/**
 		 * Creates a new instance of UpdateStatement.
@@ -218,31 +381,86 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 		 */
 		protected UpdateStatement(final GeneratorDialect dialect, final GeneratorTable table,
 				final GeneratorColumn idColumn, final ColumnExpression idValue) {
+			this(dialect, table, idColumn, Collections.singletonList(idValue));
+		}
+
+		/**
+		 * Creates a new instance of UpdateStatement for more than one row.
+		 *
+		 * @param dialect
+		 *            the current database dialect
+		 * @param table
+		 *            the affected table
+		 * @param idColumn
+		 *            the column that contains the ids of the changed entities
+		 * @param idValues
+		 *            the expressions for the ids of the changed entities
+		 */
+		protected UpdateStatement(final GeneratorDialect dialect, final GeneratorTable table,
+				final GeneratorColumn idColumn, final List<? extends ColumnExpression> idValues) {
 			super(dialect, table);
 			this.idColumn = idColumn;
-			this.idValue = idValue;
+			this.idValues = idValues;
+		}
+
+		/**
+		 * Appends the condition that selects the changed rows.
+		 *
+		 * @param result
+		 *            the target of the condition
+		 * @return {@code result} for chaining
+		 */
+		public StringBuilder appendIdCondition(final StringBuilder result) {
+			result.append(this.idColumn.getQualifiedName());
+			if (this.idValues.size() == 1) {
+				result.append(" = ");
+				this.idValues.get(0).appendSql(result);
+			} else {
+				result.append(" IN (");
+				for (int i = 0; i < this.idValues.size(); i++) {
+					if (i > 0) {
+						result.append(", ");
+					}
+					this.idValues.get(i).appendSql(result);
+				}
+				result.append(')');
+			}
+			return result;
+		}
+
+		/**
+		 * The expression for the id of the changed entity.
+		 *
+		 * @return the id of the first changed entity, if more than one row is changed
+		 */
+		public ColumnExpression getIdValue() {
+			return this.idValues.get(0);
 		}
 
 		@Override
 		public String toSql() {
 			final StringBuilder result = new StringBuilder("UPDATE ").append(getTable().getQualifiedName())
 					.append(" SET ");
-			for (final Iterator<Map.Entry<GeneratorColumn, ColumnExpression>> entries = getValues().entrySet()
-					.iterator(); entries.hasNext();) {
-				final Entry<GeneratorColumn, ColumnExpression> entry = entries.next();
-				result.append(entry.getKey().getQualifiedName()).append(" = ");
-				entry.getValue().appendSql(result);
-				if (entries.hasNext()) {
+			for (int i = 0; i < getValueCount(); i++) {
+				if (i > 0) {
 					result.append(", ");
 				}
+				final int index = getColumnIndex(i);
+				result.append(getColumn(index).getQualifiedName()).append(" = ");
+				getValue(index).appendSql(result);
 			}
-			result.append(" WHERE ").append(this.idColumn.getQualifiedName()).append(" = ");
-			this.idValue.appendSql(result);
+			appendIdCondition(result.append(" WHERE "));
 			return result.toString();
 		}
 
 	}
 
+	/** The maximum count of released insert statements that we keep for reuse per table. */
+	private static final int MAX_POOLED_STATEMENTS = 8;
+
+	/** The released insert statements per table, which are available for reuse. */
+	private final Map<GeneratorTable, List<InsertStatement>> availableInsertStatements = new HashMap<>();
+
 	@Override
 	public void close() throws IOException {
 		// The default implementation does nothing
@@ -250,6 +468,30 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 
 	@Override
 	public TableStatement createInsertStatement(final GeneratorDialect dialect, final GeneratorTable table) {
+		return createPooledInsertStatement(dialect, table);
+	}
+
+	/**
+	 * Creates a new insert statement or reuses one that was {@link #releaseStatement(EntityStatement) released} before.
+	 *
+	 * @param dialect
+	 *            the current database dialect
+	 * @param table
+	 *            the affected table
+	 * @return the insert statement without any value
+	 */
+	protected InsertStatement createPooledInsertStatement(final GeneratorDialect dialect, final GeneratorTable table) {
+		final List<InsertStatement> availableStatements = this.availableInsertStatements.get(table);
+		if (availableStatements != null) {
+			for (int i = availableStatements.size() - 1; i >= 0; i--) {
+				final InsertStatement statement = availableStatements.get(i);
+				if (statement.getDialect() == dialect) {
+					availableStatements.remove(i);
+					statement.reset();
+					return statement;
+				}
+			}
+		}
 		return new InsertStatement(dialect, table);
 	}
 
@@ -264,11 +506,50 @@ public abstract class AbstractStatementsWriter implements StatementsWriter {
 		return new UpdateStatement(dialect, table, idColumn, idValue);
 	}
 
+	/**
+	 * Creates a container for an "update table" statement, which sets the same values for more than one row.
+	 *
+	 * @param dialect
+	 *            the current database dialect
+	 * @param table
+	 *            the name of the affected table
+	 * @param idColumn
+	 *            the column that contains the ids of the changed entities
+	 * @param idValues
+	 *            the expressions for the ids of the changed entities, not more than
+	 *            {@link GeneratorDialect#getMaxInListSize()}
+	 * @return the created statement
+	 */
+	public TableStatement createUpdateStatement(final GeneratorDialect dialect, final GeneratorTable table,
+			final GeneratorColumn idColumn, final List<? extends ColumnExpression> idValues) {
+		return new UpdateStatement(dialect, table, idColumn, idValues);
+	}
+
 	@Override
 	public void flush() throws IOException {
 		// The default does nothing
 	}
 
+	/**
+	 * Releases a statement after it was written, to reuse it for one of the next
+	 * {@link #createInsertStatement(GeneratorDialect, GeneratorTable) inserts}.
+	 *
+	 * Only plain {@link InsertStatement}s are reused, every other statement is ignored.
+	 *
+	 * @param statement
+	 *            the written statement, which is not used by the caller anymore
+	 */
+	protected void releaseStatement(final EntityStatement statement) {
+		if (statement.getClass() == InsertStatement.class) {
+			final InsertStatement insert = (InsertStatement) statement;
+			final List<InsertStatement> availableStatements = this.availableInsertStatements
+					.computeIfAbsent(insert.getTable(), table -> new ArrayList<>());
+			if (availableStatements.size() < MAX_POOLED_STATEMENTS) {
+				availableStatements.add(insert);
+			}
+		}
+	}
+
 	@Override
 	public void writeComment(final String comment) throws IOException {
 		// The default implementation ignores every comment
@@ -2,17 +2,22 @@ package org.fastnate.generator.statements;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.fastnate.generator.context.ContextModelListener;
 import org.fastnate.generator.context.DefaultContextModelListener;
@@ -25,7 +30,6 @@ import org.fastnate.generator.context.SequenceIdGenerator;
 import org.fastnate.generator.dialect.GeneratorDialect;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -36,29 +40,28 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 
-	@RequiredArgsConstructor
-	private static final class ContextListener extends DefaultContextModelListener {
-
-		private final GeneratorContext context;
-
-		private final Statement plainStatement;
-
-		private final List<PreparedInsertStatement> preparedStatements;
-
-		private final Map<GeneratorTable, List<PreparedInsertStatement>> availablePreparedStatements;
+	private final class ContextListener extends DefaultContextModelListener {
 
 		@Override
 		public void foundColumn(final GeneratorColumn column) {
-			final List<PreparedInsertStatement> statements = this.availablePreparedStatements.get(column.getTable());
+			final List<PreparedInsertStatement> statements = ConnectedStatementsWriter.this.availablePreparedStatements
+					.get(column.getTable());
 
 			if (statements != null) {
 				// Found additional columns in another subclass, after the first insert statement for the table was created
 
+				// Execute any pending rows, as the statements are closed now
+				try {
+					closeBatch();
+				} catch (final IOException e) {
+					throw new ModelException("Could not execute pending statements after new column was added", e);
+				}
+
 				// Close all statements
 				for (int i = statements.size() - 1; i >= 0; i--) {
 					try {
 						final PreparedInsertStatement statement = statements.remove(i);
-						this.preparedStatements.remove(statement);
+						ConnectedStatementsWriter.this.preparedStatements.remove(statement);
 						statement.close();
 					} catch (final SQLException e) {
 						throw new ModelException("Could not close statement after new column was added", e);
@@ -70,14 +73,22 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		@Override
 		public void foundGenerator(final IdGenerator generator) {
 			// Initialize generator, if necessary
-			if (!this.context.isWriteRelativeIds()) {
+			final GeneratorContext context = ConnectedStatementsWriter.this.context;
+			if (!context.isWriteRelativeIds()) {
 				String sql = generator.getExpression(null, null, generator.getCurrentValue(), false).toSql();
 				if (sql.matches("\\(?SELECT\\W.*")) {
 					sql = sql.replaceFirst("^\\((.*)\\)$", "$1");
 				} else {
-					sql = "SELECT (" + sql + ") currentValue " + this.context.getDialect().getOptionalTable();
+					sql = "SELECT (" + sql + ") currentValue " + context.getDialect().getOptionalTable();
+				}
+				try {
+					// The query may read rows that are still waiting in a batch
+					closeBatch();
+				} catch (final IOException e) {
+					throw new ModelException("Could not execute pending statements before initializing " + generator,
+							e);
 				}
-				try (ResultSet resultSet = this.plainStatement.executeQuery(sql)) {
+				try (ResultSet resultSet = ConnectedStatementsWriter.this.plainStatement.executeQuery(sql)) {
 					if (resultSet.next()) {
 						final long currentValue = resultSet.getLong(1);
 						if (resultSet.wasNull()) {
@@ -112,10 +123,15 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		@Getter
 		private final String sql;
 
-		private final BitSet availableColumns;
-
 		private final int[] parameterIndices;
 
+		/** The values of the parameters of the current row, bound to the statement when the row is executed. */
+		private final Object[] parameterValues;
+
+		/** The count of rows that were added to the batch of the statement and are not executed up to now. */
+		@Getter
+		private int batchSize;
+
 		PreparedInsertStatement(final GeneratorDialect dialect, final Connection connection, final GeneratorTable table)
 				throws SQLException {
 			super(dialect, table);
@@ -133,6 +149,7 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 					this.parameterIndices[column.getIndex()] = ++parameterCount;
 				}
 			}
+			this.parameterValues = new Object[parameterCount];
 
 			if (parameterCount == 0) {
 				sqlBuilder.append(dialect.getEmptyValuesExpression());
@@ -146,31 +163,47 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 			}
 			this.sql = sqlBuilder.toString();
 			this.statement = connection.prepareStatement(this.sql);
-			this.availableColumns = new BitSet(this.columnCount);
+		}
+
+		public void addBatch() throws SQLException {
+			bindParameters();
+			this.statement.addBatch();
+			this.batchSize++;
+		}
+
+		/**
+		 * Binds the values of the current row to the statement.
+		 *
+		 * The values are bound as late as possible, as executing a pending batch of the same statement may overwrite the
+		 * parameters of the statement.
+		 */
+		private void bindParameters() throws SQLException {
+			for (int i = 0; i < this.parameterValues.length; i++) {
+				this.statement.setObject(i + 1, this.parameterValues[i]);
+			}
 		}
 
 		public void close() throws SQLException {
 			this.statement.close();
 		}
 
-		public int executeUpdate() throws SQLException {
-			if (this.availableColumns.cardinality() != this.columnCount) {
-				for (int i = 0; i < this.columnCount; i++) {
-					if (!this.availableColumns.get(i)) {
-						final int parameterIndex = this.parameterIndices[i];
-						if (parameterIndex > 0) {
-							this.statement.setObject(parameterIndex, null);
-						}
-					}
-				}
+		public int[] executeBatch() throws SQLException {
+			this.batchSize = 0;
+			try {
+				return this.statement.executeBatch();
+			} finally {
+				this.statement.clearBatch();
 			}
+		}
 
+		public int executeUpdate() throws SQLException {
+			bindParameters();
 			return this.statement.executeUpdate();
 		}
 
 		@Override
 		public void reset() {
-			this.availableColumns.clear();
+			Arrays.fill(this.parameterValues, null);
 			super.reset();
 		}
 
@@ -178,19 +211,12 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		public void setColumnValue(final GeneratorColumn column, final ColumnExpression expression) {
 			super.setColumnValue(column, expression);
 			if (!isPlainExpressionAvailable()) {
-				try {
-					final int index = column.getIndex();
-					this.availableColumns.set(index);
-					final int parameterIndex = this.parameterIndices[index];
-					if (parameterIndex <= 0) {
-						throw new IllegalArgumentException("Can't set auto generated column " + column.getName());
-					}
-					this.statement.setObject(parameterIndex,
-							((PrimitiveColumnExpression<?>) expression).getDatabaseValue());
-				} catch (final SQLException e) {
-					throw new IllegalArgumentException("Can't set " + column + " to " + expression + " in " + this.sql,
-							e);
+				final int parameterIndex = this.parameterIndices[column.getIndex()];
+				if (parameterIndex <= 0) {
+					throw new IllegalArgumentException("Can't set auto generated column " + column.getName());
 				}
+				this.parameterValues[parameterIndex - 1] = ((PrimitiveColumnExpression<?>) expression)
+						.getDatabaseValue();
 			}
 		}
 
@@ -211,6 +237,9 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 	/**
 	 * Name of the setting which controls the maximum size of generated batches. If set to something below 2, no batches
 	 * are used.
+	 *
+	 * Insert statements without any plain expression are collected in one batch per table, which is executed as soon
+	 * as it reaches this size.
 	 */
 	public static final String MAX_BATCH_SIZE_KEY = "fastnate.generator.max.batch";
 
@@ -281,7 +310,18 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 	/** All available prepared statements per table. */
 	private final Map<GeneratorTable, List<PreparedInsertStatement>> availablePreparedStatements = new HashMap<>();
 
-	/** The count of statements executed in the current batch. */
+	/** The prepared statements with pending rows for each table, in the order of their first pending row. */
+	private final Map<GeneratorTable, PreparedInsertStatement> batchedStatements = new LinkedHashMap<>();
+
+	/**
+	 * The (upper case) names of the tables that are referenced by foreign keys of a table, as found in the database
+	 * metadata.
+	 *
+	 * Contains {@code null} for a table, if we couldn't find its metadata.
+	 */
+	private final Map<GeneratorTable, Set<String>> referencedTables = new HashMap<>();
+
+	/** The count of plain statements executed in the current batch. */
 	private int batchCount;
 
 	/** The last time that we have written a log message about the count of statements. */
@@ -308,8 +348,7 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		this.logStatements = Boolean.parseBoolean(context.getSettings().getProperty(LOG_STATEMENTS_KEY, "false"));
 		this.maxBatchSize = Integer.parseInt(context.getSettings().getProperty(MAX_BATCH_SIZE_KEY, "100"));
 		this.plainStatement = connection.createStatement();
-		this.contextListener = new ContextListener(context, this.plainStatement, this.preparedStatements,
-				this.availablePreparedStatements);
+		this.contextListener = new ContextListener();
 		context.addContextModelListener(this.contextListener);
 	}
 
@@ -368,7 +407,43 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		}
 	}
 
-	private void closeBatch() throws IOException {
+	/**
+	 * Executes all pending statements.
+	 *
+	 * Called before any statement or query that depends on the state of the database.
+	 *
+	 * @throws IOException
+	 *             if the database throws an exception
+	 */
+	protected void closeBatch() throws IOException {
+		closeInsertBatches();
+		closePlainBatch();
+	}
+
+	private void closeInsertBatches() throws IOException {
+		if (!this.batchedStatements.isEmpty()) {
+			try {
+				for (final PreparedInsertStatement insert : this.batchedStatements.values()) {
+					final String sql = insert.getSql();
+					try {
+						for (final int updatedRows : insert.executeBatch()) {
+							if (updatedRows == Statement.SUCCESS_NO_INFO) {
+								this.statementsCount++;
+							} else {
+								checkUpdate(updatedRows, sql);
+							}
+						}
+					} catch (final SQLException e) {
+						throw new IOException("Could not execute statements: " + sql, e);
+					}
+				}
+			} finally {
+				this.batchedStatements.clear();
+			}
+		}
+	}
+
+	private void closePlainBatch() throws IOException {
 		if (this.batchCount > 0) {
 			try {
 				this.plainStatement.executeBatch();
@@ -402,6 +477,52 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		return insertStatement;
 	}
 
+	/**
+	 * Finds the tables that are referenced by foreign keys of the given table.
+	 *
+	 * @param table
+	 *            the table that contains the foreign keys
+	 * @return the upper case names of all referenced tables or {@code null} if the table is not known in the database
+	 */
+	private Set<String> findReferencedTables(final GeneratorTable table) {
+		if (this.referencedTables.containsKey(table)) {
+			return this.referencedTables.get(table);
+		}
+		Set<String> result = null;
+		try {
+			final DatabaseMetaData metaData = this.connection.getMetaData();
+			final String tableName = table.getUnquotedName();
+			final String storedName = metaData.storesUpperCaseIdentifiers() ? tableName.toUpperCase()
+					: metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase() : tableName;
+			// Quoted names are stored as is
+			for (final String tablePattern : new LinkedHashSet<>(Arrays.asList(storedName, tableName))) {
+				try (ResultSet tables = metaData.getTables(null, null, tablePattern, null)) {
+					while (tables.next()) {
+						if (tableName.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+							if (result == null) {
+								result = new HashSet<>();
+							}
+							try (ResultSet keys = metaData.getImportedKeys(tables.getString("TABLE_CAT"),
+									tables.getString("TABLE_SCHEM"), tables.getString("TABLE_NAME"))) {
+								while (keys.next()) {
+									result.add(keys.getString("PKTABLE_NAME").toUpperCase());
+								}
+							}
+						}
+					}
+				}
+				if (result != null) {
+					break;
+				}
+			}
+		} catch (final SQLException e) {
+			log.warn("Could not read foreign keys of {}, will not reorder its rows: {}", table, e.toString());
+			result = null;
+		}
+		this.referencedTables.put(table, result);
+		return result;
+	}
+
 	@Override
 	public void flush() throws IOException {
 		closeBatch();
@@ -446,6 +567,8 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 			final PreparedInsertStatement insert = (PreparedInsertStatement) stmt;
 			if (insert.isPlainExpressionAvailable()) {
 				writeTableStatement(insert.toSql());
+			} else if (this.batchSupported && this.maxBatchSize > 1) {
+				writeInsertBatch(insert);
 			} else {
 				closeBatch();
 				final String sql = insert.getSql();
@@ -460,6 +583,9 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 			}
 			if (insert.getTable().getColumns().size() > insert.getColumnCount()) {
 				// The count of columns has changed since we created the prepared statement
+				if (insert.getBatchSize() > 0) {
+					closeBatch();
+				}
 				this.preparedStatements.remove(insert);
 				try {
 					insert.close();
@@ -476,7 +602,84 @@ public class ConnectedStatementsWriter extends AbstractStatementsWriter {
 		}
 	}
 
+	/**
+	 * Adds the given insert statement to the batch of its table.
+	 *
+	 * The batches are executed in the order of their first row. As the rows of one table are executed en bloc, we have
+	 * to execute all pending batches first, if the row could reference a row in one of the batches that were started
+	 * after the batch of its own table.
+	 *
+	 * @param insert
+	 *            the insert statement with all parameters set
+	 * @throws IOException
+	 *             if the database throws an exception
+	 */
+	private void writeInsertBatch(final PreparedInsertStatement insert) throws IOException {
+		// Any plain statement was written before and its effects may be needed by the current row
+		closePlainBatch();
+
+		final GeneratorTable table = insert.getTable();
+		final PreparedInsertStatement currentStatement = this.batchedStatements.get(table);
+		if (currentStatement != null && (currentStatement != insert || isReferencingLaterBatch(table))) {
+			closeInsertBatches();
+		}
+
+		if (this.logStatements) {
+			log.info(insert.toSql());
+		}
+		try {
+			insert.addBatch();
+		} catch (final SQLException e) {
+			throw new IOException("Could not add statement to batch: " + insert.getSql(), e);
+		}
+		this.batchedStatements.putIfAbsent(table, insert);
+		if (insert.getBatchSize() >= this.maxBatchSize) {
+			closeInsertBatches();
+		}
+	}
+
+	/**
+	 * Indicates that a row of the given table could reference a row in a batch that was started after the batch of the
+	 * table.
+	 *
+	 * @param table
+	 *            the table of the current row
+	 * @return {@code true} if a foreign key of the table references one of the later batches
+	 */
+	private boolean isReferencingLaterBatch(final GeneratorTable table) {
+		return isReferencingLaterTable(table, this.batchedStatements.keySet());
+	}
+
+	/**
+	 * Indicates that a row of the given table could reference a row of a table that follows the given table in the
+	 * list of pending tables.
+	 *
+	 * @param table
+	 *            the table of the current row
+	 * @param pendingTables
+	 *            the tables with pending rows, in the order of their execution
+	 * @return {@code true} if a foreign key of the table references one of the tables that are executed after the given
+	 *         table (or if we don't know the foreign keys of the table)
+	 */
+	protected boolean isReferencingLaterTable(final GeneratorTable table,
+			final Collection<GeneratorTable> pendingTables) {
+		boolean laterBatch = false;
+		for (final GeneratorTable batchTable : pendingTables) {
+			if (laterBatch) {
+				final Set<String> tables = findReferencedTables(table);
+				if (tables == null || tables.contains(batchTable.getUnquotedName().toUpperCase())) {
+					return true;
+				}
+			} else if (batchTable == table) {
+				laterBatch = true;
+			}
+		}
+		return false;
+	}
+
 	private void writeTableStatement(final String sql) throws IOException {
+		// The statement may read or update any row from our pending inserts
+		closeInsertBatches();
 		if (this.logStatements) {
 			log.info(sql);
 		}
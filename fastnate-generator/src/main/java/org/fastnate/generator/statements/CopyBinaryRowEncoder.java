@@ -0,0 +1,478 @@
+package org.fastnate.generator.statements;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.context.ModelException;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Encodes the rows of insert statements in the binary format of the "COPY" statement of PostgreSQL.
+ *
+ * The binary format needs neither escaping nor parsing of numbers and dates on the server, but the binary
+ * representation of a value has to match the type of its column exactly. As we don't know the SQL types of the columns,
+ * the representation is chosen from the type of the database value, as created by the converter of the property:
+ * <table>
+ * <caption>Binary representations</caption>
+ * <tr>
+ * <th>Value</th>
+ * <th>Column type</th>
+ * </tr>
+ * <tr>
+ * <td>{@link String}, {@link Character}</td>
+ * <td>{@code text}, {@code varchar} or {@code char}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link Long}, {@link Integer}, {@link Short}, {@link Byte}</td>
+ * <td>{@code bigint}, {@code integer}, {@code smallint}, {@code smallint}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link Double}, {@link Float}</td>
+ * <td>{@code double precision}, {@code real}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link BigDecimal}, {@link BigInteger}</td>
+ * <td>{@code numeric}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link Boolean}</td>
+ * <td>{@code boolean}</td>
+ * </tr>
+ * <tr>
+ * <td>{@code byte[]}</td>
+ * <td>{@code bytea}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link Timestamp}, {@link LocalDateTime}</td>
+ * <td>{@code timestamp}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link Instant}, {@link OffsetDateTime}, {@link ZonedDateTime}</td>
+ * <td>{@code timestamp with time zone}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link java.sql.Date}, {@link LocalDate}</td>
+ * <td>{@code date}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link Time}, {@link LocalTime}</td>
+ * <td>{@code time}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link UUID}</td>
+ * <td>{@code uuid}</td>
+ * </tr>
+ * </table>
+ *
+ * A {@link ModelException} is thrown for a value of any other type and for a value with a different representation
+ * than the previous values of the same column. Ordinal enums are written as {@link Integer} or {@link Short}, depending
+ * on the {@link org.fastnate.generator.provider.JpaProvider#getOrdinalType(Class) JPA provider}.
+ *
+ * All rows are appended to a reusable byte buffer. The {@link #appendHeader() header} and the
+ * {@link #appendTrailer() trailer} of the "COPY" data have to be added by the caller.
+ *
+ * @author Tobias Liefke
+ */
+public class CopyBinaryRowEncoder extends AbstractCopyRowEncoder {
+
+	/** The binary representations of the values. */
+	@Getter
+	@RequiredArgsConstructor
+	private enum BinaryType {
+		/** A {@link String} or {@link Character}. */
+		TEXT("text"),
+		/** A {@link Long}. */
+		INT8("bigint"),
+		/** An {@link Integer}. */
+		INT4("integer"),
+		/** A {@link Short} or {@link Byte}. */
+		INT2("smallint"),
+		/** A {@link Double}. */
+		FLOAT8("double precision"),
+		/** A {@link Float}. */
+		FLOAT4("real"),
+		/** A {@link BigDecimal} or {@link BigInteger}. */
+		NUMERIC("numeric"),
+		/** A {@link Boolean}. */
+		BOOL("boolean"),
+		/** A {@code byte[]}. */
+		BYTEA("bytea"),
+		/** A {@link Timestamp} or {@link LocalDateTime}. */
+		TIMESTAMP("timestamp"),
+		/** An {@link Instant}, {@link OffsetDateTime} or {@link ZonedDateTime}. */
+		TIMESTAMPTZ("timestamp with time zone"),
+		/** A {@link java.sql.Date} or {@link LocalDate}. */
+		DATE("date"),
+		/** A {@link Time} or {@link LocalTime}. */
+		TIME("time"),
+		/** A {@link java.util.UUID}. */
+		UUID("uuid");
+
+		@SuppressWarnings("checkstyle:CyclomaticComplexity")
+		static BinaryType of(final Object value) {
+			if (value instanceof String || value instanceof Character) {
+				return TEXT;
+			}
+			if (value instanceof Long) {
+				return INT8;
+			}
+			if (value instanceof Integer) {
+				return INT4;
+			}
+			if (value instanceof Short || value instanceof Byte) {
+				return INT2;
+			}
+			if (value instanceof Double) {
+				return FLOAT8;
+			}
+			if (value instanceof Float) {
+				return FLOAT4;
+			}
+			if (value instanceof BigDecimal || value instanceof BigInteger) {
+				return NUMERIC;
+			}
+			if (value instanceof Boolean) {
+				return BOOL;
+			}
+			if (value instanceof byte[]) {
+				return BYTEA;
+			}
+			if (value instanceof Timestamp || value instanceof LocalDateTime) {
+				return TIMESTAMP;
+			}
+			if (value instanceof Instant || value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+				return TIMESTAMPTZ;
+			}
+			if (value instanceof java.sql.Date || value instanceof LocalDate) {
+				return DATE;
+			}
+			if (value instanceof Time || value instanceof LocalTime) {
+				return TIME;
+			}
+			if (value instanceof java.util.UUID) {
+				return UUID;
+			}
+			return null;
+		}
+
+		/** The name of the matching column type. */
+		private final String columnType;
+	}
+
+	/** The signature at the start of the binary format. */
+	private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+	/** The count of seconds between the Java epoch and the PostgreSQL epoch (2000-01-01). */
+	private static final long POSTGRES_EPOCH_SECONDS = LocalDate.of(2000, 1, 1).toEpochDay() * 24 * 60 * 60;
+
+	/** The count of days between the Java epoch and the PostgreSQL epoch. */
+	private static final int POSTGRES_EPOCH_DAYS = (int) LocalDate.of(2000, 1, 1).toEpochDay();
+
+	private static final int MICROS_PER_SECOND = 1000000;
+
+	private static final int NANOS_PER_MICRO = 1000;
+
+	/** The count of decimal digits in one digit of a numeric value. */
+	private static final int NUMERIC_DIGIT_LENGTH = 4;
+
+	private static final short NUMERIC_NEGATIVE = 0x4000;
+
+	private static long toMicros(final long epochSecond, final int nanos) {
+		return (epochSecond - POSTGRES_EPOCH_SECONDS) * MICROS_PER_SECOND + nanos / NANOS_PER_MICRO;
+	}
+
+	/** The binary representation of each column, as found in the first value of that column. */
+	private final BinaryType[] columnTypes;
+
+	/** The encoded rows. */
+	private byte[] buffer = new byte[1 << 10];
+
+	/** The count of used bytes in the {@link #buffer}. */
+	@Getter
+	private int length;
+
+	/**
+	 * Creates a new encoder for the rows of the given table.
+	 *
+	 * @param table
+	 *            the table of the rows
+	 */
+	public CopyBinaryRowEncoder(final GeneratorTable table) {
+		super(table);
+		this.columnTypes = new BinaryType[getColumns().size()];
+	}
+
+	private void appendBytes(final byte[] bytes) {
+		appendInt(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, this.buffer, this.length, bytes.length);
+		this.length += bytes.length;
+	}
+
+	/**
+	 * Appends the header of the binary format, has to be called before the first row.
+	 */
+	public void appendHeader() {
+		ensureCapacity(SIGNATURE.length);
+		System.arraycopy(SIGNATURE, 0, this.buffer, this.length, SIGNATURE.length);
+		this.length += SIGNATURE.length;
+		// Flags
+		appendInt(0);
+		// Length of the header extension
+		appendInt(0);
+	}
+
+	private void appendInt(final int value) {
+		ensureCapacity(Integer.BYTES);
+		this.buffer[this.length++] = (byte) (value >>> 24);
+		this.buffer[this.length++] = (byte) (value >>> 16);
+		this.buffer[this.length++] = (byte) (value >>> 8);
+		this.buffer[this.length++] = (byte) value;
+	}
+
+	private void appendLong(final long value) {
+		appendInt((int) (value >>> 32));
+		appendInt((int) value);
+	}
+
+	private void appendNumeric(final BigDecimal value) {
+		// Rare enough to use the plain string of the number
+		final String plain = value.abs().toPlainString();
+		final int point = plain.indexOf('.');
+		final String integerPart = point < 0 ? plain : plain.substring(0, point);
+		final String fractionPart = point < 0 ? "" : plain.substring(point + 1);
+
+		// Align both parts to groups of four decimal digits around the decimal point
+		final int integerGroups = (integerPart.length() + NUMERIC_DIGIT_LENGTH - 1) / NUMERIC_DIGIT_LENGTH;
+		final int fractionGroups = (fractionPart.length() + NUMERIC_DIGIT_LENGTH - 1) / NUMERIC_DIGIT_LENGTH;
+		final short[] digits = new short[integerGroups + fractionGroups];
+		final int integerOffset = integerGroups * NUMERIC_DIGIT_LENGTH - integerPart.length();
+		for (int i = 0; i < integerPart.length(); i++) {
+			final int pos = integerOffset + i;
+			digits[pos / NUMERIC_DIGIT_LENGTH] = (short) (digits[pos / NUMERIC_DIGIT_LENGTH] * 10
+					+ integerPart.charAt(i) - '0');
+		}
+		for (int i = 0; i < fractionGroups * NUMERIC_DIGIT_LENGTH; i++) {
+			final int group = integerGroups + i / NUMERIC_DIGIT_LENGTH;
+			digits[group] = (short) (digits[group] * 10
+					+ (i < fractionPart.length() ? fractionPart.charAt(i) - '0' : 0));
+		}
+
+		// Strip zero digits at both ends
+		int first = 0;
+		while (first < digits.length && digits[first] == 0) {
+			first++;
+		}
+		int last = digits.length;
+		while (last > first && digits[last - 1] == 0) {
+			last--;
+		}
+
+		final int count = last - first;
+		appendInt(4 * Short.BYTES + count * Short.BYTES);
+		appendShort(count);
+		appendShort(count == 0 ? 0 : integerGroups - 1 - first);
+		appendShort(value.signum() < 0 ? NUMERIC_NEGATIVE : 0);
+		appendShort(Math.max(0, value.scale()));
+		for (int i = first; i < last; i++) {
+			appendShort(digits[i]);
+		}
+	}
+
+	private void appendShort(final int value) {
+		ensureCapacity(Short.BYTES);
+		this.buffer[this.length++] = (byte) (value >>> 8);
+		this.buffer[this.length++] = (byte) value;
+	}
+
+	private void appendString(final String value) {
+		final int valueLength = value.length();
+		// Reserve enough space for the length and the case that every character needs three bytes
+		ensureCapacity(Integer.BYTES + valueLength * 3);
+		final int lengthPos = this.length;
+		final byte[] target = this.buffer;
+		int pos = lengthPos + Integer.BYTES;
+		for (int i = 0; i < valueLength; i++) {
+			final char c = value.charAt(i);
+			if (c < 0x80) {
+				target[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				target[pos++] = (byte) (0xC0 | c >> 6);
+				target[pos++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < valueLength
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				target[pos++] = (byte) (0xF0 | codePoint >> 18);
+				target[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+				target[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+				target[pos++] = (byte) (0x80 | codePoint & 0x3F);
+			} else {
+				target[pos++] = (byte) (0xE0 | c >> 12);
+				target[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+				target[pos++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		this.length = lengthPos;
+		appendInt(pos - lengthPos - Integer.BYTES);
+		this.length = pos;
+	}
+
+	/**
+	 * Appends the trailer of the binary format, has to be called after the last row.
+	 */
+	public void appendTrailer() {
+		appendShort(-1);
+	}
+
+	@Override
+	protected void appendValue(final int column, final Object value) {
+		if (value == null) {
+			appendInt(-1);
+			return;
+		}
+		checkType(column, value);
+		if (value instanceof String) {
+			appendString((String) value);
+		} else if (value instanceof Character) {
+			appendString(value.toString());
+		} else if (value instanceof Long) {
+			appendInt(Long.BYTES);
+			appendLong((Long) value);
+		} else if (value instanceof Integer) {
+			appendInt(Integer.BYTES);
+			appendInt((Integer) value);
+		} else if (value instanceof Short || value instanceof Byte) {
+			appendInt(Short.BYTES);
+			appendShort(((Number) value).shortValue());
+		} else if (value instanceof Double) {
+			appendInt(Long.BYTES);
+			appendLong(Double.doubleToLongBits((Double) value));
+		} else if (value instanceof Float) {
+			appendInt(Integer.BYTES);
+			appendInt(Float.floatToIntBits((Float) value));
+		} else if (value instanceof BigDecimal) {
+			appendNumeric((BigDecimal) value);
+		} else if (value instanceof BigInteger) {
+			appendNumeric(new BigDecimal((BigInteger) value));
+		} else if (value instanceof Boolean) {
+			appendInt(1);
+			ensureCapacity(1);
+			this.buffer[this.length++] = (byte) ((Boolean) value ? 1 : 0);
+		} else if (value instanceof byte[]) {
+			appendBytes((byte[]) value);
+		} else if (value instanceof Timestamp || value instanceof LocalDateTime) {
+			final LocalDateTime dateTime = value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime()
+					: (LocalDateTime) value;
+			appendInt(Long.BYTES);
+			appendLong(toMicros(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano()));
+		} else if (value instanceof Instant || value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+			final Instant instant = value instanceof Instant ? (Instant) value
+					: value instanceof OffsetDateTime ? ((OffsetDateTime) value).toInstant()
+							: ((ZonedDateTime) value).toInstant();
+			appendInt(Long.BYTES);
+			appendLong(toMicros(instant.getEpochSecond(), instant.getNano()));
+		} else if (value instanceof java.sql.Date || value instanceof LocalDate) {
+			final LocalDate date = value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate()
+					: (LocalDate) value;
+			appendInt(Integer.BYTES);
+			appendInt((int) date.toEpochDay() - POSTGRES_EPOCH_DAYS);
+		} else if (value instanceof Time || value instanceof LocalTime) {
+			final LocalTime time = value instanceof Time ? ((Time) value).toLocalTime() : (LocalTime) value;
+			appendInt(Long.BYTES);
+			appendLong(time.toNanoOfDay() / NANOS_PER_MICRO);
+		} else {
+			final UUID uuid = (UUID) value;
+			appendInt(2 * Long.BYTES);
+			appendLong(uuid.getMostSignificantBits());
+			appendLong(uuid.getLeastSignificantBits());
+		}
+	}
+
+	/**
+	 * Ensures that the given value has a binary representation and that it is the same as for all previous values of
+	 * the column.
+	 *
+	 * The server would reject a value with a different representation - or even worse: interpret the bytes in a
+	 * different way.
+	 */
+	private void checkType(final int column, final Object value) {
+		final BinaryType type = BinaryType.of(value);
+		if (type == null) {
+			throw new ModelException("Can't encode " + value.getClass().getName() + " of " + getTable().getName()
+					+ '.' + getColumns().get(column).getName() + " in the binary format");
+		}
+		if (this.columnTypes[column] == null) {
+			this.columnTypes[column] = type;
+		} else if (this.columnTypes[column] != type) {
+			throw new ModelException("Can't encode " + value.getClass().getName() + " of " + getTable().getName() + '.'
+					+ getColumns().get(column).getName() + " in the binary format, as previous values were encoded as "
+					+ this.columnTypes[column].getColumnType());
+		}
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		this.length = 0;
+	}
+
+	/**
+	 * Creates an input stream for the encoded rows, without copying the buffer.
+	 *
+	 * The stream is only valid until the next row is encoded or this encoder is {@link #clear() cleared}.
+	 *
+	 * @return the stream of all encoded rows
+	 */
+	public InputStream createInputStream() {
+		return new ByteArrayInputStream(this.buffer, 0, this.length);
+	}
+
+	@Override
+	protected void endRow() {
+		// Nothing to do in the binary format
+	}
+
+	private void ensureCapacity(final int additionalLength) {
+		final int requiredLength = this.length + additionalLength;
+		if (requiredLength > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(requiredLength, this.buffer.length * 2));
+		}
+	}
+
+	@Override
+	protected void startRow(final int columnCount) {
+		appendShort(columnCount);
+	}
+
+	/**
+	 * Writes all encoded bytes to the given stream and {@link #clear() clears} this encoder.
+	 *
+	 * @param output
+	 *            the target of the rows
+	 * @throws IOException
+	 *             if the stream throws one
+	 */
+	public void writeTo(final OutputStream output) throws IOException {
+		output.write(this.buffer, 0, this.length);
+		clear();
+	}
+
+}
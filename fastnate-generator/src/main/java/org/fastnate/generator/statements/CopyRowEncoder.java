@@ -0,0 +1,325 @@
+package org.fastnate.generator.statements;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import org.fastnate.generator.context.GeneratorTable;
+
+import lombok.Getter;
+
+/**
+ * Encodes the rows of insert statements in the text format of the "COPY" statement of PostgreSQL.
+ *
+ * All rows are appended to a reusable character buffer. Strings are escaped in a single pass and numbers, booleans and
+ * dates are written without any intermediate string.
+ *
+ * @author Tobias Liefke
+ */
+public class CopyRowEncoder extends AbstractCopyRowEncoder {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final int MAX_ENCODED_YEAR = 9999;
+
+	private static final int MAX_NANOS_DIGITS = 9;
+
+	/** The encoded rows. */
+	private char[] buffer = new char[1 << 10];
+
+	/** The count of used characters in the {@link #buffer}. */
+	@Getter
+	private int length;
+
+	/**
+	 * Creates a new encoder for the rows of the given table.
+	 *
+	 * @param table
+	 *            the table of the rows
+	 */
+	public CopyRowEncoder(final GeneratorTable table) {
+		super(table);
+	}
+
+	/**
+	 * Appends a single character to the current row.
+	 *
+	 * @param c
+	 *            the character
+	 */
+	protected void append(final char c) {
+		ensureCapacity(1);
+		this.buffer[this.length++] = c;
+	}
+
+	/**
+	 * Appends a string to the current row, without any escaping.
+	 *
+	 * @param value
+	 *            the string
+	 */
+	protected void append(final String value) {
+		final int valueLength = value.length();
+		ensureCapacity(valueLength);
+		value.getChars(0, valueLength, this.buffer, this.length);
+		this.length += valueLength;
+	}
+
+	/**
+	 * Appends a boolean value to the current row.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	protected void appendBoolean(final boolean value) {
+		append(value ? 't' : 'f');
+	}
+
+	/**
+	 * Appends a binary value to the current row.
+	 *
+	 * @param bytes
+	 *            the value
+	 */
+	protected void appendBytes(final byte[] bytes) {
+		// Hex format of bytea, with escaped backslash
+		append("\\\\x");
+		appendHex(bytes);
+	}
+
+	private void appendDate(final LocalDate date, final Object value) {
+		final int year = date.getYear();
+		if (year < 0 || year > MAX_ENCODED_YEAR) {
+			appendString(value.toString());
+		} else {
+			appendDigits(year, 4);
+			append('-');
+			appendDigits(date.getMonthValue(), 2);
+			append('-');
+			appendDigits(date.getDayOfMonth(), 2);
+		}
+	}
+
+	private void appendDateTime(final LocalDateTime dateTime, final Object value) {
+		final int year = dateTime.getYear();
+		if (year < 0 || year > MAX_ENCODED_YEAR) {
+			appendString(value.toString());
+		} else {
+			appendDate(dateTime.toLocalDate(), value);
+			append(' ');
+			appendTime(dateTime.toLocalTime());
+		}
+	}
+
+	/**
+	 * Appends a positive number with leading zeros.
+	 */
+	private void appendDigits(final int value, final int digits) {
+		ensureCapacity(digits);
+		int remaining = value;
+		for (int i = this.length + digits - 1; i >= this.length; i--) {
+			this.buffer[i] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		}
+		this.length += digits;
+	}
+
+	private void appendEscaped(final String value) {
+		final int valueLength = value.length();
+		// Reserve enough space for the case that every character is escaped
+		ensureCapacity(valueLength * 2);
+		final char[] target = this.buffer;
+		int pos = this.length;
+		for (int i = 0; i < valueLength; i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+				case '\\':
+					target[pos++] = '\\';
+					target[pos++] = '\\';
+					break;
+				case '\n':
+					target[pos++] = '\\';
+					target[pos++] = 'n';
+					break;
+				case '\r':
+					target[pos++] = '\\';
+					target[pos++] = 'r';
+					break;
+				case '\t':
+					target[pos++] = '\\';
+					target[pos++] = 't';
+					break;
+				default:
+					target[pos++] = c;
+			}
+		}
+		this.length = pos;
+	}
+
+	/**
+	 * Appends the hex digits of the given bytes to the current row.
+	 *
+	 * @param bytes
+	 *            the bytes to encode
+	 */
+	protected void appendHex(final byte[] bytes) {
+		ensureCapacity(bytes.length * 2);
+		for (final byte b : bytes) {
+			this.buffer[this.length++] = HEX_DIGITS[b >> 4 & 0xF];
+			this.buffer[this.length++] = HEX_DIGITS[b & 0xF];
+		}
+	}
+
+	/**
+	 * Appends the representation of {@code null} to the current row.
+	 */
+	protected void appendNull() {
+		append("\\N");
+	}
+
+	private void appendNumber(final long value) {
+		if (value == Long.MIN_VALUE) {
+			append(Long.toString(value));
+			return;
+		}
+		long remaining = Math.abs(value);
+		int digits = 1;
+		for (long limit = 10; digits < 19 && remaining >= limit; limit *= 10) {
+			digits++;
+		}
+		final int signLength = value < 0 ? 1 : 0;
+		ensureCapacity(signLength + digits);
+		if (signLength > 0) {
+			this.buffer[this.length++] = '-';
+		}
+		for (int i = this.length + digits - 1; i >= this.length; i--) {
+			this.buffer[i] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		}
+		this.length += digits;
+	}
+
+	/**
+	 * Appends the separator between two values to the current row.
+	 */
+	protected void appendSeparator() {
+		append('\t');
+	}
+
+	/**
+	 * Appends a string value to the current row.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	protected void appendString(final String value) {
+		appendEscaped(value);
+	}
+
+	private void appendTime(final LocalTime time) {
+		appendDigits(time.getHour(), 2);
+		append(':');
+		appendDigits(time.getMinute(), 2);
+		append(':');
+		appendDigits(time.getSecond(), 2);
+		int nanos = time.getNano();
+		if (nanos > 0) {
+			int digits = MAX_NANOS_DIGITS;
+			while (nanos % 10 == 0) {
+				nanos /= 10;
+				digits--;
+			}
+			append('.');
+			appendDigits(nanos, digits);
+		}
+	}
+
+	@Override
+	protected void appendValue(final int column, final Object value) {
+		if (column > 0) {
+			appendSeparator();
+		}
+		if (value == null) {
+			appendNull();
+		} else if (value instanceof String) {
+			appendString((String) value);
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short
+				|| value instanceof Byte) {
+			appendNumber(((Number) value).longValue());
+		} else if (value instanceof Boolean) {
+			appendBoolean((Boolean) value);
+		} else if (value instanceof byte[]) {
+			appendBytes((byte[]) value);
+		} else if (value instanceof Timestamp) {
+			appendDateTime(((Timestamp) value).toLocalDateTime(), value);
+		} else if (value instanceof java.sql.Date) {
+			appendDate(((java.sql.Date) value).toLocalDate(), value);
+		} else if (value instanceof Time) {
+			appendTime(((Time) value).toLocalTime());
+		} else if (value instanceof LocalDateTime) {
+			appendDateTime((LocalDateTime) value, value);
+		} else if (value instanceof LocalDate) {
+			appendDate((LocalDate) value, value);
+		} else if (value instanceof LocalTime) {
+			appendTime((LocalTime) value);
+		} else {
+			// Floating point numbers, big numbers and any other temporal type
+			appendString(value.toString());
+		}
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		this.length = 0;
+	}
+
+	/**
+	 * Creates a reader for the encoded rows, without copying the buffer.
+	 *
+	 * The reader is only valid until the next row is encoded or this encoder is {@link #clear() cleared}.
+	 *
+	 * @return the reader for all encoded rows
+	 */
+	public Reader createReader() {
+		return new CharArrayReader(this.buffer, 0, this.length);
+	}
+
+	@Override
+	protected void endRow() {
+		append('\n');
+	}
+
+	private void ensureCapacity(final int additionalLength) {
+		final int requiredLength = this.length + additionalLength;
+		if (requiredLength > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(requiredLength, this.buffer.length * 2));
+		}
+	}
+
+	@Override
+	protected void startRow(final int columnCount) {
+		// Nothing to do in the text format
+	}
+
+	/**
+	 * Writes all encoded rows to the given writer and {@link #clear() clears} this encoder.
+	 *
+	 * @param writer
+	 *            the target of the rows
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	public void writeTo(final Writer writer) throws IOException {
+		writer.write(this.buffer, 0, this.length);
+		clear();
+	}
+
+}
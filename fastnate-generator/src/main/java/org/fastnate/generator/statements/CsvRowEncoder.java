@@ -0,0 +1,70 @@
+package org.fastnate.generator.statements;
+
+import org.fastnate.generator.context.GeneratorTable;
+
+/**
+ * Encodes the rows of insert statements as CSV (RFC 4180).
+ *
+ * Values are separated by commas and rows by CRLF. Strings are always quoted, to distinguish an empty string from
+ * {@code null}, which is written as empty unquoted value. Booleans are written as numbers and binary values as plain
+ * hex digits.
+ *
+ * @author Tobias Liefke
+ */
+public class CsvRowEncoder extends CopyRowEncoder {
+
+	private static final char QUOTE = '"';
+
+	/**
+	 * Creates a new encoder for the rows of the given table.
+	 *
+	 * @param table
+	 *            the table of the rows
+	 */
+	public CsvRowEncoder(final GeneratorTable table) {
+		super(table);
+	}
+
+	@Override
+	protected void appendBoolean(final boolean value) {
+		append(value ? '1' : '0');
+	}
+
+	@Override
+	protected void appendBytes(final byte[] bytes) {
+		appendHex(bytes);
+	}
+
+	@Override
+	protected void appendNull() {
+		// An empty unquoted value
+	}
+
+	@Override
+	protected void appendSeparator() {
+		append(',');
+	}
+
+	@Override
+	protected void appendString(final String value) {
+		append(QUOTE);
+		if (value.indexOf(QUOTE) < 0) {
+			append(value);
+		} else {
+			for (int i = 0; i < value.length(); i++) {
+				final char c = value.charAt(i);
+				if (c == QUOTE) {
+					append(QUOTE);
+				}
+				append(c);
+			}
+		}
+		append(QUOTE);
+	}
+
+	@Override
+	protected void endRow() {
+		append("\r\n");
+	}
+
+}
@@ -38,6 +38,23 @@ public class FileStatementsWriter extends AbstractStatementsWriter {
 	 */
 	public static final String OUTPUT_ENCODING_KEY = "fastnate.data.sql.output.encoding";
 
+	/**
+	 * {@link GeneratorContext#getSettings() Settings key} for the maximum count of rows in one insert statement, if the
+	 * writer is created from the context. If set to something below 2 (the default), every row is inserted with its own
+	 * statement.
+	 *
+	 * @see MultiRowInsertBuilder#setMaxRows(int)
+	 */
+	public static final String MAX_ROWS_PER_INSERT_KEY = "fastnate.data.sql.insert.max.rows";
+
+	/**
+	 * {@link GeneratorContext#getSettings() Settings key} for the maximum length of an insert statement with multiple
+	 * rows, if the writer is created from the context.
+	 *
+	 * @see MultiRowInsertBuilder#setMaxLength(int)
+	 */
+	public static final String MAX_INSERT_LENGTH_KEY = "fastnate.data.sql.insert.max.length";
+
 	/**
 	 * Ensures, that the parent directory of the given output file exists.
 	 * 
@@ -62,6 +79,10 @@ public class FileStatementsWriter extends AbstractStatementsWriter {
 	@Setter
 	private String statementSeparator = ";\n";
 
+	/** Combines consecutive insert statements, if configured. */
+	@Getter
+	private final MultiRowInsertBuilder multiRowInserts = new MultiRowInsertBuilder();
+
 	/** The count of written statements. */
 	@Getter
 	private int statementsCount;
@@ -96,7 +117,8 @@ public class FileStatementsWriter extends AbstractStatementsWriter {
 	 * Creates a new instance of {@link FileStatementsWriter}.
 	 *
 	 * The target file and its encoding are taken from the settings {@link #OUTPUT_FILE_KEY} and
-	 * {@link #OUTPUT_ENCODING_KEY}.
+	 * {@link #OUTPUT_ENCODING_KEY}, the combination of insert statements from {@link #MAX_ROWS_PER_INSERT_KEY} and
+	 * {@link #MAX_INSERT_LENGTH_KEY}.
 	 *
 	 * @param context
 	 *            the context of the generation (for lookup of the properties)
@@ -106,16 +128,22 @@ public class FileStatementsWriter extends AbstractStatementsWriter {
 	public FileStatementsWriter(final GeneratorContext context) throws FileNotFoundException {
 		this(new File(context.getSettings().getProperty(OUTPUT_FILE_KEY, "data.sql")),
 				Charset.forName(context.getSettings().getProperty(OUTPUT_ENCODING_KEY, "UTF-8")));
+		this.multiRowInserts.setMaxRows(Integer.parseInt(context.getSettings().getProperty(MAX_ROWS_PER_INSERT_KEY,
+				String.valueOf(this.multiRowInserts.getMaxRows()))));
+		this.multiRowInserts.setMaxLength(Integer.parseInt(context.getSettings().getProperty(MAX_INSERT_LENGTH_KEY,
+				String.valueOf(this.multiRowInserts.getMaxLength()))));
 	}
 
 	@Override
 	public void close() throws IOException {
+		writeMultiRowInsert();
 		this.writer.close();
 		log.info("{} statements written", this.statementsCount);
 	}
 
 	@Override
 	public void flush() throws IOException {
+		writeMultiRowInsert();
 		this.writer.flush();
 	}
 
@@ -128,16 +156,19 @@ public class FileStatementsWriter extends AbstractStatementsWriter {
 	 *             if the writer throws one
 	 */
 	public void write(final String statements) throws IOException {
+		writeMultiRowInsert();
 		this.writer.write(statements);
 	}
 
 	@Override
 	public void writeComment(final String comment) throws IOException {
+		writeMultiRowInsert();
 		this.writer.write("/* " + comment + " */\n");
 	}
 
 	@Override
 	public void writePlainStatement(final GeneratorDialect dialect, final String sql) throws IOException {
+		writeMultiRowInsert();
 		this.writer.write(sql);
 		if (!sql.endsWith(this.statementSeparator)) {
 			this.writer.write(this.statementSeparator);
@@ -145,16 +176,39 @@ public class FileStatementsWriter extends AbstractStatementsWriter {
 		this.statementsCount++;
 	}
 
+	/**
+	 * Writes the pending insert statement with multiple rows, if any.
+	 *
+	 * @throws IOException
+	 *             if the writer throws one
+	 */
+	private void writeMultiRowInsert() throws IOException {
+		writeSql(this.multiRowInserts.finish());
+	}
+
 	@Override
 	public void writeSectionSeparator() throws IOException {
+		writeMultiRowInsert();
 		this.writer.write('\n');
 	}
 
+	private void writeSql(final String sql) throws IOException {
+		if (sql != null) {
+			this.writer.write(sql);
+			this.writer.write(this.statementSeparator);
+			this.statementsCount++;
+		}
+	}
+
 	@Override
 	public void writeStatement(final EntityStatement statement) throws IOException {
-		this.writer.write(statement.toSql());
-		this.writer.write(this.statementSeparator);
-		this.statementsCount++;
+		if (this.multiRowInserts.accepts(statement)) {
+			writeSql(this.multiRowInserts.append((InsertStatement) statement));
+		} else {
+			writeMultiRowInsert();
+			writeSql(statement.toSql());
+		}
+		releaseStatement(statement);
 	}
 
 }
@@ -0,0 +1,109 @@
+package org.fastnate.generator.statements;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.stream.Collectors;
+
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.dialect.GeneratorDialect;
+
+/**
+ * Implementation of a {@link StatementsWriter} that writes CSV files for each table, and references them in
+ * "INSERT INTO ... SELECT * FROM CSVREAD(...)" statements of H2.
+ *
+ * H2 converts the strings of the CSV file into the types of the columns. As there is no conversion from a hex string
+ * into a binary value, rows with binary values are written as plain statements, like rows with any other expression
+ * that is not a {@link PrimitiveColumnExpression primitive value}.
+ *
+ * @author Tobias Liefke
+ */
+public class H2BulkWriter extends AbstractBulkWriter<AbstractBulkWriter.TextBulkFile> {
+
+	/**
+	 * Creates a new instance for a SQL file.
+	 *
+	 * The SQL file and the encoding are taken from the settings. All bulk files will end up in the same directory as the
+	 * SQL file.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @throws FileNotFoundException
+	 *             if the directory is not available
+	 */
+	public H2BulkWriter(final GeneratorContext context) throws FileNotFoundException {
+		this(context, new File(context.getSettings().getProperty(OUTPUT_FILE_KEY, "data.sql")),
+				Charset.forName(context.getSettings().getProperty(OUTPUT_ENCODING_KEY, "UTF-8")));
+	}
+
+	/**
+	 * Creates a new instance for a SQL file.
+	 *
+	 * All bulk files will end up in the same directory as the given file.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param sqlFile
+	 *            the file that is feeded with all plain statements
+	 * @param encoding
+	 *            the encoding of all written files
+	 * @throws FileNotFoundException
+	 *             if the directory is not available
+	 */
+	public H2BulkWriter(final GeneratorContext context, final File sqlFile, final Charset encoding)
+			throws FileNotFoundException {
+		this(context, ensureDirectoryExists(sqlFile).getAbsoluteFile().getParentFile(),
+				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile), encoding)), encoding);
+		getGeneratedFiles().add(sqlFile);
+	}
+
+	/**
+	 * Creates a new instance of {@link H2BulkWriter}.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param directory
+	 *            the directory for the CSV files
+	 * @param writer
+	 *            the SQL file which contains the plain and the "CSVREAD" statements
+	 * @param encoding
+	 *            The encoding of the CSV files.
+	 */
+	public H2BulkWriter(final GeneratorContext context, final File directory, final Writer writer,
+			final Charset encoding) {
+		super(context, directory, writer, encoding);
+	}
+
+	@Override
+	protected TextBulkFile createBulkFile(final File file, final InsertStatement insert) throws IOException {
+		return new TextBulkFile(file, new CsvRowEncoder(insert.getTable()), getEncoding());
+	}
+
+	@Override
+	protected String createImportStatement(final TextBulkFile bulkFile, final GeneratorDialect dialect) {
+		final CopyRowEncoder rows = bulkFile.getRows();
+		return rows.appendColumnNames(new StringBuilder("INSERT INTO ").append(bulkFile.getTable().getQualifiedName())
+				.append(" (")).append(") SELECT * FROM CSVREAD(")
+				.append(dialect.quoteString(bulkFile.getFile().getAbsolutePath())).append(", ")
+				.append(dialect.quoteString(rows.getColumns().stream().map(GeneratorColumn::getUnquotedName)
+						.collect(Collectors.joining(","))))
+				.append(", ").append(dialect.quoteString("charset=" + getEncoding().name())).append(')').toString();
+	}
+
+	@Override
+	protected String getFileExtension() {
+		return ".csv";
+	}
+
+	@Override
+	protected boolean isBulkRow(final InsertStatement insert) {
+		return super.isBulkRow(insert) && !hasBinaryValue(insert);
+	}
+
+}
@@ -8,7 +8,6 @@ import java.io.OutputStream;
 import java.time.Duration;
 import java.time.temporal.Temporal;
 import java.util.Date;
-import java.util.Map.Entry;
 import java.util.stream.Stream;
 
 import javax.xml.stream.XMLOutputFactory;
@@ -17,7 +16,6 @@ import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.commons.lang3.time.FastDateFormat;
-import org.fastnate.generator.context.GeneratorColumn;
 import org.fastnate.generator.context.GeneratorContext;
 import org.fastnate.generator.dialect.GeneratorDialect;
 import org.fastnate.generator.dialect.H2Dialect;
@@ -391,7 +389,7 @@ public class LiquibaseStatementsWriter extends AbstractStatementsWriter {
 		if (statement instanceof InsertStatement) {
 			try {
 				final InsertStatement insert = (InsertStatement) statement;
-				if (insert.getValues().isEmpty()) {
+				if (insert.getValueCount() == 0) {
 					writePlainStatement(null, insert.toSql());
 				} else {
 					ensureChangeSetStarted();
@@ -419,9 +417,7 @@ public class LiquibaseStatementsWriter extends AbstractStatementsWriter {
 
 				this.writer.writeCharacters("\n\t\t\t");
 				this.writer.writeStartElement("where");
-				this.writer.writeCharacters(update.getIdColumn().getQualifiedName());
-				this.writer.writeCharacters(" = ");
-				this.writer.writeCharacters(update.getIdValue().toSql());
+				this.writer.writeCharacters(update.appendIdCondition(new StringBuilder()).toString());
 				this.writer.writeEndElement();
 
 				this.writer.writeCharacters("\n\t\t");
@@ -432,6 +428,7 @@ public class LiquibaseStatementsWriter extends AbstractStatementsWriter {
 		} else {
 			writePlainStatement(null, statement.toSql());
 		}
+		releaseStatement(statement);
 	}
 
 	private void writeString(final ColumnExpression expression, final String value) throws XMLStreamException {
@@ -452,11 +449,12 @@ public class LiquibaseStatementsWriter extends AbstractStatementsWriter {
 			this.writer.writeAttribute("schemaName", insert.getTable().getSchema());
 		}
 		this.writer.writeAttribute("tableName", insert.getTable().getUnquotedName());
-		for (final Entry<GeneratorColumn, ColumnExpression> entry : insert.getValues().entrySet()) {
+		for (int i = 0; i < insert.getValueCount(); i++) {
+			final int index = insert.getColumnIndex(i);
 			this.writer.writeCharacters("\n\t\t\t");
 			this.writer.writeEmptyElement("column");
-			this.writer.writeAttribute("name", entry.getKey().getUnquotedName());
-			writeColumnExpression(entry.getValue());
+			this.writer.writeAttribute("name", insert.getColumn(index).getUnquotedName());
+			writeColumnExpression(insert.getValue(index));
 		}
 	}
 
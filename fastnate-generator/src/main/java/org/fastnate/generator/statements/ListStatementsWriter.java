@@ -15,8 +15,37 @@ public class ListStatementsWriter extends AbstractStatementsWriter {
 	@Getter
 	private final List<String> statements = new ArrayList<>();
 
+	/** Combines consecutive insert statements, if configured. */
+	@Getter
+	private final MultiRowInsertBuilder multiRowInserts = new MultiRowInsertBuilder();
+
+	private void addStatement(final String sql) {
+		if (sql != null) {
+			this.statements.add(sql);
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * Adds any pending insert statement with multiple rows to the {@link #getStatements() statements}.
+	 */
+	@Override
+	public void flush() {
+		addStatement(this.multiRowInserts.finish());
+	}
+
 	@Override
 	public void writeStatement(final EntityStatement statement) {
-		this.statements.add(statement.toSql());
+		if (this.multiRowInserts.accepts(statement)) {
+			addStatement(this.multiRowInserts.append((InsertStatement) statement));
+		} else {
+			flush();
+			addStatement(statement.toSql());
+		}
+		releaseStatement(statement);
 	}
 }
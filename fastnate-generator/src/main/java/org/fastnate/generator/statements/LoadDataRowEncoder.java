@@ -0,0 +1,36 @@
+package org.fastnate.generator.statements;
+
+import org.fastnate.generator.context.GeneratorTable;
+
+/**
+ * Encodes the rows of insert statements for the "LOAD DATA INFILE" statement of MySQL.
+ *
+ * Uses the default format of MySQL, which is compatible to the text format of the "COPY" statement of PostgreSQL:
+ * Columns are separated by tabs, rows by newlines and special characters are escaped with a backslash. Only booleans
+ * are written as numbers and binary values as plain hex digits, which need to be converted with {@code UNHEX}.
+ *
+ * @author Tobias Liefke
+ */
+public class LoadDataRowEncoder extends CopyRowEncoder {
+
+	/**
+	 * Creates a new encoder for the rows of the given table.
+	 *
+	 * @param table
+	 *            the table of the rows
+	 */
+	public LoadDataRowEncoder(final GeneratorTable table) {
+		super(table);
+	}
+
+	@Override
+	protected void appendBoolean(final boolean value) {
+		append(value ? '1' : '0');
+	}
+
+	@Override
+	protected void appendBytes(final byte[] bytes) {
+		appendHex(bytes);
+	}
+
+}
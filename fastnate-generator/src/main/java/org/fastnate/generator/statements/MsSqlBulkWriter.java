@@ -0,0 +1,183 @@
+package org.fastnate.generator.statements;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+
+import lombok.Getter;
+
+/**
+ * Implementation of a {@link StatementsWriter} that writes CSV files for each table, and references them in bulk imports
+ * of SQL Server.
+ *
+ * A "BULK INSERT" maps the fields of a data file to the columns of a table by their position in the table, which is
+ * unknown during the generation. That's why every data file gets a format file with the names of the fields, and is
+ * imported with "INSERT INTO ... SELECT ... FROM OPENROWSET(BULK ...)", which uses the same bulk load as "BULK INSERT".
+ * The CSV format needs at least SQL Server 2017.
+ *
+ * As the fields are imported as strings, rows with binary values are written as plain statements, like rows with any
+ * other expression that is not a {@link PrimitiveColumnExpression primitive value}.
+ *
+ * @author Tobias Liefke
+ */
+public class MsSqlBulkWriter extends AbstractBulkWriter<MsSqlBulkWriter.FormattedBulkFile> {
+
+	/**
+	 * A CSV file with its format file.
+	 */
+	@Getter
+	protected static final class FormattedBulkFile extends AbstractBulkWriter.TextBulkFile {
+
+		/** The format file, which contains the names of the fields. */
+		private final File formatFile;
+
+		FormattedBulkFile(final File file, final GeneratorTable table, final Charset encoding) throws IOException {
+			super(file, new CsvRowEncoder(table), encoding);
+			final String fileName = file.getName();
+			this.formatFile = new File(file.getParentFile(),
+					fileName.substring(0, fileName.lastIndexOf('.')) + FORMAT_FILE_EXTENSION);
+			final List<GeneratorColumn> columns = getRows().getColumns();
+			try (Writer format = new BufferedWriter(
+					new OutputStreamWriter(new FileOutputStream(this.formatFile), StandardCharsets.US_ASCII))) {
+				format.write(FORMAT_FILE_VERSION + "\r\n" + columns.size() + "\r\n");
+				for (int i = 1; i <= columns.size(); i++) {
+					final String terminator = i < columns.size() ? "," : "\\r\\n";
+					format.write(i + "\tSQLCHAR\t0\t0\t\"" + terminator + "\"\t" + i + '\t' + getFieldName(i)
+							+ "\t\"\"\r\n");
+				}
+			}
+		}
+
+	}
+
+	private static final String FORMAT_FILE_EXTENSION = ".fmt";
+
+	private static final String FORMAT_FILE_VERSION = "14.0";
+
+	/**
+	 * Finds the code page of SQL Server for the given encoding.
+	 *
+	 * @param encoding
+	 *            the encoding of the bulk files
+	 * @return the code page or "RAW", if the encoding is unknown
+	 */
+	protected static String getCodePage(final Charset encoding) {
+		if (StandardCharsets.UTF_8.equals(encoding)) {
+			return "65001";
+		}
+		if (StandardCharsets.ISO_8859_1.equals(encoding)) {
+			return "28591";
+		}
+		if (encoding.name().startsWith("windows-")) {
+			return encoding.name().substring("windows-".length());
+		}
+		return "RAW";
+	}
+
+	private static String getFieldName(final int field) {
+		return "f" + field;
+	}
+
+	/**
+	 * Creates a new instance for a SQL file.
+	 *
+	 * The SQL file and the encoding are taken from the settings. All bulk files will end up in the same directory as the
+	 * SQL file.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @throws FileNotFoundException
+	 *             if the directory is not available
+	 */
+	public MsSqlBulkWriter(final GeneratorContext context) throws FileNotFoundException {
+		this(context, new File(context.getSettings().getProperty(OUTPUT_FILE_KEY, "data.sql")),
+				Charset.forName(context.getSettings().getProperty(OUTPUT_ENCODING_KEY, "UTF-8")));
+	}
+
+	/**
+	 * Creates a new instance for a SQL file.
+	 *
+	 * All bulk files will end up in the same directory as the given file.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param sqlFile
+	 *            the file that is feeded with all plain statements
+	 * @param encoding
+	 *            the encoding of all written files
+	 * @throws FileNotFoundException
+	 *             if the directory is not available
+	 */
+	public MsSqlBulkWriter(final GeneratorContext context, final File sqlFile, final Charset encoding)
+			throws FileNotFoundException {
+		this(context, ensureDirectoryExists(sqlFile).getAbsoluteFile().getParentFile(),
+				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile), encoding)), encoding);
+		getGeneratedFiles().add(sqlFile);
+	}
+
+	/**
+	 * Creates a new instance of {@link MsSqlBulkWriter}.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param directory
+	 *            the directory for the CSV and format files
+	 * @param writer
+	 *            the SQL file which contains the plain and the import statements
+	 * @param encoding
+	 *            The encoding of the CSV files.
+	 */
+	public MsSqlBulkWriter(final GeneratorContext context, final File directory, final Writer writer,
+			final Charset encoding) {
+		super(context, directory, writer, encoding);
+	}
+
+	@Override
+	protected FormattedBulkFile createBulkFile(final File file, final InsertStatement insert) throws IOException {
+		final FormattedBulkFile bulkFile = new FormattedBulkFile(file, insert.getTable(), getEncoding());
+		getGeneratedFiles().add(bulkFile.getFormatFile());
+		return bulkFile;
+	}
+
+	@Override
+	protected String createImportStatement(final FormattedBulkFile bulkFile, final GeneratorDialect dialect) {
+		final StringBuilder insert = bulkFile.getRows().appendColumnNames(
+				new StringBuilder("INSERT INTO ").append(bulkFile.getTable().getQualifiedName()).append(" ("));
+		insert.append(") SELECT ");
+		final int fieldCount = bulkFile.getRows().getColumns().size();
+		for (int i = 1; i <= fieldCount; i++) {
+			if (i > 1) {
+				insert.append(", ");
+			}
+			insert.append(getFieldName(i));
+		}
+		return insert.append(" FROM OPENROWSET(BULK ")
+				.append(dialect.quoteString(bulkFile.getFile().getAbsolutePath())).append(", FORMATFILE = ")
+				.append(dialect.quoteString(bulkFile.getFormatFile().getAbsolutePath()))
+				.append(", FORMAT = 'CSV', CODEPAGE = ").append(dialect.quoteString(getCodePage(getEncoding())))
+				.append(") AS bulk_rows").toString();
+	}
+
+	@Override
+	protected String getFileExtension() {
+		return ".csv";
+	}
+
+	@Override
+	protected boolean isBulkRow(final InsertStatement insert) {
+		return super.isBulkRow(insert) && !hasBinaryValue(insert);
+	}
+
+}
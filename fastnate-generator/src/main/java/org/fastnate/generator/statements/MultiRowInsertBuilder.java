@@ -0,0 +1,136 @@
+package org.fastnate.generator.statements;
+
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.fastnate.generator.statements.AbstractStatementsWriter.InsertStatement;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Combines consecutive insert statements into the same table to one statement with multiple rows, like
+ * {@code INSERT INTO table (a, b) VALUES (1, 2), (3, 4)}.
+ *
+ * Only insert statements with {@link PrimitiveColumnExpression primitive values} for the same columns are combined, and
+ * only if the {@link GeneratorDialect#isMultiRowInsertSupported() dialect supports} it. Every other statement finishes
+ * the current multi-row insert. The count of rows is limited by {@link GeneratorDialect#getMaxRowsPerInsert()} as
+ * well.
+ *
+ * @author Tobias Liefke
+ */
+public class MultiRowInsertBuilder {
+
+	/**
+	 * The maximum count of rows in one insert statement. If set to something below 2, no statements are combined (the
+	 * default).
+	 */
+	@Getter
+	@Setter
+	private int maxRows = 1;
+
+	/** The maximum length of one combined insert statement (unless a single row is longer). */
+	@Getter
+	@Setter
+	private int maxLength = 1 << 20;
+
+	/** The current statement. */
+	private final StringBuilder sql = new StringBuilder();
+
+	/** The table of the current statement. */
+	private GeneratorTable table;
+
+	/** The indices of the columns of the current statement, in the order of the column names. */
+	private int[] columnIndices = new int[0];
+
+	/** The count of columns of the current statement. */
+	private int columnCount;
+
+	/** The count of rows in the current statement. */
+	@Getter
+	private int rows;
+
+	/**
+	 * Indicates that the given statement may be added to a multi-row insert.
+	 *
+	 * @param statement
+	 *            the statement to check
+	 * @return {@code true} if the statement is an insert statement that may be {@link #append(InsertStatement)
+	 *         appended}
+	 */
+	public boolean accepts(final EntityStatement statement) {
+		if (this.maxRows < 2 || !(statement instanceof InsertStatement)) {
+			return false;
+		}
+		final InsertStatement insert = (InsertStatement) statement;
+		return !insert.isPlainExpressionAvailable() && insert.getValueCount() > 0
+				&& insert.getDialect().isMultiRowInsertSupported() && insert.getDialect().getMaxRowsPerInsert() > 1;
+	}
+
+	/**
+	 * Appends the row of the given insert statement to the current statement.
+	 *
+	 * If the row doesn't fit into the current statement, the current statement is finished and a new one is started.
+	 *
+	 * @param insert
+	 *            the statement that contains the row, has to be {@link #accepts(EntityStatement) accepted}
+	 * @return the SQL of the finished statement or {@code null} if the row was appended to the current statement
+	 */
+	public String append(final InsertStatement insert) {
+		final StringBuilder row = new StringBuilder("(");
+		insert.appendValues(row).append(')');
+
+		String finished = null;
+		if (this.rows > 0 && (this.rows >= this.maxRows
+				|| this.rows >= insert.getDialect().getMaxRowsPerInsert() || this.table != insert.getTable()
+				|| this.sql.length() + row.length() + 2 > this.maxLength || !hasSameColumns(insert))) {
+			finished = finish();
+		}
+
+		if (this.rows == 0) {
+			this.table = insert.getTable();
+			if (this.columnIndices.length < insert.getValueCount()) {
+				this.columnIndices = new int[insert.getValueCount()];
+			}
+			this.columnCount = insert.getValueCount();
+			for (int i = 0; i < this.columnCount; i++) {
+				this.columnIndices[i] = insert.getColumnIndex(i);
+			}
+			this.sql.append("INSERT INTO ").append(this.table.getQualifiedName()).append(" (");
+			insert.appendColumnNames(this.sql).append(") VALUES ");
+		} else {
+			this.sql.append(", ");
+		}
+		this.sql.append(row);
+		this.rows++;
+		return finished;
+	}
+
+	/**
+	 * Finishes the current statement.
+	 *
+	 * @return the SQL of the current statement or {@code null} if no row was appended since the last call
+	 */
+	public String finish() {
+		if (this.rows == 0) {
+			return null;
+		}
+		final String result = this.sql.toString();
+		this.sql.setLength(0);
+		this.table = null;
+		this.rows = 0;
+		return result;
+	}
+
+	private boolean hasSameColumns(final InsertStatement insert) {
+		if (insert.getValueCount() != this.columnCount) {
+			return false;
+		}
+		for (int i = 0; i < this.columnCount; i++) {
+			if (this.columnIndices[i] != insert.getColumnIndex(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
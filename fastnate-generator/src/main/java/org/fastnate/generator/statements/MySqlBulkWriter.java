@@ -0,0 +1,216 @@
+package org.fastnate.generator.statements;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fastnate.generator.context.GeneratorColumn;
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Implementation of a {@link StatementsWriter} that writes tab separated bulk files for each table, and references them
+ * in "LOAD DATA INFILE" statements of MySQL.
+ *
+ * Inserts that contain subselects (for example for relative IDs, which MySQL can't select from the same table in an
+ * insert) are written as plain statements, all other rows end up in the bulk files.
+ *
+ * Boolean and binary values can't be loaded directly into MySQL columns, so they are loaded into user variables and
+ * converted with a "SET" clause. As the variables are part of the import statement, a new bulk file is started if a row
+ * contains a boolean or binary value for a column that was not converted in the current file.
+ *
+ * @author Tobias Liefke
+ */
+public class MySqlBulkWriter extends AbstractBulkWriter<MySqlBulkWriter.LoadDataBulkFile> {
+
+	/**
+	 * An open bulk file of a table.
+	 */
+	protected static final class LoadDataBulkFile extends AbstractBulkWriter.TextBulkFile {
+
+		/** The conversion of each column of the rows, {@code null} if a column is loaded directly. */
+		private final String[] conversions;
+
+		LoadDataBulkFile(final File file, final GeneratorTable table, final Charset encoding,
+				final Map<GeneratorColumn, String> conversions) throws IOException {
+			super(file, new LoadDataRowEncoder(table), encoding);
+			this.conversions = getRows().getColumns().stream().map(conversions::get).toArray(String[]::new);
+		}
+
+		@Override
+		protected boolean isAccepting(final InsertStatement insert) {
+			final List<GeneratorColumn> columns = getRows().getColumns();
+			for (int i = 0; i < this.conversions.length; i++) {
+				if (this.conversions[i] == null && getConversion(insert.getValue(columns.get(i))) != null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * The name of the setting which indicates to read the bulk files from the client ("LOAD DATA LOCAL INFILE") instead
+	 * of the server.
+	 */
+	public static final String LOCAL_INFILE_KEY = "fastnate.data.sql.bulk.local";
+
+	private static final String BOOLEAN_CONVERSION = "CAST(%s AS UNSIGNED)";
+
+	private static final String BINARY_CONVERSION = "UNHEX(%s)";
+
+	/**
+	 * Finds the name of the MySQL character set for the given encoding.
+	 *
+	 * @param encoding
+	 *            the encoding of the bulk files
+	 * @return the MySQL name of the character set
+	 */
+	protected static String getCharacterSetName(final Charset encoding) {
+		if (StandardCharsets.UTF_8.equals(encoding)) {
+			return "utf8mb4";
+		}
+		if (StandardCharsets.ISO_8859_1.equals(encoding)) {
+			return "latin1";
+		}
+		if (StandardCharsets.US_ASCII.equals(encoding)) {
+			return "ascii";
+		}
+		return encoding.name().replace("-", "").toLowerCase();
+	}
+
+	private static String getConversion(final ColumnExpression value) {
+		if (value instanceof PrimitiveColumnExpression) {
+			final Object databaseValue = ((PrimitiveColumnExpression<?>) value).getDatabaseValue();
+			if (databaseValue instanceof Boolean) {
+				return BOOLEAN_CONVERSION;
+			}
+			if (databaseValue instanceof byte[]) {
+				return BINARY_CONVERSION;
+			}
+		}
+		return null;
+	}
+
+	/** The conversions of all columns with boolean or binary values that we've found up to now. */
+	private final Map<GeneratorColumn, String> columnConversions = new HashMap<>();
+
+	/**
+	 * Indicates to read the bulk files from the client ("LOAD DATA LOCAL INFILE") instead of the server.
+	 *
+	 * Changing this value affects only bulk files that are opened afterwards.
+	 */
+	@Getter
+	@Setter
+	private boolean localInfile;
+
+	/**
+	 * Creates a new instance for a SQL file.
+	 *
+	 * The SQL file and the encoding are taken from the settings. All bulk files will end up in the same directory as the
+	 * SQL file.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @throws FileNotFoundException
+	 *             if the directory is not available
+	 */
+	public MySqlBulkWriter(final GeneratorContext context) throws FileNotFoundException {
+		this(context, new File(context.getSettings().getProperty(OUTPUT_FILE_KEY, "data.sql")),
+				Charset.forName(context.getSettings().getProperty(OUTPUT_ENCODING_KEY, "UTF-8")));
+	}
+
+	/**
+	 * Creates a new instance for a SQL file.
+	 *
+	 * All bulk files will end up in the same directory as the given file.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param sqlFile
+	 *            the file that is feeded with all plain statements
+	 * @param encoding
+	 *            the encoding of all written files
+	 * @throws FileNotFoundException
+	 *             if the directory is not available
+	 */
+	public MySqlBulkWriter(final GeneratorContext context, final File sqlFile, final Charset encoding)
+			throws FileNotFoundException {
+		this(context, ensureDirectoryExists(sqlFile).getAbsoluteFile().getParentFile(),
+				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile), encoding)), encoding);
+		getGeneratedFiles().add(sqlFile);
+	}
+
+	/**
+	 * Creates a new instance of {@link MySqlBulkWriter}.
+	 *
+	 * @param context
+	 *            the current generation context
+	 * @param directory
+	 *            the directory for the bulk files
+	 * @param writer
+	 *            the SQL file which contains the plain and the "LOAD DATA" statements
+	 * @param encoding
+	 *            The encoding of the bulk files.
+	 */
+	public MySqlBulkWriter(final GeneratorContext context, final File directory, final Writer writer,
+			final Charset encoding) {
+		super(context, directory, writer, encoding);
+		this.localInfile = Boolean.parseBoolean(context.getSettings().getProperty(LOCAL_INFILE_KEY, "false"));
+	}
+
+	@Override
+	protected LoadDataBulkFile createBulkFile(final File file, final InsertStatement insert) throws IOException {
+		for (int i = 0; i < insert.getValueCount(); i++) {
+			final int index = insert.getColumnIndex(i);
+			final String conversion = getConversion(insert.getValue(index));
+			if (conversion != null) {
+				this.columnConversions.put(insert.getColumn(index), conversion);
+			}
+		}
+		return new LoadDataBulkFile(file, insert.getTable(), getEncoding(), this.columnConversions);
+	}
+
+	@Override
+	protected String createImportStatement(final LoadDataBulkFile bulkFile, final GeneratorDialect dialect) {
+		final StringBuilder load = new StringBuilder("LOAD DATA ");
+		if (this.localInfile) {
+			load.append("LOCAL ");
+		}
+		load.append("INFILE ").append(dialect.quoteString(bulkFile.getFile().getAbsolutePath()));
+		load.append(" INTO TABLE ").append(bulkFile.getTable().getQualifiedName());
+		load.append(" CHARACTER SET ").append(getCharacterSetName(getEncoding())).append(" (");
+		final List<GeneratorColumn> columns = bulkFile.getRows().getColumns();
+		final StringBuilder set = new StringBuilder();
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				load.append(", ");
+			}
+			final String conversion = bulkFile.conversions[i];
+			if (conversion == null) {
+				load.append(columns.get(i).getQualifiedName());
+			} else {
+				final String variable = "@v" + i;
+				load.append(variable);
+				set.append(set.length() == 0 ? " SET " : ", ").append(columns.get(i).getQualifiedName()).append(" = ")
+						.append(String.format(conversion, variable));
+			}
+		}
+		return load.append(')').append(set).toString();
+	}
+
+}
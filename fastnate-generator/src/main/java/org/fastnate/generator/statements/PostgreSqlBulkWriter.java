@@ -1,83 +1,122 @@
 package org.fastnate.generator.statements;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
-import org.fastnate.generator.context.ContextModelListener;
-import org.fastnate.generator.context.DefaultContextModelListener;
-import org.fastnate.generator.context.GeneratorColumn;
 import org.fastnate.generator.context.GeneratorContext;
 import org.fastnate.generator.context.GeneratorTable;
-import org.fastnate.generator.context.ModelException;
 import org.fastnate.generator.dialect.GeneratorDialect;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import lombok.Setter;
 
 /**
  * Implementation of a {@link StatementsWriter} that writes bulk text files for each table, and references them in "COPY
  * INTO".
  *
+ * The bulk files are written in the {@link CopyRowEncoder text format} by default. The
+ * {@link CopyBinaryRowEncoder binary format} is available as well, if the types of the columns match the types of the
+ * values.
+ *
  * @author Tobias Liefke
  */
-@Slf4j
-public class PostgreSqlBulkWriter extends FileStatementsWriter {
+public class PostgreSqlBulkWriter extends AbstractBulkWriter<PostgreSqlBulkWriter.CopyBulkFile> {
 
-	@RequiredArgsConstructor
-	private final class ContextListener extends DefaultContextModelListener {
+	/**
+	 * An open bulk file of a table.
+	 */
+	protected static final class CopyBulkFile extends AbstractBulkWriter.BulkFile {
 
-		@Override
-		public void foundColumn(final GeneratorColumn column) {
-			try {
-				// Close the writer of the new column, as this will change the file structure
-				closeBulkWriter(column.getTable());
-			} catch (final IOException e) {
-				throw new ModelException("Could not close the writer for " + column.getTable(), e);
-			}
-		}
+		/** The stream to the file. */
+		private final OutputStream output;
 
-	}
+		/** Writes the rows in the text format into the file, {@code null} for the binary format. */
+		private final Writer writer;
 
-	/** The current generation context. */
-	private final GeneratorContext context;
+		/** Encodes the rows in the text format, {@code null} for the binary format. */
+		private final CopyRowEncoder textRows;
 
-	/** The current generation context. */
-	private final ContextModelListener contextListener = new ContextListener();
+		/** Encodes the rows in the binary format, {@code null} for the text format. */
+		private final CopyBinaryRowEncoder binaryRows;
 
-	/** The directory for the bulk files. */
-	@Getter
-	private final File directory;
+		CopyBulkFile(final File file, final GeneratorTable table, final boolean binary, final Charset encoding)
+				throws IOException {
+			super(file, table);
+			this.output = new BufferedOutputStream(new FileOutputStream(file));
+			if (binary) {
+				this.writer = null;
+				this.textRows = null;
+				this.binaryRows = new CopyBinaryRowEncoder(table);
+				this.binaryRows.appendHeader();
+			} else {
+				this.writer = new OutputStreamWriter(this.output, encoding);
+				this.textRows = new CopyRowEncoder(table);
+				this.binaryRows = null;
+			}
+		}
 
-	/** The encoding of the bulk files. */
-	@Getter
-	private final Charset encoding;
+		@Override
+		protected void close() throws IOException {
+			if (this.binaryRows != null) {
+				this.binaryRows.appendTrailer();
+				this.binaryRows.writeTo(this.output);
+				this.output.close();
+			} else {
+				this.writer.close();
+			}
+		}
 
-	/** Remembers for each table which files we've already generated. */
-	private final Map<GeneratorTable, Integer> fileNumbers = new HashMap<>();
+		@Override
+		protected void flush() throws IOException {
+			if (this.binaryRows != null) {
+				this.binaryRows.writeTo(this.output);
+				this.output.flush();
+			} else {
+				this.writer.flush();
+			}
+		}
 
-	/** The open bulk files for each table. */
-	private final Map<GeneratorTable, Writer> bulkWriters = new HashMap<>();
+		AbstractCopyRowEncoder getEncoder() {
+			return this.binaryRows != null ? this.binaryRows : this.textRows;
+		}
 
-	/** All files generated by this writer. */
-	@Getter
-	private final List<File> generatedFiles = new ArrayList<>();
+		@Override
+		protected void write(final InsertStatement insert) throws IOException {
+			if (this.binaryRows != null) {
+				this.binaryRows.encode(insert);
+				this.binaryRows.writeTo(this.output);
+			} else {
+				this.textRows.encode(insert);
+				this.textRows.writeTo(this.writer);
+			}
+		}
+
+	}
+
+	/**
+	 * The name of the setting which indicates to write the bulk files in the binary format of PostgreSQL.
+	 *
+	 * Only possible if the type of each column matches the type of its values, see {@link CopyBinaryRowEncoder}.
+	 */
+	public static final String BINARY_FORMAT_KEY = "fastnate.data.sql.bulk.binary";
 
-	/** The count of written statements. */
+	/**
+	 * Indicates to write the bulk files in the binary format instead of the text format.
+	 *
+	 * Changing this value affects only bulk files that are opened afterwards.
+	 */
 	@Getter
-	private int statementsCount;
+	@Setter
+	private boolean binaryFormat;
 
 	/**
 	 * Creates a new instance for a SQL file with UTF-8 encoding.
@@ -128,7 +167,7 @@ public class PostgreSqlBulkWriter extends FileStatementsWriter {
 			throws FileNotFoundException {
 		this(context, ensureDirectoryExists(sqlFile).getAbsoluteFile().getParentFile(),
 				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile), encoding)), encoding);
-		this.generatedFiles.add(sqlFile);
+		getGeneratedFiles().add(sqlFile);
 	}
 
 	/**
@@ -145,130 +184,26 @@ public class PostgreSqlBulkWriter extends FileStatementsWriter {
 	 */
 	public PostgreSqlBulkWriter(final GeneratorContext context, final File directory, final Writer writer,
 			final Charset encoding) {
-		super(writer);
-		this.context = context;
-		this.context.addContextModelListener(this.contextListener);
-		this.directory = directory;
-		this.encoding = encoding;
-	}
-
-	@Override
-	public void close() throws IOException {
-		this.context.removeContextModelListener(this.contextListener);
-		closeBulkWriters();
-		getWriter().close();
-		log.info("{} statements and {} files written", this.statementsCount, this.generatedFiles.size());
-	}
-
-	/**
-	 * Closes the current writer of the given table (for example when the table structure has changed).
-	 *
-	 * @param table
-	 *            the table of the writer
-	 * @throws IOException
-	 *             if there was a problem when closing the writer
-	 */
-	public void closeBulkWriter(final GeneratorTable table) throws IOException {
-		@SuppressWarnings("resource")
-		final Writer writer = this.bulkWriters.remove(table);
-		if (writer != null) {
-			writer.close();
-		}
-	}
-
-	private void closeBulkWriters() throws IOException {
-		for (final Writer bulkWriter : this.bulkWriters.values()) {
-			bulkWriter.close();
-		}
-		this.bulkWriters.clear();
-	}
-
-	private Writer findBulkWriter(final GeneratorTable generatorTable, final GeneratorDialect dialect)
-			throws IOException {
-		Writer bulkWriter = this.bulkWriters.get(generatorTable);
-		if (bulkWriter == null) {
-			final Integer number = this.fileNumbers.get(generatorTable);
-			String fileName = generatorTable.getQualifiedName();
-			if (number == null) {
-				this.fileNumbers.put(generatorTable, 2);
-			} else {
-				fileName += '.' + number.toString();
-				this.fileNumbers.put(generatorTable, number + 1);
-			}
-			final File file = new File(this.directory, fileName + ".blk");
-			write("COPY " + generatorTable.getQualifiedName() + " ("
-					+ generatorTable.getColumns().keySet().stream().collect(Collectors.joining(", ")) + ") FROM "
-					+ dialect.quoteString(file.getAbsolutePath()) + " WITH ENCODING "
-					+ dialect.quoteString(this.encoding.name().toLowerCase()) + getStatementSeparator());
-			this.statementsCount++;
-			bulkWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), this.encoding));
-			this.bulkWriters.put(generatorTable, bulkWriter);
-			this.generatedFiles.add(file);
-		}
-		return bulkWriter;
+		super(context, directory, writer, encoding);
+		this.binaryFormat = Boolean.parseBoolean(context.getSettings().getProperty(BINARY_FORMAT_KEY, "false"));
 	}
 
 	@Override
-	public void flush() throws IOException {
-		for (final Writer bulkWriter : this.bulkWriters.values()) {
-			bulkWriter.flush();
-		}
-		super.flush();
+	protected CopyBulkFile createBulkFile(final File file, final InsertStatement insert) throws IOException {
+		return new CopyBulkFile(file, insert.getTable(), this.binaryFormat, getEncoding());
 	}
 
 	@Override
-	public void writePlainStatement(final GeneratorDialect dialect, final String sql) throws IOException {
-		writePlainStatement(sql);
-	}
-
-	private void writePlainStatement(final String sql) throws IOException {
-		if (!sql.startsWith("TRUNCATE ")) {
-			closeBulkWriters();
+	protected String createImportStatement(final CopyBulkFile bulkFile, final GeneratorDialect dialect) {
+		final StringBuilder copy = bulkFile.getEncoder().appendColumnNames(
+				new StringBuilder("COPY ").append(bulkFile.getTable().getQualifiedName()).append(" ("));
+		copy.append(") FROM ").append(dialect.quoteString(bulkFile.getFile().getAbsolutePath()));
+		if (bulkFile.binaryRows != null) {
+			copy.append(" WITH (FORMAT binary)");
+		} else {
+			copy.append(" WITH ENCODING ").append(dialect.quoteString(getEncoding().name().toLowerCase()));
 		}
-		write(sql);
-		if (!sql.endsWith(getStatementSeparator())) {
-			write(getStatementSeparator());
-		}
-		this.statementsCount++;
+		return copy.toString();
 	}
 
-	@Override
-	public void writeStatement(final EntityStatement stmt) throws IOException {
-		if (stmt instanceof InsertStatement) {
-			final InsertStatement insert = (InsertStatement) stmt;
-			if (!insert.isPlainExpressionAvailable()) {
-				// Let's use a bulk file
-				final Writer bulkWriter = findBulkWriter(insert.getTable(), insert.getDialect());
-				boolean tab = false;
-				for (final GeneratorColumn column : insert.getTable().getColumns().values()) {
-					if (!column.isAutoGenerated()) {
-						if (tab) {
-							bulkWriter.write('\t');
-						} else {
-							tab = true;
-						}
-						final PrimitiveColumnExpression<?> expression = (PrimitiveColumnExpression<?>) insert
-								.getValues().get(column);
-						if (expression == null) {
-							bulkWriter.write("\\N");
-						} else {
-							final Object value = expression.getDatabaseValue();
-							if (value == null) {
-								bulkWriter.write("\\N");
-							} else if (value instanceof String) {
-								bulkWriter.write(((String) value).replace("\\", "\\\\").replace("\n", "\\n")
-										.replace("\r", "\\r").replace("\t", "\\t"));
-							} else {
-								bulkWriter.write(value.toString());
-							}
-						}
-					}
-				}
-				bulkWriter.write('\n');
-				this.statementsCount++;
-				return;
-			}
-		}
-		writePlainStatement(stmt.toSql());
-	}
 }
@@ -0,0 +1,185 @@
+package org.fastnate.generator.statements;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.fastnate.generator.context.GeneratorContext;
+import org.fastnate.generator.context.GeneratorTable;
+import org.fastnate.generator.dialect.GeneratorDialect;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of a {@link StatementsWriter} that streams the rows of all inserts directly to a PostgreSQL database
+ * with "COPY ... FROM STDIN".
+ *
+ * Encodes the rows with a {@link CopyRowEncoder} like the {@link PostgreSqlBulkWriter}, but needs no access to the file
+ * system of the database server. The rows are collected per table and copied with one "COPY" per table, as soon as any
+ * other statement needs to be executed, a row could reference a row of a table that was copied later, or enough rows
+ * are pending. All other statements are executed like in the {@link ConnectedStatementsWriter}.
+ *
+ * Needs the PostgreSQL JDBC driver on the class path.
+ *
+ * @author Tobias Liefke
+ */
+@Slf4j
+public class PostgreSqlCopyWriter extends ConnectedStatementsWriter {
+
+	/** The maximum count of characters that are buffered for all tables, before we copy them into the database. */
+	private static final int MAX_PENDING_CHARACTERS = 1 << 22;
+
+	/** The API for "COPY" of the connection, initialized with the first row. */
+	private CopyManager copyManager;
+
+	/** The rows that are not copied up to now, for each table in the order of their first row. */
+	private final Map<GeneratorTable, CopyRowEncoder> pendingRows = new LinkedHashMap<>();
+
+	/** The count of characters in {@link #pendingRows}. */
+	private int pendingCharacters;
+
+	/** Indicates that we have passed statements to our super class, which are maybe not executed up to now. */
+	private boolean pendingStatements;
+
+	/** The count of rows that we have copied up to now. */
+	@Getter
+	private long copiedRows;
+
+	/**
+	 * Creates a new instance that copies to the given database connection.
+	 *
+	 * @param connection
+	 *            the connection to a PostgreSQL database
+	 * @param context
+	 *            contains the indices for initialization
+	 * @throws SQLException
+	 *             if the connection is invalid
+	 */
+	public PostgreSqlCopyWriter(final Connection connection, final GeneratorContext context) throws SQLException {
+		super(connection, context);
+	}
+
+	/**
+	 * Creates a new instance that copies to the database connection created from the properties in the context.
+	 *
+	 * @param context
+	 *            contains the properties and indices for initialization
+	 * @throws SQLException
+	 *             if the connection is invalid
+	 */
+	public PostgreSqlCopyWriter(final GeneratorContext context) throws SQLException {
+		super(context);
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		log.info("{} rows successfully copied", this.copiedRows);
+	}
+
+	@Override
+	protected void closeBatch() throws IOException {
+		copyPendingRows();
+		super.closeBatch();
+		this.pendingStatements = false;
+	}
+
+	private void copyPendingRows() throws IOException {
+		if (!this.pendingRows.isEmpty()) {
+			try {
+				if (this.copyManager == null) {
+					this.copyManager = getConnection().unwrap(PGConnection.class).getCopyAPI();
+				}
+				for (final CopyRowEncoder rows : this.pendingRows.values()) {
+					final String sql = rows.appendColumnNames(new StringBuilder("COPY ")
+							.append(rows.getTable().getQualifiedName()).append(" (")).append(") FROM STDIN").toString();
+					try {
+						this.copiedRows += this.copyManager.copyIn(sql, rows.createReader());
+					} catch (final SQLException e) {
+						throw new IOException("Could not execute " + sql, e);
+					}
+				}
+			} catch (final SQLException e) {
+				throw new IOException("Could not access the COPY API of the connection", e);
+			} finally {
+				this.pendingRows.clear();
+				this.pendingCharacters = 0;
+			}
+		}
+	}
+
+	/**
+	 * Creates a simple insert statement, as we don't need any prepared statement.
+	 */
+	@Override
+	public TableStatement createInsertStatement(final GeneratorDialect dialect, final GeneratorTable table) {
+		return createPooledInsertStatement(dialect, table);
+	}
+
+	@Override
+	public void writePlainStatement(final GeneratorDialect dialect, final String sql) throws IOException {
+		copyPendingRows();
+		super.writePlainStatement(dialect, sql);
+		this.pendingStatements = true;
+	}
+
+	/**
+	 * Adds the row of the given insert statement to the pending rows of its table.
+	 *
+	 * The rows of one table are copied en bloc, in the order of the first row of each table. That's why we have to copy
+	 * all pending rows first, if the row could reference a row of a table that has received its first row after the
+	 * table of the current row.
+	 *
+	 * @param insert
+	 *            the insert statement that contains only primitive values
+	 * @throws IOException
+	 *             if the database throws an exception
+	 */
+	private void writeRow(final InsertStatement insert) throws IOException {
+		if (this.pendingStatements) {
+			// The row may depend on the previous statements
+			super.closeBatch();
+			this.pendingStatements = false;
+		}
+
+		final GeneratorTable table = insert.getTable();
+		CopyRowEncoder rows = this.pendingRows.get(table);
+		if (rows != null && (rows.isOutdated() || isReferencingLaterTable(table, this.pendingRows.keySet()))) {
+			copyPendingRows();
+			rows = null;
+		}
+		if (rows == null) {
+			rows = new CopyRowEncoder(table);
+			this.pendingRows.put(table, rows);
+		}
+
+		final int length = rows.getLength();
+		rows.encode(insert);
+		releaseStatement(insert);
+		this.pendingCharacters += rows.getLength() - length;
+		if (this.pendingCharacters >= MAX_PENDING_CHARACTERS) {
+			copyPendingRows();
+		}
+	}
+
+	@Override
+	public void writeStatement(final EntityStatement stmt) throws IOException {
+		if (stmt instanceof InsertStatement) {
+			final InsertStatement insert = (InsertStatement) stmt;
+			if (!insert.isPlainExpressionAvailable() && insert.getValueCount() > 0) {
+				writeRow(insert);
+				return;
+			}
+		}
+		copyPendingRows();
+		super.writeStatement(stmt);
+		this.pendingStatements = true;
+		releaseStatement(stmt);
+	}
+
+}
@@ -0,0 +1,136 @@
+package org.fastnate.generator.statements;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fastnate.generator.dialect.GeneratorDialect;
+
+import lombok.Getter;
+
+/**
+ * A {@link StatementsWriter} that buffers all statements, until they are {@link #writeTo(StatementsWriter) written} to
+ * another writer.
+ *
+ * Used to generate the statements for independent entities in separate threads, while the target writer is only
+ * accessed by one thread. The insert and update statements are recreated by the target writer, to take any of its
+ * optimizations into account.
+ *
+ * @author Tobias Liefke
+ */
+public class StatementsBuffer extends AbstractStatementsWriter {
+
+	/**
+	 * A buffered plain statement, which remembers its dialect.
+	 */
+	@Getter
+	private static final class BufferedPlainStatement extends PlainStatement {
+
+		private final GeneratorDialect dialect;
+
+		BufferedPlainStatement(final GeneratorDialect dialect, final String sql) {
+			super(sql);
+			this.dialect = dialect;
+		}
+
+	}
+
+	/**
+	 * An action for the target writer.
+	 */
+	@FunctionalInterface
+	private interface BufferedAction {
+
+		void writeTo(StatementsWriter target) throws IOException;
+
+	}
+
+	/** All buffered statements, comments and section separators, in the order of their occurrence. */
+	private final List<BufferedAction> actions = new ArrayList<>();
+
+	@Override
+	public EntityStatement createPlainStatement(final GeneratorDialect dialect, final String sql) {
+		return new BufferedPlainStatement(dialect, sql);
+	}
+
+	/**
+	 * Indicates that nothing was written to this buffer since the last {@link #writeTo(StatementsWriter)}.
+	 *
+	 * @return {@code true} if the buffer contains no statement, comment or section separator
+	 */
+	public boolean isEmpty() {
+		return this.actions.isEmpty();
+	}
+
+	@Override
+	public void writeComment(final String comment) {
+		this.actions.add(target -> target.writeComment(comment));
+	}
+
+	private void writeCopy(final StatementsWriter target, final AbstractTableStatement statement,
+			final TableStatement copy) throws IOException {
+		for (int i = 0; i < statement.getValueCount(); i++) {
+			final int index = statement.getColumnIndex(i);
+			copy.setColumnValue(statement.getColumn(index), statement.getValue(index));
+		}
+		target.writeStatement(copy);
+	}
+
+	@Override
+	public void writePlainStatement(final GeneratorDialect dialect, final String sql) {
+		this.actions.add(target -> target.writePlainStatement(dialect, sql));
+	}
+
+	@Override
+	public void writeSectionSeparator() {
+		this.actions.add(StatementsWriter::writeSectionSeparator);
+	}
+
+	@Override
+	public void writeStatement(final EntityStatement statement) {
+		if (statement instanceof AbstractTableStatement) {
+			this.actions.add(target -> writeTableStatement(target, (AbstractTableStatement) statement));
+		} else if (statement instanceof BufferedPlainStatement) {
+			final BufferedPlainStatement plainStatement = (BufferedPlainStatement) statement;
+			writePlainStatement(plainStatement.getDialect(), plainStatement.toSql());
+		} else {
+			this.actions.add(target -> target.writeStatement(statement));
+		}
+	}
+
+	private void writeTableStatement(final StatementsWriter target, final AbstractTableStatement statement)
+			throws IOException {
+		if (!(statement instanceof UpdateStatement)) {
+			writeCopy(target, statement, target.createInsertStatement(statement.getDialect(), statement.getTable()));
+		} else {
+			final UpdateStatement update = (UpdateStatement) statement;
+			if (target instanceof AbstractStatementsWriter) {
+				writeCopy(target, statement, ((AbstractStatementsWriter) target).createUpdateStatement(
+						update.getDialect(), update.getTable(), update.getIdColumn(), update.getIdValues()));
+			} else {
+				// Other writers don't know updates of more than one row
+				for (final ColumnExpression idValue : update.getIdValues()) {
+					writeCopy(target, statement, target.createUpdateStatement(update.getDialect(),
+							update.getTable(), update.getIdColumn(), idValue));
+				}
+			}
+		}
+		releaseStatement(statement);
+	}
+
+	/**
+	 * Writes all buffered statements, comments and section separators to the given writer and clears this buffer.
+	 *
+	 * @param target
+	 *            the writer that receives the statements
+	 * @throws IOException
+	 *             if the target writer throws one
+	 */
+	public void writeTo(final StatementsWriter target) throws IOException {
+		for (final BufferedAction action : this.actions) {
+			action.writeTo(target);
+		}
+		this.actions.clear();
+	}
+
+}
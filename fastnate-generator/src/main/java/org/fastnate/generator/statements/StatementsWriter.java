@@ -123,6 +123,8 @@ public interface StatementsWriter extends Closeable {
 	/**
 	 * Writes the given statement to a file or database.
 	 *
+	 * The statement must not be used after it was written, as the writer may reuse it for one of the next statements.
+	 *
 	 * @param statement
 	 *            contains the values to write
 	 * @throws IOException
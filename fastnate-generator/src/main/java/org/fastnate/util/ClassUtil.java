@@ -1,5 +1,12 @@
 package org.fastnate.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
@@ -220,6 +227,116 @@ public final class ClassUtil {
 		return stackTrace[1].getMethodName();
 	}
 
+	/**
+	 * Converts the type of the given method handle to its generic form, where all parameters and the return value are
+	 * of type {@link Object} (except {@code void} return values).
+	 *
+	 * This allows to call {@link MethodHandle#invokeExact(Object...)} without knowing the actual types at compile time.
+	 *
+	 * @param handle
+	 *            the handle to convert
+	 * @return the handle with the generic type
+	 */
+	private static MethodHandle toGenericType(final MethodHandle handle) {
+		final MethodType type = handle.type();
+		final Class<?> returnType = type.returnType() == void.class ? void.class : Object.class;
+		return handle.asType(MethodType.genericMethodType(type.parameterCount()).changeReturnType(returnType));
+	}
+
+	private static boolean trySetAccessible(final AccessibleObject element) {
+		try {
+			return element.trySetAccessible();
+		} catch (final SecurityException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a method handle for the given method.
+	 *
+	 * The handle has a generic type: the target object is the first parameter (for non static methods), followed by
+	 * the parameters of the method. All of them are of type {@link Object}, as well as the return value (except for
+	 * {@code void} methods).
+	 *
+	 * @param method
+	 *            the method to call
+	 * @return the handle or {@code null} if the method is not accessible - in that case the caller has to fall back to
+	 *         reflection
+	 */
+	public static MethodHandle unreflect(final Method method) {
+		if (!trySetAccessible(method)) {
+			return null;
+		}
+		try {
+			return toGenericType(MethodHandles.lookup().unreflect(method));
+		} catch (final IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a method handle for the given constructor.
+	 *
+	 * The handle has a generic type: all parameters and the created instance are of type {@link Object}.
+	 *
+	 * @param constructor
+	 *            the constructor to call
+	 * @return the handle or {@code null} if the constructor is not accessible - in that case the caller has to fall
+	 *         back to reflection
+	 */
+	public static MethodHandle unreflectConstructor(final Constructor<?> constructor) {
+		if (!trySetAccessible(constructor)) {
+			return null;
+		}
+		try {
+			return toGenericType(MethodHandles.lookup().unreflectConstructor(constructor));
+		} catch (final IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a method handle that reads the given (non static) field.
+	 *
+	 * The handle has the generic type {@code (Object)Object}.
+	 *
+	 * @param field
+	 *            the field to read
+	 * @return the handle or {@code null} if the field is not accessible - in that case the caller has to fall back to
+	 *         reflection
+	 */
+	public static MethodHandle unreflectGetter(final Field field) {
+		if (!trySetAccessible(field)) {
+			return null;
+		}
+		try {
+			return toGenericType(MethodHandles.lookup().unreflectGetter(field));
+		} catch (final IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a method handle that writes the given (non static) field.
+	 *
+	 * The handle has the generic type {@code (Object,Object)void}.
+	 *
+	 * @param field
+	 *            the field to write
+	 * @return the handle or {@code null} if the field is not accessible - in that case the caller has to fall back to
+	 *         reflection
+	 */
+	public static MethodHandle unreflectSetter(final Field field) {
+		if (!trySetAccessible(field)) {
+			return null;
+		}
+		try {
+			return toGenericType(MethodHandles.lookup().unreflectSetter(field));
+		} catch (final IllegalAccessException e) {
+			return null;
+		}
+	}
+
 	private ClassUtil() {
 		// Helper class
 	}
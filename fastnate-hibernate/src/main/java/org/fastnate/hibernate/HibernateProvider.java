@@ -117,6 +117,15 @@ public class HibernateProvider implements JpaProvider {
 		return tableName + SequenceStyleGenerator.DEF_SEQUENCE_SUFFIX;
 	}
 
+	/**
+	 * Hibernate maps the ordinals of an enum to a "tinyint" resp. "smallint" column, unless there are too many enum
+	 * constants.
+	 */
+	@Override
+	public Class<? extends Number> getOrdinalType(final Class<?> enumClass) {
+		return enumClass.getEnumConstants().length <= Short.MAX_VALUE + 1 ? Short.class : Integer.class;
+	}
+
 	@Override
 	public void initialize(final Properties settings) {
 		if (!settings.containsKey(GeneratorContext.DIALECT_KEY)) {